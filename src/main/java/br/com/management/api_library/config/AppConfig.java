@@ -1,16 +1,30 @@
 package br.com.management.api_library.config;
 
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
 
 @Configuration
 public class AppConfig {
 
     @Bean
-    public WebClient webClient(WebClient.Builder builder) {
+    public WebClient webClient(WebClient.Builder builder,
+                               @Value("${google.books.api.connect-timeout:2s}") Duration connectTimeout,
+                               @Value("${google.books.api.response-timeout:5s}") Duration responseTimeout) {
+        // Sem timeouts, um Google lento segura a conexão (e quem espera por ela) indefinidamente
+        HttpClient httpClient = HttpClient.create()
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(responseTimeout);
+
         return builder
                 .baseUrl("https://www.googleapis.com/books/v1")
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
                 .build();
     }
-}
\ No newline at end of file
+}
@@ -36,7 +36,8 @@ import org.springframework.context.annotation.Configuration;
                 @Tag(name = "Autenticação", description = "Login e Tokens"),
                 @Tag(name = "Minha Estante", description = "Gerenciamento da leitura pessoal"),
                 @Tag(name = "Usuários", description = "Gestão de pessoas"),
-                @Tag(name = "Catálogo de Livros", description = "Gestão do acervo global")
+                @Tag(name = "Catálogo de Livros", description = "Gestão do acervo global"),
+                @Tag(name = "Monitoramento", description = "Métricas internas")
         }
 )
 public class OpenApiConfig {
@@ -0,0 +1,80 @@
+package br.com.management.api_library.config;
+
+import br.com.management.api_library.exception.TooManyRequestsException;
+import br.com.management.api_library.service.security.RateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+
+/**
+ * Limita cadastro e a pesquisa no Google Books por IP (e, na pesquisa, também pelo usuário logado).
+ * Roda dentro da cadeia do Spring Security, logo depois do SecurityFilter, para já enxergar o usuário autenticado.
+ * Os limites do login (por username e por IP) ficam no AuthController, que é quem lê o corpo da requisição.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final HandlerExceptionResolver exceptionResolver;
+    private final int registerPerIp;
+    private final int googleSearchPerIp;
+    private final int googleSearchPerUser;
+
+    public RateLimitFilter(RateLimiter rateLimiter, HandlerExceptionResolver exceptionResolver,
+                           int registerPerIp, int googleSearchPerIp, int googleSearchPerUser) {
+        this.rateLimiter = rateLimiter;
+        this.exceptionResolver = exceptionResolver;
+        this.registerPerIp = registerPerIp;
+        this.googleSearchPerIp = googleSearchPerIp;
+        this.googleSearchPerUser = googleSearchPerUser;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        RateLimiter.Decision decision = check(request);
+
+        if (!decision.allowed()) {
+            // Reaproveita o GlobalHandlerException para devolver o mesmo formato de erro (429 + Retry-After)
+            exceptionResolver.resolveException(request, response, null, new TooManyRequestsException(
+                    "Muitas requisições. Tente novamente em " + decision.retryAfterSeconds() + " segundo(s).",
+                    decision.retryAfterSeconds()));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private RateLimiter.Decision check(HttpServletRequest request) {
+        String path = request.getServletPath();
+        // getRemoteAddr já considera X-Forwarded-For quando server.forward-headers-strategy estiver configurado
+        String ip = request.getRemoteAddr();
+
+        if (HttpMethod.POST.matches(request.getMethod()) && path.equals("/auth/register")) {
+            return rateLimiter.tryAcquire("register:ip", ip, registerPerIp);
+        }
+        if (HttpMethod.GET.matches(request.getMethod()) && path.equals("/library_api/books/search-google")) {
+            RateLimiter.Decision byIp = rateLimiter.tryAcquire("google-search:ip", ip, googleSearchPerIp);
+            String username = authenticatedUsername();
+            if (!byIp.allowed() || username == null) {
+                return byIp;
+            }
+            return rateLimiter.tryAcquire("google-search:user", username, googleSearchPerUser);
+        }
+        return new RateLimiter.Decision(true, 0);
+    }
+
+    private static String authenticatedUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
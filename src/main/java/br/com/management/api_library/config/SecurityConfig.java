@@ -1,5 +1,11 @@
 package br.com.management.api_library.config;
 
+import br.com.management.api_library.service.security.HashingPasswordEncoder;
+import br.com.management.api_library.service.security.PasswordHashingExecutor;
+import br.com.management.api_library.service.security.RateLimiter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -13,6 +19,7 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
 
 @Configuration
 @EnableWebSecurity
@@ -25,7 +32,7 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, RateLimitFilter rateLimitFilter) throws Exception {
         http
                 .csrf(AbstractHttpConfigurer::disable) // Desativa CSRF
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
@@ -38,6 +45,9 @@ public class SecurityConfig {
                                 "/api-docs/**"
                         ).permitAll()
 
+                        // 2. MÉTRICAS INTERNAS -> Só ADMIN
+                        .requestMatchers("/library_api/admin/**").hasRole("ADMIN")
+
                         // 2. ENDPOINTS PÚBLICOS (Qualquer um acessa)
                         .requestMatchers(HttpMethod.POST, "/auth/login").permitAll() // Login
                         .requestMatchers(HttpMethod.POST, "/auth/register").permitAll() // NOVO: Registro Público
@@ -46,8 +56,13 @@ public class SecurityConfig {
                         // 3. GESTÃO DE USUÁRIOS (ADMINISTRAÇÃO)
                         // Criar usuário pela rota administrativa agora é só ADMIN
                         .requestMatchers(HttpMethod.POST, "/library_api/users").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/library_api/users/bulk").hasRole("ADMIN")
+                        // Exclusões em lote/segundo plano e o acompanhamento delas -> Só ADMIN
+                        .requestMatchers("/library_api/users/deletions/**").hasRole("ADMIN")
                         // Listar todos os usuários agora é só ADMIN
                         .requestMatchers(HttpMethod.GET, "/library_api/users").hasRole("ADMIN")
+                        // Exportar a base inteira de usuários -> Só ADMIN
+                        .requestMatchers(HttpMethod.GET, "/library_api/users/export").hasRole("ADMIN")
                         // Deletar usuário -> Só ADMIN (Isso impede que usuários apaguem uns aos outros)
                         .requestMatchers(HttpMethod.DELETE, "/library_api/users/**").hasRole("ADMIN")
                         // Alterar usuário -> Somente admin pode alterar todos e cada um altera o seu
@@ -59,6 +74,7 @@ public class SecurityConfig {
 
                         // 5. ADMINISTRAÇÃO DE LIVROS (Apenas Admin altera o catálogo)
                         .requestMatchers(HttpMethod.POST, "/library_api/books").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/library_api/books/isbn/batch").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/library_api/books/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/library_api/books/**").hasRole("ADMIN")
 
@@ -68,18 +84,40 @@ public class SecurityConfig {
                         // 7. QUALQUER OUTRA ROTA PRECISA DE LOGIN
                         .anyRequest().authenticated()
                 )
-                .addFilterBefore(securityFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(securityFilter, UsernamePasswordAuthenticationFilter.class)
+                // Depois do SecurityFilter, para poder limitar também pelo usuário autenticado
+                .addFilterAfter(rateLimitFilter, SecurityFilter.class);
 
         return http.build();
     }
 
+    @Bean
+    public RateLimitFilter rateLimitFilter(RateLimiter rateLimiter,
+                                           @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver,
+                                           @Value("${api.rate-limit.register.per-ip:10}") int registerPerIp,
+                                           @Value("${api.rate-limit.google-search.per-ip:60}") int googleSearchPerIp,
+                                           @Value("${api.rate-limit.google-search.per-user:60}") int googleSearchPerUser) {
+        return new RateLimitFilter(rateLimiter, exceptionResolver, registerPerIp, googleSearchPerIp, googleSearchPerUser);
+    }
+
+    // O filtro só deve rodar dentro da cadeia do Spring Security, não como filtro solto do Tomcat
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Bean
     public AuthenticationManager authenticationManager(AuthenticationConfiguration authenticationConfiguration) throws Exception {
         return authenticationConfiguration.getAuthenticationManager();
     }
 
+    // Aumentar o custo não invalida as senhas antigas: elas são re-hasheadas no próximo login (UserService.updatePassword).
+    // O BCrypt roda no executor dedicado; quem usa o encoder (login, cadastro, lote) não precisa saber disso
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${api.security.bcrypt.strength:10}") int strength,
+                                           PasswordHashingExecutor passwordHashingExecutor) {
+        return new HashingPasswordEncoder(new BCryptPasswordEncoder(strength), passwordHashingExecutor);
     }
 }
\ No newline at end of file
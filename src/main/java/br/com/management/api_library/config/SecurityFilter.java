@@ -2,29 +2,29 @@ package br.com.management.api_library.config;
 
 import br.com.management.api_library.service.security.JwtService;
 import br.com.management.api_library.repository.UserRepository;
-import br.com.management.api_library.model.User;
+import br.com.management.api_library.service.cache.PrincipalCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.stream.Collectors;
 
 @Component
 public class SecurityFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
-    public SecurityFilter(JwtService jwtService, UserRepository userRepository) {
+    public SecurityFilter(JwtService jwtService, UserRepository userRepository, PrincipalCache principalCache) {
         this.jwtService = jwtService;
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -35,13 +35,11 @@ public class SecurityFilter extends OncePerRequestFilter {
             var login = jwtService.validateToken(token);
 
             if (!login.isEmpty()) {
-                User user = userRepository.findByUsername(login).orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
+                // Usuário e roles vêm do cache; o banco só é consultado no primeiro acesso ou depois do TTL
+                PrincipalCache.Principal principal = principalCache.get(login, () -> userRepository.findByUsername(login))
+                        .orElseThrow(() -> new RuntimeException("Usuário não encontrado"));
 
-                var authorities = user.getRoles().stream()
-                        .map(role -> new SimpleGrantedAuthority(role.getName()))
-                        .collect(Collectors.toList());
-
-                var authentication = new UsernamePasswordAuthenticationToken(user, null, authorities);
+                var authentication = new UsernamePasswordAuthenticationToken(principal.user(), null, principal.authorities());
                 SecurityContextHolder.getContext().setAuthentication(authentication);
             }
         }
@@ -4,13 +4,17 @@ import br.com.management.api_library.dto.LoginRequestDTO;
 import br.com.management.api_library.dto.LoginResponseDTO;
 import br.com.management.api_library.dto.UserCreateDTO;
 import br.com.management.api_library.dto.UserResponseDTO;
+import br.com.management.api_library.exception.TooManyRequestsException;
 import br.com.management.api_library.service.UserService;
 import br.com.management.api_library.service.security.JwtService;
+import br.com.management.api_library.service.security.RateLimiter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -21,6 +25,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/auth")
@@ -30,23 +35,51 @@ public class AuthController {
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
     private final UserService userService;
+    private final RateLimiter rateLimiter;
+    private final int loginPerUsername;
+    private final int loginPerIp;
 
-    public AuthController(AuthenticationManager authenticationManager, JwtService jwtService, UserService userService) {
+    public AuthController(AuthenticationManager authenticationManager, JwtService jwtService, UserService userService,
+                          RateLimiter rateLimiter,
+                          @Value("${api.rate-limit.login.per-username:10}") int loginPerUsername,
+                          @Value("${api.rate-limit.login.per-ip:30}") int loginPerIp) {
         this.authenticationManager = authenticationManager;
         this.jwtService = jwtService;
         this.userService = userService;
+        this.rateLimiter = rateLimiter;
+        this.loginPerUsername = loginPerUsername;
+        this.loginPerIp = loginPerIp;
     }
 
     @PostMapping("/login")
     @Operation(summary = "Realizar Login", description = "Autentica o usuário com username e senha e retorna um Token JWT Bearer.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Login realizado com sucesso"),
-            @ApiResponse(responseCode = "401", description = "Credenciais inválidas (usuário ou senha incorretos)")
+            @ApiResponse(responseCode = "401", description = "Credenciais inválidas (usuário ou senha incorretos)"),
+            @ApiResponse(responseCode = "429", description = "Tentativas demais para este IP ou username"),
+            @ApiResponse(responseCode = "503", description = "Muitos logins simultâneos; tente novamente em instantes")
     })
-    public ResponseEntity<LoginResponseDTO> login(@RequestBody LoginRequestDTO data) {
+    public ResponseEntity<LoginResponseDTO> login(@RequestBody LoginRequestDTO data, HttpServletRequest request) {
+        // Primeiro as tentativas contra uma mesma conta, vindas de qualquer IP; a vaga do IP só é gasta por
+        // tentativas que passaram por esse limite (as recusadas por username não esgotam o IP de quem divide NAT)
+        if (data.username() != null) {
+            RateLimiter.Decision decision = rateLimiter.tryAcquire(
+                    "login:user", data.username().toLowerCase(Locale.ROOT), loginPerUsername);
+            if (!decision.allowed()) {
+                throw new TooManyRequestsException("Muitas tentativas de login para este usuário. Tente novamente em "
+                        + decision.retryAfterSeconds() + " segundo(s).", decision.retryAfterSeconds());
+            }
+        }
+        // getRemoteAddr já considera X-Forwarded-For quando server.forward-headers-strategy estiver configurado
+        RateLimiter.Decision byIp = rateLimiter.tryAcquire("login:ip", request.getRemoteAddr(), loginPerIp);
+        if (!byIp.allowed()) {
+            throw new TooManyRequestsException("Muitas requisições. Tente novamente em "
+                    + byIp.retryAfterSeconds() + " segundo(s).", byIp.retryAfterSeconds());
+        }
 
         var usernamePassword = new UsernamePasswordAuthenticationToken(data.username(), data.password());
 
+        // Só a comparação BCrypt vai para o executor dedicado (HashingPasswordEncoder); a busca do usuário fica aqui
         Authentication auth = this.authenticationManager.authenticate(usernamePassword);
 
         UserDetails userDetails = (UserDetails) auth.getPrincipal();
@@ -61,10 +94,12 @@ public class AuthController {
     @Operation(summary = "Registrar-se (Sign Up)", description = "Cria uma nova conta de usuário comum no sistema (Público).")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Conta criada com sucesso"),
-            @ApiResponse(responseCode = "422", description = "Dados inválidos ou usuário já existente")
+            @ApiResponse(responseCode = "422", description = "Dados inválidos ou usuário já existente"),
+            @ApiResponse(responseCode = "429", description = "Cadastros demais a partir deste IP"),
+            @ApiResponse(responseCode = "503", description = "Muitos cadastros simultâneos; tente novamente em instantes")
     })
     public ResponseEntity<UserResponseDTO> register(@Valid @RequestBody UserCreateDTO userCreateDTO) {
-        // Reutilizamos a lógica de criação do service
+        // Reutilizamos a lógica de criação do service (só o hash da senha roda no executor dedicado)
         UserResponseDTO createdUser = userService.createUser(userCreateDTO);
 
         // Cria a URI apontando para o perfil do usuário (/library_api/users/{id})
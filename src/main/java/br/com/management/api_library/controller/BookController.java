@@ -3,7 +3,10 @@ package br.com.management.api_library.controller;
 import br.com.management.api_library.dto.BookCreateDTO;
 import br.com.management.api_library.dto.BookResponseDTO;
 import br.com.management.api_library.dto.BookUpdateDTO;
+import br.com.management.api_library.dto.CursorPageDTO;
 import br.com.management.api_library.dto.GoogleBookVolumeInfo;
+import br.com.management.api_library.dto.IsbnBatchRequestDTO;
+import br.com.management.api_library.dto.IsbnBatchResultDTO;
 import br.com.management.api_library.service.BookService;
 import br.com.management.api_library.service.IsbnService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,12 +19,14 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import reactor.core.publisher.Flux;
 
 import java.net.URI;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/library_api/books")
@@ -61,15 +66,38 @@ public class BookController {
         return ResponseEntity.ok(booksDTO);
     }
 
+    @GetMapping("/scroll")
+    @Operation(summary = "Listar Catálogo (cursor)", description = "Paginação por cursor para rolagem infinita: envie o nextCursor recebido no parâmetro 'after'. Não calcula o total de elementos.")
+    public ResponseEntity<CursorPageDTO<BookResponseDTO>> scrollAll(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "size", defaultValue = "20") int size
+    ) {
+        CursorPageDTO<BookResponseDTO> booksDTO = bookService.scrollAllBooks(after, size);
+        return ResponseEntity.ok(booksDTO);
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Pesquisar no Catálogo", description = "Busca textual (título, autor, editora, gênero e descrição) ignorando acentos, ordenada por relevância.")
+    public ResponseEntity<Page<BookResponseDTO>> search(
+            @RequestParam("q") String query,
+            @ParameterObject
+            @PageableDefault(page = 0, size = 10) Pageable pageable
+    ) {
+        Page<BookResponseDTO> booksDTO = bookService.searchBooks(query, pageable);
+        return ResponseEntity.ok(booksDTO);
+    }
+
     @GetMapping("/search-google")
     @Operation(summary = "Buscar no Google Books API", description = "Faz uma pesquisa externa no Google Books (não salva no banco, apenas consulta).")
-    public ResponseEntity<Page<GoogleBookVolumeInfo>> searchGoogleBooks(
+    public CompletableFuture<ResponseEntity<Page<GoogleBookVolumeInfo>>> searchGoogleBooks(
             @RequestParam("Nome do Livro") String query,
             @ParameterObject
             @PageableDefault(page = 0, size = 10) Pageable pageable
     ){
-        Page<GoogleBookVolumeInfo> results = isbnService.searchBooksByQuery(query, pageable);
-        return ResponseEntity.ok(results);
+        // Assíncrono: a thread do Tomcat é liberada enquanto o Google responde
+        return isbnService.searchBooksByQueryAsync(query, pageable)
+                .map(ResponseEntity::ok)
+                .toFuture();
     }
 
     @GetMapping("/by-title")
@@ -90,18 +118,38 @@ public class BookController {
         return ResponseEntity.ok(booksDTO);
     }
 
+    @GetMapping("/by-genre/scroll")
+    @Operation(summary = "Filtrar por Gênero (cursor)", description = "Livros de um gênero com paginação por cursor (mais recentes primeiro).")
+    public ResponseEntity<CursorPageDTO<BookResponseDTO>> scrollByGenre(
+            @RequestParam("genre") String genre,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "size", defaultValue = "10") int size
+    ) {
+        CursorPageDTO<BookResponseDTO> booksDTO = bookService.scrollBooksByGenre(genre, after, size);
+        return ResponseEntity.ok(booksDTO);
+    }
+
     @GetMapping("/by-author")
-    @Operation(summary = "Filtrar por Autor", description = "Retorna lista de livros de um autor específico.")
-    public ResponseEntity<List<BookResponseDTO>> findByAuthor(@RequestParam("author") String author) {
-        List<BookResponseDTO> bookDTO = bookService.getByAuthor(author);
-        return ResponseEntity.ok(bookDTO);
+    @Operation(summary = "Filtrar por Autor", description = "Retorna livros de um autor específico de forma paginada. Com anyAuthor=true, também encontra o autor em livros com vários autores.")
+    public ResponseEntity<Page<BookResponseDTO>> findByAuthor(
+            @RequestParam("author") String author,
+            @RequestParam(value = "anyAuthor", defaultValue = "false") boolean anyAuthor,
+            @ParameterObject
+            @PageableDefault(page = 0, size = 10, sort = "title") Pageable pageable
+    ) {
+        Page<BookResponseDTO> booksDTO = bookService.getByAuthor(author, anyAuthor, pageable);
+        return ResponseEntity.ok(booksDTO);
     }
 
     @GetMapping("/by-publisher")
-    @Operation(summary = "Filtrar por Editora", description = "Retorna lista de livros publicados por uma editora.")
-    public ResponseEntity<List<BookResponseDTO>> findByPublisher(@RequestParam("publisher") String publisher) {
-        List<BookResponseDTO> bookDTO = bookService.getByPublisher(publisher);
-        return ResponseEntity.ok(bookDTO);
+    @Operation(summary = "Filtrar por Editora", description = "Retorna livros publicados por uma editora de forma paginada.")
+    public ResponseEntity<Page<BookResponseDTO>> findByPublisher(
+            @RequestParam("publisher") String publisher,
+            @ParameterObject
+            @PageableDefault(page = 0, size = 10, sort = "title") Pageable pageable
+    ) {
+        Page<BookResponseDTO> booksDTO = bookService.getByPublisher(publisher, pageable);
+        return ResponseEntity.ok(booksDTO);
     }
 
     @PutMapping("/{id}")
@@ -120,8 +168,14 @@ public class BookController {
 
     @GetMapping("/isbn/{isbn}")
     @Operation(summary = "Buscar ou Importar por ISBN", description = "Busca no banco local. Se não achar, busca no Google, salva no banco e retorna.")
-    public ResponseEntity<BookResponseDTO> findBookByIsbn(@PathVariable String isbn) {
-        BookResponseDTO bookDTO = bookService.findOrCreateBookByIsbn(isbn);
-        return ResponseEntity.ok(bookDTO);
+    public CompletableFuture<ResponseEntity<BookResponseDTO>> findBookByIsbn(@PathVariable String isbn) {
+        return bookService.findOrCreateBookByIsbnAsync(isbn)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    @PostMapping(value = "/isbn/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Importar Lote de ISBNs", description = "Resolve até 5000 ISBNs de uma vez (busca no banco e importa do Google os que faltarem). A resposta é um stream NDJSON com uma linha por ISBN, na ordem em que ficam prontos.")
+    public Flux<IsbnBatchResultDTO> resolveIsbnBatch(@Valid @RequestBody IsbnBatchRequestDTO request) {
+        return bookService.resolveIsbnBatch(request.isbns());
     }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package br.com.management.api_library.controller;
+
+import br.com.management.api_library.service.BookService;
+import br.com.management.api_library.service.IsbnService;
+import br.com.management.api_library.service.ReadingProgressBuffer;
+import br.com.management.api_library.service.cache.BookCache;
+import br.com.management.api_library.service.cache.PrincipalCache;
+import br.com.management.api_library.service.security.JwtService;
+import br.com.management.api_library.service.security.PasswordHashingExecutor;
+import br.com.management.api_library.service.security.RateLimiter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/library_api/admin/metrics")
+@Tag(name = "Monitoramento", description = "Métricas internas de cache e integrações (Apenas ADMIN)")
+public class MetricsController {
+
+    private final BookService bookService;
+    private final BookCache bookCache;
+    private final IsbnService isbnService;
+    private final PrincipalCache principalCache;
+    private final JwtService jwtService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final RateLimiter rateLimiter;
+    private final ReadingProgressBuffer readingProgressBuffer;
+
+    public MetricsController(BookService bookService, BookCache bookCache, IsbnService isbnService,
+                             PrincipalCache principalCache, JwtService jwtService,
+                             PasswordHashingExecutor passwordHashingExecutor, RateLimiter rateLimiter,
+                             ReadingProgressBuffer readingProgressBuffer) {
+        this.bookService = bookService;
+        this.bookCache = bookCache;
+        this.isbnService = isbnService;
+        this.principalCache = principalCache;
+        this.jwtService = jwtService;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.rateLimiter = rateLimiter;
+        this.readingProgressBuffer = readingProgressBuffer;
+    }
+
+    @GetMapping
+    @Operation(summary = "Ver métricas", description = """
+            Contadores, um bloco por componente:
+            - bookCache: cache de livros
+            - isbnLookups: agrupamento de buscas por ISBN
+            - googleBooksCircuit: circuito do Google Books
+            - googleSearchCache: cache de pesquisas do Google Books
+            - principalCache: cache de usuários autenticados
+            - verifiedTokens: cache de tokens verificados
+            - passwordHashing: fila de hashing de senhas
+            - rateLimiter: limitador de requisições
+            - readingProgress: gravação em lote do progresso de leitura
+            """)
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("bookCache", bookCache.stats());
+        metrics.put("isbnLookups", bookService.getIsbnLookupStats());
+        metrics.put("googleBooksCircuit", isbnService.getCircuitStats());
+        metrics.put("googleSearchCache", isbnService.getSearchCacheStats());
+        metrics.put("principalCache", principalCache.stats());
+        metrics.put("verifiedTokens", jwtService.stats());
+        metrics.put("passwordHashing", passwordHashingExecutor.stats());
+        metrics.put("rateLimiter", rateLimiter.stats());
+        metrics.put("readingProgress", readingProgressBuffer.stats());
+        return ResponseEntity.ok(metrics);
+    }
+}
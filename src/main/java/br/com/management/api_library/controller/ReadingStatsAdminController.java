@@ -0,0 +1,53 @@
+package br.com.management.api_library.controller;
+
+import br.com.management.api_library.dto.ReadingStatsRebuildJobDTO;
+import br.com.management.api_library.exception.ResourceNotFoundException;
+import br.com.management.api_library.service.ReadingStatsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/library_api/admin/reading-stats")
+@Tag(name = "Estatísticas de Leitura (Admin)", description = "Recálculo das estatísticas de leitura dos usuários (Apenas ADMIN)")
+public class ReadingStatsAdminController {
+
+    private final ReadingStatsService readingStatsService;
+
+    public ReadingStatsAdminController(ReadingStatsService readingStatsService) {
+        this.readingStatsService = readingStatsService;
+    }
+
+    @PostMapping("/rebuilds")
+    @Operation(summary = "Recalcular estatísticas", description = "Recalcula em segundo plano as estatísticas de todos os usuários a partir das estantes (backfill ou correção). Acompanhe pelo job devolvido.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Recálculo agendado"),
+            @ApiResponse(responseCode = "503", description = "Já existe um recálculo na fila")
+    })
+    public ResponseEntity<ReadingStatsRebuildJobDTO> startRebuild() {
+        ReadingStatsRebuildJobDTO job = readingStatsService.startRebuild();
+        URI location = ServletUriComponentsBuilder
+                .fromCurrentContextPath().path("/library_api/admin/reading-stats/rebuilds/{jobId}")
+                .buildAndExpand(job.id())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
+
+    @GetMapping("/rebuilds/{jobId}")
+    @Operation(summary = "Acompanhar recálculo", description = "Situação de um recálculo das estatísticas em segundo plano.")
+    public ResponseEntity<ReadingStatsRebuildJobDTO> getRebuildJob(@PathVariable String jobId) {
+        ReadingStatsRebuildJobDTO job = readingStatsService.getRebuildJob(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Recálculo não encontrado com o ID: " + jobId));
+        return ResponseEntity.ok(job);
+    }
+}
@@ -1,9 +1,18 @@
 package br.com.management.api_library.controller;
 
+import br.com.management.api_library.dto.CursorPageDTO;
+import br.com.management.api_library.dto.ReadingProgressRequestDTO;
+import br.com.management.api_library.dto.ReadingProgressResponseDTO;
+import br.com.management.api_library.dto.ReadingStatsDTO;
+import br.com.management.api_library.dto.ShelfBatchRequestDTO;
+import br.com.management.api_library.dto.ShelfBatchResultDTO;
+import br.com.management.api_library.dto.ShelfChangesDTO;
 import br.com.management.api_library.dto.ShelfItemRequestByIsbnDTO;
 import br.com.management.api_library.dto.ShelfItemRequestDTO;
 import br.com.management.api_library.dto.ShelfItemResponseDTO;
 import br.com.management.api_library.model.User;
+import br.com.management.api_library.service.ReadingStatsService;
+import br.com.management.api_library.service.ShelfBatchService;
 import br.com.management.api_library.service.ShelfService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -19,6 +28,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.URI;
+import java.util.List;
 
 @RestController
 @RequestMapping("/library_api/shelf")
@@ -26,13 +36,18 @@ import java.net.URI;
 public class ShelfController {
 
     private final ShelfService shelfService;
+    private final ShelfBatchService shelfBatchService;
+    private final ReadingStatsService readingStatsService;
 
-    public ShelfController(ShelfService shelfService) {
+    public ShelfController(ShelfService shelfService, ShelfBatchService shelfBatchService,
+                           ReadingStatsService readingStatsService) {
         this.shelfService = shelfService;
+        this.shelfBatchService = shelfBatchService;
+        this.readingStatsService = readingStatsService;
     }
 
     @PostMapping("/books/{bookId}")
-    @Operation(summary = "Adicionar Livro (pelo ID)", description = "Adiciona um livro que JÁ existe no catálogo à estante do usuário.")
+    @Operation(summary = "Adicionar Livro (pelo ID)", description = "Adiciona um livro que JÁ existe no catálogo à estante do usuário. Idempotente: se o livro já estiver na estante, devolve o item existente (200).")
     public ResponseEntity<ShelfItemResponseDTO> addBookToShelf(
             @PathVariable Long bookId,
             @Valid @RequestBody ShelfItemRequestDTO requestDTO,
@@ -40,14 +55,7 @@ public class ShelfController {
     ) {
 
         String username = user.getUsername();
-        ShelfItemResponseDTO savedItem = shelfService.addBookToShelf(username, bookId, requestDTO);
-
-        URI location = ServletUriComponentsBuilder
-                .fromCurrentContextPath().path("/library_api/shelf/items/{id}")
-                .buildAndExpand(savedItem.userBookId())
-                .toUri();
-
-        return ResponseEntity.created(location).body(savedItem);
+        return toAddResponse(shelfService.addBookToShelf(username, bookId, requestDTO));
     }
 
     @PostMapping("/add-by-isbn")
@@ -57,14 +65,17 @@ public class ShelfController {
             @AuthenticationPrincipal User user) {
 
         String username = user.getUsername();
-        ShelfItemResponseDTO savedItem = shelfService.addBookToShelfByIsbn(username, dto);
+        return toAddResponse(shelfService.addBookToShelfByIsbn(username, dto));
+    }
 
-        URI location = ServletUriComponentsBuilder
-                .fromCurrentContextPath().path("/library_api/shelf/items/{id}")
-                .buildAndExpand(savedItem.userBookId())
-                .toUri();
+    @PostMapping("/batch")
+    @Operation(summary = "Sincronizar em lote", description = "Aplica várias inclusões (ADD), alterações (UPDATE) e remoções (REMOVE) numa única transação. Devolve um resultado por operação, na ordem recebida; falhas de uma operação não desfazem as demais.")
+    public ResponseEntity<List<ShelfBatchResultDTO>> applyBatch(
+            @Valid @RequestBody ShelfBatchRequestDTO request,
+            @AuthenticationPrincipal User user) {
 
-        return ResponseEntity.created(location).body(savedItem);
+        String username = user.getUsername();
+        return ResponseEntity.ok(shelfBatchService.applyBatch(username, request.operations()));
     }
 
     @GetMapping("/books")
@@ -79,6 +90,34 @@ public class ShelfController {
         return ResponseEntity.ok(shelfItems);
     }
 
+    @GetMapping("/books/scroll")
+    @Operation(summary = "Ver minha estante (cursor)", description = "Paginação por cursor da estante para rolagem infinita: envie o nextCursor recebido no parâmetro 'after'.")
+    public ResponseEntity<CursorPageDTO<ShelfItemResponseDTO>> scrollMyShelf(
+            @AuthenticationPrincipal User user,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "size", defaultValue = "10") int size
+    ) {
+        String username = user.getUsername();
+        CursorPageDTO<ShelfItemResponseDTO> shelfItems = shelfService.scrollUserShelf(username, after, size);
+        return ResponseEntity.ok(shelfItems);
+    }
+
+    @GetMapping("/changes")
+    @Operation(summary = "Sincronizar mudanças", description = "Sincronização incremental: devolve só os itens incluídos/alterados e os ids removidos depois da versão 'since'. Sem 'since', devolve a estante inteira. Guarde a 'version' da resposta para a próxima chamada.")
+    public ResponseEntity<ShelfChangesDTO> getChanges(
+            @AuthenticationPrincipal User user,
+            @RequestParam(value = "since", required = false) Long since
+    ) {
+        String username = user.getUsername();
+        return ResponseEntity.ok(shelfService.getChangesSince(username, since));
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Estatísticas de leitura", description = "Totais por status, favoritos, páginas lidas, nota média e livros concluídos por mês, mantidos a cada alteração da estante (sem varrer a estante na consulta).")
+    public ResponseEntity<ReadingStatsDTO> getStats(@AuthenticationPrincipal User user) {
+        return ResponseEntity.ok(readingStatsService.getStats(user.getUsername()));
+    }
+
     @PutMapping("/items/{userBookId}")
     @Operation(summary = "Atualizar leitura", description = "Atualiza o status de leitura (Lendo, Lido), nota e review de um item da estante.")
     public ResponseEntity<ShelfItemResponseDTO> updateBookOnShelf(
@@ -91,6 +130,17 @@ public class ShelfController {
         return ResponseEntity.ok(updatedItem);
     }
 
+    @PutMapping("/items/{userBookId}/progress")
+    @Operation(summary = "Atualizar progresso", description = "Registra a página atual da leitura. Pensado para envios frequentes: a gravação no banco é feita em lote logo depois (202), mas a estante já mostra a nova página. A página só avança; um envio atrasado devolve a página que já vale.")
+    public ResponseEntity<ReadingProgressResponseDTO> updateReadingProgress(
+            @PathVariable Long userBookId,
+            @Valid @RequestBody ReadingProgressRequestDTO requestDTO,
+            @AuthenticationPrincipal User user) {
+
+        String username = user.getUsername();
+        return ResponseEntity.accepted().body(shelfService.updateReadingProgress(username, userBookId, requestDTO.currentPage()));
+    }
+
     @DeleteMapping("/items/{userBookId}")
     @Operation(summary = "Remover da estante", description = "Remove um livro da estante do usuário (não apaga o livro do catálogo global).")
     public ResponseEntity<Void> removeBookFromShelf(
@@ -101,4 +151,18 @@ public class ShelfController {
         shelfService.removeBookFromShelf(username, userBookId);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    // 201 com Location para item novo; 200 com o item existente quando o livro já estava na estante (reenvio)
+    private ResponseEntity<ShelfItemResponseDTO> toAddResponse(ShelfService.AddResult result) {
+        if (!result.created()) {
+            return ResponseEntity.ok(result.item());
+        }
+
+        URI location = ServletUriComponentsBuilder
+                .fromCurrentContextPath().path("/library_api/shelf/items/{id}")
+                .buildAndExpand(result.item().userBookId())
+                .toUri();
+
+        return ResponseEntity.created(location).body(result.item());
+    }
+}
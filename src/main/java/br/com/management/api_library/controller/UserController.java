@@ -1,22 +1,37 @@
 package br.com.management.api_library.controller;
 
+import br.com.management.api_library.dto.UserBulkCreateRequestDTO;
+import br.com.management.api_library.dto.UserBulkDeleteRequestDTO;
+import br.com.management.api_library.dto.UserBulkCreateResultDTO;
 import br.com.management.api_library.dto.UserCreateDTO;
+import br.com.management.api_library.dto.UserDeletionJobDTO;
 import br.com.management.api_library.dto.UserResponseDTO;
+import br.com.management.api_library.exception.ResourceNotFoundException;
 import br.com.management.api_library.model.User;
+import br.com.management.api_library.service.UserBulkService;
 import br.com.management.api_library.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.List;
 
@@ -27,10 +42,12 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final UserBulkService userBulkService;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserBulkService userBulkService) {
         this.userService = userService;
+        this.userBulkService = userBulkService;
     }
 
     @PostMapping
@@ -40,7 +57,8 @@ public class UserController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Usuário criado com sucesso"),
             @ApiResponse(responseCode = "422", description = "Erro de validação nos dados (ex: email duplicado)"),
-            @ApiResponse(responseCode = "403", description = "Acesso negado (apenas Admins podem usar esta rota)")
+            @ApiResponse(responseCode = "403", description = "Acesso negado (apenas Admins podem usar esta rota)"),
+            @ApiResponse(responseCode = "503", description = "Executor de hashing de senhas saturado")
     })
     public ResponseEntity<UserResponseDTO> createUser(@Valid @RequestBody UserCreateDTO userCreateDTO) {
         UserResponseDTO createdUser = userService.createUser(userCreateDTO);
@@ -53,17 +71,67 @@ public class UserController {
         return ResponseEntity.created(location).body(createdUser);
     }
 
+    @PostMapping("/bulk")
+    @Operation(summary = "Cadastrar usuários em lote (Admin)", description = "Cria até 5000 usuários com a role padrão. Devolve um resultado por linha, na ordem enviada: CREATED, DUPLICATE_USERNAME, DUPLICATE_EMAIL ou FAILED.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Lote processado (confira o status de cada linha)"),
+            @ApiResponse(responseCode = "400", description = "Alguma linha não passou na validação"),
+            @ApiResponse(responseCode = "503", description = "Executor de hashing de senhas saturado")
+    })
+    public ResponseEntity<List<UserBulkCreateResultDTO>> createUsersInBulk(@Valid @RequestBody UserBulkCreateRequestDTO request) {
+        return ResponseEntity.ok(userBulkService.createUsers(request.users()));
+    }
+
     @GetMapping
-    @Operation(summary = "Listar todos", description = "Retorna a lista completa de usuários cadastrados (Requer permissão de ADMIN).")
-    public ResponseEntity<List<UserResponseDTO>> findAll() {
-        List<UserResponseDTO> usersDTO = userService.getAllUsers();
+    @Operation(summary = "Listar usuários", description = "Lista paginada de usuários, com filtros opcionais por username, e-mail e role. Ordenável por id, username, email e fullName (Requer permissão de ADMIN).")
+    public ResponseEntity<Page<UserResponseDTO>> findAll(
+            @RequestParam(value = "username", required = false) String username,
+            @RequestParam(value = "email", required = false) String email,
+            @RequestParam(value = "role", required = false) String role,
+            @ParameterObject
+            @PageableDefault(page = 0, size = 20, sort = "id") Pageable pageable
+    ) {
+        Page<UserResponseDTO> usersDTO = userService.listUsers(username, email, role, pageable);
         return ResponseEntity.ok(usersDTO);
     }
 
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Exportar usuários", description = "Stream NDJSON com todos os usuários (um por linha, em ordem de id), lido do banco por cursor. Sem limite de tempo nem de tamanho (Requer permissão de ADMIN).")
+    public ResponseEntity<ResponseBodyEmitter> exportAll() {
+        // 0 = sem timeout: a exportação pode passar do spring.mvc.async.request-timeout sem ser cortada
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(0L);
+
+        // A leitura bloqueia no JDBC e o envio bloqueia no socket (é ele que segura o ritmo do cursor)
+        Schedulers.boundedElastic().schedule(() -> {
+            try {
+                userService.exportUsers(user -> {
+                    try {
+                        emitter.send(user, MediaType.APPLICATION_JSON);
+                        emitter.send("\n", MediaType.TEXT_PLAIN);
+                    } catch (IOException e) {
+                        // Cliente desconectou: interrompe a leitura e libera o cursor
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                emitter.complete();
+            } catch (RuntimeException e) {
+                emitter.completeWithError(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(emitter);
+    }
+
     @GetMapping("/search/by-fullName")
-    @Operation(summary = "Busca Inteligente por Nome", description = "Pesquisa usuários por partes do nome, ignorando acentos e maiúsculas.")
-    public ResponseEntity<List<UserResponseDTO>> findByFullName(@RequestParam("fullName") String fullName) {
-        List<UserResponseDTO> usersDTO = userService.searchByTerm(fullName);
+    @Operation(summary = "Busca Inteligente por Nome", description = "Pesquisa usuários por partes do nome, ignorando acentos e maiúsculas, de forma paginada e ordenada por semelhança.")
+    public ResponseEntity<Page<UserResponseDTO>> findByFullName(
+            @RequestParam("fullName") String fullName,
+            @ParameterObject
+            @PageableDefault(page = 0, size = 10) Pageable pageable
+    ) {
+        Page<UserResponseDTO> usersDTO = userService.searchByTerm(fullName, pageable);
         return ResponseEntity.ok(usersDTO);
     }
 
@@ -71,7 +139,8 @@ public class UserController {
     @Operation(summary = "Atualizar usuário", description = "Atualiza os dados. Regra: Usuários comuns só alteram o próprio perfil. Admins alteram qualquer um.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Usuário atualizado com sucesso"),
-            @ApiResponse(responseCode = "403", description = "Você tentou alterar um perfil que não é o seu")
+            @ApiResponse(responseCode = "403", description = "Você tentou alterar um perfil que não é o seu"),
+            @ApiResponse(responseCode = "503", description = "Executor de hashing de senhas saturado")
     })
     public ResponseEntity<UserResponseDTO> updateUser(
             @PathVariable Long id,
@@ -93,15 +162,51 @@ public class UserController {
             throw new AccessDeniedException("Você não tem permissão para alterar os dados de outro usuário.");
         }
 
-        // Se passou, executa a atualização
-        UserResponseDTO updatedUser = userService.updateUser(id, userCreateDTO);
-        return ResponseEntity.ok(updatedUser);
+        // Se passou, executa a atualização (o novo hash da senha roda no executor dedicado)
+        return ResponseEntity.ok(userService.updateUser(id, userCreateDTO));
     }
 
     @DeleteMapping("/{id}")
-    @Operation(summary = "Deletar usuário", description = "Remove permanentemente um usuário do sistema (Apenas ADMIN).")
-    public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
+    @Operation(summary = "Deletar usuário", description = "Remove permanentemente um usuário e a estante dele (Apenas ADMIN). Com async=true a exclusão roda em segundo plano e a resposta (202) traz o job para acompanhar.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Usuário excluído"),
+            @ApiResponse(responseCode = "202", description = "Exclusão agendada (async=true)"),
+            @ApiResponse(responseCode = "404", description = "Usuário não encontrado")
+    })
+    public ResponseEntity<UserDeletionJobDTO> deleteUser(
+            @PathVariable Long id,
+            @RequestParam(value = "async", defaultValue = "false") boolean async
+    ) {
+        if (async) {
+            return accepted(userBulkService.startDeletion(List.of(id)));
+        }
         userService.deleteUser(id);
         return ResponseEntity.noContent().build();
     }
+
+    @PostMapping("/deletions")
+    @Operation(summary = "Deletar usuários em lote (Admin)", description = "Agenda a exclusão de até 1000 usuários (e das estantes) em segundo plano. Acompanhe pelo job devolvido.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Exclusão agendada"),
+            @ApiResponse(responseCode = "503", description = "Fila de exclusões cheia")
+    })
+    public ResponseEntity<UserDeletionJobDTO> deleteUsersInBulk(@Valid @RequestBody UserBulkDeleteRequestDTO request) {
+        return accepted(userBulkService.startDeletion(request.ids()));
+    }
+
+    @GetMapping("/deletions/{jobId}")
+    @Operation(summary = "Acompanhar exclusão", description = "Situação de uma exclusão em segundo plano (Apenas ADMIN).")
+    public ResponseEntity<UserDeletionJobDTO> getDeletionJob(@PathVariable String jobId) {
+        UserDeletionJobDTO job = userBulkService.getDeletionJob(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Exclusão não encontrada com o ID: " + jobId));
+        return ResponseEntity.ok(job);
+    }
+
+    private static ResponseEntity<UserDeletionJobDTO> accepted(UserDeletionJobDTO job) {
+        URI location = ServletUriComponentsBuilder
+                .fromCurrentContextPath().path("/library_api/users/deletions/{jobId}")
+                .buildAndExpand(job.id())
+                .toUri();
+        return ResponseEntity.accepted().location(location).body(job);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package br.com.management.api_library.dto;
+
+import java.util.List;
+
+// Resposta no estilo Slice: sem total de elementos, apenas o cursor da próxima página
+public record CursorPageDTO<T>(
+        List<T> content,
+        int size,
+        boolean hasNext,
+        String nextCursor
+) {}
@@ -0,0 +1,12 @@
+package br.com.management.api_library.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record IsbnBatchRequestDTO(
+        @NotEmpty
+        @Size(max = 5000, message = "Envie no máximo 5000 ISBNs por lote.")
+        List<String> isbns // Duplicados (inclusive com hífens diferentes) são resolvidos uma única vez
+) {}
@@ -0,0 +1,26 @@
+package br.com.management.api_library.dto;
+
+// Uma linha do stream de resposta da importação em lote (um objeto JSON por ISBN, na ordem em que terminam)
+public record IsbnBatchResultDTO(
+        String isbn,
+        Status status,
+        BookResponseDTO book, // Preenchido só em FOUND e IMPORTED
+        String message
+) {
+
+    public enum Status {
+        FOUND,       // Já estava no catálogo
+        IMPORTED,    // Veio do Google e foi gravado agora
+        NOT_FOUND,   // O Google não conhece o ISBN
+        UNAVAILABLE, // Google indisponível (circuito aberto ou sobrecarga); pode tentar de novo depois
+        FAILED       // Erro ao gravar
+    }
+
+    public static IsbnBatchResultDTO of(Status status, BookResponseDTO book) {
+        return new IsbnBatchResultDTO(book.isbn(), status, book, null);
+    }
+
+    public static IsbnBatchResultDTO error(String isbn, Status status, String message) {
+        return new IsbnBatchResultDTO(isbn, status, null, message);
+    }
+}
@@ -0,0 +1,10 @@
+package br.com.management.api_library.dto;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record ReadingProgressRequestDTO(
+
+        @NotNull(message = "A página atual é obrigatória.")
+        @Min(value = 0, message = "A página atual não pode ser negativa.")
+        Integer currentPage
+) {}
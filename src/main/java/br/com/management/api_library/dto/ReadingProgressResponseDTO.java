@@ -0,0 +1,7 @@
+package br.com.management.api_library.dto;
+
+// Progresso aceito: a página que passa a valer para o item (pode ainda não estar gravada no banco)
+public record ReadingProgressResponseDTO(
+        Long userBookId,
+        Integer currentPage
+) {}
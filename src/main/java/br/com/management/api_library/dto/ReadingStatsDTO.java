@@ -0,0 +1,19 @@
+package br.com.management.api_library.dto;
+
+import br.com.management.api_library.model.ReadingStatus;
+
+import java.util.List;
+import java.util.Map;
+
+// Estatísticas de leitura do usuário (GET /library_api/shelf/stats)
+public record ReadingStatsDTO(
+        Map<ReadingStatus, Long> countsByStatus,
+        long totalBooks,
+        long favorites,
+        long pagesRead,                          // Soma da página atual de cada item da estante
+        Double averageRating,                    // Média só dos itens avaliados; nula se nenhum tiver nota
+        List<MonthlyCompletion> completedPerMonth // Mais recente primeiro; só meses com livros concluídos
+) {
+
+    public record MonthlyCompletion(String month, long completed) {} // month no formato "2026-10"
+}
@@ -0,0 +1,21 @@
+package br.com.management.api_library.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Situação do recálculo das estatísticas de leitura (consultado por GET /library_api/admin/reading-stats/rebuilds/{id})
+public record ReadingStatsRebuildJobDTO(
+        String id,
+        Status status,
+        int rebuilt,        // Usuários recalculados até agora
+        List<Long> failed,  // Ids que deram erro ao recalcular
+        LocalDateTime createdAt,
+        LocalDateTime finishedAt
+) {
+
+    public enum Status {
+        PENDING,   // Na fila
+        RUNNING,   // Recalculando
+        COMPLETED  // Terminou (confira failed)
+    }
+}
@@ -0,0 +1,22 @@
+package br.com.management.api_library.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+
+// Uma operação do lote de sincronização da estante. Os campos usados dependem do tipo:
+// ADD usa bookId (e item, opcional); UPDATE usa userBookId e item; REMOVE usa só userBookId.
+public record ShelfBatchOperationDTO(
+        @NotNull(message = "O tipo da operação é obrigatório.")
+        Type type,
+        Long bookId,
+        Long userBookId,
+        @Valid
+        ShelfItemRequestDTO item
+) {
+
+    public enum Type {
+        ADD,    // Mesmo efeito de POST /shelf/books/{bookId}
+        UPDATE, // Mesmo efeito de PUT /shelf/items/{userBookId}
+        REMOVE  // Mesmo efeito de DELETE /shelf/items/{userBookId}
+    }
+}
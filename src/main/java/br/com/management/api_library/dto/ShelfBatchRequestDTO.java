@@ -0,0 +1,14 @@
+package br.com.management.api_library.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record ShelfBatchRequestDTO(
+        @NotEmpty
+        @Size(max = 200, message = "Envie no máximo 200 operações por lote.")
+        List<@NotNull @Valid ShelfBatchOperationDTO> operations
+) {}
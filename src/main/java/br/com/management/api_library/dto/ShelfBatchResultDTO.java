@@ -0,0 +1,29 @@
+package br.com.management.api_library.dto;
+
+// Resultado de uma operação do lote da estante, na mesma posição (index) em que veio na requisição
+public record ShelfBatchResultDTO(
+        int index,
+        ShelfBatchOperationDTO.Type type,
+        Status status,
+        ShelfItemResponseDTO item, // Estado do item depois do lote (CREATED, ALREADY_ON_SHELF e UPDATED)
+        String message
+) {
+
+    public enum Status {
+        CREATED,          // Livro adicionado agora
+        ALREADY_ON_SHELF, // Livro já estava na estante: o item existente volta sem alteração
+        UPDATED,          // Item atualizado
+        REMOVED,          // Item removido
+        NOT_FOUND,        // Livro ou item inexistente (ou já removido antes no próprio lote)
+        FORBIDDEN,        // Item pertence a outro usuário
+        INVALID           // Faltou o id exigido pelo tipo da operação
+    }
+
+    public static ShelfBatchResultDTO success(int index, ShelfBatchOperationDTO.Type type, Status status, ShelfItemResponseDTO item) {
+        return new ShelfBatchResultDTO(index, type, status, item, null);
+    }
+
+    public static ShelfBatchResultDTO error(int index, ShelfBatchOperationDTO.Type type, Status status, String message) {
+        return new ShelfBatchResultDTO(index, type, status, null, message);
+    }
+}
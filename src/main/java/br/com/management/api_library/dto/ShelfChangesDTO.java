@@ -0,0 +1,10 @@
+package br.com.management.api_library.dto;
+
+import java.util.List;
+
+// Resposta da sincronização incremental da estante
+public record ShelfChangesDTO(
+        long version,                       // Versão atual da estante: enviar como "since" na próxima sincronização
+        List<ShelfItemResponseDTO> changed, // Itens incluídos ou alterados depois de "since"
+        List<Long> removed                  // userBookIds removidos depois de "since" (aplicar antes de "changed")
+) {}
@@ -0,0 +1,15 @@
+package br.com.management.api_library.dto;
+import br.com.management.api_library.model.ReadingStatus;
+
+import java.time.LocalDateTime;
+
+// Campos de um item que entram nas estatísticas de leitura (antes e depois de cada escrita na estante)
+public record ShelfItemStateDTO(
+        Long userBookId,
+        Long userId,
+        ReadingStatus readingStatus,
+        Double rating,
+        Boolean isFavorite,
+        Integer currentPage,
+        LocalDateTime completedAt
+) {}
@@ -0,0 +1,13 @@
+package br.com.management.api_library.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record UserBulkCreateRequestDTO(
+        @NotEmpty
+        @Size(max = 5000, message = "Envie no máximo 5000 usuários por lote.")
+        List<@Valid UserCreateDTO> users // Cada item passa pelas mesmas validações do cadastro individual
+) {}
@@ -0,0 +1,26 @@
+package br.com.management.api_library.dto;
+
+// Resultado de uma linha do cadastro em lote, na mesma posição (index) em que veio na requisição
+public record UserBulkCreateResultDTO(
+        int index,
+        String username,
+        Status status,
+        UserResponseDTO user, // Preenchido só em CREATED
+        String message
+) {
+
+    public enum Status {
+        CREATED,            // Usuário criado agora
+        DUPLICATE_USERNAME, // Username já cadastrado (ou repetido antes no próprio lote)
+        DUPLICATE_EMAIL,    // E-mail já cadastrado (ou repetido antes no próprio lote)
+        FAILED              // Erro ao gravar
+    }
+
+    public static UserBulkCreateResultDTO created(int index, UserResponseDTO user) {
+        return new UserBulkCreateResultDTO(index, user.username(), Status.CREATED, user, null);
+    }
+
+    public static UserBulkCreateResultDTO error(int index, String username, Status status, String message) {
+        return new UserBulkCreateResultDTO(index, username, status, null, message);
+    }
+}
@@ -0,0 +1,13 @@
+package br.com.management.api_library.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record UserBulkDeleteRequestDTO(
+        @NotEmpty
+        @Size(max = 1000, message = "Envie no máximo 1000 usuários por exclusão em lote.")
+        List<@NotNull Long> ids
+) {}
@@ -0,0 +1,23 @@
+package br.com.management.api_library.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Situação de uma exclusão de usuários em segundo plano (consultada por GET /library_api/users/deletions/{id})
+public record UserDeletionJobDTO(
+        String id,
+        Status status,
+        int total,
+        int deleted,
+        List<Long> notFound, // Ids que já não existiam
+        List<Long> failed,   // Ids que deram erro ao excluir
+        LocalDateTime createdAt,
+        LocalDateTime finishedAt
+) {
+
+    public enum Status {
+        PENDING,   // Na fila
+        RUNNING,   // Excluindo
+        COMPLETED  // Terminou (confira notFound e failed)
+    }
+}
@@ -0,0 +1,7 @@
+package br.com.management.api_library.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
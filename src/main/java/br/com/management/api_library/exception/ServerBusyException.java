@@ -0,0 +1,7 @@
+package br.com.management.api_library.exception;
+
+public class ServerBusyException extends RuntimeException {
+    public ServerBusyException(String message) {
+        super(message);
+    }
+}
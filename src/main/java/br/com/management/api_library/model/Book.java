@@ -2,15 +2,29 @@ package br.com.management.api_library.model;
 
 
 import jakarta.persistence.*;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Entity
 @NoArgsConstructor
-@AllArgsConstructor
 @Data
-@Table(name = "books")
+@Table(name = "books", indexes = {
+        @Index(name = "idx_books_author_normalized", columnList = "author_normalized"),
+        @Index(name = "idx_books_publisher_normalized", columnList = "publisher_normalized"),
+        // Índices compostos (chave de ordenação + id) usados pela paginação por cursor
+        @Index(name = "idx_books_title_id", columnList = "title, id"),
+        @Index(name = "idx_books_genre_normalized_id", columnList = "genre_normalized, id")
+})
 public class Book {
 
     @Id
@@ -33,4 +47,55 @@ public class Book {
     private int pages;
     private String imageUrl;
 
+    // Colunas em minúsculo mantidas pelos setters, para que as buscas usem índice em vez de lower() no banco
+    @Setter(AccessLevel.NONE)
+    @Column(name = "author_normalized")
+    private String authorNormalized;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "publisher_normalized")
+    private String publisherNormalized;
+
+    @Setter(AccessLevel.NONE)
+    @Column(name = "genre_normalized")
+    private String genreNormalized;
+
+    // Cada autor de uma string como "Autor A, Autor B" vira uma linha indexada em book_authors
+    @Setter(AccessLevel.NONE)
+    @ElementCollection
+    @CollectionTable(name = "book_authors",
+            joinColumns = @JoinColumn(name = "book_id"),
+            indexes = @Index(name = "idx_book_authors_author_name", columnList = "author_name"))
+    @Column(name = "author_name")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Set<String> authorNames = new HashSet<>();
+
+    public void setAuthor(String author) {
+        this.author = author;
+        this.authorNormalized = normalize(author);
+
+        this.authorNames.clear();
+        if (author != null) {
+            this.authorNames.addAll(Arrays.stream(author.split(","))
+                    .map(Book::normalize)
+                    .filter(name -> name != null && !name.isEmpty())
+                    .collect(Collectors.toSet()));
+        }
+    }
+
+    public void setPublisher(String publisher) {
+        this.publisher = publisher;
+        this.publisherNormalized = normalize(publisher);
+    }
+
+    public void setGenre(String genre) {
+        this.genre = genre;
+        this.genreNormalized = normalize(genre);
+    }
+
+    public static String normalize(String value) {
+        return value == null ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
 }
@@ -0,0 +1,34 @@
+package br.com.management.api_library.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Marca de remoção de um item da estante, para a sincronização incremental avisar o app do que sumiu.
+// Sem FK para user_book (o item já não existe) nem para table_users (apagadas junto com o usuário).
+@Entity
+@Data
+@Table(name = "shelf_tombstones",
+        indexes = @Index(name = "idx_shelf_tombstones_user_id_change_version", columnList = "user_id, change_version"))
+public class ShelfTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "user_book_id", nullable = false)
+    private Long userBookId;
+
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+
+    @Column(name = "change_version", nullable = false)
+    private long changeVersion;
+
+    @Column(name = "removed_at", nullable = false)
+    private LocalDateTime removedAt;
+}
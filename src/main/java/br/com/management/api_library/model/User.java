@@ -1,21 +1,32 @@
 package br.com.management.api_library.model;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import lombok.ToString;
 
+import java.text.Normalizer;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
-@Table(name = "table_users")
+@Table(name = "table_users", indexes = {
+        // No Postgres o índice usado pela busca é o GIN de trigramas criado na V4; este serve ao H2
+        @Index(name = "idx_users_full_name_search", columnList = "full_name_search")
+})
 @Entity
 public class User {
 
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
     @Id
     @GeneratedValue (strategy = GenerationType.IDENTITY)
     private Long id;
@@ -28,6 +39,20 @@ public class User {
     private String email;
     private String fullName;
 
+    // Nome sem acentos e em minúsculo, mantido pelo setter, para a busca não depender de unaccent() por linha
+    @Setter(AccessLevel.NONE)
+    @Column(name = "full_name_search", length = 150)
+    @ToString.Exclude
+    private String fullNameSearch;
+
+    // Versão da estante para a sincronização incremental (GET /shelf/changes): incrementada a cada escrita na estante,
+    // só por SQL (UserRepository.bumpShelfVersion). Fica fora do INSERT/UPDATE da entidade para um save() de User
+    // não sobrescrever um incremento concorrente; nasce com o default do banco.
+    @Column(name = "shelf_version", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "bigint default 0 not null")
+    @ToString.Exclude
+    private long shelfVersion;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.REMOVE, orphanRemoval = true, fetch = FetchType.LAZY)
     @ToString.Exclude
     private Set<UserBook> userBooks = new HashSet<>();
@@ -40,4 +65,18 @@ public class User {
     )
     @ToString.Exclude
     private Set<Role> roles = new HashSet<>();
+
+    public void setFullName(String fullName) {
+        this.fullName = fullName;
+        this.fullNameSearch = foldForSearch(fullName);
+    }
+
+    // "  José  da Conceição " -> "jose da conceicao"
+    public static String foldForSearch(String value) {
+        if (value == null) {
+            return null;
+        }
+        String withoutAccents = DIACRITICS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(withoutAccents.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
 }
@@ -3,9 +3,16 @@ package br.com.management.api_library.model;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Data
-@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "book_id"}))
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "book_id"}),
+        indexes = {
+                @Index(name = "idx_user_book_user_id_id", columnList = "user_id, id"),
+                // Sincronização incremental: itens alterados de um usuário depois de uma versão
+                @Index(name = "idx_user_book_user_id_change_version", columnList = "user_id, change_version")
+        })
 public class UserBook {
 
     @Id
@@ -27,4 +34,12 @@ public class UserBook {
     private boolean isFavorite;
     private int currentPage;
 
+    // Quando o item passou a COMPLETED (nulo fora desse status); base dos livros concluídos por mês
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    // Versão da estante do dono (User.shelfVersion) na última escrita deste item
+    @Column(name = "change_version", nullable = false, columnDefinition = "bigint default 0 not null")
+    private long changeVersion;
+
 }
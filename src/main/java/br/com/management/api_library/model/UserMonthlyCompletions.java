@@ -0,0 +1,28 @@
+package br.com.management.api_library.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+// Livros concluídos por mês (pelo completed_at do item), mantidos junto com UserReadingStats
+@Entity
+@Data
+@Table(name = "user_monthly_completions",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "month_start"}))
+public class UserMonthlyCompletions {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Primeiro dia do mês
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    @Column(name = "completed_count", nullable = false)
+    private long completedCount;
+}
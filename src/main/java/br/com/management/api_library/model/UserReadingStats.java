@@ -0,0 +1,42 @@
+package br.com.management.api_library.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+// Estatísticas de leitura de um usuário, mantidas pelas próprias escritas na estante (ReadingStatsService).
+// Sem linha = ainda não calculadas: a primeira consulta (ou o rebuild) calcula a partir da estante.
+@Entity
+@Data
+@Table(name = "user_reading_stats")
+public class UserReadingStats {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "reading_count", nullable = false)
+    private long readingCount;
+
+    @Column(name = "completed_count", nullable = false)
+    private long completedCount;
+
+    @Column(name = "want_to_read_count", nullable = false)
+    private long wantToReadCount;
+
+    @Column(name = "dropped_count", nullable = false)
+    private long droppedCount;
+
+    @Column(name = "favorites_count", nullable = false)
+    private long favoritesCount;
+
+    // Soma das páginas atuais de todos os itens da estante
+    @Column(name = "pages_read", nullable = false)
+    private long pagesRead;
+
+    // Só itens avaliados (nota > 0; 0 é o padrão de "sem nota")
+    @Column(name = "rating_sum", nullable = false)
+    private double ratingSum;
+
+    @Column(name = "rating_count", nullable = false)
+    private long ratingCount;
+}
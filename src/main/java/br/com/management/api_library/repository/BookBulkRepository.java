@@ -0,0 +1,82 @@
+package br.com.management.api_library.repository;
+
+import br.com.management.api_library.model.Book;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gravação em massa de livros direto pelo JDBC. Com ids IDENTITY o Hibernate não agrupa inserts,
+ * então aqui cada grupo vira um único batch JDBC para books e outro para book_authors.
+ */
+@Repository
+public class BookBulkRepository {
+
+    private static final String INSERT_BOOK =
+            "INSERT INTO books (title, author, publisher, genre, description, language, isbn, pages, image_url, "
+                    + "author_normalized, publisher_normalized, genre_normalized) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_BOOK_AUTHOR =
+            "INSERT INTO book_authors (book_id, author_name) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BookBulkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insere os livros e preenche o id gerado em cada um, na mesma ordem da lista.
+     * Deve ser chamado dentro de uma transação, para que livro e autores entrem juntos ou não entrem.
+     */
+    public List<Book> insertAll(List<Book> books) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_BOOK, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Book book = books.get(i);
+                        ps.setString(1, book.getTitle());
+                        ps.setString(2, book.getAuthor());
+                        ps.setString(3, book.getPublisher());
+                        ps.setString(4, book.getGenre());
+                        ps.setString(5, book.getDescription());
+                        ps.setString(6, book.getLanguage());
+                        ps.setString(7, book.getIsbn());
+                        ps.setInt(8, book.getPages());
+                        ps.setString(9, book.getImageUrl());
+                        ps.setString(10, book.getAuthorNormalized());
+                        ps.setString(11, book.getPublisherNormalized());
+                        ps.setString(12, book.getGenreNormalized());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return books.size();
+                    }
+                }, keyHolder);
+
+        // Cada banco devolve a coluna com um nome ("id" no Postgres, "ID" no H2): pegamos o único valor da linha
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        List<Object[]> authorRows = new ArrayList<>();
+        for (int i = 0; i < books.size(); i++) {
+            Book book = books.get(i);
+            book.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            for (String authorName : book.getAuthorNames()) {
+                authorRows.add(new Object[]{book.getId(), authorName});
+            }
+        }
+
+        if (!authorRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_BOOK_AUTHOR, authorRows);
+        }
+        return books;
+    }
+}
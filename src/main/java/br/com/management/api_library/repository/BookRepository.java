@@ -1,11 +1,18 @@
 package br.com.management.api_library.repository;
 
 import br.com.management.api_library.model.Book;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +22,52 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     Optional<Book> findByTitleIgnoringCase(String title);
     Page<Book> findByGenreIgnoringCase(String genre, Pageable pageable);
     Optional<Book> findByIsbn(String isbn);
+    // Um único SELECT ... WHERE isbn IN (...) para resolver os ISBNs já cadastrados de um lote
+    List<Book> findByIsbnIn(Collection<String> isbns);
+    // Quais ids de um lote existem no catálogo (lote da estante), sem carregar os livros
+    @Query("SELECT b.id FROM Book b WHERE b.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Recebem o valor já normalizado (Book.normalize) para bater no índice das colunas *_normalized
+    Page<Book> findByAuthorNormalized(String authorNormalized, Pageable pageable);
+    Page<Book> findByPublisherNormalized(String publisherNormalized, Pageable pageable);
+
+    // Cada autor aparece uma única vez por livro em book_authors, então o join não duplica linhas
+    @Query(value = "SELECT b FROM Book b JOIN b.authorNames a WHERE a = :authorName",
+            countQuery = "SELECT count(b) FROM Book b JOIN b.authorNames a WHERE a = :authorName")
+    Page<Book> findByAuthorName(@Param("authorName") String authorName, Pageable pageable);
+
+    // Colunas originais, sem índice: só enquanto o SearchColumnsBackfill não termina de preencher as normalizadas.
+    // Recebem o valor normalizado e comparam o valor inteiro, como as consultas indexadas (nada de "contém")
+    @Query("SELECT b FROM Book b WHERE TRIM(LOWER(b.author)) = :authorNormalized")
+    Page<Book> findByRawAuthor(@Param("authorNormalized") String authorNormalized, Pageable pageable);
+
+    // Um dos autores de "Autor A, Autor B": a lista vira ",autor a,autor b," e o nome precisa aparecer entre vírgulas
+    @Query("""
+            SELECT b FROM Book b
+            WHERE LOCATE(CONCAT(',', :authorName, ','),
+                         CONCAT(',', REPLACE(REPLACE(TRIM(LOWER(b.author)), ', ', ','), ' ,', ','), ',')) > 0
+            """)
+    Page<Book> findByRawAuthorName(@Param("authorName") String authorName, Pageable pageable);
+
+    @Query("SELECT b FROM Book b WHERE TRIM(LOWER(b.publisher)) = :publisherNormalized")
+    Page<Book> findByRawPublisher(@Param("publisherNormalized") String publisherNormalized, Pageable pageable);
+
+    // Backfill: livros anteriores às colunas normalizadas (autor/editora/gênero preenchidos, versão normalizada nula)
+    @Query("""
+            SELECT b.id FROM Book b
+            WHERE b.id > :after
+              AND ((b.author IS NOT NULL AND b.authorNormalized IS NULL)
+                OR (b.publisher IS NOT NULL AND b.publisherNormalized IS NULL)
+                OR (b.genre IS NOT NULL AND b.genreNormalized IS NULL))
+            ORDER BY b.id
+            """)
+    List<Long> findIdsMissingNormalizedColumns(@Param("after") Long after, Pageable pageable);
+
+    // Paginação por keyset (seek): sem OFFSET e sem COUNT(*)
+    Window<Book> findAllBy(ScrollPosition position, Limit limit, Sort sort);
+    Window<Book> findByGenreNormalized(String genreNormalized, ScrollPosition position, Limit limit, Sort sort);
+
+    // Mesma rolagem pela coluna original, enquanto genre_normalized dos livros antigos não foi preenchida
+    Window<Book> findByGenreIgnoringCase(String genre, ScrollPosition position, Limit limit, Sort sort);
 }
@@ -0,0 +1,119 @@
+package br.com.management.api_library.repository;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Gravação do progresso de leitura acumulado pelo ReadingProgressBuffer: uma leitura leve para checar o dono
+ * e, no flush, batches JDBC que incrementam a versão da estante de cada dono, somam o avanço às estatísticas
+ * de leitura e gravam as páginas.
+ */
+@Repository
+public class ReadingProgressRepository {
+
+    private static final String SELECT_OWNED = """
+            SELECT ub.user_id, ub.current_page
+            FROM user_book ub JOIN table_users u ON u.id = ub.user_id
+            WHERE ub.id = ? AND u.username = ?
+            """;
+
+    private static final String BUMP_SHELF_VERSION = "UPDATE table_users SET shelf_version = shelf_version + 1 WHERE id = ?";
+
+    // Páginas lidas nas estatísticas (ReadingStatsService): soma o avanço antes de o UPDATE gravar a página nova.
+    // Usuário ainda sem linha de estatísticas não é afetado (a primeira consulta calcula tudo)
+    private static final String ADD_PAGES_READ = """
+            UPDATE user_reading_stats
+            SET pages_read = pages_read + COALESCE(
+                    (SELECT ? - ub.current_page FROM user_book ub WHERE ub.id = ? AND ub.user_id = ? AND ub.current_page < ?), 0)
+            WHERE user_id = ?
+            """;
+
+    // Página só avança: um progresso atrasado nunca desfaz um mais recente já gravado
+    private static final String UPDATE_PROGRESS = """
+            UPDATE user_book
+            SET current_page = ?,
+                change_version = (SELECT shelf_version FROM table_users WHERE id = ?)
+            WHERE id = ? AND user_id = ? AND current_page < ?
+            """;
+
+    /** Dono do item e página gravada no banco. */
+    public record Target(Long userId, int currentPage) {}
+
+    /** Página a gravar num item da estante. */
+    public record ProgressUpdate(Long userId, Long userBookId, int currentPage) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReadingProgressRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Vazio se o item não existir ou não for do usuário. */
+    public Optional<Target> findOwned(Long userBookId, String username) {
+        return jdbcTemplate.query(SELECT_OWNED, ps -> {
+            ps.setLong(1, userBookId);
+            ps.setString(2, username);
+        }, (rs, rowNum) -> new Target(rs.getLong("user_id"), rs.getInt("current_page"))).stream().findFirst();
+    }
+
+    /**
+     * Incrementa a versão da estante de cada dono (um batch, em ordem de id, para duas transações nunca travarem
+     * os mesmos usuários em ordens diferentes), soma o avanço de cada item às páginas lidas do dono e grava as páginas
+     * (mais dois batches), marcando os itens com a nova versão.
+     * Devolve o número de linhas afetadas por item, na ordem da lista. Deve rodar dentro de uma transação.
+     */
+    public int[] applyAll(List<ProgressUpdate> updates) {
+        List<Long> userIds = updates.stream().map(ProgressUpdate::userId).distinct().sorted().toList();
+        jdbcTemplate.batchUpdate(BUMP_SHELF_VERSION, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setLong(1, userIds.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return userIds.size();
+            }
+        });
+
+        jdbcTemplate.batchUpdate(ADD_PAGES_READ, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ProgressUpdate update = updates.get(i);
+                ps.setInt(1, update.currentPage());
+                ps.setLong(2, update.userBookId());
+                ps.setLong(3, update.userId());
+                ps.setInt(4, update.currentPage());
+                ps.setLong(5, update.userId());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return updates.size();
+            }
+        });
+
+        return jdbcTemplate.batchUpdate(UPDATE_PROGRESS, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ProgressUpdate update = updates.get(i);
+                ps.setInt(1, update.currentPage());
+                ps.setLong(2, update.userId());
+                ps.setLong(3, update.userBookId());
+                ps.setLong(4, update.userId());
+                ps.setInt(5, update.currentPage());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return updates.size();
+            }
+        });
+    }
+}
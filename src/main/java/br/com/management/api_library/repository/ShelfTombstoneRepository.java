@@ -0,0 +1,45 @@
+package br.com.management.api_library.repository;
+
+import br.com.management.api_library.model.ShelfTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ShelfTombstoneRepository extends JpaRepository<ShelfTombstone, Long> {
+
+    // Grava a marca de remoção antes do DELETE do item, já filtrando pelo dono (0 = item inexistente ou de outro usuário).
+    // Usa a versão da estante já incrementada na transação.
+    @Modifying
+    @Query(value = """
+            INSERT INTO shelf_tombstones (user_id, user_book_id, book_id, change_version, removed_at)
+            SELECT ub.user_id, ub.id, ub.book_id, u.shelf_version, CURRENT_TIMESTAMP
+            FROM user_book ub JOIN table_users u ON u.id = ub.user_id
+            WHERE ub.id = :userBookId AND u.username = :username
+            """, nativeQuery = true)
+    int insertForOwnedItem(@Param("userBookId") Long userBookId, @Param("username") String username);
+
+    // Versão em lote (ShelfBatchService): uma marca por item, num único INSERT ... SELECT
+    @Modifying
+    @Query(value = """
+            INSERT INTO shelf_tombstones (user_id, user_book_id, book_id, change_version, removed_at)
+            SELECT ub.user_id, ub.id, ub.book_id, :version, CURRENT_TIMESTAMP
+            FROM user_book ub
+            WHERE ub.id IN (:ids) AND ub.user_id = :userId
+            """, nativeQuery = true)
+    int insertForOwnedItems(@Param("ids") Collection<Long> ids, @Param("userId") Long userId, @Param("version") long version);
+
+    @Query("""
+            SELECT t.userBookId FROM ShelfTombstone t
+            WHERE t.userId = (SELECT u.id FROM User u WHERE u.username = :username) AND t.changeVersion > :since
+            ORDER BY t.changeVersion
+            """)
+    List<Long> findRemovedSince(@Param("username") String username, @Param("since") long since);
+
+    @Modifying
+    @Query("DELETE FROM ShelfTombstone t WHERE t.userId = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+}
@@ -1,16 +1,156 @@
 package br.com.management.api_library.repository;
+import br.com.management.api_library.dto.ShelfItemResponseDTO;
+import br.com.management.api_library.dto.ShelfItemStateDTO;
 import br.com.management.api_library.model.Book;
+import br.com.management.api_library.model.ReadingStatus;
 import br.com.management.api_library.model.User;
 import br.com.management.api_library.model.UserBook;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserBookRepository extends JpaRepository <UserBook, Long>{
-    Page<UserBook> findByUser(User user, Pageable pageable);
+    // Página da estante direto no DTO: um SELECT (join em users para o dono e em books só pelas colunas exibidas,
+    // sem a description TEXT nem os selects extras dos @ManyToOne EAGER) e um count
+    @Query(value = """
+            SELECT new br.com.management.api_library.dto.ShelfItemResponseDTO(
+                ub.id, b.id, b.title, b.author, ub.readingStatus, ub.rating, ub.review, ub.isFavorite, ub.currentPage)
+            FROM UserBook ub JOIN ub.book b JOIN ub.user u
+            WHERE u.username = :username
+            """,
+            countQuery = "SELECT count(ub) FROM UserBook ub JOIN ub.user u WHERE u.username = :username")
+    Page<ShelfItemResponseDTO> findShelfPage(@Param("username") String username, Pageable pageable);
+
+    // Estante por cursor na mesma projeção: seek pelo índice (user_id, id), sem OFFSET, sem count e sem carregar
+    // entidades. Quem chama pede uma linha a mais que a página para saber se há próxima
+    @Query("""
+            SELECT new br.com.management.api_library.dto.ShelfItemResponseDTO(
+                ub.id, b.id, b.title, b.author, ub.readingStatus, ub.rating, ub.review, ub.isFavorite, ub.currentPage)
+            FROM UserBook ub JOIN ub.book b JOIN ub.user u
+            WHERE u.username = :username AND ub.id < :beforeId
+            ORDER BY ub.id DESC
+            """)
+    List<ShelfItemResponseDTO> findShelfItemsBefore(@Param("username") String username, @Param("beforeId") Long beforeId,
+                                                    Limit limit);
+
     Optional<UserBook> findByUserAndBook(User user, Book book);
 
-}
\ No newline at end of file
+    // Apaga a estante inteira num único DELETE, sem carregar os itens no contexto de persistência
+    @Modifying
+    @Query("DELETE FROM UserBook ub WHERE ub.user.id = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+
+    // Escrita com a checagem de dono no próprio WHERE: um único statement, sem carregar User nem UserBook.
+    // O dono é resolvido por subconsulta no username; 0 linhas afetadas = item inexistente ou de outro usuário.
+    // Campos nulos mantêm o valor atual (semântica de PATCH), exceto completedAt, que já vem calculado.
+    // Espera a versão da estante já incrementada.
+    @Modifying
+    @Query("""
+            UPDATE UserBook ub
+            SET ub.readingStatus = COALESCE(:readingStatus, ub.readingStatus),
+                ub.rating = COALESCE(:rating, ub.rating),
+                ub.review = COALESCE(:review, ub.review),
+                ub.currentPage = COALESCE(:currentPage, ub.currentPage),
+                ub.isFavorite = COALESCE(:isFavorite, ub.isFavorite),
+                ub.completedAt = :completedAt,
+                ub.changeVersion = (SELECT u.shelfVersion FROM User u WHERE u.username = :username)
+            WHERE ub.id = :id
+              AND ub.user.id = (SELECT u.id FROM User u WHERE u.username = :username)
+            """)
+    int updateOwnedItem(@Param("id") Long id, @Param("username") String username,
+                        @Param("readingStatus") ReadingStatus readingStatus, @Param("rating") Double rating,
+                        @Param("review") String review, @Param("currentPage") Integer currentPage,
+                        @Param("isFavorite") Boolean isFavorite, @Param("completedAt") LocalDateTime completedAt);
+
+    @Modifying
+    @Query("""
+            DELETE FROM UserBook ub
+            WHERE ub.id = :id
+              AND ub.user.id = (SELECT u.id FROM User u WHERE u.username = :username)
+            """)
+    int deleteOwnedItem(@Param("id") Long id, @Param("username") String username);
+
+    // Item da estante direto no DTO de resposta: um SELECT com join em books, sem entidades gerenciadas
+    @Query("""
+            SELECT new br.com.management.api_library.dto.ShelfItemResponseDTO(
+                ub.id, b.id, b.title, b.author, ub.readingStatus, ub.rating, ub.review, ub.isFavorite, ub.currentPage)
+            FROM UserBook ub JOIN ub.book b
+            WHERE ub.id = :id
+            """)
+    Optional<ShelfItemResponseDTO> findItemById(@Param("id") Long id);
+
+    // --- Lote de sincronização (ShelfBatchService): checagens e leituras set-based, uma consulta para o lote todo ---
+
+    @Query("SELECT ub.id FROM UserBook ub WHERE ub.id IN :ids AND ub.user.id = :userId")
+    List<Long> findOwnedIds(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    // Só no caminho de erro: dos ids que não são do usuário, quais existem (403) e quais não (404)
+    @Query("SELECT ub.id FROM UserBook ub WHERE ub.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM UserBook ub WHERE ub.id IN :ids AND ub.user.id = :userId")
+    int deleteOwnedItems(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    @Query("""
+            SELECT new br.com.management.api_library.dto.ShelfItemResponseDTO(
+                ub.id, b.id, b.title, b.author, ub.readingStatus, ub.rating, ub.review, ub.isFavorite, ub.currentPage)
+            FROM UserBook ub JOIN ub.book b
+            WHERE ub.id IN :ids
+            """)
+    List<ShelfItemResponseDTO> findItemsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query("""
+            SELECT new br.com.management.api_library.dto.ShelfItemResponseDTO(
+                ub.id, b.id, b.title, b.author, ub.readingStatus, ub.rating, ub.review, ub.isFavorite, ub.currentPage)
+            FROM UserBook ub JOIN ub.book b
+            WHERE ub.user.id = :userId AND b.id IN :bookIds
+            """)
+    List<ShelfItemResponseDTO> findItemsByUserAndBookIds(@Param("userId") Long userId, @Param("bookIds") Collection<Long> bookIds);
+
+    // Sincronização incremental: itens do usuário escritos depois da versão informada (índice user_id, change_version)
+    @Query("""
+            SELECT new br.com.management.api_library.dto.ShelfItemResponseDTO(
+                ub.id, b.id, b.title, b.author, ub.readingStatus, ub.rating, ub.review, ub.isFavorite, ub.currentPage)
+            FROM UserBook ub JOIN ub.book b JOIN ub.user u
+            WHERE u.username = :username AND ub.changeVersion > :since
+            ORDER BY ub.changeVersion, ub.id
+            """)
+    List<ShelfItemResponseDTO> findChangedSince(@Param("username") String username, @Param("since") long since);
+
+    // Estado do item antes de uma escrita (estatísticas de leitura), já filtrado pelo dono
+    @Query("""
+            SELECT new br.com.management.api_library.dto.ShelfItemStateDTO(
+                ub.id, u.id, ub.readingStatus, ub.rating, ub.isFavorite, ub.currentPage, ub.completedAt)
+            FROM UserBook ub JOIN ub.user u
+            WHERE ub.id = :id AND u.username = :username
+            """)
+    Optional<ShelfItemStateDTO> findOwnedItemState(@Param("id") Long id, @Param("username") String username);
+
+    @Query("""
+            SELECT new br.com.management.api_library.dto.ShelfItemStateDTO(
+                ub.id, ub.user.id, ub.readingStatus, ub.rating, ub.isFavorite, ub.currentPage, ub.completedAt)
+            FROM UserBook ub
+            WHERE ub.id IN :ids AND ub.user.id = :userId
+            """)
+    List<ShelfItemStateDTO> findOwnedItemStates(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+
+    // Rebuild das estatísticas: [ano, mês, quantidade] dos itens concluídos, por mês do completedAt
+    @Query("""
+            SELECT YEAR(ub.completedAt), MONTH(ub.completedAt), COUNT(ub)
+            FROM UserBook ub
+            WHERE ub.user.id = :userId AND ub.readingStatus = :status AND ub.completedAt IS NOT NULL
+            GROUP BY YEAR(ub.completedAt), MONTH(ub.completedAt)
+            """)
+    List<Object[]> countByCompletionMonth(@Param("userId") Long userId, @Param("status") ReadingStatus status);
+}
@@ -0,0 +1,260 @@
+package br.com.management.api_library.repository;
+
+import br.com.management.api_library.model.ReadingStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Inclusão idempotente na estante: insere o item se o livro ainda não está na estante do usuário e,
+ * se já estiver, devolve o item existente, sem SELECT prévio e sem estourar a unique (user_id, book_id)
+ * quando duas requisições concorrentes chegam juntas. Também faz as gravações do lote de sincronização
+ * (ShelfBatchService) em batches JDBC, um por tipo de operação.
+ */
+@Repository
+public class UserBookUpsertRepository {
+
+    // Postgres: um único statement, que também incrementa a versão da estante do dono (sincronização incremental).
+    // O INSERT do CTE não é visível para o SELECT do mesmo statement, então no máximo uma das partes do UNION
+    // devolve linha (a nova ou a que já existia).
+    private static final String UPSERT_ON_CONFLICT = """
+            WITH owner AS (
+                UPDATE table_users SET shelf_version = shelf_version + 1 WHERE username = ?
+                RETURNING id, shelf_version
+            ),
+            inserted AS (
+                INSERT INTO user_book (user_id, book_id, reading_status, rating, review, current_page, is_favorite,
+                                       completed_at, change_version)
+                SELECT owner.id, ?, ?, ?, ?, ?, ?, ?, owner.shelf_version FROM owner
+                ON CONFLICT (user_id, book_id) DO NOTHING
+                RETURNING id, user_id, reading_status, rating, review, current_page, is_favorite, completed_at
+            )
+            SELECT id, user_id, reading_status, rating, review, current_page, is_favorite, completed_at, true AS created
+            FROM inserted
+            UNION ALL
+            SELECT ub.id, ub.user_id, ub.reading_status, ub.rating, ub.review, ub.current_page, ub.is_favorite,
+                   ub.completed_at, false
+            FROM user_book ub JOIN owner ON ub.user_id = owner.id
+            WHERE ub.book_id = ?
+            """;
+
+    // H2 (dev/test) não tem ON CONFLICT nem UPDATE em CTE: incrementa a versão, faz um MERGE que só insere
+    // quando não existe e lê o item
+    private static final String BUMP_SHELF_VERSION = "UPDATE table_users SET shelf_version = shelf_version + 1 WHERE username = ?";
+
+    private static final String MERGE_IF_ABSENT = """
+            MERGE INTO user_book ub
+            USING (SELECT id AS user_id, shelf_version FROM table_users WHERE username = ?) owner
+            ON ub.user_id = owner.user_id AND ub.book_id = ?
+            WHEN NOT MATCHED THEN
+                INSERT (user_id, book_id, reading_status, rating, review, current_page, is_favorite, completed_at, change_version)
+                VALUES (owner.user_id, ?, ?, ?, ?, ?, ?, ?, owner.shelf_version)
+            """;
+
+    // Versões do lote: o dono e a versão da estante já vêm resolvidos, e cada linha do batch JDBC é um "insere se não existe"
+    private static final String BATCH_INSERT_ON_CONFLICT = """
+            INSERT INTO user_book (user_id, book_id, reading_status, rating, review, current_page, is_favorite, completed_at, change_version)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (user_id, book_id) DO NOTHING
+            """;
+
+    private static final String BATCH_MERGE_IF_ABSENT = """
+            MERGE INTO user_book ub
+            USING (SELECT CAST(? AS BIGINT) AS user_id, CAST(? AS BIGINT) AS book_id) src
+            ON ub.user_id = src.user_id AND ub.book_id = src.book_id
+            WHEN NOT MATCHED THEN
+                INSERT (user_id, book_id, reading_status, rating, review, current_page, is_favorite, completed_at, change_version)
+                VALUES (src.user_id, src.book_id, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // Mesma regra de PATCH do UPDATE individual (nulo mantém o valor, exceto completed_at), com o dono no WHERE
+    private static final String BATCH_UPDATE_OWNED = """
+            UPDATE user_book
+            SET reading_status = COALESCE(?, reading_status),
+                rating = COALESCE(?, rating),
+                review = COALESCE(?, review),
+                current_page = COALESCE(?, current_page),
+                is_favorite = COALESCE(?, is_favorite),
+                completed_at = ?,
+                change_version = ?
+            WHERE id = ? AND user_id = ?
+            """;
+
+    private static final String SELECT_ITEM = """
+            SELECT ub.id, ub.user_id, ub.reading_status, ub.rating, ub.review, ub.current_page, ub.is_favorite, ub.completed_at
+            FROM user_book ub JOIN table_users u ON ub.user_id = u.id
+            WHERE u.username = ? AND ub.book_id = ?
+            """;
+
+    /** Estado do item depois do upsert; {@code created} diz se ele acabou de ser inserido. */
+    public record Result(Long userBookId, Long userId, ReadingStatus readingStatus, Double rating, String review,
+                         int currentPage, boolean isFavorite, LocalDateTime completedAt, boolean created) {}
+
+    /** Livro a incluir no lote, com os valores padrão já aplicados. */
+    public record NewItem(Long bookId, ReadingStatus readingStatus, Double rating, String review,
+                          int currentPage, boolean isFavorite, LocalDateTime completedAt) {}
+
+    /** Alteração de um item no lote; campos nulos mantêm o valor atual, menos completedAt, que já vem calculado. */
+    public record ItemUpdate(Long userBookId, ReadingStatus readingStatus, Double rating, String review,
+                             Integer currentPage, Boolean isFavorite, LocalDateTime completedAt) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean onConflict;
+
+    @Autowired
+    public UserBookUpsertRepository(JdbcTemplate jdbcTemplate,
+                                    @Value("${api.shelf.upsert.on-conflict:false}") boolean onConflict) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.onConflict = onConflict;
+    }
+
+    /**
+     * Insere o livro na estante do usuário, ou devolve o item que já estava lá (sem alterá-lo),
+     * incrementando a versão da estante do dono. Vazio se o usuário não existir. Deve rodar dentro de uma transação.
+     */
+    public Optional<Result> insertIfAbsent(String username, Long bookId, ReadingStatus readingStatus, Double rating,
+                                           String review, int currentPage, boolean isFavorite, LocalDateTime completedAt) {
+        if (onConflict) {
+            List<Result> rows = jdbcTemplate.query(UPSERT_ON_CONFLICT, ps -> {
+                ps.setString(1, username);
+                setItemValues(ps, 2, bookId, readingStatus, rating, review, currentPage, isFavorite, completedAt);
+                ps.setLong(9, bookId);
+            }, (rs, rowNum) -> mapResult(rs, rs.getBoolean("created")));
+            if (!rows.isEmpty()) {
+                return Optional.of(rows.getFirst());
+            }
+            // Nada inserido e nada visto: outra transação inseriu o mesmo item depois do início do statement
+            return findItem(username, bookId, false);
+        }
+
+        jdbcTemplate.update(BUMP_SHELF_VERSION, username);
+        int inserted;
+        try {
+            inserted = jdbcTemplate.update(MERGE_IF_ABSENT, ps -> {
+                ps.setString(1, username);
+                ps.setLong(2, bookId);
+                setItemValues(ps, 3, bookId, readingStatus, rating, review, currentPage, isFavorite, completedAt);
+            });
+        } catch (DuplicateKeyException e) {
+            inserted = 0; // Corrida com outra requisição: o item já existe
+        }
+        return findItem(username, bookId, inserted > 0);
+    }
+
+    /**
+     * Insere os livros na estante do usuário num único batch JDBC, ignorando os que já estão lá.
+     * {@code version} é a versão da estante já incrementada para o lote.
+     * Devolve o número de linhas inseridas por item, na ordem da lista (0 = já estava na estante).
+     */
+    public int[] insertAllIfAbsent(Long userId, long version, List<NewItem> items) {
+        if (onConflict) {
+            return jdbcTemplate.batchUpdate(BATCH_INSERT_ON_CONFLICT, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    NewItem item = items.get(i);
+                    ps.setLong(1, userId);
+                    setItemValues(ps, 2, item.bookId(), item.readingStatus(), item.rating(), item.review(),
+                            item.currentPage(), item.isFavorite(), item.completedAt());
+                    ps.setLong(9, version);
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return items.size();
+                }
+            });
+        }
+
+        return jdbcTemplate.batchUpdate(BATCH_MERGE_IF_ABSENT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                NewItem item = items.get(i);
+                ps.setLong(1, userId);
+                ps.setLong(2, item.bookId());
+                // O book_id do INSERT vem da fonte do MERGE: os valores do item começam no 3º parâmetro
+                ps.setString(3, item.readingStatus().name());
+                ps.setObject(4, item.rating(), Types.DOUBLE);
+                ps.setString(5, item.review());
+                ps.setInt(6, item.currentPage());
+                ps.setBoolean(7, item.isFavorite());
+                ps.setObject(8, item.completedAt(), Types.TIMESTAMP);
+                ps.setLong(9, version);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return items.size();
+            }
+        });
+    }
+
+    /**
+     * Aplica as alterações num único batch JDBC, cada UPDATE filtrado pelo dono e marcado com {@code version}.
+     * Devolve o número de linhas afetadas por item, na ordem da lista.
+     */
+    public int[] updateAllOwned(Long userId, long version, List<ItemUpdate> updates) {
+        return jdbcTemplate.batchUpdate(BATCH_UPDATE_OWNED, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ItemUpdate update = updates.get(i);
+                ps.setString(1, update.readingStatus() != null ? update.readingStatus().name() : null);
+                ps.setObject(2, update.rating(), Types.DOUBLE);
+                ps.setString(3, update.review());
+                ps.setObject(4, update.currentPage(), Types.INTEGER);
+                ps.setObject(5, update.isFavorite(), Types.BOOLEAN);
+                ps.setObject(6, update.completedAt(), Types.TIMESTAMP);
+                ps.setLong(7, version);
+                ps.setLong(8, update.userBookId());
+                ps.setLong(9, userId);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return updates.size();
+            }
+        });
+    }
+
+    private Optional<Result> findItem(String username, Long bookId, boolean created) {
+        return jdbcTemplate.query(SELECT_ITEM, ps -> {
+            ps.setString(1, username);
+            ps.setLong(2, bookId);
+        }, (rs, rowNum) -> mapResult(rs, created)).stream().findFirst();
+    }
+
+    private static void setItemValues(PreparedStatement ps, int index, Long bookId, ReadingStatus readingStatus,
+                                      Double rating, String review, int currentPage, boolean isFavorite,
+                                      LocalDateTime completedAt) throws SQLException {
+        ps.setLong(index, bookId);
+        ps.setString(index + 1, readingStatus.name());
+        ps.setObject(index + 2, rating, Types.DOUBLE);
+        ps.setString(index + 3, review);
+        ps.setInt(index + 4, currentPage);
+        ps.setBoolean(index + 5, isFavorite);
+        ps.setObject(index + 6, completedAt, Types.TIMESTAMP);
+    }
+
+    private static Result mapResult(ResultSet rs, boolean created) throws SQLException {
+        return new Result(
+                rs.getLong("id"),
+                rs.getLong("user_id"),
+                ReadingStatus.valueOf(rs.getString("reading_status")),
+                rs.getObject("rating", Double.class),
+                rs.getString("review"),
+                rs.getInt("current_page"),
+                rs.getBoolean("is_favorite"),
+                rs.getObject("completed_at", LocalDateTime.class),
+                created);
+    }
+}
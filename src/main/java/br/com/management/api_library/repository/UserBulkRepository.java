@@ -0,0 +1,80 @@
+package br.com.management.api_library.repository;
+
+import br.com.management.api_library.model.User;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gravações em massa de usuários direto pelo JDBC. Com ids IDENTITY o Hibernate não agrupa inserts,
+ * então aqui cada grupo vira um único batch JDBC para table_users e outro para user_roles.
+ */
+@Repository
+public class UserBulkRepository {
+
+    private static final String INSERT_USER =
+            "INSERT INTO table_users (username, password, email, full_name, full_name_search) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_USER_ROLE =
+            "INSERT INTO user_roles (user_id, role_id) VALUES (?, ?)";
+    private static final String UPDATE_FULL_NAME_SEARCH =
+            "UPDATE table_users SET full_name_search = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserBulkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insere os usuários (todos com a mesma role) e devolve os ids gerados, na mesma ordem da lista.
+     * Deve ser chamado dentro de uma transação, para que usuário e role entrem juntos ou não entrem.
+     */
+    public List<Long> insertAll(List<User> users, Long roleId) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_USER, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        User user = users.get(i);
+                        ps.setString(1, user.getUsername());
+                        ps.setString(2, user.getPassword());
+                        ps.setString(3, user.getEmail());
+                        ps.setString(4, user.getFullName());
+                        ps.setString(5, user.getFullNameSearch());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return users.size();
+                    }
+                }, keyHolder);
+
+        // Cada banco devolve a coluna com um nome ("id" no Postgres, "ID" no H2): pegamos o único valor da linha
+        List<Long> ids = keyHolder.getKeyList().stream()
+                .map(Map::values)
+                .map(values -> ((Number) values.iterator().next()).longValue())
+                .toList();
+
+        jdbcTemplate.batchUpdate(INSERT_USER_ROLE, ids, ids.size(), (ps, id) -> {
+            ps.setLong(1, id);
+            ps.setLong(2, roleId);
+        });
+        return ids;
+    }
+
+    /** Grava a coluna de busca por nome (já dobrada) de vários usuários num único batch JDBC. */
+    public void updateFullNameSearch(Map<Long, String> foldedNamesById) {
+        List<Map.Entry<Long, String>> entries = List.copyOf(foldedNamesById.entrySet());
+        jdbcTemplate.batchUpdate(UPDATE_FULL_NAME_SEARCH, entries, entries.size(), (ps, entry) -> {
+            ps.setString(1, entry.getValue());
+            ps.setLong(2, entry.getKey());
+        });
+    }
+}
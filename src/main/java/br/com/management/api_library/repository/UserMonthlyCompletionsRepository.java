@@ -0,0 +1,39 @@
+package br.com.management.api_library.repository;
+
+import br.com.management.api_library.model.UserMonthlyCompletions;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface UserMonthlyCompletionsRepository extends JpaRepository<UserMonthlyCompletions, Long> {
+
+    @Modifying
+    @Query(value = """
+            UPDATE user_monthly_completions SET completed_count = completed_count + :delta
+            WHERE user_id = :userId AND month_start = :monthStart
+            """, nativeQuery = true)
+    int applyDelta(@Param("userId") Long userId, @Param("monthStart") LocalDate monthStart, @Param("delta") long delta);
+
+    // Primeiro livro concluído no mês. Sem corrida: as escritas de um usuário já estão em fila pela linha dele
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_monthly_completions (user_id, month_start, completed_count)
+            VALUES (:userId, :monthStart, :completed)
+            """, nativeQuery = true)
+    int insertMonth(@Param("userId") Long userId, @Param("monthStart") LocalDate monthStart, @Param("completed") long completed);
+
+    @Query("""
+            SELECT m FROM UserMonthlyCompletions m
+            WHERE m.userId = :userId AND m.completedCount > 0
+            ORDER BY m.monthStart DESC
+            """)
+    List<UserMonthlyCompletions> findNonEmptyByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM UserMonthlyCompletions m WHERE m.userId = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+}
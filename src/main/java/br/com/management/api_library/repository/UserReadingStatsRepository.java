@@ -0,0 +1,52 @@
+package br.com.management.api_library.repository;
+
+import br.com.management.api_library.model.UserReadingStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface UserReadingStatsRepository extends JpaRepository<UserReadingStats, Long> {
+
+    // Soma as diferenças de uma escrita na estante. 0 linhas = usuário ainda sem estatísticas (nada a manter)
+    @Modifying
+    @Query(value = """
+            UPDATE user_reading_stats
+            SET reading_count = reading_count + :reading,
+                completed_count = completed_count + :completed,
+                want_to_read_count = want_to_read_count + :wantToRead,
+                dropped_count = dropped_count + :dropped,
+                favorites_count = favorites_count + :favorites,
+                pages_read = pages_read + :pagesRead,
+                rating_sum = rating_sum + :ratingSum,
+                rating_count = rating_count + :ratingCount
+            WHERE user_id = :userId
+            """, nativeQuery = true)
+    int applyDelta(@Param("userId") Long userId, @Param("reading") long reading, @Param("completed") long completed,
+                   @Param("wantToRead") long wantToRead, @Param("dropped") long dropped, @Param("favorites") long favorites,
+                   @Param("pagesRead") long pagesRead, @Param("ratingSum") double ratingSum, @Param("ratingCount") long ratingCount);
+
+    // Recalcula do zero a partir da estante (um GROUP BY); usado na primeira consulta e no rebuild
+    @Modifying
+    @Query(value = """
+            INSERT INTO user_reading_stats (user_id, reading_count, completed_count, want_to_read_count, dropped_count,
+                                            favorites_count, pages_read, rating_sum, rating_count)
+            SELECT u.id,
+                   COUNT(CASE WHEN ub.reading_status = 'READING' THEN 1 END),
+                   COUNT(CASE WHEN ub.reading_status = 'COMPLETED' THEN 1 END),
+                   COUNT(CASE WHEN ub.reading_status = 'WANT_TO_READ' THEN 1 END),
+                   COUNT(CASE WHEN ub.reading_status = 'DROPPED' THEN 1 END),
+                   COUNT(CASE WHEN ub.is_favorite THEN 1 END),
+                   COALESCE(SUM(ub.current_page), 0),
+                   COALESCE(SUM(CASE WHEN ub.rating > 0 THEN ub.rating END), 0),
+                   COUNT(CASE WHEN ub.rating > 0 THEN 1 END)
+            FROM table_users u LEFT JOIN user_book ub ON ub.user_id = u.id
+            WHERE u.id = :userId
+            GROUP BY u.id
+            """, nativeQuery = true)
+    int insertComputedFromShelf(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM UserReadingStats s WHERE s.userId = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+}
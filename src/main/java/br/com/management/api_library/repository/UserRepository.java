@@ -1,12 +1,21 @@
 package br.com.management.api_library.repository;
 
+import br.com.management.api_library.dto.UserResponseDTO;
 import br.com.management.api_library.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepository extends JpaRepository<User, Long> {
 
@@ -15,9 +24,118 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmailIgnoreCase(String email);
     Optional<User> findByUsernameIgnoreCase(String username);
 
+    // As buscas por nome recebem o termo já dobrado (User.foldForSearch) e com curingas escapados,
+    // e devolvem direto o DTO: sem entidade gerenciada e sem o carregamento EAGER das roles.
+
+    // Postgres: o LIKE '%termo%' usa o índice GIN de trigramas (V4) e o ranking vem do pg_trgm
+    @Query(value = """
+            SELECT new br.com.management.api_library.dto.UserResponseDTO(u.id, u.username, u.email, u.fullName)
+            FROM User u
+            WHERE u.fullNameSearch LIKE concat('%', :term, '%') ESCAPE '\\'
+            ORDER BY function('similarity', u.fullNameSearch, :term) DESC, u.id
+            """,
+            countQuery = "SELECT count(u) FROM User u WHERE u.fullNameSearch LIKE concat('%', :term, '%') ESCAPE '\\'")
+    Page<UserResponseDTO> searchByFullNameTrigram(@Param("term") String term, Pageable pageable);
+
+    // H2 (dev/test) não tem pg_trgm: mesmo filtro, ranking aproximado (igual > começa com > mais curto)
+    @Query(value = """
+            SELECT new br.com.management.api_library.dto.UserResponseDTO(u.id, u.username, u.email, u.fullName)
+            FROM User u
+            WHERE u.fullNameSearch LIKE concat('%', :term, '%') ESCAPE '\\'
+            ORDER BY CASE
+                        WHEN u.fullNameSearch = :term THEN 0
+                        WHEN u.fullNameSearch LIKE concat(:term, '%') ESCAPE '\\' THEN 1
+                        ELSE 2
+                     END,
+                     length(u.fullNameSearch), u.id
+            """,
+            countQuery = "SELECT count(u) FROM User u WHERE u.fullNameSearch LIKE concat('%', :term, '%') ESCAPE '\\'")
+    Page<UserResponseDTO> searchByFullNameRanked(@Param("term") String term, Pageable pageable);
+
+    // Listagem administrativa: filtros opcionais (padrões LIKE já em minúsculo e escapados; "%" = sem filtro)
     @Query(value = """
-            SELECT * FROM table_users u 
-            WHERE unaccent(u.full_name) ILIKE unaccent(concat('%', :term, '%'))
-            """, nativeQuery = true)
-    List<User> searchByFullNamePolyglot(@Param("term") String term);
+            SELECT new br.com.management.api_library.dto.UserResponseDTO(u.id, u.username, u.email, u.fullName)
+            FROM User u
+            WHERE lower(u.username) LIKE :username ESCAPE '\\'
+              AND lower(u.email) LIKE :email ESCAPE '\\'
+              AND (:role IS NULL OR EXISTS (SELECT r.id FROM u.roles r WHERE r.name = :role))
+            """,
+            countQuery = """
+            SELECT count(u) FROM User u
+            WHERE lower(u.username) LIKE :username ESCAPE '\\'
+              AND lower(u.email) LIKE :email ESCAPE '\\'
+              AND (:role IS NULL OR EXISTS (SELECT r.id FROM u.roles r WHERE r.name = :role))
+            """)
+    Page<UserResponseDTO> findSummaries(@Param("username") String username, @Param("email") String email,
+                                        @Param("role") String role, Pageable pageable);
+
+    // Exportação: cursor no servidor lido de FETCH_SIZE em FETCH_SIZE linhas. Precisa rodar dentro de uma transação
+    // (no Postgres, é ela que mantém o cursor aberto) e o Stream deve ser fechado ao final.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new br.com.management.api_library.dto.UserResponseDTO(u.id, u.username, u.email, u.fullName) FROM User u ORDER BY u.id")
+    Stream<UserResponseDTO> streamAllSummaries();
+
+    // Checagem de unicidade do cadastro em lote: uma consulta para todos os usernames e outra para todos os e-mails
+    @Query("SELECT lower(u.username) FROM User u WHERE lower(u.username) IN :usernames")
+    List<String> findExistingUsernamesIgnoreCase(@Param("usernames") Collection<String> lowercaseUsernames);
+
+    @Query("SELECT lower(u.email) FROM User u WHERE lower(u.email) IN :emails")
+    List<String> findExistingEmailsIgnoreCase(@Param("emails") Collection<String> lowercaseEmails);
+
+    // Só o id do dono, para escritas em lote que não precisam da entidade (nem das roles EAGER)
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
+    // Versão da estante (sincronização incremental). O UPDATE trava a linha do usuário até o fim da transação,
+    // então as escritas de um mesmo usuário recebem versões na mesma ordem em que são confirmadas.
+    @Modifying
+    @Query(value = "UPDATE table_users SET shelf_version = shelf_version + 1 WHERE username = :username", nativeQuery = true)
+    int bumpShelfVersion(@Param("username") String username);
+
+    @Modifying
+    @Query(value = "UPDATE table_users SET shelf_version = shelf_version + 1 WHERE id = :id", nativeQuery = true)
+    int bumpShelfVersionById(@Param("id") Long id);
+
+    @Query("SELECT u.shelfVersion FROM User u WHERE u.id = :id")
+    Optional<Long> findShelfVersionById(@Param("id") Long id);
+
+    @Query("SELECT u.shelfVersion FROM User u WHERE u.username = :username")
+    Optional<Long> findShelfVersionByUsername(@Param("username") String username);
+
+    // Trava a linha do usuário sem mudar a versão: recálculo das estatísticas em fila com as escritas na estante
+    @Modifying
+    @Query(value = "UPDATE table_users SET shelf_version = shelf_version WHERE id = :id", nativeQuery = true)
+    int lockShelfById(@Param("id") Long id);
+
+    // Backfill da busca por nome (SearchColumnsBackfill): usuários anteriores à coluna full_name_search, por seek
+    @Query("""
+            SELECT new br.com.management.api_library.dto.UserResponseDTO(u.id, u.username, u.email, u.fullName)
+            FROM User u
+            WHERE u.id > :after AND u.fullName IS NOT NULL AND u.fullNameSearch IS NULL
+            ORDER BY u.id
+            """)
+    List<UserResponseDTO> findMissingFullNameSearch(@Param("after") Long after, Pageable pageable);
+
+    // Só no Postgres: a busca por trigramas depende da extensão criada pela V4 (aplicada à mão)
+    @Query(value = "SELECT count(*) FROM pg_extension WHERE extname = :name", nativeQuery = true)
+    long countInstalledExtensions(@Param("name") String name);
+
+    // Rebuild das estatísticas: ids em ordem, por seek (sem OFFSET)
+    @Query("SELECT u.id FROM User u WHERE u.id > :after ORDER BY u.id")
+    List<Long> findIdsAfter(@Param("after") Long after, Pageable pageable);
+
+    // Exclusão set-based (UserService.deleteUser): estante, roles e usuário em um DELETE cada
+    @Query("SELECT u.username FROM User u WHERE u.id = :id")
+    Optional<String> findUsernameById(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "DELETE FROM user_roles WHERE user_id = :userId", nativeQuery = true)
+    int deleteRolesByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id = :id")
+    int deleteUserRowById(@Param("id") Long id);
 }
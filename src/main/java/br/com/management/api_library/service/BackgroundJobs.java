@@ -0,0 +1,58 @@
+package br.com.management.api_library.service;
+
+import br.com.management.api_library.exception.ServerBusyException;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jobs em segundo plano de um serviço: uma thread (para não disputar o banco com as requisições), fila limitada
+ * e os jobs mais recentes consultáveis pelo id. Com a fila cheia, o job é descartado e a requisição recebe 503.
+ */
+final class BackgroundJobs<J> {
+
+    private final ThreadPoolExecutor executor;
+    private final Map<String, J> jobs;
+    private final String busyMessage;
+
+    BackgroundJobs(String threadName, int queueCapacity, int maxTracked, String busyMessage) {
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, threadName);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, J> eldest) {
+                return size() > maxTracked;
+            }
+        });
+        this.busyMessage = busyMessage;
+    }
+
+    /** Registra o job e agenda o trabalho; se a fila estiver cheia, desfaz o registro e lança ServerBusyException. */
+    void submit(String id, J job, Runnable work) {
+        jobs.put(id, job);
+        try {
+            executor.execute(work);
+        } catch (RejectedExecutionException e) {
+            jobs.remove(id);
+            throw new ServerBusyException(busyMessage);
+        }
+    }
+
+    Optional<J> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -2,49 +2,95 @@ package br.com.management.api_library.service;
 
 import br.com.management.api_library.dto.*;
 import br.com.management.api_library.exception.BookAlreadyExistsException;
+import br.com.management.api_library.exception.ExternalServiceUnavailableException;
 import br.com.management.api_library.exception.ResourceNotFoundException;
 import br.com.management.api_library.model.Book;
+import br.com.management.api_library.repository.BookBulkRepository;
 import br.com.management.api_library.repository.BookRepository;
+import br.com.management.api_library.service.cache.BookCache;
+import br.com.management.api_library.service.search.BookSearchIndex;
 import jakarta.validation.Valid;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Service
 public class BookService {
 
     private final BookRepository bookRepository;
+    private final BookBulkRepository bookBulkRepository;
     private final IsbnService isbnService;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookCache bookCache;
+    private final SearchColumnsBackfill searchColumnsBackfill;
+    private final TransactionTemplate transactionTemplate;
 
-    public BookService(BookRepository bookRepository, IsbnService isbnService) {
+    private static final Pattern ISBN_CHARACTERS = Pattern.compile("[0-9Xx\\s-]+");
+    private static final Pattern ISBN_SEPARATORS = Pattern.compile("[\\s-]");
+
+    // Importação em lote: chamadas simultâneas ao Google por lote e quantos livros vão juntos para o banco
+    private static final int ISBN_BATCH_CONCURRENCY = 8;
+    private static final int ISBN_BATCH_SAVE_SIZE = 100;
+
+    // Buscas simultâneas do mesmo ISBN compartilham uma única ida ao Google e um único INSERT
+    private final SingleFlight<String, BookResponseDTO> isbnLookups = new SingleFlight<>();
+
+    public BookService(BookRepository bookRepository, BookBulkRepository bookBulkRepository, IsbnService isbnService,
+                       BookSearchIndex bookSearchIndex, BookCache bookCache, SearchColumnsBackfill searchColumnsBackfill,
+                       TransactionTemplate transactionTemplate) {
         this.bookRepository = bookRepository;
+        this.bookBulkRepository = bookBulkRepository;
         this.isbnService = isbnService;
+        this.bookSearchIndex = bookSearchIndex;
+        this.bookCache = bookCache;
+        this.searchColumnsBackfill = searchColumnsBackfill;
+        this.transactionTemplate = transactionTemplate;
     }
 
     public BookResponseDTO createBook(BookCreateDTO createDTO) {
 
-        bookRepository.findByIsbn(createDTO.isbn())
+        // Mesma forma gravada por mapDtoToEntity e usada nas buscas por ISBN
+        String isbn = normalizeIsbn(createDTO.isbn());
+        bookRepository.findByIsbn(isbn)
                 .ifPresent(existingBook -> {
-                    throw new BookAlreadyExistsException("Erro: O livro com o ISBN: " + createDTO.isbn() + " já existe.");
+                    throw new BookAlreadyExistsException("Erro: O livro com o ISBN: " + isbn + " já existe.");
                 });
 
         Book newBook = new Book();
         mapDtoToEntity(newBook, createDTO);
 
         Book savedBook = bookRepository.save(newBook);
+        bookSearchIndex.index(savedBook);
+        bookCache.evictByIsbn(savedBook.getIsbn());
         return toResponseDTO(savedBook);
     }
 
     public BookResponseDTO getById(Long id) {
-        return bookRepository.findById(id)
-                // CORREÇÃO: Troque .get() por .orElseThrow(...)
-                .map(this::toResponseDTO)
+        return bookCache.getById(id, () -> bookRepository.findById(id).map(this::toResponseDTO))
                 .orElseThrow(() -> new ResourceNotFoundException("Livro não encontrado com ID: " + id));
     }
 
@@ -54,6 +100,15 @@ public class BookService {
                 .map(this::toResponseDTO);
     }
 
+    public CursorPageDTO<BookResponseDTO> scrollAllBooks(String after, int size) {
+        Window<Book> window = bookRepository.findAllBy(
+                KeysetCursor.positionAfter(after, "title"),
+                Limit.of(KeysetCursor.pageSize(size)),
+                Sort.by("title", "id"));
+
+        return KeysetCursor.toPage(window, this::toResponseDTO, book -> new KeysetCursor(book.getTitle(), book.getId()));
+    }
+
     public BookResponseDTO getBookByTitle(String title) {
 
         Book books = bookRepository.findByTitleIgnoringCase(title)
@@ -72,82 +127,310 @@ public class BookService {
         }
     }
 
-    public List<BookResponseDTO> getByAuthor(String author) {
-        List<Book> books = bookRepository.findAll();
+    public CursorPageDTO<BookResponseDTO> scrollBooksByGenre(String genre, String after, int size) {
+        ScrollPosition position = KeysetCursor.positionAfter(after, null);
+        Limit limit = Limit.of(KeysetCursor.pageSize(size));
+        Sort sort = Sort.by(Sort.Direction.DESC, "id");
+        // Enquanto o backfill não termina, a rolagem inteira vai pela coluna original (o cursor, só o id, vale nas duas)
+        Window<Book> window = searchColumnsBackfill.isBookColumnsPending()
+                ? bookRepository.findByGenreIgnoringCase(genre.trim(), position, limit, sort)
+                : bookRepository.findByGenreNormalized(Book.normalize(genre), position, limit, sort);
+
+        return KeysetCursor.toPage(window, this::toResponseDTO, book -> new KeysetCursor(null, book.getId()));
+    }
+
+    public Page<BookResponseDTO> getByAuthor(String author, boolean anyAuthor, Pageable pageable) {
+        String normalizedAuthor = Book.normalize(author);
+
+        // anyAuthor = true procura o autor dentro de listas como "Autor A, Autor B"
+        Page<Book> books = anyAuthor
+                ? bookRepository.findByAuthorName(normalizedAuthor, pageable)
+                : bookRepository.findByAuthorNormalized(normalizedAuthor, pageable);
+        if (books.isEmpty() && searchColumnsBackfill.isBookColumnsPending()) {
+            // Livros antigos ainda sem as colunas normalizadas: confere a coluna original
+            books = anyAuthor
+                    ? bookRepository.findByRawAuthorName(normalizedAuthor, pageable)
+                    : bookRepository.findByRawAuthor(normalizedAuthor, pageable);
+        }
 
         if (books.isEmpty()) {
             throw new ResourceNotFoundException("Erro: Nenhum livro do autor " + author + " foi encontrado.");
         } else {
-            return books.stream()
-                    .filter(b -> b.getAuthor().equalsIgnoreCase(author))
-                    .map(this::toResponseDTO)
-                    .toList();
+            return books.map(this::toResponseDTO);
         }
     }
 
-    public List<BookResponseDTO> getByPublisher(String publisher) {
-        List<Book> books = bookRepository.findAll();
+    public Page<BookResponseDTO> getByPublisher(String publisher, Pageable pageable) {
+        String normalizedPublisher = Book.normalize(publisher);
+        Page<Book> books = bookRepository.findByPublisherNormalized(normalizedPublisher, pageable);
+        if (books.isEmpty() && searchColumnsBackfill.isBookColumnsPending()) {
+            books = bookRepository.findByRawPublisher(normalizedPublisher, pageable);
+        }
 
         if (books.isEmpty()) {
             throw new ResourceNotFoundException("Erro: Nenhum livro da editora " + publisher + " foi encontrado.");
         } else {
-            return books.stream()
-                    .filter(b -> b.getPublisher().equalsIgnoreCase(publisher))
-                    .map(this::toResponseDTO)
-                    .toList();
+            return books.map(this::toResponseDTO);
         }
     }
 
+    // Busca textual no índice em memória; só a página pedida é carregada do banco
+    public Page<BookResponseDTO> searchBooks(String query, Pageable pageable) {
+        List<BookSearchIndex.SearchHit> hits = bookSearchIndex.search(query);
+
+        int from = (int) Math.min(pageable.getOffset(), hits.size());
+        int to = Math.min(from + pageable.getPageSize(), hits.size());
+        List<Long> pageIds = hits.subList(from, to).stream()
+                .map(BookSearchIndex.SearchHit::bookId)
+                .toList();
+
+        // findAllById não garante a ordem, então reordenamos pelo ranking
+        Map<Long, Book> booksById = bookRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+
+        List<BookResponseDTO> content = pageIds.stream()
+                .map(booksById::get)
+                .filter(Objects::nonNull)
+                .map(this::toResponseDTO)
+                .toList();
+
+        return new PageImpl<>(content, pageable, hits.size());
+    }
+
     public BookResponseDTO updateBook(Long id, @Valid BookUpdateDTO updateDTO) {
         Book existingBook = bookRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Erro: Livro não encontrado com o ID: " + id));
 
+        String previousIsbn = existingBook.getIsbn();
         mapDtoToEntity(existingBook, updateDTO);
 
         Book updatedBook = bookRepository.save(existingBook);
+        bookSearchIndex.index(updatedBook);
+        bookCache.evictById(id);
+        bookCache.evictByIsbn(previousIsbn);
+        bookCache.evictByIsbn(updatedBook.getIsbn());
         return toResponseDTO(updatedBook);
     }
 
     public void deleteBook(Long id) {
-        bookRepository.findById(id)
+        Book existingBook = bookRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Erro: Livro não encontrado com o ID: " + id));
 
         bookRepository.deleteById(id);
+        bookSearchIndex.remove(id);
+        bookCache.evictById(id);
+        bookCache.evictByIsbn(existingBook.getIsbn());
     }
 
     // ISBN
 
-    @Transactional // Leitura e potencial escrita, então usamos @Transactional
+    /**
+     * Resolve o ISBN em três fases, sem transação aberta durante a chamada ao Google:
+     * leitura local, busca externa (sem conexão do pool presa) e um insert-or-get curto.
+     * Não use @Transactional aqui (nem NOT_SUPPORTED, que mantém o EntityManager e sua conexão
+     * presos ao escopo): cada fase usa a transação curta do próprio repositório.
+     */
     public BookResponseDTO findOrCreateBookByIsbn(String isbn) {
-        // 1. Verifica se o livro JÁ EXISTE no nosso banco local pelo ISBN
-        Optional<Book> existingBookOpt = bookRepository.findByIsbn(isbn);
+        String normalizedIsbn = normalizeIsbn(isbn);
+
+        // 1. Verifica se o livro JÁ EXISTE localmente pelo ISBN (cache primeiro, depois um SELECT curto)
+        Optional<BookResponseDTO> existingBookOpt = findLocalBookByIsbn(normalizedIsbn);
 
         if (existingBookOpt.isPresent()) {
-            // 2. Se existe, apenas converte para DTO e retorna
-            log.info("Livro com ISBN {} encontrado no banco local.", isbn);
-            return toResponseDTO(existingBookOpt.get());
-        } else {
-            // 3. Se NÃO existe localmente, chama o IsbnService para buscar externamente
-            log.info("Livro com ISBN {} não encontrado localmente. Buscando na API externa...", isbn);
-            Optional<GoogleBookVolumeInfo> externalBookInfoOpt = isbnService.findBookInfoByIsbn(isbn);
+            // 2. Se existe, apenas retorna o DTO
+            log.info("Livro com ISBN {} encontrado no banco local.", normalizedIsbn);
+            return existingBookOpt.get();
+        }
 
-            if (externalBookInfoOpt.isPresent()) {
-                // 4. Se a API externa encontrou, converte os dados externos para nossa entidade Book
-                GoogleBookVolumeInfo volumeInfo = externalBookInfoOpt.get();
-                Book newBook = mapGoogleVolumeInfoToBook(isbn, volumeInfo); // Método auxiliar (ver abaixo)
+        // Quem chegar enquanto outra requisição resolve o mesmo ISBN espera o resultado dela
+        return isbnLookups.execute(normalizedIsbn, () -> resolveIsbn(normalizedIsbn));
+    }
 
-                // 5. Salva o novo livro no nosso banco de dados
-                Book savedBook = bookRepository.save(newBook);
-                log.info("Livro com ISBN {} encontrado externamente e salvo localmente com ID {}.", isbn, savedBook.getId());
+    /**
+     * Versão não bloqueante de findOrCreateBookByIsbn: a thread que chamou fica livre enquanto o Google responde.
+     * Só a consulta local roda na thread de quem chamou; a gravação vai para o scheduler boundedElastic,
+     * porque JDBC bloqueia e não pode rodar na event loop do WebClient.
+     */
+    public CompletableFuture<BookResponseDTO> findOrCreateBookByIsbnAsync(String isbn) {
+        String normalizedIsbn = normalizeIsbn(isbn);
 
-                // 6. Converte a entidade salva para DTO e retorna
-                return toResponseDTO(savedBook);
+        Optional<BookResponseDTO> existingBookOpt = findLocalBookByIsbn(normalizedIsbn);
+        if (existingBookOpt.isPresent()) {
+            log.info("Livro com ISBN {} encontrado no banco local.", normalizedIsbn);
+            return CompletableFuture.completedFuture(existingBookOpt.get());
+        }
+
+        return isbnLookups.executeAsync(normalizedIsbn, () -> resolveIsbnAsync(normalizedIsbn).toFuture());
+    }
+
+    /**
+     * Resolve um lote de ISBNs e devolve cada resultado assim que fica pronto.
+     * Os ISBNs são normalizados e deduplicados; os que já existem saem de um único SELECT ... IN,
+     * os demais vão ao Google com no máximo ISBN_BATCH_CONCURRENCY chamadas simultâneas e são gravados em grupos.
+     */
+    public Flux<IsbnBatchResultDTO> resolveIsbnBatch(List<String> isbns) {
+        List<String> uniqueIsbns = isbns.stream()
+                .filter(Objects::nonNull)
+                .map(BookService::normalizeIsbn)
+                .filter(isbn -> !isbn.isEmpty())
+                .distinct()
+                .toList();
+
+        // JDBC bloqueia: a consulta e as gravações rodam no boundedElastic, nunca na event loop do WebClient
+        return Mono.fromCallable(() -> bookRepository.findByIsbnIn(uniqueIsbns))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(localBooks -> {
+                    Map<String, BookResponseDTO> found = localBooks.stream()
+                            .map(this::toResponseDTO)
+                            .collect(Collectors.toMap(BookResponseDTO::isbn, Function.identity(), (first, second) -> first));
+                    List<String> missing = uniqueIsbns.stream()
+                            .filter(isbn -> !found.containsKey(isbn))
+                            .toList();
+                    log.info("Lote de {} ISBNs: {} já no catálogo, {} a buscar no Google.", uniqueIsbns.size(), found.size(), missing.size());
+
+                    Flux<IsbnBatchResultDTO> localResults = Flux.fromIterable(found.values())
+                            .map(book -> IsbnBatchResultDTO.of(IsbnBatchResultDTO.Status.FOUND, book));
+
+                    Flux<IsbnBatchResultDTO> importedResults = Flux.fromIterable(missing)
+                            .flatMap(this::fetchForBatch, ISBN_BATCH_CONCURRENCY)
+                            .bufferTimeout(ISBN_BATCH_SAVE_SIZE, Duration.ofSeconds(1))
+                            .publishOn(Schedulers.boundedElastic())
+                            .concatMapIterable(this::saveBatch);
+
+                    return Flux.concat(localResults, importedResults);
+                });
+    }
+
+    public SingleFlight.Stats getIsbnLookupStats() {
+        return isbnLookups.stats();
+    }
+
+    private BookResponseDTO resolveIsbn(String isbn) {
+        // Confere de novo: um líder anterior pode ter acabado de gravar este ISBN
+        Optional<BookResponseDTO> existingBookOpt = findLocalBookByIsbn(isbn);
+        if (existingBookOpt.isPresent()) {
+            return existingBookOpt.get();
+        }
+
+        // 3. Se NÃO existe localmente, chama o IsbnService para buscar externamente (fora de transação)
+        log.info("Livro com ISBN {} não encontrado localmente. Buscando na API externa...", isbn);
+        Optional<GoogleBookVolumeInfo> externalBookInfoOpt = isbnService.findBookInfoByIsbn(isbn);
+
+        return saveImportedBook(isbn, externalBookInfoOpt.orElseThrow(() -> notFoundAnywhere(isbn)));
+    }
+
+    private Mono<BookResponseDTO> resolveIsbnAsync(String isbn) {
+        Optional<BookResponseDTO> existingBookOpt = findLocalBookByIsbn(isbn);
+        if (existingBookOpt.isPresent()) {
+            return Mono.just(existingBookOpt.get());
+        }
+
+        log.info("Livro com ISBN {} não encontrado localmente. Buscando na API externa...", isbn);
+        return isbnService.findBookInfoByIsbnAsync(isbn)
+                .switchIfEmpty(Mono.error(() -> notFoundAnywhere(isbn)))
+                .publishOn(Schedulers.boundedElastic())
+                .map(volumeInfo -> saveImportedBook(isbn, volumeInfo));
+    }
+
+    // Resultado da ida ao Google de um ISBN do lote: ou o volume a gravar, ou o resultado final (erro/não encontrado)
+    private record BatchFetch(String isbn, GoogleBookVolumeInfo volumeInfo, IsbnBatchResultDTO result) {}
+
+    private Mono<BatchFetch> fetchForBatch(String isbn) {
+        return isbnService.findBookInfoByIsbnAsync(isbn)
+                .map(volumeInfo -> new BatchFetch(isbn, volumeInfo, null))
+                .defaultIfEmpty(new BatchFetch(isbn, null,
+                        IsbnBatchResultDTO.error(isbn, IsbnBatchResultDTO.Status.NOT_FOUND, "Livro não encontrado com o ISBN: " + isbn)))
+                .onErrorResume(ExternalServiceUnavailableException.class, e -> Mono.just(new BatchFetch(isbn, null,
+                        IsbnBatchResultDTO.error(isbn, IsbnBatchResultDTO.Status.UNAVAILABLE, e.getMessage()))));
+    }
+
+    private List<IsbnBatchResultDTO> saveBatch(List<BatchFetch> fetches) {
+        List<IsbnBatchResultDTO> results = new ArrayList<>(fetches.size());
+        List<Book> newBooks = new ArrayList<>();
+        for (BatchFetch fetch : fetches) {
+            if (fetch.result() != null) {
+                results.add(fetch.result());
             } else {
-                // 7. Se nem a API externa encontrou, lança exceção
-                log.warn("Livro com ISBN {} não encontrado em nenhuma fonte.", isbn);
-                throw new ResourceNotFoundException("Livro não encontrado com o ISBN: " + isbn);
+                newBooks.add(mapGoogleVolumeInfoToBook(fetch.isbn(), fetch.volumeInfo()));
+            }
+        }
+        if (newBooks.isEmpty()) {
+            return results;
+        }
+
+        List<Book> savedBooks;
+        try {
+            // Um único batch JDBC (livros + autores) numa transação curta para o grupo inteiro
+            savedBooks = transactionTemplate.execute(status -> bookBulkRepository.insertAll(newBooks));
+        } catch (DataIntegrityViolationException e) {
+            // Algum ISBN do grupo foi gravado em paralelo: cai para o insert-or-get livro a livro
+            log.info("Conflito ao gravar um grupo do lote; gravando os {} livros um a um.", newBooks.size());
+            savedBooks = new ArrayList<>(newBooks.size());
+            for (Book newBook : newBooks) {
+                try {
+                    newBook.setId(null); // O id gerado antes do rollback não vale mais
+                    savedBooks.add(insertOrGet(newBook));
+                } catch (RuntimeException saveError) {
+                    log.error("Erro ao gravar o ISBN {} do lote: {}", newBook.getIsbn(), saveError.getMessage());
+                    results.add(IsbnBatchResultDTO.error(newBook.getIsbn(), IsbnBatchResultDTO.Status.FAILED, "Erro ao gravar o livro."));
+                }
             }
         }
+
+        for (Book savedBook : savedBooks) {
+            bookSearchIndex.index(savedBook);
+            BookResponseDTO savedBookDTO = toResponseDTO(savedBook);
+            bookCache.put(savedBookDTO);
+            results.add(IsbnBatchResultDTO.of(IsbnBatchResultDTO.Status.IMPORTED, savedBookDTO));
+        }
+        return results;
+    }
+
+    private ResourceNotFoundException notFoundAnywhere(String isbn) {
+        // 4. Se nem a API externa encontrou, lança exceção
+        log.warn("Livro com ISBN {} não encontrado em nenhuma fonte.", isbn);
+        return new ResourceNotFoundException("Livro não encontrado com o ISBN: " + isbn);
+    }
+
+    private BookResponseDTO saveImportedBook(String isbn, GoogleBookVolumeInfo volumeInfo) {
+        // 5. Converte os dados externos e grava (ou reaproveita o que outra instância gravou)
+        Book newBook = mapGoogleVolumeInfoToBook(isbn, volumeInfo);
+        Book savedBook = insertOrGet(newBook);
+        bookSearchIndex.index(savedBook);
+        log.info("Livro com ISBN {} encontrado externamente e salvo localmente com ID {}.", isbn, savedBook.getId());
+
+        // 6. Converte a entidade salva para DTO, guarda no cache e retorna
+        BookResponseDTO savedBookDTO = toResponseDTO(savedBook);
+        bookCache.put(savedBookDTO);
+        return savedBookDTO;
+    }
+
+    private Optional<BookResponseDTO> findLocalBookByIsbn(String isbn) {
+        return bookCache.getByIsbn(isbn, () -> bookRepository.findByIsbn(isbn).map(this::toResponseDTO));
+    }
+
+    // Remove hífens e espaços ("978-85-359-1484-9" -> "9788535914849") para que variações do mesmo ISBN se agrupem.
+    // Identificadores que não têm cara de ISBN são mantidos como vieram (só sem espaços nas pontas).
+    static String normalizeIsbn(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        String trimmed = isbn.trim();
+        if (!ISBN_CHARACTERS.matcher(trimmed).matches()) {
+            return trimmed;
+        }
+        return ISBN_SEPARATORS.matcher(trimmed).replaceAll("").toUpperCase(Locale.ROOT);
+    }
+
+    // save() roda na própria transação curta do repositório; o INSERT (id IDENTITY) sai na hora
+    private Book insertOrGet(Book newBook) {
+        try {
+            return bookRepository.save(newBook);
+        } catch (DataIntegrityViolationException e) {
+            // Outra requisição gravou o mesmo ISBN enquanto esperávamos o Google
+            log.info("ISBN {} gravado em paralelo por outra requisição; reaproveitando o registro existente.", newBook.getIsbn());
+            return bookRepository.findByIsbn(newBook.getIsbn()).orElseThrow(() -> e);
+        }
     }
 
     private Book mapGoogleVolumeInfoToBook(String isbn, GoogleBookVolumeInfo volumeInfo) {
@@ -228,7 +511,7 @@ public class BookService {
         book.setGenre(createDTO.genre());
         book.setDescription(createDTO.description());
         book.setLanguage(createDTO.language());
-        book.setIsbn(createDTO.isbn());
+        book.setIsbn(normalizeIsbn(createDTO.isbn()));
         book.setPages(createDTO.pages());
     }
 
@@ -239,7 +522,7 @@ public class BookService {
         book.setGenre(updateDTO.genre());
         book.setDescription(updateDTO.description());
         book.setLanguage(updateDTO.language());
-        book.setIsbn(updateDTO.isbn());
+        book.setIsbn(normalizeIsbn(updateDTO.isbn()));
         book.setPages(updateDTO.pages());
     }
 
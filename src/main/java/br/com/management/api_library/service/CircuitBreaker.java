@@ -0,0 +1,90 @@
+package br.com.management.api_library.service;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Disjuntor simples para uma integração externa: depois de N falhas seguidas ele "abre" e recusa chamadas
+ * na hora, sem esperar o timeout. Passado o tempo de espera, deixa uma única chamada de teste passar (meio aberto):
+ * se ela der certo o circuito fecha, se falhar ele abre de novo.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    public record Stats(State state, int consecutiveFailures, long successes, long failures, long rejected, long timesOpened) {}
+
+    private final int failureThreshold;
+    private final long openDurationNanos;
+    private final LongSupplier clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    private long successes;
+    private long failures;
+    private long rejected;
+    private long timesOpened;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Pede permissão para chamar o serviço externo. Quem recebe true deve informar o resultado
+     * com recordSuccess, recordFailure ou recordAbandoned.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openDurationNanos) {
+            state = State.HALF_OPEN;
+        }
+
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return true;
+        }
+
+        rejected++;
+        return false;
+    }
+
+    public synchronized void recordSuccess() {
+        successes++;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void recordFailure() {
+        failures++;
+        consecutiveFailures++;
+        trialInFlight = false;
+
+        // No meio aberto basta uma falha; fechado, só depois de atingir o limite
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAt = clock.getAsLong();
+            timesOpened++;
+        }
+    }
+
+    // A chamada foi cancelada antes de terminar: não conta como sucesso nem falha, só libera a vaga de teste
+    public synchronized void recordAbandoned() {
+        trialInFlight = false;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(state, consecutiveFailures, successes, failures, rejected, timesOpened);
+    }
+}
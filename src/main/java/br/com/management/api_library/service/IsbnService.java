@@ -2,18 +2,25 @@ package br.com.management.api_library.service;
 
 import br.com.management.api_library.dto.GoogleBookApiResponse;
 import br.com.management.api_library.dto.GoogleBookVolumeInfo;
+import br.com.management.api_library.exception.ExternalServiceUnavailableException;
+import br.com.management.api_library.service.cache.GoogleSearchCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,59 +30,97 @@ public class IsbnService {
     private final WebClient webClient;
     private final String apiKey;
 
-    public IsbnService(WebClient webClient, @Value("${google.books.api.key}") String apiKey) {
+    // Proteções da integração: tempo máximo por chamada, limite de chamadas simultâneas e disjuntor
+    private final Duration callTimeout;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
+
+    // Pesquisas repetidas (mesma consulta e página) saem daqui, sem gastar cota do Google
+    private final GoogleSearchCache searchCache;
+
+    @Autowired
+    public IsbnService(WebClient webClient,
+                       @Value("${google.books.api.key}") String apiKey,
+                       @Value("${google.books.api.call-timeout:6s}") Duration callTimeout,
+                       @Value("${google.books.api.max-concurrent-calls:20}") int maxConcurrentCalls,
+                       @Value("${google.books.api.circuit.failure-threshold:5}") int failureThreshold,
+                       @Value("${google.books.api.circuit.open-duration:30s}") Duration openDuration,
+                       GoogleSearchCache searchCache) {
+        this(webClient, apiKey, callTimeout, maxConcurrentCalls, new CircuitBreaker(failureThreshold, openDuration), searchCache);
+    }
+
+    IsbnService(WebClient webClient, String apiKey, Duration callTimeout, int maxConcurrentCalls,
+                CircuitBreaker circuitBreaker, GoogleSearchCache searchCache) {
         this.webClient = webClient;
         this.apiKey = apiKey;
+        this.callTimeout = callTimeout;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.circuitBreaker = circuitBreaker;
+        this.searchCache = searchCache;
     }
 
     /**
      * Busca informações de um livro na API do Google Books pelo ISBN.
      * Retorna um Optional contendo as informações do volume, ou vazio se não encontrar.
+     * Versão bloqueante: prefira findBookInfoByIsbnAsync em quem não pode segurar a thread.
      */
     public Optional<GoogleBookVolumeInfo> findBookInfoByIsbn(String isbn) {
+        return findBookInfoByIsbnAsync(isbn).blockOptional();
+    }
+
+    /**
+     * Mesma busca por ISBN, sem bloquear: o Mono completa vazio se o Google não achar o livro ou falhar.
+     * Se o circuito estiver aberto (ou o limite de chamadas simultâneas estourar), falha na hora com
+     * ExternalServiceUnavailableException, para não transformar indisponibilidade em "não encontrado".
+     */
+    public Mono<GoogleBookVolumeInfo> findBookInfoByIsbnAsync(String isbn) {
         log.info("Buscando informações para o ISBN: {}", isbn);
         String queryParam = "isbn:" + isbn;
-        String finalUri = "/volumes?q=" + queryParam + "&key=" + this.apiKey;
-        log.debug("Chamando Google Books API com URI: {}", finalUri);
-
-        try {
-
-            // Faz a chamada GET para a API
-            GoogleBookApiResponse response = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/volumes") // Já temos a baseUrl configurada
-                            .queryParam("q", queryParam)
-                            .queryParam("key", apiKey)
-                            .build())
-                    .retrieve() // Executa a requisição
-                    .onStatus(status -> status.isError(), clientResponse -> {
-                        log.error("Erro recebido da API do Google Books: Status {}", clientResponse.statusCode());
-                        return clientResponse.bodyToMono(String.class)
-                                .flatMap(errorBody -> {
-                                    log.error("Corpo do erro da API do Google: {}", errorBody);
-                                    return Mono.error(new RuntimeException("Erro da API externa: " + clientResponse.statusCode()));
-                                });
-                    })
-                    .bodyToMono(GoogleBookApiResponse.class) // Mapeia o corpo para nosso DTO
-                    .block(); // Espera a resposta (forma síncrona simples para começar)
-
-            // Processa a resposta
-            if (response != null && response.items() != null && !response.items().isEmpty()) {
-                log.info("Informações encontradas para o ISBN: {}", isbn);
-                // Retorna o volumeInfo do primeiro item encontrado
-                return Optional.ofNullable(response.items().get(0).volumeInfo());
-            } else {
-                log.warn("Nenhuma informação encontrada para o ISBN: {}", isbn);
-                return Optional.empty();
-            }
-        } catch (Exception e) {
-            // Loga o erro se a chamada à API falhar
-            log.error("Erro ao chamar a API do Google Books para o ISBN {}: {}", isbn, e.getMessage());
-            return Optional.empty(); // Retorna vazio em caso de erro
-        }
+
+        // Faz a chamada GET para a API
+        Mono<GoogleBookApiResponse> call = webClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/volumes") // Já temos a baseUrl configurada
+                        .queryParam("q", queryParam)
+                        .queryParam("key", apiKey)
+                        .build())
+                .retrieve() // Executa a requisição
+                .onStatus(status -> status.isError(), clientResponse -> {
+                    log.error("Erro recebido da API do Google Books: Status {}", clientResponse.statusCode());
+                    // A exceção leva o status: countsAsFailure usa ele para não abrir o circuito por erros 4xx
+                    return clientResponse.createException()
+                            .doOnNext(error -> log.error("Corpo do erro da API do Google: {}", error.getResponseBodyAsString()));
+                })
+                .bodyToMono(GoogleBookApiResponse.class); // Mapeia o corpo para nosso DTO
+
+        return guarded(call)
+                .flatMap(response -> {
+                    // Processa a resposta
+                    if (response.items() != null && !response.items().isEmpty() && response.items().get(0).volumeInfo() != null) {
+                        log.info("Informações encontradas para o ISBN: {}", isbn);
+                        // Retorna o volumeInfo do primeiro item encontrado
+                        return Mono.just(response.items().get(0).volumeInfo());
+                    }
+                    return Mono.<GoogleBookVolumeInfo>empty();
+                })
+                .switchIfEmpty(Mono.fromRunnable(() -> log.warn("Nenhuma informação encontrada para o ISBN: {}", isbn)))
+                .onErrorResume(e -> !(e instanceof ExternalServiceUnavailableException), e -> {
+                    // Loga o erro se a chamada à API falhar
+                    log.error("Erro ao chamar a API do Google Books para o ISBN {}: {}", isbn, e.getMessage());
+                    return Mono.empty(); // Retorna vazio em caso de erro
+                });
     }
 
     public Page<GoogleBookVolumeInfo> searchBooksByQuery(String query, Pageable pageable) {
+        return searchBooksByQueryAsync(query, pageable).block();
+    }
+
+    /**
+     * Pesquisa no Google Books sem bloquear a thread que chamou. Em caso de erro, completa com uma página vazia;
+     * com o circuito aberto a página vazia volta na hora, sem chamada ao Google.
+     * Consultas repetidas são servidas pelo GoogleSearchCache.
+     */
+    public Mono<Page<GoogleBookVolumeInfo>> searchBooksByQueryAsync(String query, Pageable pageable) {
         String cleanQuery = query.trim();
         if (cleanQuery.matches("^\\d{10}|\\d{13}$")) {
             cleanQuery = "isbn:" + cleanQuery;
@@ -88,46 +133,103 @@ public class IsbnService {
         int startIndex = pageable.getPageNumber() * pageable.getPageSize();
         int maxResults = pageable.getPageSize();
 
-        log.info("Buscando no Google: query='{}', startIndex={}, maxResults={}", cleanQuery, startIndex, maxResults);
-
-        try {
-            String finalQuery = cleanQuery;
-            GoogleBookApiResponse response = webClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/volumes")
-                            .queryParam("q", finalQuery)
-                            .queryParam("startIndex", startIndex) // Adiciona o início
-                            .queryParam("maxResults", maxResults) // Adiciona o tamanho
-                            .queryParam("key", this.apiKey)
-                            .build())
-                    .retrieve()
-                    .bodyToMono(GoogleBookApiResponse.class)
-                    .block();
-
-            List<GoogleBookVolumeInfo> results = List.of();
-            long totalItems = (pageable.getPageNumber() + 2) * pageable.getPageSize(); // O Google retorna o total aproximado de resultados
-
-            if (response != null) {
-                // 1. Capturamos o total de itens que o Google diz ter
-                log.info("Total de itens retornado pelo Google: {}", response.totalItems());
-                totalItems = response.totalItems();
-
-                if (response.items() != null) {
-                    results = response.items().stream()
-                            .map(item -> item.volumeInfo())
-                            .filter(info -> info.imageLinks() != null)
-                            .collect(Collectors.toList());
-                }
+        String finalQuery = cleanQuery;
+        GoogleSearchCache.Key cacheKey = GoogleSearchCache.keyOf(finalQuery, startIndex, maxResults);
+
+        return searchCache.get(cacheKey, () -> fetchSearch(finalQuery, startIndex, maxResults))
+                .<Page<GoogleBookVolumeInfo>>map(result -> new PageImpl<>(result.content(), pageable, result.totalItems()))
+                .defaultIfEmpty(new PageImpl<>(List.of(), pageable, (pageable.getPageNumber() + 2) * pageable.getPageSize()))
+                .onErrorResume(e -> {
+                    log.error("Erro na busca: {}", e.getMessage());
+                    return Mono.just(Page.empty());
+                });
+    }
+
+    public CircuitBreaker.Stats getCircuitStats() {
+        return circuitBreaker.stats();
+    }
+
+    public GoogleSearchCache.Stats getSearchCacheStats() {
+        return searchCache.stats();
+    }
+
+    // Só chega aqui em cache miss (ou na atualização em segundo plano de uma entrada vencida)
+    private Mono<GoogleSearchCache.Result> fetchSearch(String query, int startIndex, int maxResults) {
+        log.info("Buscando no Google: query='{}', startIndex={}, maxResults={}", query, startIndex, maxResults);
+
+        Mono<GoogleBookApiResponse> call = webClient.get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/volumes")
+                        .queryParam("q", query)
+                        .queryParam("startIndex", startIndex) // Adiciona o início
+                        .queryParam("maxResults", maxResults) // Adiciona o tamanho
+                        .queryParam("key", this.apiKey)
+                        .build())
+                .retrieve()
+                .bodyToMono(GoogleBookApiResponse.class);
+
+        return guarded(call).map(this::toSearchResult);
+    }
+
+    /**
+     * Aplica as proteções a uma chamada ao Google. A vaga do bulkhead e a permissão do disjuntor são pedidas
+     * só na assinatura (Mono.defer), e o resultado é registrado antes de qualquer onErrorResume engolir o erro.
+     */
+    private <T> Mono<T> guarded(Mono<T> call) {
+        return Mono.defer(() -> {
+            if (!bulkhead.tryAcquire()) {
+                log.warn("Limite de chamadas simultâneas ao Google Books atingido; recusando a chamada.");
+                return Mono.error(new ExternalServiceUnavailableException("Serviço do Google Books sobrecarregado. Tente novamente em instantes."));
+            }
+            if (!circuitBreaker.tryAcquire()) {
+                bulkhead.release();
+                log.warn("Circuito do Google Books aberto; recusando a chamada sem acionar a API.");
+                return Mono.error(new ExternalServiceUnavailableException("Serviço do Google Books temporariamente indisponível."));
             }
 
-            // Retorna um objeto Page do Spring, que contém a lista e os metadados
-            // Nota: Sem o totalItems real, a paginação no front pode ficar imprecisa (sem saber quantas páginas existem).
-            // Para simplificar agora, podemos retornar uma PageImpl com o tamanho da lista atual.
-            return new PageImpl<>(results, pageable, totalItems );
+            return call
+                    .timeout(callTimeout)
+                    .doOnSuccess(result -> circuitBreaker.recordSuccess())
+                    .doOnError(e -> {
+                        if (countsAsFailure(e)) {
+                            circuitBreaker.recordFailure();
+                        } else {
+                            circuitBreaker.recordSuccess();
+                        }
+                    })
+                    .doFinally(signal -> {
+                        if (signal == SignalType.CANCEL) {
+                            circuitBreaker.recordAbandoned();
+                        }
+                        bulkhead.release();
+                    });
+        });
+    }
+
+    // Erros 4xx (fora o 429) são culpa da requisição, não sinal de que o Google está degradado
+    private static boolean countsAsFailure(Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
+            int status = responseException.getStatusCode().value();
+            return status >= 500 || status == 429;
+        }
+        return true;
+    }
+
+    private GoogleSearchCache.Result toSearchResult(GoogleBookApiResponse response) {
+        List<GoogleBookVolumeInfo> results = List.of();
 
-        } catch (Exception e) {
-            log.error("Erro na busca: {}", e.getMessage());
-            return Page.empty();
+        // 1. Capturamos o total de itens que o Google diz ter (é um total aproximado)
+        log.info("Total de itens retornado pelo Google: {}", response.totalItems());
+        long totalItems = response.totalItems();
+
+        if (response.items() != null) {
+            results = response.items().stream()
+                    .map(item -> item.volumeInfo())
+                    .filter(info -> info.imageLinks() != null)
+                    .collect(Collectors.toList());
         }
+
+        // A página do Spring é montada por quem chamou, a partir do resultado (cacheável)
+        return new GoogleSearchCache.Result(results, totalItems);
     }
-}
\ No newline at end of file
+}
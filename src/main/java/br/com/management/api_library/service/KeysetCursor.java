@@ -0,0 +1,87 @@
+package br.com.management.api_library.service;
+
+import br.com.management.api_library.dto.CursorPageDTO;
+import br.com.management.api_library.exception.InvalidCursorException;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Cursor opaco da paginação por keyset: guarda a chave de ordenação e o id do último item entregue.
+ * O cliente só repassa o token no parâmetro "after"; o formato interno pode mudar sem quebrar a API.
+ */
+public record KeysetCursor(String sortKey, Long id) {
+
+    private static final char SEPARATOR = '\n';
+    private static final int MAX_PAGE_SIZE = 100;
+
+    public String encode() {
+        String raw = (sortKey != null ? sortKey : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // O id fica depois do último separador, então a chave pode conter qualquer caractere
+            int separatorIndex = raw.lastIndexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                throw new InvalidCursorException("Cursor de paginação inválido.");
+            }
+            return new KeysetCursor(raw.substring(0, separatorIndex), Long.parseLong(raw.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Cursor de paginação inválido.");
+        }
+    }
+
+    /**
+     * Converte o token "after" na posição de keyset do Spring Data.
+     * sortProperty é null quando a ordenação é apenas pelo id.
+     */
+    public static ScrollPosition positionAfter(String after, String sortProperty) {
+        if (after == null || after.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        KeysetCursor cursor = decode(after);
+        Map<String, Object> keys = new LinkedHashMap<>();
+        if (sortProperty != null) {
+            keys.put(sortProperty, cursor.sortKey());
+        }
+        keys.put("id", cursor.id());
+        return ScrollPosition.forward(keys);
+    }
+
+    public static int pageSize(int requestedSize) {
+        return Math.max(1, Math.min(requestedSize, MAX_PAGE_SIZE));
+    }
+
+    public static <E, T> CursorPageDTO<T> toPage(Window<E> window, Function<E, T> mapper, Function<E, KeysetCursor> cursorOf) {
+        List<T> content = window.getContent().stream().map(mapper).toList();
+
+        String nextCursor = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            nextCursor = cursorOf.apply(window.getContent().get(window.size() - 1)).encode();
+        }
+        return new CursorPageDTO<>(content, content.size(), window.hasNext(), nextCursor);
+    }
+
+    /**
+     * Monta a página a partir de uma consulta que pediu pageSize + 1 linhas: a linha extra só indica que há próxima.
+     */
+    public static <E, T> CursorPageDTO<T> toPage(List<E> rows, int pageSize, Function<E, T> mapper,
+                                                 Function<E, KeysetCursor> cursorOf) {
+        boolean hasNext = rows.size() > pageSize;
+        List<E> pageRows = hasNext ? rows.subList(0, pageSize) : rows;
+        List<T> content = pageRows.stream().map(mapper).toList();
+
+        String nextCursor = hasNext ? cursorOf.apply(pageRows.getLast()).encode() : null;
+        return new CursorPageDTO<>(content, content.size(), hasNext, nextCursor);
+    }
+}
@@ -0,0 +1,285 @@
+package br.com.management.api_library.service;
+
+import br.com.management.api_library.exception.ServerBusyException;
+import br.com.management.api_library.repository.ReadingProgressRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Write-behind do progresso de leitura: o app manda a página atual a cada poucas páginas, e cada envio só
+ * atualiza um mapa em memória, um registro por item da estante (vale a maior página recebida).
+ * Uma thread grava o mapa de tempos em tempos (ou antes, quando ele enche um batch) em batches JDBC.
+ * O progresso pendente continua visível para as leituras da estante até ser confirmado no banco,
+ * e o que estiver em memória é gravado no desligamento normal da aplicação.
+ */
+@Component
+public class ReadingProgressBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadingProgressBuffer.class);
+
+    private final ReadingProgressRepository readingProgressRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final long flushIntervalMillis;
+    private final int batchSize;
+    private final int maxPending;
+    private final LongSupplier clock;
+
+    // Progresso ainda não gravado, por userBookId
+    private final ConcurrentHashMap<Long, Pending> pending = new ConcurrentHashMap<>();
+    // Retirado para o flush em andamento e ainda não confirmado: continua valendo para as leituras
+    private final ConcurrentHashMap<Long, Pending> inFlight = new ConcurrentHashMap<>();
+    // O agendador e o desligamento nunca gravam ao mesmo tempo
+    private final Object flushLock = new Object();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean closed;
+    private ScheduledExecutorService scheduler;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushedRows = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile int lastBatchSize;
+    private volatile int largestBatchSize;
+    private volatile long lastFlushLagMillis;
+    private volatile long maxFlushLagMillis;
+
+    /**
+     * {@code coalesced}: envios absorvidos por um progresso já pendente; {@code stale}: envios ignorados por não
+     * avançarem a página; lag do flush: do primeiro envio acumulado até a gravação confirmada.
+     */
+    public record Stats(int pending, long received, long coalesced, long stale, long flushes, long flushedRows,
+                        long failures, int lastBatchSize, int largestBatchSize, long lastFlushLagMillis,
+                        long maxFlushLagMillis) {}
+
+    // firstReceivedAt é o instante do primeiro envio acumulado neste registro (base do lag do flush)
+    private record Pending(Long userId, String username, int currentPage, long firstReceivedAt) {}
+
+    @Autowired
+    public ReadingProgressBuffer(ReadingProgressRepository readingProgressRepository, TransactionTemplate transactionTemplate,
+                                 @Value("${api.shelf.progress.flush-interval:5s}") Duration flushInterval,
+                                 @Value("${api.shelf.progress.batch-size:500}") int batchSize,
+                                 @Value("${api.shelf.progress.max-pending:100000}") int maxPending) {
+        this(readingProgressRepository, transactionTemplate, flushInterval, batchSize, maxPending, System::currentTimeMillis);
+    }
+
+    ReadingProgressBuffer(ReadingProgressRepository readingProgressRepository, TransactionTemplate transactionTemplate,
+                          Duration flushInterval, int batchSize, int maxPending, LongSupplier clock) {
+        this.readingProgressRepository = readingProgressRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.flushIntervalMillis = flushInterval.toMillis();
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.clock = clock;
+    }
+
+    /**
+     * Acumula a página do item (o dono já foi checado por quem chama) e devolve a página que passa a valer:
+     * a maior entre a pendente e a recebida. Com o mapa cheio (banco fora do ar), recusa com ServerBusyException.
+     */
+    public int record(Long userId, String username, Long userBookId, int currentPage) {
+        if (pending.size() >= maxPending && !pending.containsKey(userBookId)) {
+            throw new ServerBusyException("Muitas atualizações de progresso pendentes. Tente novamente em instantes.");
+        }
+        received.incrementAndGet();
+
+        Pending result = pending.compute(userBookId, (id, current) -> {
+            if (current == null) {
+                return new Pending(userId, username, currentPage, clock.getAsLong());
+            }
+            if (currentPage <= current.currentPage()) {
+                // Envio atrasado ou repetido: a página não volta
+                stale.incrementAndGet();
+                return current;
+            }
+            coalesced.incrementAndGet();
+            return new Pending(current.userId(), current.username(), currentPage, current.firstReceivedAt());
+        });
+
+        if (closed) {
+            // Depois do flush final do desligamento, grava na hora para não perder nada
+            flush();
+        } else if (pending.size() >= batchSize) {
+            requestFlush();
+        }
+        return result.currentPage();
+    }
+
+    /** Dono do progresso pendente do item, se ele for do usuário: dispensa a consulta de dono no caminho quente. */
+    public Optional<Long> pendingOwner(Long userBookId, String username) {
+        Pending entry = pending.get(userBookId);
+        if (entry == null) {
+            entry = inFlight.get(userBookId);
+        }
+        return entry != null && entry.username().equals(username) ? Optional.of(entry.userId()) : Optional.empty();
+    }
+
+    /** Página pendente (ou em gravação) do item, para as leituras verem o próprio progresso antes do flush. */
+    public OptionalInt pendingPage(Long userBookId) {
+        Pending queued = pending.get(userBookId);
+        Pending writing = inFlight.get(userBookId);
+        if (queued == null && writing == null) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of(Math.max(queued != null ? queued.currentPage() : 0, writing != null ? writing.currentPage() : 0));
+    }
+
+    /**
+     * Descarta o progresso pendente do item: uma alteração explícita da página (ou a remoção do item) vence.
+     * Vale também para o que já está sendo gravado: sai de inFlight (as leituras deixam de vê-lo) e o flush em
+     * andamento, ao não achar mais o próprio registro lá, desfaz a transação em vez de gravar a página antiga.
+     * Deve ser chamado na mesma transação da alteração explícita, antes do commit.
+     */
+    public void discard(Long userBookId) {
+        pending.remove(userBookId);
+        inFlight.remove(userBookId);
+    }
+
+    /**
+     * Grava tudo o que está pendente, em transações de até {@code batchSize} itens. Se uma transação falhar,
+     * os itens dela voltam para o mapa e entram no próximo flush.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            List<Map.Entry<Long, Pending>> drained = new ArrayList<>();
+            for (Map.Entry<Long, Pending> entry : pending.entrySet()) {
+                // Primeiro em inFlight, depois fora do mapa: a leitura nunca fica sem a página.
+                // Se chegou progresso mais novo no meio, ele fica no mapa para o próximo flush.
+                inFlight.put(entry.getKey(), entry.getValue());
+                pending.remove(entry.getKey(), entry.getValue());
+                drained.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+
+            for (int from = 0; from < drained.size(); from += batchSize) {
+                writeChunk(drained.subList(from, Math.min(from + batchSize, drained.size())));
+            }
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(pending.size(), received.get(), coalesced.get(), stale.get(), flushes.get(), flushedRows.get(),
+                failures.get(), lastBatchSize, largestBatchSize, lastFlushLagMillis, maxFlushLagMillis);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reading-progress-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Roda antes do pool de conexões fechar (este bean depende dele), então o flush final ainda tem banco
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+        log.info("Progresso de leitura gravado no desligamento: {}", stats());
+    }
+
+    // --- Métodos Auxiliares ---
+
+    private void writeChunk(List<Map.Entry<Long, Pending>> chunk) {
+        List<ReadingProgressRepository.ProgressUpdate> updates = chunk.stream()
+                .map(entry -> new ReadingProgressRepository.ProgressUpdate(entry.getValue().userId(), entry.getKey(),
+                        entry.getValue().currentPage()))
+                .toList();
+        long oldest = chunk.stream().mapToLong(entry -> entry.getValue().firstReceivedAt()).min().orElseThrow();
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                readingProgressRepository.applyAll(updates);
+                // Conferido depois dos UPDATEs: se uma alteração explícita segurava a linha, eles esperaram o commit
+                // dela, e o discard (feito antes desse commit) já aparece aqui
+                if (chunk.stream().anyMatch(entry -> inFlight.get(entry.getKey()) != entry.getValue())) {
+                    throw new DiscardedDuringFlush();
+                }
+            });
+            long lag = clock.getAsLong() - oldest;
+            flushes.incrementAndGet();
+            flushedRows.addAndGet(chunk.size());
+            lastBatchSize = chunk.size();
+            largestBatchSize = Math.max(largestBatchSize, chunk.size());
+            lastFlushLagMillis = lag;
+            maxFlushLagMillis = Math.max(maxFlushLagMillis, lag);
+        } catch (DiscardedDuringFlush e) {
+            // O chunk foi desfeito: os itens que não foram descartados voltam para o próximo flush
+            chunk.stream()
+                    .filter(entry -> inFlight.get(entry.getKey()) == entry.getValue())
+                    .forEach(entry -> pending.merge(entry.getKey(), entry.getValue(), ReadingProgressBuffer::newest));
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            log.error("Falha ao gravar {} progressos de leitura; ficam para o próximo flush: {}", chunk.size(), e.getMessage());
+            chunk.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(), ReadingProgressBuffer::newest));
+        } finally {
+            chunk.forEach(entry -> inFlight.remove(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    // Desfaz a transação do chunk (TransactionTemplate faz rollback em RuntimeException)
+    private static final class DiscardedDuringFlush extends RuntimeException {
+        DiscardedDuringFlush() {
+            super(null, null, false, false);
+        }
+    }
+
+    // Na volta de um flush que falhou: vale a maior página, com o primeiro instante dos dois registros
+    private static Pending newest(Pending current, Pending failed) {
+        Pending winner = current.currentPage() >= failed.currentPage() ? current : failed;
+        return new Pending(winner.userId(), winner.username(), winner.currentPage(),
+                Math.min(current.firstReceivedAt(), failed.firstReceivedAt()));
+    }
+
+    private void requestFlush() {
+        if (scheduler == null || !flushRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            scheduler.execute(this::flushQuietly);
+        } catch (RejectedExecutionException e) {
+            flushRequested.set(false); // Desligando: o flush final do shutdown cobre
+        }
+    }
+
+    // Exceção numa tarefa agendada cancela as próximas execuções: nada pode escapar daqui
+    private void flushQuietly() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Erro inesperado no flush do progresso de leitura: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package br.com.management.api_library.service;
+
+import br.com.management.api_library.dto.ReadingStatsDTO;
+import br.com.management.api_library.dto.ReadingStatsRebuildJobDTO;
+import br.com.management.api_library.dto.ShelfItemStateDTO;
+import br.com.management.api_library.exception.ResourceNotFoundException;
+import br.com.management.api_library.model.ReadingStatus;
+import br.com.management.api_library.model.UserMonthlyCompletions;
+import br.com.management.api_library.model.UserReadingStats;
+import br.com.management.api_library.repository.UserBookRepository;
+import br.com.management.api_library.repository.UserMonthlyCompletionsRepository;
+import br.com.management.api_library.repository.UserReadingStatsRepository;
+import br.com.management.api_library.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Estatísticas de leitura por usuário, mantidas de forma incremental: cada escrita na estante soma a diferença
+ * entre o estado dos itens antes e depois dela, na mesma transação. A consulta lê uma linha (e os meses),
+ * sem COUNT/GROUP BY sobre a estante. Usuários sem linha (anteriores à tabela) são calculados na primeira
+ * consulta; o rebuild em segundo plano recalcula todos, para backfill ou correção.
+ */
+@Service
+public class ReadingStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadingStatsService.class);
+
+    // Usuários por consulta de ids no rebuild (cada usuário é recalculado na própria transação)
+    private static final int REBUILD_PAGE_SIZE = 500;
+    // Um rebuild rodando e no máximo um na fila
+    private static final int REBUILD_QUEUE_CAPACITY = 1;
+    private static final int MAX_TRACKED_REBUILDS = 100;
+
+    private final UserReadingStatsRepository userReadingStatsRepository;
+    private final UserMonthlyCompletionsRepository userMonthlyCompletionsRepository;
+    private final UserBookRepository userBookRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final BackgroundJobs<RebuildJob> rebuildJobs = new BackgroundJobs<>("reading-stats-rebuild",
+            REBUILD_QUEUE_CAPACITY, MAX_TRACKED_REBUILDS,
+            "Já existe um recálculo das estatísticas na fila. Tente novamente mais tarde.");
+
+    public ReadingStatsService(UserReadingStatsRepository userReadingStatsRepository,
+                               UserMonthlyCompletionsRepository userMonthlyCompletionsRepository,
+                               UserBookRepository userBookRepository, UserRepository userRepository,
+                               TransactionTemplate transactionTemplate) {
+        this.userReadingStatsRepository = userReadingStatsRepository;
+        this.userMonthlyCompletionsRepository = userMonthlyCompletionsRepository;
+        this.userBookRepository = userBookRepository;
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Soma às estatísticas a diferença entre os itens antes e depois de uma escrita na estante
+     * (inclusão: {@code before} vazio; remoção: {@code after} vazio). Roda na transação da escrita, que já travou
+     * a linha do usuário ao incrementar a versão da estante: escritas concorrentes do mesmo usuário não se perdem.
+     */
+    public void applyChange(Long userId, Collection<ShelfItemStateDTO> before, Collection<ShelfItemStateDTO> after) {
+        Delta delta = Delta.ZERO;
+        Map<LocalDate, Long> months = new TreeMap<>();
+        for (ShelfItemStateDTO item : before) {
+            delta = delta.plus(Delta.of(item, -1));
+            countMonth(months, item, -1);
+        }
+        for (ShelfItemStateDTO item : after) {
+            delta = delta.plus(Delta.of(item, 1));
+            countMonth(months, item, 1);
+        }
+        months.values().removeIf(count -> count == 0);
+        if (delta.isZero() && months.isEmpty()) {
+            return;
+        }
+
+        int updated = userReadingStatsRepository.applyDelta(userId, delta.reading(), delta.completed(), delta.wantToRead(),
+                delta.dropped(), delta.favorites(), delta.pagesRead(), delta.ratingSum(), delta.ratingCount());
+        if (updated == 0) {
+            return; // Usuário ainda sem estatísticas: a primeira consulta calcula tudo a partir da estante
+        }
+        months.forEach((month, count) -> {
+            if (userMonthlyCompletionsRepository.applyDelta(userId, month, count) == 0) {
+                userMonthlyCompletionsRepository.insertMonth(userId, month, count);
+            }
+        });
+    }
+
+    @Transactional
+    public ReadingStatsDTO getStats(String username) {
+        Long userId = userRepository.findIdByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuário '" + username + "' não encontrado."));
+
+        UserReadingStats stats = userReadingStatsRepository.findById(userId).orElseGet(() -> {
+            // Primeira consulta de um usuário anterior à tabela: calcula uma vez a partir da estante
+            recompute(userId);
+            return userReadingStatsRepository.findById(userId).orElseThrow();
+        });
+        return toDTO(stats, userMonthlyCompletionsRepository.findNonEmptyByUserId(userId));
+    }
+
+    /**
+     * Agenda o recálculo das estatísticas de todos os usuários em segundo plano (backfill depois do deploy,
+     * ou correção). Cada usuário é recalculado na própria transação, em fila com as escritas na estante dele.
+     */
+    public ReadingStatsRebuildJobDTO startRebuild() {
+        RebuildJob job = new RebuildJob(UUID.randomUUID().toString());
+        rebuildJobs.submit(job.id, job, () -> runRebuild(job));
+        return job.snapshot();
+    }
+
+    public Optional<ReadingStatsRebuildJobDTO> getRebuildJob(String jobId) {
+        return rebuildJobs.find(jobId).map(RebuildJob::snapshot);
+    }
+
+    /** Exclusão do usuário (UserService.deleteUser): as estatísticas saem na mesma transação. */
+    public void deleteForUser(Long userId) {
+        userReadingStatsRepository.deleteAllByUserId(userId);
+        userMonthlyCompletionsRepository.deleteAllByUserId(userId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildJobs.shutdown();
+    }
+
+    /**
+     * {@code completedAt} de um item que passa a ter {@code status}: mantém o instante se ele já estava concluído,
+     * usa {@code now} se acabou de ser concluído e fica nulo fora de COMPLETED.
+     */
+    public static LocalDateTime completedAt(ShelfItemStateDTO before, ReadingStatus status, LocalDateTime now) {
+        if (status != ReadingStatus.COMPLETED) {
+            return null;
+        }
+        if (before != null && before.readingStatus() == ReadingStatus.COMPLETED) {
+            return before.completedAt();
+        }
+        return now;
+    }
+
+    /** Estado do item depois de um PATCH da estante (campos nulos mantêm o valor atual). */
+    public static ShelfItemStateDTO patch(ShelfItemStateDTO before, ReadingStatus readingStatus, Double rating,
+                                          Integer currentPage, Boolean isFavorite, LocalDateTime now) {
+        ReadingStatus status = readingStatus != null ? readingStatus : before.readingStatus();
+        return new ShelfItemStateDTO(
+                before.userBookId(),
+                before.userId(),
+                status,
+                rating != null ? rating : before.rating(),
+                isFavorite != null ? isFavorite : before.isFavorite(),
+                currentPage != null ? currentPage : before.currentPage(),
+                completedAt(before, status, now));
+    }
+
+    // --- Métodos Auxiliares ---
+
+    private void runRebuild(RebuildJob job) {
+        job.start();
+        Long after = 0L;
+        List<Long> ids;
+        while (!(ids = userRepository.findIdsAfter(after, PageRequest.of(0, REBUILD_PAGE_SIZE))).isEmpty()) {
+            for (Long id : ids) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> recompute(id));
+                    job.rebuilt();
+                } catch (RuntimeException e) {
+                    log.error("Erro ao recalcular as estatísticas do usuário {} no job {}: {}", id, job.id, e.getMessage());
+                    job.failed(id);
+                }
+            }
+            after = ids.getLast();
+        }
+        job.finish();
+        log.info("Recálculo das estatísticas de leitura {} concluído: {}", job.id, job.snapshot());
+    }
+
+    // Recalcula do zero com a linha do usuário travada: nenhuma escrita na estante dele fica no meio
+    private void recompute(Long userId) {
+        userRepository.lockShelfById(userId);
+        userReadingStatsRepository.deleteAllByUserId(userId);
+        userMonthlyCompletionsRepository.deleteAllByUserId(userId);
+        userReadingStatsRepository.insertComputedFromShelf(userId);
+        for (Object[] row : userBookRepository.countByCompletionMonth(userId, ReadingStatus.COMPLETED)) {
+            LocalDate month = LocalDate.of(((Number) row[0]).intValue(), ((Number) row[1]).intValue(), 1);
+            userMonthlyCompletionsRepository.insertMonth(userId, month, ((Number) row[2]).longValue());
+        }
+    }
+
+    // Itens concluídos antes de existir o completed_at não têm mês e ficam só no total de concluídos
+    private static void countMonth(Map<LocalDate, Long> months, ShelfItemStateDTO item, int sign) {
+        if (item.readingStatus() == ReadingStatus.COMPLETED && item.completedAt() != null) {
+            months.merge(item.completedAt().toLocalDate().withDayOfMonth(1), (long) sign, Long::sum);
+        }
+    }
+
+    private static ReadingStatsDTO toDTO(UserReadingStats stats, List<UserMonthlyCompletions> months) {
+        Map<ReadingStatus, Long> countsByStatus = new EnumMap<>(ReadingStatus.class);
+        countsByStatus.put(ReadingStatus.READING, stats.getReadingCount());
+        countsByStatus.put(ReadingStatus.COMPLETED, stats.getCompletedCount());
+        countsByStatus.put(ReadingStatus.WANT_TO_READ, stats.getWantToReadCount());
+        countsByStatus.put(ReadingStatus.DROPPED, stats.getDroppedCount());
+        long totalBooks = countsByStatus.values().stream().mapToLong(Long::longValue).sum();
+
+        Double averageRating = stats.getRatingCount() > 0 ? stats.getRatingSum() / stats.getRatingCount() : null;
+        List<ReadingStatsDTO.MonthlyCompletion> completedPerMonth = months.stream()
+                .map(month -> new ReadingStatsDTO.MonthlyCompletion(YearMonth.from(month.getMonthStart()).toString(),
+                        month.getCompletedCount()))
+                .toList();
+
+        return new ReadingStatsDTO(countsByStatus, totalBooks, stats.getFavoritesCount(), stats.getPagesRead(),
+                averageRating, completedPerMonth);
+    }
+
+    // Contribuição de itens da estante para cada contador
+    private record Delta(long reading, long completed, long wantToRead, long dropped, long favorites, long pagesRead,
+                         double ratingSum, long ratingCount) {
+
+        static final Delta ZERO = new Delta(0, 0, 0, 0, 0, 0, 0, 0);
+
+        static Delta of(ShelfItemStateDTO item, int sign) {
+            ReadingStatus status = item.readingStatus();
+            // Nota 0 (padrão da inclusão) ou nula = sem avaliação
+            boolean rated = item.rating() != null && item.rating() > 0;
+            return new Delta(
+                    status == ReadingStatus.READING ? sign : 0,
+                    status == ReadingStatus.COMPLETED ? sign : 0,
+                    status == ReadingStatus.WANT_TO_READ ? sign : 0,
+                    status == ReadingStatus.DROPPED ? sign : 0,
+                    Boolean.TRUE.equals(item.isFavorite()) ? sign : 0,
+                    (long) sign * (item.currentPage() != null ? item.currentPage() : 0),
+                    rated ? sign * item.rating() : 0,
+                    rated ? sign : 0);
+        }
+
+        Delta plus(Delta other) {
+            return new Delta(reading + other.reading, completed + other.completed, wantToRead + other.wantToRead,
+                    dropped + other.dropped, favorites + other.favorites, pagesRead + other.pagesRead,
+                    ratingSum + other.ratingSum, ratingCount + other.ratingCount);
+        }
+
+        boolean isZero() {
+            return equals(ZERO);
+        }
+    }
+
+    // Estado mutável de um recálculo em segundo plano; a API só vê cópias (snapshot)
+    private static final class RebuildJob {
+        private final String id;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final List<Long> failed = new ArrayList<>();
+        private ReadingStatsRebuildJobDTO.Status status = ReadingStatsRebuildJobDTO.Status.PENDING;
+        private int rebuilt;
+        private LocalDateTime finishedAt;
+
+        RebuildJob(String id) {
+            this.id = id;
+        }
+
+        synchronized void start() {
+            status = ReadingStatsRebuildJobDTO.Status.RUNNING;
+        }
+
+        synchronized void rebuilt() {
+            rebuilt++;
+        }
+
+        synchronized void failed(Long userId) {
+            failed.add(userId);
+        }
+
+        synchronized void finish() {
+            status = ReadingStatsRebuildJobDTO.Status.COMPLETED;
+            finishedAt = LocalDateTime.now();
+        }
+
+        synchronized ReadingStatsRebuildJobDTO snapshot() {
+            return new ReadingStatsRebuildJobDTO(id, status, rebuilt, List.copyOf(failed), createdAt, finishedAt);
+        }
+    }
+}
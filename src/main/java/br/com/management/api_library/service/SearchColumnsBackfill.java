@@ -0,0 +1,169 @@
+package br.com.management.api_library.service;
+
+import br.com.management.api_library.dto.UserResponseDTO;
+import br.com.management.api_library.model.Book;
+import br.com.management.api_library.model.User;
+import br.com.management.api_library.repository.BookRepository;
+import br.com.management.api_library.repository.UserBulkRepository;
+import br.com.management.api_library.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Preenche, na subida da aplicação, as colunas de busca derivadas (mantidas pelas próprias entidades) das linhas
+ * gravadas antes de elas existirem. Em produção o schema vem do ddl-auto=update, que cria as colunas vazias, e as
+ * migrações em db/migration são só referência: sem este passo as buscas não achariam os registros antigos.
+ * É idempotente (só pega o que ainda está nulo) e, depois da primeira subida, cada passo é uma consulta vazia.
+ * Um passo que falha é tentado de novo em segundo plano, com espera crescente, até terminar: enquanto isso as
+ * buscas de livros conferem também as colunas originais (sem índice), então a falha não pode ficar esquecida.
+ */
+@Component
+public class SearchColumnsBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchColumnsBackfill.class);
+
+    // Linhas por transação
+    private static final int BATCH_SIZE = 500;
+    // Espera até a próxima tentativa depois de uma falha: dobra a cada falha seguida, até o teto
+    private static final Duration MAX_RETRY_DELAY = Duration.ofMinutes(10);
+
+    private final UserRepository userRepository;
+    private final UserBulkRepository userBulkRepository;
+    private final BookRepository bookRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration firstRetryDelay;
+
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "search-columns-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Cada passo fica pendente até terminar sem erro
+    private volatile boolean userColumnsPending = true;
+    // Enquanto for verdadeiro, buscas de livros vazias conferem as colunas originais
+    private volatile boolean bookColumnsPending = true;
+
+    @Autowired
+    public SearchColumnsBackfill(UserRepository userRepository, UserBulkRepository userBulkRepository,
+                                 BookRepository bookRepository, TransactionTemplate transactionTemplate) {
+        this(userRepository, userBulkRepository, bookRepository, transactionTemplate, Duration.ofSeconds(30));
+    }
+
+    SearchColumnsBackfill(UserRepository userRepository, UserBulkRepository userBulkRepository,
+                          BookRepository bookRepository, TransactionTemplate transactionTemplate, Duration firstRetryDelay) {
+        this.userRepository = userRepository;
+        this.userBulkRepository = userBulkRepository;
+        this.bookRepository = bookRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.firstRetryDelay = firstRetryDelay;
+    }
+
+    // Cada chamada confere todos os passos; as novas tentativas depois de uma falha, só os que faltaram
+    @EventListener(ApplicationReadyEvent.class)
+    public void run() {
+        userColumnsPending = true;
+        bookColumnsPending = true;
+        attempt(firstRetryDelay);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
+    }
+
+    // Um passo que falha não impede os outros; os que faltaram voltam a rodar depois de retryDelay
+    private void attempt(Duration retryDelay) {
+        if (userColumnsPending) {
+            try {
+                backfillUserFullNameSearch();
+            } catch (RuntimeException e) {
+                log.error("Erro ao preencher full_name_search dos usuários antigos: {}", e.getMessage());
+            }
+        }
+        if (bookColumnsPending) {
+            try {
+                backfillBookColumns();
+            } catch (RuntimeException e) {
+                log.error("Erro ao preencher as colunas normalizadas dos livros antigos (buscas de livros seguem "
+                        + "também pelas colunas sem índice até terminar): {}", e.getMessage());
+            }
+        }
+        if (!userColumnsPending && !bookColumnsPending) {
+            return;
+        }
+
+        Duration doubled = retryDelay.multipliedBy(2);
+        Duration nextDelay = doubled.compareTo(MAX_RETRY_DELAY) < 0 ? doubled : MAX_RETRY_DELAY;
+        log.warn("Backfill das colunas de busca incompleto; nova tentativa em {} s.", retryDelay.toSeconds());
+        try {
+            retryScheduler.schedule(() -> attempt(nextDelay), retryDelay.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Desligando: o que faltou fica para a próxima subida
+        }
+    }
+
+    /** Enquanto for verdadeiro, livros antigos podem ainda estar sem as colunas normalizadas (e fora das buscas). */
+    public boolean isBookColumnsPending() {
+        return bookColumnsPending;
+    }
+
+    // table_users.full_name_search (busca de usuários por nome): o nome dobrado por User.foldForSearch
+    void backfillUserFullNameSearch() {
+        long after = 0L;
+        int filled = 0;
+        List<UserResponseDTO> users;
+        while (!(users = userRepository.findMissingFullNameSearch(after, PageRequest.of(0, BATCH_SIZE))).isEmpty()) {
+            Map<Long, String> foldedNamesById = new LinkedHashMap<>();
+            users.forEach(user -> foldedNamesById.put(user.id(), User.foldForSearch(user.fullName())));
+            transactionTemplate.executeWithoutResult(status -> userBulkRepository.updateFullNameSearch(foldedNamesById));
+            filled += users.size();
+            after = users.getLast().id();
+        }
+        userColumnsPending = false;
+        if (filled > 0) {
+            log.info("Busca por nome: full_name_search preenchida para {} usuários antigos.", filled);
+        }
+    }
+
+    // books.author_normalized, publisher_normalized, genre_normalized e book_authors (buscas por autor, editora e gênero)
+    void backfillBookColumns() {
+        long after = 0L;
+        int filled = 0;
+        List<Long> ids;
+        while (!(ids = bookRepository.findIdsMissingNormalizedColumns(after, PageRequest.of(0, BATCH_SIZE))).isEmpty()) {
+            List<Long> batch = ids;
+            transactionTemplate.executeWithoutResult(status ->
+                    bookRepository.findAllById(batch).forEach(SearchColumnsBackfill::renormalize));
+            filled += ids.size();
+            after = ids.getLast();
+        }
+        bookColumnsPending = false;
+        if (filled > 0) {
+            log.info("Livros: colunas normalizadas preenchidas para {} livros antigos.", filled);
+        }
+    }
+
+    // Os próprios setters recalculam as colunas normalizadas e as linhas de book_authors
+    private static void renormalize(Book book) {
+        book.setAuthor(book.getAuthor());
+        book.setPublisher(book.getPublisher());
+        book.setGenre(book.getGenre());
+    }
+}
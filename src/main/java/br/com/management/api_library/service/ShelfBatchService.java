@@ -0,0 +1,262 @@
+package br.com.management.api_library.service;
+
+import br.com.management.api_library.dto.ShelfBatchOperationDTO;
+import br.com.management.api_library.dto.ShelfBatchResultDTO;
+import br.com.management.api_library.dto.ShelfItemRequestDTO;
+import br.com.management.api_library.dto.ShelfItemResponseDTO;
+import br.com.management.api_library.dto.ShelfItemStateDTO;
+import br.com.management.api_library.exception.ResourceNotFoundException;
+import br.com.management.api_library.model.ReadingStatus;
+import br.com.management.api_library.repository.BookRepository;
+import br.com.management.api_library.repository.ShelfTombstoneRepository;
+import br.com.management.api_library.repository.UserBookRepository;
+import br.com.management.api_library.repository.UserBookUpsertRepository;
+import br.com.management.api_library.repository.UserRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sincronização da estante em lote (sessões de leitura offline do app): várias inclusões, alterações e remoções
+ * numa única requisição e numa única transação, com um resultado por operação.
+ */
+@Service
+public class ShelfBatchService {
+
+    private final UserRepository userRepository;
+    private final BookRepository bookRepository;
+    private final UserBookRepository userBookRepository;
+    private final UserBookUpsertRepository userBookUpsertRepository;
+    private final ShelfTombstoneRepository shelfTombstoneRepository;
+    private final ReadingProgressBuffer readingProgressBuffer;
+    private final ReadingStatsService readingStatsService;
+
+    public ShelfBatchService(UserRepository userRepository, BookRepository bookRepository,
+                             UserBookRepository userBookRepository, UserBookUpsertRepository userBookUpsertRepository,
+                             ShelfTombstoneRepository shelfTombstoneRepository, ReadingProgressBuffer readingProgressBuffer,
+                             ReadingStatsService readingStatsService) {
+        this.userRepository = userRepository;
+        this.bookRepository = bookRepository;
+        this.userBookRepository = userBookRepository;
+        this.userBookUpsertRepository = userBookUpsertRepository;
+        this.shelfTombstoneRepository = shelfTombstoneRepository;
+        this.readingProgressBuffer = readingProgressBuffer;
+        this.readingStatsService = readingStatsService;
+    }
+
+    /**
+     * Aplica as operações e devolve um resultado por operação, na ordem recebida.
+     * Dono, itens e livros são checados em consultas únicas para o lote todo; as escritas são agrupadas por tipo,
+     * nesta ordem: remoções (um DELETE), inclusões (um batch JDBC) e alterações (outro batch JDBC).
+     * Assim, remover e incluir de novo o mesmo livro no lote funciona, e alterar um item removido no lote dá NOT_FOUND.
+     * As estatísticas de leitura recebem uma única diferença para o lote inteiro.
+     */
+    @Transactional
+    public List<ShelfBatchResultDTO> applyBatch(String username, List<ShelfBatchOperationDTO> operations) {
+        Long userId = userRepository.findIdByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuário '" + username + "' não encontrado."));
+
+        ShelfBatchResultDTO[] results = new ShelfBatchResultDTO[operations.size()];
+        List<Integer> adds = new ArrayList<>();
+        List<Integer> updates = new ArrayList<>();
+        List<Integer> removes = new ArrayList<>();
+
+        for (int i = 0; i < operations.size(); i++) {
+            ShelfBatchOperationDTO operation = operations.get(i);
+            switch (operation.type()) {
+                case ADD -> {
+                    if (operation.bookId() == null) {
+                        results[i] = invalid(i, operation, "Informe o bookId do livro a adicionar.");
+                    } else {
+                        adds.add(i);
+                    }
+                }
+                case UPDATE -> {
+                    if (operation.userBookId() == null || operation.item() == null) {
+                        results[i] = invalid(i, operation, "Informe o userBookId e os dados do item a atualizar.");
+                    } else {
+                        updates.add(i);
+                    }
+                }
+                case REMOVE -> {
+                    if (operation.userBookId() == null) {
+                        results[i] = invalid(i, operation, "Informe o userBookId do item a remover.");
+                    } else {
+                        removes.add(i);
+                    }
+                }
+            }
+        }
+
+        // --- Checagens set-based: uma consulta para os itens do lote e uma para os livros ---
+        Set<Long> itemIds = new LinkedHashSet<>();
+        updates.forEach(i -> itemIds.add(operations.get(i).userBookId()));
+        removes.forEach(i -> itemIds.add(operations.get(i).userBookId()));
+        Set<Long> ownedIds = itemIds.isEmpty() ? Set.of() : new HashSet<>(userBookRepository.findOwnedIds(itemIds, userId));
+
+        // Só no caminho de erro: entre os que não são do usuário, quais existem (403) e quais não (404)
+        Set<Long> foreignIds = new HashSet<>(itemIds);
+        foreignIds.removeAll(ownedIds);
+        Set<Long> existingForeignIds = foreignIds.isEmpty() ? Set.of() : new HashSet<>(userBookRepository.findExistingIds(foreignIds));
+
+        Set<Long> bookIds = adds.stream().map(i -> operations.get(i).bookId()).collect(Collectors.toCollection(LinkedHashSet::new));
+        Set<Long> existingBookIds = bookIds.isEmpty() ? Set.of() : new HashSet<>(bookRepository.findExistingIds(bookIds));
+
+        // Todas as escritas do lote recebem a mesma nova versão da estante (sincronização incremental)
+        long version = adds.isEmpty() && updates.isEmpty() && removes.isEmpty() ? 0 : nextShelfVersion(userId);
+
+        // Estado dos itens do usuário antes do lote (lido já com a linha do usuário travada), base das estatísticas
+        Map<Long, ShelfItemStateDTO> statesBefore = ownedIds.isEmpty() ? Map.of() : userBookRepository
+                .findOwnedItemStates(ownedIds, userId).stream()
+                .collect(Collectors.toMap(ShelfItemStateDTO::userBookId, Function.identity()));
+        LocalDateTime now = LocalDateTime.now();
+
+        // --- Remoções: marcas de remoção e um único DELETE para o lote ---
+        Set<Long> removedIds = new LinkedHashSet<>();
+        for (int i : removes) {
+            ShelfBatchOperationDTO operation = operations.get(i);
+            Long id = operation.userBookId();
+            if (!ownedIds.contains(id)) {
+                results[i] = ownershipError(i, operation, existingForeignIds.contains(id));
+            } else if (!removedIds.add(id)) {
+                results[i] = ShelfBatchResultDTO.error(i, operation.type(), ShelfBatchResultDTO.Status.NOT_FOUND,
+                        "Item " + id + " já removido antes no próprio lote.");
+            } else {
+                results[i] = ShelfBatchResultDTO.success(i, operation.type(), ShelfBatchResultDTO.Status.REMOVED, null);
+            }
+        }
+        if (!removedIds.isEmpty()) {
+            shelfTombstoneRepository.insertForOwnedItems(removedIds, userId, version);
+            userBookRepository.deleteOwnedItems(removedIds, userId);
+            removedIds.forEach(readingProgressBuffer::discard);
+        }
+
+        // --- Inclusões: um batch JDBC de "insere se não existe" ---
+        List<Integer> acceptedAdds = new ArrayList<>();
+        List<UserBookUpsertRepository.NewItem> newItems = new ArrayList<>();
+        for (int i : adds) {
+            ShelfBatchOperationDTO operation = operations.get(i);
+            if (!existingBookIds.contains(operation.bookId())) {
+                results[i] = ShelfBatchResultDTO.error(i, operation.type(), ShelfBatchResultDTO.Status.NOT_FOUND,
+                        "Livro não encontrado com ID: " + operation.bookId());
+            } else {
+                acceptedAdds.add(i);
+                newItems.add(toNewItem(operation.bookId(), operation.item(), now));
+            }
+        }
+        int[] inserted = newItems.isEmpty() ? new int[0] : userBookUpsertRepository.insertAllIfAbsent(userId, version, newItems);
+
+        // --- Alterações: outro batch JDBC, cada UPDATE ainda filtrado pelo dono ---
+        // Aplicadas em ordem sobre o estado anterior, para calcular o completedAt e o estado final de cada item
+        List<Integer> acceptedUpdates = new ArrayList<>();
+        List<UserBookUpsertRepository.ItemUpdate> itemUpdates = new ArrayList<>();
+        Map<Long, ShelfItemStateDTO> statesAfter = new HashMap<>();
+        for (int i : updates) {
+            ShelfBatchOperationDTO operation = operations.get(i);
+            Long id = operation.userBookId();
+            if (!ownedIds.contains(id)) {
+                results[i] = ownershipError(i, operation, existingForeignIds.contains(id));
+            } else if (removedIds.contains(id)) {
+                results[i] = ShelfBatchResultDTO.error(i, operation.type(), ShelfBatchResultDTO.Status.NOT_FOUND,
+                        "Item " + id + " removido no próprio lote.");
+            } else {
+                ShelfItemRequestDTO item = operation.item();
+                ShelfItemStateDTO after = ReadingStatsService.patch(statesAfter.getOrDefault(id, statesBefore.get(id)),
+                        item.readingStatus(), item.rating(), item.currentPage(), item.isFavorite(), now);
+                statesAfter.put(id, after);
+                acceptedUpdates.add(i);
+                itemUpdates.add(new UserBookUpsertRepository.ItemUpdate(id, item.readingStatus(), item.rating(),
+                        item.review(), item.currentPage(), item.isFavorite(), after.completedAt()));
+            }
+        }
+        if (!itemUpdates.isEmpty()) {
+            userBookUpsertRepository.updateAllOwned(userId, version, itemUpdates);
+            // Página informada explicitamente vence o progresso pendente (mesma regra do UPDATE individual)
+            itemUpdates.stream().filter(update -> update.currentPage() != null)
+                    .forEach(update -> readingProgressBuffer.discard(update.userBookId()));
+        }
+
+        // --- Estado final dos itens tocados: uma consulta para as inclusões e outra para as alterações ---
+        // --- Estatísticas: saem os removidos e o estado anterior dos alterados, entram o estado final e os incluídos ---
+        List<ShelfItemStateDTO> statsBefore = new ArrayList<>();
+        removedIds.forEach(id -> statsBefore.add(statesBefore.get(id)));
+        statesAfter.keySet().forEach(id -> statsBefore.add(statesBefore.get(id)));
+        List<ShelfItemStateDTO> statsAfter = new ArrayList<>(statesAfter.values());
+        for (int position = 0; position < newItems.size(); position++) {
+            if (inserted[position] != 0) {
+                UserBookUpsertRepository.NewItem newItem = newItems.get(position);
+                statsAfter.add(new ShelfItemStateDTO(null, userId, newItem.readingStatus(), newItem.rating(),
+                        newItem.isFavorite(), newItem.currentPage(), newItem.completedAt()));
+            }
+        }
+        readingStatsService.applyChange(userId, statsBefore, statsAfter);
+
+        Map<Long, ShelfItemResponseDTO> itemsByBookId = acceptedAdds.isEmpty() ? Map.of() : userBookRepository
+                .findItemsByUserAndBookIds(userId, acceptedAdds.stream().map(i -> operations.get(i).bookId()).toList())
+                .stream().collect(Collectors.toMap(ShelfItemResponseDTO::bookId, Function.identity()));
+        for (int position = 0; position < acceptedAdds.size(); position++) {
+            int i = acceptedAdds.get(position);
+            ShelfBatchOperationDTO operation = operations.get(i);
+            ShelfBatchResultDTO.Status status = inserted[position] == 0
+                    ? ShelfBatchResultDTO.Status.ALREADY_ON_SHELF
+                    : ShelfBatchResultDTO.Status.CREATED;
+            results[i] = ShelfBatchResultDTO.success(i, operation.type(), status, itemsByBookId.get(operation.bookId()));
+        }
+
+        Map<Long, ShelfItemResponseDTO> itemsById = acceptedUpdates.isEmpty() ? Map.of() : userBookRepository
+                .findItemsByIds(acceptedUpdates.stream().map(i -> operations.get(i).userBookId()).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(ShelfItemResponseDTO::userBookId, Function.identity()));
+        for (int i : acceptedUpdates) {
+            ShelfBatchOperationDTO operation = operations.get(i);
+            results[i] = ShelfBatchResultDTO.success(i, operation.type(), ShelfBatchResultDTO.Status.UPDATED,
+                    itemsById.get(operation.userBookId()));
+        }
+
+        return List.of(results);
+    }
+
+    // O UPDATE trava a linha do usuário até o commit: lotes e escritas avulsas do mesmo usuário ficam em fila
+    private long nextShelfVersion(Long userId) {
+        userRepository.bumpShelfVersionById(userId);
+        return userRepository.findShelfVersionById(userId).orElseThrow();
+    }
+
+    // Mesmos valores padrão da inclusão individual (ShelfService.addBookToShelf)
+    private UserBookUpsertRepository.NewItem toNewItem(Long bookId, ShelfItemRequestDTO item, LocalDateTime now) {
+        if (item == null) {
+            return new UserBookUpsertRepository.NewItem(bookId, ReadingStatus.WANT_TO_READ, 0.0, null, 0, false, null);
+        }
+        ReadingStatus readingStatus = item.readingStatus() != null ? item.readingStatus() : ReadingStatus.WANT_TO_READ;
+        return new UserBookUpsertRepository.NewItem(
+                bookId,
+                readingStatus,
+                item.rating() != null ? item.rating() : 0.0,
+                item.review(),
+                item.currentPage() != null ? item.currentPage() : 0,
+                item.isFavorite() != null ? item.isFavorite() : false,
+                ReadingStatsService.completedAt(null, readingStatus, now));
+    }
+
+    private ShelfBatchResultDTO ownershipError(int index, ShelfBatchOperationDTO operation, boolean exists) {
+        if (exists) {
+            return ShelfBatchResultDTO.error(index, operation.type(), ShelfBatchResultDTO.Status.FORBIDDEN,
+                    "Você não tem permissão para modificar este item da estante.");
+        }
+        return ShelfBatchResultDTO.error(index, operation.type(), ShelfBatchResultDTO.Status.NOT_FOUND,
+                "Item da estante não encontrado com o ID: " + operation.userBookId());
+    }
+
+    private ShelfBatchResultDTO invalid(int index, ShelfBatchOperationDTO operation, String message) {
+        return ShelfBatchResultDTO.error(index, operation.type(), ShelfBatchResultDTO.Status.INVALID, message);
+    }
+}
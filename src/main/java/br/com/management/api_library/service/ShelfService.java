@@ -1,26 +1,33 @@
 package br.com.management.api_library.service;
 
 import br.com.management.api_library.dto.BookResponseDTO;
+import br.com.management.api_library.dto.CursorPageDTO;
+import br.com.management.api_library.dto.ReadingProgressResponseDTO;
+import br.com.management.api_library.dto.ShelfChangesDTO;
 import br.com.management.api_library.dto.ShelfItemRequestByIsbnDTO;
 import br.com.management.api_library.dto.ShelfItemRequestDTO;
 import br.com.management.api_library.dto.ShelfItemResponseDTO;
-import br.com.management.api_library.exception.BookAlreadyExistsOnShelfException;
+import br.com.management.api_library.dto.ShelfItemStateDTO;
 import br.com.management.api_library.exception.ResourceNotFoundException;
 import br.com.management.api_library.exception.ShelfItemNotFoundException;
 import br.com.management.api_library.exception.UnauthorizedShelfAccessException;
-import br.com.management.api_library.model.Book;
 import br.com.management.api_library.model.ReadingStatus; // Importe seu Enum
-import br.com.management.api_library.model.User;
-import br.com.management.api_library.model.UserBook;
-import br.com.management.api_library.repository.BookRepository;
+import br.com.management.api_library.repository.ReadingProgressRepository;
+import br.com.management.api_library.repository.ShelfTombstoneRepository;
 import br.com.management.api_library.repository.UserBookRepository;
+import br.com.management.api_library.repository.UserBookUpsertRepository;
 import br.com.management.api_library.repository.UserRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,45 +35,76 @@ public class ShelfService {
 
     private final UserBookRepository userBookRepository;
     private final UserRepository userRepository;
-    private final BookRepository bookRepository;
+    private final UserBookUpsertRepository userBookUpsertRepository;
+    private final ShelfTombstoneRepository shelfTombstoneRepository;
+    private final ReadingProgressRepository readingProgressRepository;
+    private final ReadingProgressBuffer readingProgressBuffer;
+    private final ReadingStatsService readingStatsService;
     private final BookService bookService;
+    private final TransactionTemplate transactionTemplate;
 
-    public ShelfService(UserBookRepository userBookRepository, UserRepository userRepository, BookRepository bookRepository, BookService bookService) {
+    public ShelfService(UserBookRepository userBookRepository, UserRepository userRepository,
+                        UserBookUpsertRepository userBookUpsertRepository, ShelfTombstoneRepository shelfTombstoneRepository,
+                        ReadingProgressRepository readingProgressRepository, ReadingProgressBuffer readingProgressBuffer,
+                        ReadingStatsService readingStatsService, BookService bookService,
+                        TransactionTemplate transactionTemplate) {
         this.userBookRepository = userBookRepository;
         this.userRepository = userRepository;
-        this.bookRepository = bookRepository;
+        this.userBookUpsertRepository = userBookUpsertRepository;
+        this.shelfTombstoneRepository = shelfTombstoneRepository;
+        this.readingProgressRepository = readingProgressRepository;
+        this.readingProgressBuffer = readingProgressBuffer;
+        this.readingStatsService = readingStatsService;
         this.bookService = bookService;
+        this.transactionTemplate = transactionTemplate;
     }
 
-    // Metodo que busca se tem um livro com o ID "x" na sua estante
-    @Transactional
-    public ShelfItemResponseDTO addBookToShelf(String username, Long bookId, ShelfItemRequestDTO requestDTO) {
-        User user = findUserByUsername(username);
-        Book book = findBookById(bookId);
-
-        userBookRepository.findByUserAndBook(user, book).ifPresent(ub -> {
-            throw new BookAlreadyExistsOnShelfException("Livro com ID " + bookId + " já está na sua estante.");
-        });
+    /** Item da estante depois da inclusão; {@code created} é falso quando o livro já estava na estante. */
+    public record AddResult(ShelfItemResponseDTO item, boolean created) {}
 
-        UserBook newUserBook = new UserBook();
-        newUserBook.setUser(user);
-        newUserBook.setBook(book);
-
-        // Define status inicial ou o que veio no DTO
-        newUserBook.setReadingStatus(requestDTO.readingStatus() != null ? requestDTO.readingStatus() : ReadingStatus.WANT_TO_READ);
+    // Inclusão idempotente: um único upsert (insere ou devolve o item existente), sem buscar o usuário,
+    // sem SELECT prévio de duplicidade e sem estourar a unique (user_id, book_id) em requisições repetidas
+    @Transactional
+    public AddResult addBookToShelf(String username, Long bookId, ShelfItemRequestDTO requestDTO) {
+        // Dados do livro vêm do cache do catálogo (e ele já responde 404 para livro inexistente)
+        BookResponseDTO bookDTO = bookService.getById(bookId);
+
+        // Define status inicial ou o que veio no DTO, tratando nulos nos demais campos
+        ReadingStatus readingStatus = requestDTO.readingStatus() != null ? requestDTO.readingStatus() : ReadingStatus.WANT_TO_READ;
+        UserBookUpsertRepository.Result result = userBookUpsertRepository.insertIfAbsent(
+                username,
+                bookId,
+                readingStatus,
+                requestDTO.rating() != null ? requestDTO.rating() : 0.0,
+                requestDTO.review(),
+                requestDTO.currentPage() != null ? requestDTO.currentPage() : 0,
+                requestDTO.isFavorite() != null ? requestDTO.isFavorite() : false,
+                ReadingStatsService.completedAt(null, readingStatus, LocalDateTime.now()))
+                .orElseThrow(() -> new ResourceNotFoundException("Usuário '" + username + "' não encontrado."));
 
-        // Define outros campos, tratando nulos se necessário
-        newUserBook.setRating(requestDTO.rating()!= null ? requestDTO.rating() : 0.0);
-        newUserBook.setReview(requestDTO.review());
-        newUserBook.setCurrentPage(requestDTO.currentPage() != null ? requestDTO.currentPage() : 0);
-        newUserBook.setFavorite(requestDTO.isFavorite() != null ? requestDTO.isFavorite() : false);
+        if (result.created()) {
+            readingStatsService.applyChange(result.userId(), List.of(), List.of(new ShelfItemStateDTO(result.userBookId(),
+                    result.userId(), result.readingStatus(), result.rating(), result.isFavorite(), result.currentPage(),
+                    result.completedAt())));
+        }
 
-        UserBook savedUserBook = userBookRepository.save(newUserBook);
-        return toResponseDTO(savedUserBook);
+        ShelfItemResponseDTO item = new ShelfItemResponseDTO(
+                result.userBookId(),
+                bookDTO.id(),
+                bookDTO.title(),
+                bookDTO.author(),
+                result.readingStatus(),
+                result.rating(),
+                result.review(),
+                result.isFavorite(),
+                result.currentPage()
+        );
+        return new AddResult(item, result.created());
     }
 
-    @Transactional
-    public ShelfItemResponseDTO addBookToShelfByIsbn(String username, ShelfItemRequestByIsbnDTO dto) {
+    // Sem @Transactional de propósito: a busca no Google não pode segurar uma conexão do pool.
+    // Só a gravação na estante roda em transação, depois que o livro já foi resolvido.
+    public AddResult addBookToShelfByIsbn(String username, ShelfItemRequestByIsbnDTO dto) {
         // Busca no banco local. Se não achar, busca no Google e salva.
         // No final, garante que temos um livro salvo e retorna o DTO dele.
         BookResponseDTO bookDTO = bookService.findOrCreateBookByIsbn(dto.isbn());
@@ -83,93 +121,134 @@ public class ShelfService {
                 dto.isFavorite()
         );
 
-        // Reutiliza lógica existente de adicionar à estante
-        return addBookToShelf(username, bookId, requestDTO);
+        // Reutiliza o mesmo upsert da inclusão por ID (chamada interna não passa pelo proxy, daí o template)
+        return transactionTemplate.execute(status -> addBookToShelf(username, bookId, requestDTO));
     }
 
     @Transactional(readOnly = true)
     public Page<ShelfItemResponseDTO> getUserShelf(String username, Pageable pageable) {
-        User user = findUserByUsername(username);
+        // Uma consulta de dados e um count por página: o dono é filtrado por join, sem buscar o User antes
+        return userBookRepository.findShelfPage(username, pageable).map(this::withPendingProgress);
+    }
 
-        Page<UserBook> shelfItems = userBookRepository.findByUser(user, pageable);
-        return shelfItems.map(this::toResponseDTO);
+    @Transactional(readOnly = true)
+    public CursorPageDTO<ShelfItemResponseDTO> scrollUserShelf(String username, String after, int size) {
+        // Mesma projeção da página com offset, em ordem decrescente de id: o cursor guarda o último id entregue
+        int pageSize = KeysetCursor.pageSize(size);
+        long beforeId = after == null || after.isBlank() ? Long.MAX_VALUE : KeysetCursor.decode(after).id();
+
+        List<ShelfItemResponseDTO> rows = userBookRepository.findShelfItemsBefore(username, beforeId, Limit.of(pageSize + 1));
+        return KeysetCursor.toPage(rows, pageSize, this::withPendingProgress,
+                item -> new KeysetCursor(null, item.userBookId()));
     }
 
-    @Transactional
-    public ShelfItemResponseDTO updateBookOnShelf(String username, Long userBookId, ShelfItemRequestDTO requestDTO) {
-        User user = findUserByUsername(username);
-        UserBook userBook = findUserBookById(userBookId);
+    /**
+     * Sincronização incremental: o que mudou na estante depois da versão {@code since} (itens incluídos ou alterados
+     * e ids removidos), com custo proporcional às mudanças. Sem {@code since}, devolve a estante inteira.
+     * O app guarda a {@code version} devolvida e a envia como {@code since} na próxima chamada.
+     */
+    @Transactional(readOnly = true)
+    public ShelfChangesDTO getChangesSince(String username, Long since) {
+        // A versão é lida antes dos itens: o que for confirmado no meio pode vir repetido na próxima chamada, nunca faltar
+        long version = userRepository.findShelfVersionByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuário '" + username + "' não encontrado."));
 
-        // Verifica se o item pertence ao usuário logado
-        if (!userBook.getUser().equals(user)) {
-            throw new UnauthorizedShelfAccessException("Você não tem permissão para modificar este item da estante.");
+        if (since == null) {
+            // Primeira sincronização: tudo, inclusive itens anteriores ao versionamento (change_version = 0)
+            return new ShelfChangesDTO(version, withPendingProgressAll(userBookRepository.findChangedSince(username, -1)), List.of());
         }
+        return new ShelfChangesDTO(version,
+                withPendingProgressAll(userBookRepository.findChangedSince(username, since)),
+                shelfTombstoneRepository.findRemovedSince(username, since));
+    }
 
-        // Atualiza apenas os campos fornecidos no DTO (trate nulos se a intenção for PATCH)
-        if (requestDTO.readingStatus() != null) {
-            userBook.setReadingStatus(requestDTO.readingStatus());
-        }
-        if (requestDTO.rating() != null) { // Permite setar null para remover avaliação? Decida a regra.
-            userBook.setRating(requestDTO.rating());
-        }
-        if (requestDTO.review() != null) {
-            userBook.setReview(requestDTO.review());
-        }
-        if (requestDTO.currentPage() != null) {
-            userBook.setCurrentPage(requestDTO.currentPage());
-        }
-        if (requestDTO.isFavorite() != null) {
-            userBook.setFavorite(requestDTO.isFavorite());
+    /**
+     * Progresso de leitura (o app envia a página a cada poucas páginas): só acumula em memória, e o
+     * ReadingProgressBuffer grava em lote. A página só avança; um envio atrasado devolve a página que já vale.
+     */
+    public ReadingProgressResponseDTO updateReadingProgress(String username, Long userBookId, int currentPage) {
+        // Item com progresso pendente deste usuário: o dono já foi checado, nenhuma consulta ao banco
+        Optional<Long> owner = readingProgressBuffer.pendingOwner(userBookId, username);
+        if (owner.isEmpty()) {
+            ReadingProgressRepository.Target target = readingProgressRepository.findOwned(userBookId, username)
+                    .orElseThrow(() -> ownershipFailure(userBookId, "Você não tem permissão para modificar este item da estante."));
+            if (currentPage <= target.currentPage()) {
+                return new ReadingProgressResponseDTO(userBookId, target.currentPage());
+            }
+            owner = Optional.of(target.userId());
         }
 
-        UserBook updatedUserBook = userBookRepository.save(userBook);
-        return toResponseDTO(updatedUserBook);
+        int acceptedPage = readingProgressBuffer.record(owner.get(), username, userBookId, currentPage);
+        return new ReadingProgressResponseDTO(userBookId, acceptedPage);
     }
 
     @Transactional
-    public void removeBookFromShelf(String username, Long userBookId) {
-        User user = findUserByUsername(username);
-        UserBook userBook = findUserBookById(userBookId);
+    public ShelfItemResponseDTO updateBookOnShelf(String username, Long userBookId, ShelfItemRequestDTO requestDTO) {
+        // Checagem de dono numa projeção leve do item: nada de carregar User/UserBook e comparar com equals
+        // (o equals do @Data em User percorre a estante e as roles). Campos nulos no DTO mantêm o valor atual.
+        // O item fica marcado com a nova versão da estante, para a sincronização incremental; o incremento vem
+        // antes da leitura e trava a linha do usuário, então o estado lido não muda até o fim da transação.
+        userRepository.bumpShelfVersion(username);
+        ShelfItemStateDTO before = userBookRepository.findOwnedItemState(userBookId, username)
+                .orElseThrow(() -> ownershipFailure(userBookId, "Você não tem permissão para modificar este item da estante."));
+        ShelfItemStateDTO after = ReadingStatsService.patch(before, requestDTO.readingStatus(), requestDTO.rating(),
+                requestDTO.currentPage(), requestDTO.isFavorite(), LocalDateTime.now());
+
+        userBookRepository.updateOwnedItem(userBookId, username,
+                requestDTO.readingStatus(),
+                requestDTO.rating(),
+                requestDTO.review(),
+                requestDTO.currentPage(),
+                requestDTO.isFavorite(),
+                after.completedAt());
+        readingStatsService.applyChange(before.userId(), List.of(before), List.of(after));
 
-        // Verifica a propriedade
-        if (!userBook.getUser().equals(user)) {
-            throw new UnauthorizedShelfAccessException("Você não tem permissão para remover este item da estante.");
+        if (requestDTO.currentPage() != null) {
+            readingProgressBuffer.discard(userBookId); // Página informada explicitamente vence o progresso pendente
         }
 
-        userBookRepository.delete(userBook);
+        return userBookRepository.findItemById(userBookId)
+                .map(this::withPendingProgress)
+                .orElseThrow(() -> itemNotFound(userBookId));
+    }
+
+    @Transactional
+    public void removeBookFromShelf(String username, Long userBookId) {
+        // Marca de remoção (para a sincronização incremental) e DELETE, ambos já filtrados pelo dono
+        userRepository.bumpShelfVersion(username);
+        ShelfItemStateDTO before = userBookRepository.findOwnedItemState(userBookId, username)
+                .orElseThrow(() -> ownershipFailure(userBookId, "Você não tem permissão para remover este item da estante."));
+        shelfTombstoneRepository.insertForOwnedItem(userBookId, username);
+        userBookRepository.deleteOwnedItem(userBookId, username);
+        readingStatsService.applyChange(before.userId(), List.of(before), List.of());
+        readingProgressBuffer.discard(userBookId);
     }
 
     // --- Métodos Auxiliares ---
 
-    private User findUserByUsername(String username) {
-        // Garanta que findByUsername existe no UserRepository
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Usuário '" + username + "' não encontrado."));
+    // Só no caminho de erro: distingue item inexistente (404) de item de outro usuário (403)
+    private RuntimeException ownershipFailure(Long userBookId, String unauthorizedMessage) {
+        if (userBookRepository.existsById(userBookId)) {
+            return new UnauthorizedShelfAccessException(unauthorizedMessage);
+        }
+        return itemNotFound(userBookId);
     }
 
-    private Book findBookById(Long bookId) {
-        return bookRepository.findById(bookId)
-                .orElseThrow(() -> new ResourceNotFoundException("Livro com ID " + bookId + " não encontrado."));
+    private ShelfItemNotFoundException itemNotFound(Long userBookId) {
+        return new ShelfItemNotFoundException("Item da estante não encontrado com o ID: " + userBookId);
     }
 
-    private UserBook findUserBookById(Long userBookId) {
-        return userBookRepository.findById(userBookId)
-                .orElseThrow(() -> new ShelfItemNotFoundException("Item da estante não encontrado com o ID: " + userBookId));
+    // Leia o que escreveu: a página pendente no ReadingProgressBuffer vale até o flush gravá-la
+    private ShelfItemResponseDTO withPendingProgress(ShelfItemResponseDTO item) {
+        OptionalInt pendingPage = readingProgressBuffer.pendingPage(item.userBookId());
+        if (pendingPage.isEmpty() || (item.currentPage() != null && pendingPage.getAsInt() <= item.currentPage())) {
+            return item;
+        }
+        return new ShelfItemResponseDTO(item.userBookId(), item.bookId(), item.title(), item.author(),
+                item.readingStatus(), item.rating(), item.review(), item.isFavorite(), pendingPage.getAsInt());
     }
 
-    // Método de conversão para DTO de resposta
-    private ShelfItemResponseDTO toResponseDTO(UserBook item) {
-        // Garanta que Book tenha getTitle() e getAuthor()
-        return new ShelfItemResponseDTO(
-                item.getId(),
-                item.getBook().getId(),
-                item.getBook().getTitle(),
-                item.getBook().getAuthor(),
-                item.getReadingStatus(),
-                item.getRating(),
-                item.getReview(),
-                item.isFavorite(),
-                item.getCurrentPage()
-        );
+    private List<ShelfItemResponseDTO> withPendingProgressAll(List<ShelfItemResponseDTO> items) {
+        return items.stream().map(this::withPendingProgress).toList();
     }
-}
\ No newline at end of file
+}
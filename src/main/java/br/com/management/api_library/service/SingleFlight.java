@@ -0,0 +1,99 @@
+package br.com.management.api_library.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Agrupa chamadas concorrentes com a mesma chave: a primeira executa o trabalho e as demais
+ * esperam pelo mesmo resultado (ou pela mesma exceção), em vez de repetir a chamada.
+ * Nada fica guardado depois que o trabalho termina; para isso existe o cache.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public record Stats(long executions, long coalesced, double coalescingRatio, int inFlight) {}
+
+    public V execute(K key, Supplier<V> work) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return await(existing);
+        }
+
+        executions.incrementAndGet();
+        try {
+            V result = work.get();
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            // Quem está esperando recebe a mesma falha; ninguém fica preso num future que nunca completa
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Variante para trabalho assíncrono: o líder só dispara o future, e a chave sai do mapa quando ele completa.
+     * Cada chamador recebe uma cópia, para que cancelar a sua não afete os demais.
+     */
+    public CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> work) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing.copy();
+        }
+
+        executions.incrementAndGet();
+        CompletableFuture<V> started;
+        try {
+            started = work.get();
+        } catch (RuntimeException | Error e) {
+            started = CompletableFuture.failedFuture(e);
+        }
+
+        started.whenComplete((result, error) -> {
+            // Sai do mapa antes de completar, para que uma chamada posterior comece uma execução nova
+            inFlight.remove(key, mine);
+            if (error != null) {
+                mine.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                mine.complete(result);
+            }
+        });
+        return mine.copy();
+    }
+
+    public Stats stats() {
+        long executed = executions.get();
+        long joined = coalesced.get();
+        long total = executed + joined;
+        double ratio = total == 0 ? 0.0 : (double) joined / total;
+        return new Stats(executed, joined, ratio, inFlight.size());
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            // Repassa a exceção original do líder (ex: ResourceNotFoundException vira 404 para todos)
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package br.com.management.api_library.service;
+
+import br.com.management.api_library.dto.UserBulkCreateResultDTO;
+import br.com.management.api_library.dto.UserCreateDTO;
+import br.com.management.api_library.dto.UserDeletionJobDTO;
+import br.com.management.api_library.dto.UserResponseDTO;
+import br.com.management.api_library.exception.RoleNotFoundException;
+import br.com.management.api_library.exception.UserNotFoundException;
+import br.com.management.api_library.model.Role;
+import br.com.management.api_library.model.User;
+import br.com.management.api_library.repository.RoleRepository;
+import br.com.management.api_library.repository.UserBulkRepository;
+import br.com.management.api_library.repository.UserRepository;
+import br.com.management.api_library.service.security.PasswordHashingExecutor;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Operações em massa sobre usuários: cadastro de turmas inteiras de uma vez e exclusões em segundo plano.
+ */
+@Service
+public class UserBulkService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserBulkService.class);
+
+    // Usuários por batch JDBC (e por transação)
+    private static final int INSERT_CHUNK_SIZE = 500;
+
+    // Exclusões em segundo plano: uma por vez (para não disputar o banco com as requisições), com fila limitada
+    private static final int DELETION_QUEUE_CAPACITY = 100;
+    // Quantas exclusões (as mais recentes) continuam consultáveis pelo id
+    private static final int MAX_TRACKED_DELETIONS = 1000;
+
+    private final UserRepository userRepository;
+    private final RoleRepository roleRepository;
+    private final UserBulkRepository userBulkRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final UserService userService;
+
+    private final BackgroundJobs<DeletionJob> deletionJobs = new BackgroundJobs<>("user-deletion",
+            DELETION_QUEUE_CAPACITY, MAX_TRACKED_DELETIONS, "Muitas exclusões na fila. Tente novamente em instantes.");
+
+    public UserBulkService(UserRepository userRepository, RoleRepository roleRepository, UserBulkRepository userBulkRepository,
+                           PasswordEncoder passwordEncoder, PasswordHashingExecutor passwordHashingExecutor,
+                           TransactionTemplate transactionTemplate, UserService userService) {
+        this.userRepository = userRepository;
+        this.roleRepository = roleRepository;
+        this.userBulkRepository = userBulkRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.transactionTemplate = transactionTemplate;
+        this.userService = userService;
+    }
+
+    /**
+     * Cadastra um lote de usuários com a role padrão e devolve um resultado por linha, na ordem recebida.
+     * Unicidade checada em duas consultas para o lote inteiro (e dentro do próprio lote: vale a primeira ocorrência),
+     * senhas hasheadas em paralelo no executor de BCrypt e inserts em batches JDBC.
+     */
+    public List<UserBulkCreateResultDTO> createUsers(List<UserCreateDTO> requests) {
+        Set<String> takenUsernames = new HashSet<>(userRepository.findExistingUsernamesIgnoreCase(
+                requests.stream().map(request -> lower(request.getUsername())).toList()));
+        Set<String> takenEmails = new HashSet<>(userRepository.findExistingEmailsIgnoreCase(
+                requests.stream().map(request -> lower(request.getEmail())).toList()));
+
+        Role userRole = roleRepository.findByName("ROLE_USER")
+                .orElseThrow(() -> new RoleNotFoundException("Erro: Role padrão não encontrada."));
+
+        UserBulkCreateResultDTO[] results = new UserBulkCreateResultDTO[requests.size()];
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            UserCreateDTO request = requests.get(i);
+            String username = lower(request.getUsername());
+            String email = lower(request.getEmail());
+
+            if (takenUsernames.contains(username)) {
+                results[i] = UserBulkCreateResultDTO.error(i, request.getUsername(), UserBulkCreateResultDTO.Status.DUPLICATE_USERNAME,
+                        "O Username '" + request.getUsername() + "' já está cadastrado.");
+            } else if (takenEmails.contains(email)) {
+                results[i] = UserBulkCreateResultDTO.error(i, request.getUsername(), UserBulkCreateResultDTO.Status.DUPLICATE_EMAIL,
+                        "O e-mail '" + request.getEmail() + "' já está cadastrado.");
+            } else {
+                takenUsernames.add(username);
+                takenEmails.add(email);
+                accepted.add(i);
+            }
+        }
+
+        // O BCrypt é a parte cara: espalha pelas threads do executor dedicado
+        List<String> hashes = passwordHashingExecutor.mapInParallel(
+                accepted.stream().map(i -> requests.get(i).getPassword()).toList(),
+                passwordEncoder::encode);
+
+        // Um grupo novo a cada batch: o insertAll fica com a lista que recebeu
+        List<Integer> chunkIndexes = new ArrayList<>(INSERT_CHUNK_SIZE);
+        List<User> chunkUsers = new ArrayList<>(INSERT_CHUNK_SIZE);
+        for (int position = 0; position < accepted.size(); position++) {
+            int index = accepted.get(position);
+            chunkIndexes.add(index);
+            chunkUsers.add(toUser(requests.get(index), hashes.get(position)));
+
+            if (chunkUsers.size() == INSERT_CHUNK_SIZE || position == accepted.size() - 1) {
+                insertChunk(chunkIndexes, chunkUsers, userRole.getId(), results);
+                chunkIndexes = new ArrayList<>(INSERT_CHUNK_SIZE);
+                chunkUsers = new ArrayList<>(INSERT_CHUNK_SIZE);
+            }
+        }
+
+        log.info("Cadastro em lote: {} recebidos, {} aceitos para gravação.", requests.size(), accepted.size());
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Agenda a exclusão dos usuários (e das estantes) em segundo plano e devolve o job para acompanhamento.
+     * Cada usuário é excluído na própria transação, com os DELETEs set-based do UserService.
+     */
+    public UserDeletionJobDTO startDeletion(List<Long> ids) {
+        DeletionJob job = new DeletionJob(UUID.randomUUID().toString(), ids.stream().distinct().toList());
+        deletionJobs.submit(job.id, job, () -> runDeletion(job));
+        return job.snapshot();
+    }
+
+    public Optional<UserDeletionJobDTO> getDeletionJob(String jobId) {
+        return deletionJobs.find(jobId).map(DeletionJob::snapshot);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deletionJobs.shutdown();
+    }
+
+    private void runDeletion(DeletionJob job) {
+        job.start();
+        for (Long id : job.ids) {
+            try {
+                userService.deleteUser(id);
+                job.deleted();
+            } catch (UserNotFoundException e) {
+                job.notFound(id);
+            } catch (RuntimeException e) {
+                log.error("Erro ao excluir o usuário {} no job {}: {}", id, job.id, e.getMessage());
+                job.failed(id);
+            }
+        }
+        job.finish();
+        log.info("Exclusão em lote {} concluída: {}", job.id, job.snapshot());
+    }
+
+    private void insertChunk(List<Integer> indexes, List<User> users, Long roleId, UserBulkCreateResultDTO[] results) {
+        try {
+            List<Long> ids = transactionTemplate.execute(status -> userBulkRepository.insertAll(users, roleId));
+            for (int i = 0; i < users.size(); i++) {
+                results[indexes.get(i)] = UserBulkCreateResultDTO.created(indexes.get(i), toResponseDTO(ids.get(i), users.get(i)));
+            }
+        } catch (DataIntegrityViolationException e) {
+            // Alguém cadastrou um desses usernames/e-mails depois da checagem: grava o grupo linha a linha
+            log.info("Conflito ao gravar um grupo do lote de usuários; gravando os {} um a um.", users.size());
+            for (int i = 0; i < users.size(); i++) {
+                int index = indexes.get(i);
+                User user = users.get(i);
+                try {
+                    List<Long> ids = transactionTemplate.execute(status -> userBulkRepository.insertAll(List.of(user), roleId));
+                    results[index] = UserBulkCreateResultDTO.created(index, toResponseDTO(ids.get(0), user));
+                } catch (DataIntegrityViolationException rowError) {
+                    results[index] = UserBulkCreateResultDTO.error(index, user.getUsername(), UserBulkCreateResultDTO.Status.FAILED,
+                            "Username ou e-mail cadastrado por outra requisição durante o lote.");
+                }
+            }
+        }
+    }
+
+    private static User toUser(UserCreateDTO request, String passwordHash) {
+        User user = new User();
+        user.setUsername(request.getUsername());
+        user.setEmail(request.getEmail());
+        user.setFullName(request.getFullName());
+        user.setPassword(passwordHash);
+        return user;
+    }
+
+    private static UserResponseDTO toResponseDTO(Long id, User user) {
+        return new UserResponseDTO(id, user.getUsername(), user.getEmail(), user.getFullName());
+    }
+
+    private static String lower(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    // Estado mutável de uma exclusão em segundo plano; a API só vê cópias (snapshot)
+    private static final class DeletionJob {
+        private final String id;
+        private final List<Long> ids;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final List<Long> notFound = new ArrayList<>();
+        private final List<Long> failed = new ArrayList<>();
+        private UserDeletionJobDTO.Status status = UserDeletionJobDTO.Status.PENDING;
+        private int deleted;
+        private LocalDateTime finishedAt;
+
+        DeletionJob(String id, List<Long> ids) {
+            this.id = id;
+            this.ids = ids;
+        }
+
+        synchronized void start() {
+            status = UserDeletionJobDTO.Status.RUNNING;
+        }
+
+        synchronized void deleted() {
+            deleted++;
+        }
+
+        synchronized void notFound(Long userId) {
+            notFound.add(userId);
+        }
+
+        synchronized void failed(Long userId) {
+            failed.add(userId);
+        }
+
+        synchronized void finish() {
+            status = UserDeletionJobDTO.Status.COMPLETED;
+            finishedAt = LocalDateTime.now();
+        }
+
+        synchronized UserDeletionJobDTO snapshot() {
+            return new UserDeletionJobDTO(id, status, ids.size(), deleted, List.copyOf(notFound), List.copyOf(failed),
+                    createdAt, finishedAt);
+        }
+    }
+}
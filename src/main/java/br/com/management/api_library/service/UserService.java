@@ -6,13 +6,27 @@ import br.com.management.api_library.exception.*;
 import br.com.management.api_library.model.Role;
 import br.com.management.api_library.model.User;
 import br.com.management.api_library.repository.RoleRepository;
+import br.com.management.api_library.repository.ShelfTombstoneRepository;
+import br.com.management.api_library.repository.UserBookRepository;
 import br.com.management.api_library.repository.UserRepository;
+import br.com.management.api_library.service.cache.PrincipalCache;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -20,23 +34,45 @@ import org.springframework.stereotype.Service;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static br.com.management.api_library.exception.GlobalHandlerException.log;
 
 @Service
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
+
+    // Colunas pelas quais a listagem pode ser ordenada (nunca pela senha, por exemplo)
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "username", "email", "fullName");
 
     private final UserRepository userRepository;
+    private final UserBookRepository userBookRepository;
+    private final ShelfTombstoneRepository shelfTombstoneRepository;
+    private final ReadingStatsService readingStatsService;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalCache principalCache;
+    // true no Postgres com a V4 aplicada (pg_trgm + índice GIN); no H2 a busca usa o ranking aproximado.
+    // Desligado na subida se a extensão não existir (checkTrigramSupport)
+    private volatile boolean trigramSearch;
 
     @Autowired
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, UserBookRepository userBookRepository,
+                       ShelfTombstoneRepository shelfTombstoneRepository, ReadingStatsService readingStatsService,
+                       RoleRepository roleRepository,
+                       PasswordEncoder passwordEncoder, PrincipalCache principalCache,
+                       @Value("${api.users.search.trigram:false}") boolean trigramSearch) {
         this.userRepository = userRepository;
+        this.userBookRepository = userBookRepository;
+        this.shelfTombstoneRepository = shelfTombstoneRepository;
+        this.readingStatsService = readingStatsService;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.principalCache = principalCache;
+        this.trigramSearch = trigramSearch;
     }
 
     @Override
@@ -59,20 +95,83 @@ public class UserService implements UserDetailsService {
                 authorities);
     }
 
+    // Chamado pelo DaoAuthenticationProvider logo após um login bem-sucedido quando o hash salvo
+    // usa um custo BCrypt menor que o configurado (api.security.bcrypt.strength): re-hasheia com o custo atual
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newEncodedPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() ->
+                        new UsernameNotFoundException("Usuário não encontrado com o username: " + userDetails.getUsername()));
+
+        user.setPassword(newEncodedPassword);
+        userRepository.save(user);
+        log.info("Hash de senha do usuário '{}' atualizado para o custo BCrypt atual.", user.getUsername());
+
+        return org.springframework.security.core.userdetails.User.withUserDetails(userDetails)
+                .password(newEncodedPassword)
+                .build();
+    }
+
     private Collection<? extends GrantedAuthority> mapRolesToAuthorities(Collection<Role> roles) {
         return roles.stream()
                 .map(role -> new SimpleGrantedAuthority(role.getName()))
                 .collect(Collectors.toList());
     }
 
-    public List<UserResponseDTO> searchByTerm(String term) {
-        // Chama o método novo do repositório
-        List<User> users = userRepository.searchByFullNamePolyglot(term);
+    /**
+     * Com a busca por trigramas ligada, confere se o pg_trgm existe: a V4 não roda sozinha em produção
+     * (ddl-auto=update) e, sem ela, o ORDER BY similarity(...) quebraria toda busca. Sem a extensão,
+     * a busca segue pelo ranking aproximado, que só usa LIKE.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void checkTrigramSupport() {
+        if (!trigramSearch) {
+            return;
+        }
+        try {
+            if (userRepository.countInstalledExtensions("pg_trgm") > 0) {
+                return;
+            }
+            log.warn("Extensão pg_trgm não encontrada (aplique a migração V4): busca de usuários por nome sem trigramas.");
+        } catch (DataAccessException e) {
+            log.warn("Não foi possível verificar a extensão pg_trgm ({}): busca de usuários por nome sem trigramas.", e.getMessage());
+        }
+        trigramSearch = false;
+    }
 
-        // Converte a lista de User para UserResponseDTO
-        return users.stream()
-                .map(this::toResponseDTO)
-                .toList();
+    public Page<UserResponseDTO> searchByTerm(String term, Pageable pageable) {
+        String folded = User.foldForSearch(term);
+        if (folded == null || folded.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        // A ordem é sempre a de relevância, então qualquer sort pedido pelo cliente é ignorado
+        Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        String pattern = escapeLike(folded);
+        return trigramSearch
+                ? userRepository.searchByFullNameTrigram(pattern, unsorted)
+                : userRepository.searchByFullNameRanked(pattern, unsorted);
+    }
+
+    private static String containsPattern(String value) {
+        if (value == null || value.isBlank()) {
+            return "%";
+        }
+        return "%" + escapeLike(value.trim().toLowerCase(Locale.ROOT)) + "%";
+    }
+
+    private static String normalizeRole(String role) {
+        if (role == null || role.isBlank()) {
+            return null;
+        }
+        String upper = role.trim().toUpperCase(Locale.ROOT);
+        return upper.startsWith("ROLE_") ? upper : "ROLE_" + upper;
+    }
+
+    // Um '%' ou '_' digitado pelo usuário deve ser procurado literalmente, não virar curinga
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 
     public UserResponseDTO createUser(UserCreateDTO createDTO) {
@@ -107,19 +206,53 @@ public class UserService implements UserDetailsService {
         return toResponseDTO(userRepository.save(newUser));
     }
 
+    // Só depois do commit: antes dele, uma requisição autenticada concorrente ainda leria do banco o usuário antigo
+    // e o devolveria ao cache. Sem transação em andamento, a escrita já foi confirmada e a remoção é imediata
+    private void evictPrincipalsAfterCommit(String... usernames) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            for (String username : usernames) {
+                principalCache.evict(username);
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (String username : usernames) {
+                    principalCache.evict(username);
+                }
+            }
+        });
+    }
+
     private User findUserByUsername(String username) {
         return userRepository.findByUsername(username)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuário '" + username + "' não encontrado."));
     }
 
-    public List<UserResponseDTO> getAllUsers() {
-
-        List<User> users = userRepository.findAll();
+    /**
+     * Listagem paginada para administradores. Os filtros são opcionais e fazem "contém", sem diferenciar maiúsculas;
+     * role aceita "ADMIN" ou "ROLE_ADMIN". Só é possível ordenar pelas colunas públicas do usuário.
+     */
+    public Page<UserResponseDTO> listUsers(String username, String email, String role, Pageable pageable) {
+        Sort sort = Sort.by(pageable.getSort().stream()
+                .filter(order -> SORTABLE_PROPERTIES.contains(order.getProperty()))
+                .toList());
+        Pageable safePageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                sort.isSorted() ? sort : Sort.by("id"));
+
+        return userRepository.findSummaries(containsPattern(username), containsPattern(email), normalizeRole(role), safePageable);
+    }
 
-        return userRepository.findAll()
-                .stream()
-                .map(this::toResponseDTO)
-                .toList();
+    /**
+     * Percorre todos os usuários (ordem de id) por um cursor no servidor, entregando um a um ao consumidor.
+     * A memória não cresce com o tamanho da tabela: são projeções, não entidades gerenciadas.
+     */
+    @Transactional(readOnly = true)
+    public void exportUsers(Consumer<UserResponseDTO> consumer) {
+        try (Stream<UserResponseDTO> users = userRepository.streamAllSummaries()) {
+            users.forEach(consumer);
+        }
     }
 
     public UserResponseDTO getByFullName(String fullName) {
@@ -132,6 +265,7 @@ public class UserService implements UserDetailsService {
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException("Usuário não encontrado com o ID: " + id));
 
+        String previousUsername = existingUser.getUsername();
         mapDtoToEntity(existingUser, updateDTO);
 
         if (updateDTO.getPassword() != null && !updateDTO.getPassword().isEmpty()) {
@@ -139,15 +273,25 @@ public class UserService implements UserDetailsService {
         }
 
         User updatedUser = userRepository.save(existingUser);
+
+        // O usuário autenticado em cache não pode sobreviver a uma alteração (inclusive de username)
+        evictPrincipalsAfterCommit(previousUsername, updatedUser.getUsername());
         return toResponseDTO(updatedUser);
     }
 
+    // DELETEs por id, sem carregar o usuário nem a estante: o custo não cresce com o tamanho da estante
     @Transactional
     public void deleteUser(Long id) {
-        userRepository.findById(id)
+        String username = userRepository.findUsernameById(id)
                 .orElseThrow(() -> new UserNotFoundException("Usuário não encontrado com o ID: " + id));
 
-        userRepository.deleteById(id);
+        int shelfItems = userBookRepository.deleteAllByUserId(id);
+        shelfTombstoneRepository.deleteAllByUserId(id);
+        readingStatsService.deleteForUser(id);
+        userRepository.deleteRolesByUserId(id);
+        userRepository.deleteUserRowById(id);
+        evictPrincipalsAfterCommit(username);
+        log.info("Usuário {} ('{}') excluído junto com {} itens da estante.", id, username, shelfItems);
     }
 
     private UserResponseDTO toResponseDTO(User user) {
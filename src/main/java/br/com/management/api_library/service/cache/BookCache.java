@@ -0,0 +1,93 @@
+package br.com.management.api_library.service.cache;
+
+import br.com.management.api_library.dto.BookResponseDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Cache local (read-through) dos livros do catálogo, consultável por id e por ISBN.
+ * Guarda o DTO imutável, nunca a entidade, para que nenhuma thread altere o que outra está lendo.
+ * Limitado por tamanho (LRU) e por tempo de vida; resultados "não encontrado" não são cacheados.
+ */
+@Component
+public class BookCache {
+
+    private final BoundedCache<Long, BookResponseDTO> booksById;
+    // ISBN -> id dos livros em cache. Conferido contra o livro na leitura: uma associação velha só vira um miss
+    private final ConcurrentHashMap<String, Long> idsByIsbn = new ConcurrentHashMap<>();
+
+    public record Stats(long hits, long misses, long evictions, int size) {}
+
+    @Autowired
+    public BookCache(@Value("${api.cache.books.max-size:10000}") int maxSize,
+                     @Value("${api.cache.books.ttl:10m}") Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    BookCache(int maxSize, Duration ttl, LongSupplier clock) {
+        this.booksById = new BoundedCache<>(maxSize, ttl.toNanos(), clock,
+                (id, book) -> addIsbnMapping(book), (id, book) -> removeIsbnMapping(book));
+    }
+
+    public Optional<BookResponseDTO> getById(Long id, Supplier<Optional<BookResponseDTO>> loader) {
+        Optional<BookResponseDTO> cached = booksById.getIfPresent(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        return booksById.load(loader, BookResponseDTO::id);
+    }
+
+    public Optional<BookResponseDTO> getByIsbn(String isbn, Supplier<Optional<BookResponseDTO>> loader) {
+        Optional<BookResponseDTO> cached = booksById.getIfPresent(idsByIsbn.get(isbn))
+                .filter(book -> isbn.equals(book.isbn()));
+        if (cached.isPresent()) {
+            return cached;
+        }
+        return booksById.load(loader, BookResponseDTO::id);
+    }
+
+    public void put(BookResponseDTO book) {
+        if (book == null || book.id() == null) {
+            return;
+        }
+        booksById.put(book.id(), book);
+    }
+
+    public void evictById(Long id) {
+        booksById.invalidate(id);
+    }
+
+    public void evictByIsbn(String isbn) {
+        booksById.invalidate(isbn != null ? idsByIsbn.remove(isbn) : null);
+    }
+
+    public void clear() {
+        booksById.clear();
+    }
+
+    public Stats stats() {
+        BoundedCache.Stats stats = booksById.stats();
+        return new Stats(stats.hits(), stats.misses(), stats.evictions(), stats.size());
+    }
+
+    // --- Métodos Auxiliares ---
+
+    private void addIsbnMapping(BookResponseDTO book) {
+        if (book.isbn() != null) {
+            idsByIsbn.put(book.isbn(), book.id());
+        }
+    }
+
+    private void removeIsbnMapping(BookResponseDTO book) {
+        if (book.isbn() != null) {
+            idsByIsbn.remove(book.isbn(), book.id());
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package br.com.management.api_library.service.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Núcleo dos caches locais deste pacote: mapa limitado por tamanho (LRU) e por idade, com contadores de
+ * acerto/falta/remoção e uma geração que impede um carregamento antigo de repopular o cache depois de uma
+ * invalidação. A idade é medida no relógio recebido (nanoTime ou epoch millis), e {@code maxAge} vem na mesma unidade.
+ * <p>
+ * O mapa é dividido em segmentos pelo hash da chave, cada um com o seu lock e a sua fatia do limite, para que
+ * leituras de chaves diferentes (ex: o cache de usuários, consultado a cada requisição autenticada) não disputem
+ * um lock único. O LRU vale dentro de cada segmento; caches pequenos ficam com um segmento só e LRU exato.
+ */
+final class BoundedCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+    // Abaixo disso por segmento, o LRU aproximado passaria a remover entradas ainda quentes
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final long maxAge;
+    private final LongSupplier clock;
+    // Chamados sob o lock do segmento, para manter índices secundários (ex: ISBN -> id) em sincronia com ele:
+    // onStore para cada valor que entra; onRemoval para cada um que sai (LRU, idade, invalidação ou substituição)
+    private final BiConsumer<K, V> onStore;
+    private final BiConsumer<K, V> onRemoval;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+
+    // Incrementado a cada invalidação (sob o lock do segmento da chave); impede que um carregamento antigo
+    // repopule o cache depois de uma escrita. Único para o cache todo: o loader só revela a chave no fim
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    record Entry<V>(V value, long storedAt) {}
+
+    record Stats(long hits, long misses, long evictions, int size) {}
+
+    // Ordem de acesso: o primeiro da fila é o menos usado recentemente. O próprio segmento é o lock
+    private static final class Segment<K, V> {
+        private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final int maxSize;
+
+        private Segment(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    BoundedCache(int maxSize, long maxAge, LongSupplier clock) {
+        this(maxSize, maxAge, clock, (key, value) -> {}, (key, value) -> {});
+    }
+
+    @SuppressWarnings("unchecked")
+    BoundedCache(int maxSize, long maxAge, LongSupplier clock, BiConsumer<K, V> onStore, BiConsumer<K, V> onRemoval) {
+        this.maxAge = maxAge;
+        this.clock = clock;
+        this.onStore = onStore;
+        this.onRemoval = onRemoval;
+
+        int segmentCount = segmentCount(maxSize);
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        // A soma das fatias nunca passa do limite total
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(maxSize / segmentCount);
+        }
+    }
+
+    /** Read-through: devolve o valor em cache ou chama o loader (fora do lock) e guarda o que ele achar. */
+    Optional<V> get(K key, Supplier<Optional<V>> loader) {
+        Optional<V> cached = getIfPresent(key);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        return load(loader, value -> key);
+    }
+
+    /** Valor ainda dentro da idade máxima; conta acerto ou falta (chave nula conta como falta). */
+    Optional<V> getIfPresent(K key) {
+        Entry<V> entry = key != null ? entry(key) : null;
+        (entry != null ? hits : misses).increment();
+        return entry != null ? Optional.of(entry.value()) : Optional.empty();
+    }
+
+    /**
+     * Entrada ainda dentro da idade máxima, com o instante em que foi gravada, ou null. Não mexe nos contadores
+     * de acerto/falta: é para quem decide a própria política (ex: servir vencido enquanto atualiza).
+     */
+    Entry<V> entry(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            Entry<V> entry = segment.entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (clock.getAsLong() - entry.storedAt() < maxAge) {
+                return entry;
+            }
+            // Passou da idade: conta como remoção
+            segment.entries.remove(key);
+            onRemoval.accept(key, entry.value());
+            evictions.increment();
+            return null;
+        }
+    }
+
+    /**
+     * Chama o loader fora do lock (para não serializar as idas ao banco) e guarda o resultado sob a chave que
+     * {@code keyOf} extrair dele, a menos que uma invalidação tenha acontecido durante o carregamento.
+     */
+    Optional<V> load(Supplier<Optional<V>> loader, Function<V, K> keyOf) {
+        long generationBeforeLoad = generation.get();
+
+        Optional<V> loaded = loader.get();
+        loaded.ifPresent(value -> {
+            K key = keyOf.apply(value);
+            if (key == null) {
+                return;
+            }
+            // Conferida sob o lock do segmento: uma invalidação desta chave vem antes (e barra) ou depois (e remove)
+            Segment<K, V> segment = segmentFor(key);
+            synchronized (segment) {
+                if (generation.get() == generationBeforeLoad) {
+                    store(segment, key, value, clock.getAsLong());
+                }
+            }
+        });
+        return loaded;
+    }
+
+    void put(K key, V value) {
+        put(key, value, clock.getAsLong());
+    }
+
+    void put(K key, V value, long storedAt) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            store(segment, key, value, storedAt);
+        }
+    }
+
+    /** Remove a chave (se houver) e invalida os carregamentos em andamento. */
+    void invalidate(K key) {
+        if (key == null) {
+            generation.incrementAndGet();
+            return;
+        }
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            generation.incrementAndGet();
+            Entry<V> removed = segment.entries.remove(key);
+            if (removed != null) {
+                onRemoval.accept(key, removed.value());
+            }
+        }
+    }
+
+    void clear() {
+        generation.incrementAndGet();
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.entries.forEach((key, entry) -> onRemoval.accept(key, entry.value()));
+                segment.entries.clear();
+            }
+        }
+    }
+
+    void forEach(BiConsumer<K, Entry<V>> action) {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.entries.forEach(action);
+            }
+        }
+    }
+
+    Stats stats() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    // --- Métodos Auxiliares ---
+
+    // Chamado sob o lock do segmento
+    private void store(Segment<K, V> segment, K key, V value, long storedAt) {
+        Entry<V> replaced = segment.entries.put(key, new Entry<>(value, storedAt));
+        if (replaced != null) {
+            onRemoval.accept(key, replaced.value());
+        }
+        onStore.accept(key, value);
+
+        // Remove os menos usados recentemente até voltar ao limite do segmento
+        Iterator<Map.Entry<K, Entry<V>>> iterator = segment.entries.entrySet().iterator();
+        while (segment.entries.size() > segment.maxSize && iterator.hasNext()) {
+            Map.Entry<K, Entry<V>> eldest = iterator.next();
+            iterator.remove();
+            onRemoval.accept(eldest.getKey(), eldest.getValue().value());
+            evictions.increment();
+        }
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        // Espalha os bits altos do hash, como o HashMap, antes de escolher o segmento pelos bits baixos
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & segmentMask];
+    }
+
+    // Maior potência de 2 até MAX_SEGMENTS que ainda deixa MIN_SEGMENT_SIZE entradas por segmento
+    private static int segmentCount(int maxSize) {
+        int count = 1;
+        while (count < MAX_SEGMENTS && maxSize / (count * 2) >= MIN_SEGMENT_SIZE) {
+            count *= 2;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,190 @@
+package br.com.management.api_library.service.cache;
+
+import br.com.management.api_library.dto.GoogleBookVolumeInfo;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Cache das pesquisas feitas no Google Books, chaveado por consulta normalizada, startIndex e maxResults.
+ * Limitado por tamanho (LRU) e por tempo: dentro do TTL a resposta é servida direto; depois dele, e até o fim
+ * da janela "stale", ainda é servida na hora enquanto uma única atualização roda em segundo plano.
+ * Opcionalmente grava o conteúdo em disco ao desligar e o recarrega ao subir, para não começar frio e gastar cota.
+ * Só entram respostas de sucesso: erros e circuito aberto nunca são cacheados.
+ */
+@Component
+public class GoogleSearchCache {
+
+    private static final Logger log = LoggerFactory.getLogger(GoogleSearchCache.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final long ttlMillis;
+    private final long staleMillis;
+    private final Path persistenceFile;
+    private final LongSupplier clock;
+
+    // Idade máxima = TTL + janela stale; a gravação de cada entrada é em epoch millis, que sobrevive a um restart
+    private final BoundedCache<Key, Result> searches;
+    // Chaves com atualização em segundo plano em andamento (no máximo uma por chave)
+    private final Set<Key> refreshing = new HashSet<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public record Key(String query, int startIndex, int maxResults) {}
+
+    public record Result(List<GoogleBookVolumeInfo> content, long totalItems) {}
+
+    public record Stats(long hits, long staleHits, long misses, long evictions, int size) {}
+
+    private record PersistedEntry(Key key, Result result, long fetchedAt) {}
+
+    @Autowired
+    public GoogleSearchCache(@Value("${api.cache.google-search.max-size:5000}") int maxSize,
+                             @Value("${api.cache.google-search.ttl:6h}") Duration ttl,
+                             @Value("${api.cache.google-search.stale-ttl:24h}") Duration staleTtl,
+                             @Value("${api.cache.google-search.file:}") String persistenceFile) {
+        this(maxSize, ttl, staleTtl, persistenceFile.isBlank() ? null : Path.of(persistenceFile), System::currentTimeMillis);
+    }
+
+    GoogleSearchCache(int maxSize, Duration ttl, Duration staleTtl, Path persistenceFile, LongSupplier clock) {
+        this.ttlMillis = ttl.toMillis();
+        this.staleMillis = staleTtl.toMillis();
+        this.persistenceFile = persistenceFile;
+        this.clock = clock;
+        this.searches = new BoundedCache<>(maxSize, ttlMillis + staleMillis, clock);
+    }
+
+    // "  Senhor  dos ANÉIS " e "senhor dos anéis" são a mesma pesquisa
+    public static Key keyOf(String query, int startIndex, int maxResults) {
+        String normalized = WHITESPACE.matcher(query.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        return new Key(normalized, startIndex, maxResults);
+    }
+
+    /**
+     * Devolve a resposta cacheada ou assina o loader. Uma entrada vencida, mas ainda dentro da janela stale,
+     * é devolvida na hora e dispara o loader em segundo plano para renová-la.
+     */
+    public Mono<Result> get(Key key, Supplier<Mono<Result>> loader) {
+        return Mono.defer(() -> {
+            BoundedCache.Entry<Result> entry;
+            boolean startRefresh = false;
+
+            synchronized (this) {
+                // Entrada que passou até da janela stale já sai daqui como remoção, e segue para o Google
+                entry = searches.entry(key);
+                if (entry != null && clock.getAsLong() - entry.storedAt() < ttlMillis) {
+                    hits.incrementAndGet();
+                    return Mono.just(entry.value());
+                }
+                if (entry != null) {
+                    staleHits.incrementAndGet();
+                    startRefresh = refreshing.add(key);
+                } else {
+                    misses.incrementAndGet();
+                }
+            }
+
+            if (entry == null) {
+                return loader.get().doOnNext(result -> put(key, result));
+            }
+
+            if (startRefresh) {
+                loader.get()
+                        .doFinally(signal -> finishRefresh(key))
+                        .subscribe(result -> put(key, result),
+                                e -> log.warn("Falha ao atualizar em segundo plano a pesquisa '{}': {}", key.query(), e.getMessage()));
+            }
+            return Mono.just(entry.value());
+        });
+    }
+
+    public void put(Key key, Result result) {
+        searches.put(key, result);
+    }
+
+    public void clear() {
+        searches.clear();
+    }
+
+    public Stats stats() {
+        BoundedCache.Stats stats = searches.stats();
+        return new Stats(hits.get(), staleHits.get(), misses.get(), stats.evictions(), stats.size());
+    }
+
+    @PostConstruct
+    public void loadFromDisk() {
+        if (persistenceFile == null || !Files.exists(persistenceFile)) {
+            return;
+        }
+
+        try {
+            List<PersistedEntry> persisted = objectMapper.readValue(persistenceFile.toFile(), new TypeReference<List<PersistedEntry>>() {});
+            long now = clock.getAsLong();
+            int loaded = 0;
+            for (PersistedEntry persistedEntry : persisted) {
+                // Entradas que já passaram da janela stale não valem nada; ficam de fora
+                if (now - persistedEntry.fetchedAt() < ttlMillis + staleMillis) {
+                    searches.put(persistedEntry.key(), persistedEntry.result(), persistedEntry.fetchedAt());
+                    loaded++;
+                }
+            }
+            log.info("Cache de pesquisas do Google carregado do disco: {} entradas.", loaded);
+        } catch (IOException e) {
+            // Arquivo corrompido ou de outra versão: começa vazio, sem derrubar a aplicação
+            log.warn("Não foi possível ler o cache de pesquisas do Google em {}: {}", persistenceFile, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void saveToDisk() {
+        if (persistenceFile == null) {
+            return;
+        }
+
+        List<PersistedEntry> snapshot = new ArrayList<>();
+        searches.forEach((key, entry) -> snapshot.add(new PersistedEntry(key, entry.value(), entry.storedAt())));
+
+        try {
+            // Grava num arquivo temporário e troca de uma vez, para nunca deixar um JSON pela metade
+            Path parent = persistenceFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temporaryFile = Files.createTempFile(parent, "google-search-cache", ".tmp");
+            objectMapper.writeValue(temporaryFile.toFile(), snapshot);
+            Files.move(temporaryFile, persistenceFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Cache de pesquisas do Google gravado em disco: {} entradas.", snapshot.size());
+        } catch (IOException e) {
+            log.warn("Não foi possível gravar o cache de pesquisas do Google em {}: {}", persistenceFile, e.getMessage());
+        }
+    }
+
+    // --- Métodos Auxiliares ---
+
+    private synchronized void finishRefresh(Key key) {
+        refreshing.remove(key);
+    }
+}
@@ -0,0 +1,76 @@
+package br.com.management.api_library.service.cache;
+
+import br.com.management.api_library.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Cache dos usuários autenticados, por username, para que o SecurityFilter não consulte table_users
+ * (e user_roles) a cada requisição. TTL curto de propósito: é ele que limita o atraso de uma mudança feita
+ * em outra instância. Nesta instância, UserService invalida a entrada ao alterar ou remover o usuário.
+ * Guarda uma cópia sem a senha, nunca a entidade gerenciada.
+ */
+@Component
+public class PrincipalCache {
+
+    private final BoundedCache<String, Principal> principals;
+
+    public record Principal(User user, List<GrantedAuthority> authorities) {}
+
+    public record Stats(long hits, long misses, long evictions, int size) {}
+
+    @Autowired
+    public PrincipalCache(@Value("${api.cache.principals.max-size:10000}") int maxSize,
+                          @Value("${api.cache.principals.ttl:60s}") Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    PrincipalCache(int maxSize, Duration ttl, LongSupplier clock) {
+        this.principals = new BoundedCache<>(maxSize, ttl.toNanos(), clock);
+    }
+
+    public Optional<Principal> get(String username, Supplier<Optional<User>> loader) {
+        return principals.get(username, () -> loader.get().map(PrincipalCache::toPrincipal));
+    }
+
+    public void evict(String username) {
+        principals.invalidate(username);
+    }
+
+    // Para mudanças que afetam muitos usuários de uma vez (ex: permissões de uma role)
+    public void clear() {
+        principals.clear();
+    }
+
+    public Stats stats() {
+        BoundedCache.Stats stats = principals.stats();
+        return new Stats(stats.hits(), stats.misses(), stats.evictions(), stats.size());
+    }
+
+    // --- Métodos Auxiliares ---
+
+    // Cópia desligada do Hibernate e sem a senha: é compartilhada entre requisições de threads diferentes
+    private static Principal toPrincipal(User user) {
+        User snapshot = new User();
+        snapshot.setId(user.getId());
+        snapshot.setUsername(user.getUsername());
+        snapshot.setEmail(user.getEmail());
+        snapshot.setFullName(user.getFullName());
+        snapshot.setRoles(new HashSet<>(user.getRoles()));
+
+        List<GrantedAuthority> authorities = user.getRoles().stream()
+                .map(role -> (GrantedAuthority) new SimpleGrantedAuthority(role.getName()))
+                .toList();
+        return new Principal(snapshot, authorities);
+    }
+}
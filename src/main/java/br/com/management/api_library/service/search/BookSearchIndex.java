@@ -0,0 +1,223 @@
+package br.com.management.api_library.service.search;
+
+import br.com.management.api_library.model.Book;
+import br.com.management.api_library.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido em memória sobre o catálogo de livros (título, autor, editora, gênero e descrição).
+ * É construído uma vez na subida da aplicação e depois mantido incrementalmente pelo BookService,
+ * sem reconstrução completa. O ranking usa BM25 com pesos por campo.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    // Parâmetros clássicos do BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Peso de cada campo na frequência do termo (um acerto no título vale mais que na descrição)
+    private static final double TITLE_WEIGHT = 3.0;
+    private static final double AUTHOR_WEIGHT = 2.0;
+    private static final double PUBLISHER_WEIGHT = 1.0;
+    private static final double GENRE_WEIGHT = 1.5;
+    private static final double DESCRIPTION_WEIGHT = 1.0;
+
+    private static final int REBUILD_PAGE_SIZE = 500;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "o", "as", "os", "e", "de", "da", "do", "das", "dos", "em", "no", "na", "nos", "nas",
+            "um", "uma", "para", "por", "com", "the", "of", "and", "an", "in", "to");
+
+    private final BookRepository bookRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // termo -> (id do livro -> frequência ponderada)
+    private final Map<String, Map<Long, Double>> postings = new HashMap<>();
+    // id do livro -> termos e tamanho ponderado (para remover/atualizar sem varrer o índice)
+    private final Map<Long, IndexedDocument> documents = new HashMap<>();
+    private double totalLength;
+
+    public BookSearchIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    public record SearchHit(Long bookId, double score) {}
+
+    private record IndexedDocument(Set<String> terms, double length) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            totalLength = 0;
+
+            Page<Book> page;
+            int pageNumber = 0;
+            do {
+                page = bookRepository.findAll(PageRequest.of(pageNumber++, REBUILD_PAGE_SIZE, Sort.by("id")));
+                page.forEach(this::addDocument);
+            } while (page.hasNext());
+
+            log.info("Índice de busca construído com {} livros e {} termos.", documents.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Insere ou substitui o livro no índice
+    public void index(Book book) {
+        if (book == null || book.getId() == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeDocument(book.getId());
+            addDocument(book);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna todos os livros que contêm ao menos um termo da consulta, ordenados por relevância (BM25).
+     */
+    public List<SearchHit> search(String query) {
+        List<String> queryTerms = tokenize(query).stream().distinct().toList();
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            if (documentCount == 0) {
+                return List.of();
+            }
+
+            double averageLength = totalLength / documentCount;
+            Map<Long, Double> scores = new HashMap<>();
+
+            for (String term : queryTerms) {
+                Map<Long, Double> termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+
+                int documentFrequency = termPostings.size();
+                double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+
+                termPostings.forEach((bookId, frequency) -> {
+                    double length = documents.get(bookId).length();
+                    double norm = K1 * (1 - B + B * length / averageLength);
+                    double termScore = idf * (frequency * (K1 + 1)) / (frequency + norm);
+                    scores.merge(bookId, termScore, Double::sum);
+                });
+            }
+
+            return scores.entrySet().stream()
+                    .map(entry -> new SearchHit(entry.getKey(), entry.getValue()))
+                    .sorted(Comparator.comparingDouble(SearchHit::score).reversed()
+                            .thenComparing(SearchHit::bookId))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Quebra o texto em termos: minúsculas, sem acentos ("Ação" -> "acao") e sem stop words.
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return Arrays.stream(NON_ALPHANUMERIC.split(folded.toLowerCase(Locale.ROOT)))
+                .filter(token -> !token.isEmpty())
+                .filter(token -> !STOP_WORDS.contains(token))
+                .toList();
+    }
+
+    // --- Métodos Auxiliares (chamados com o write lock) ---
+
+    private void addDocument(Book book) {
+        Map<String, Double> frequencies = new HashMap<>();
+        addField(frequencies, book.getTitle(), TITLE_WEIGHT);
+        addField(frequencies, book.getAuthor(), AUTHOR_WEIGHT);
+        addField(frequencies, book.getPublisher(), PUBLISHER_WEIGHT);
+        addField(frequencies, book.getGenre(), GENRE_WEIGHT);
+        addField(frequencies, book.getDescription(), DESCRIPTION_WEIGHT);
+
+        double length = frequencies.values().stream().mapToDouble(Double::doubleValue).sum();
+
+        frequencies.forEach((term, frequency) ->
+                postings.computeIfAbsent(term, t -> new HashMap<>()).put(book.getId(), frequency));
+        documents.put(book.getId(), new IndexedDocument(frequencies.keySet(), length));
+        totalLength += length;
+    }
+
+    private void removeDocument(Long bookId) {
+        IndexedDocument existing = documents.remove(bookId);
+        if (existing == null) {
+            return;
+        }
+
+        for (String term : existing.terms()) {
+            Map<Long, Double> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(bookId);
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        totalLength -= existing.length();
+    }
+
+    private static void addField(Map<String, Double> frequencies, String value, double weight) {
+        for (String token : tokenize(value)) {
+            frequencies.merge(token, weight, Double::sum);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package br.com.management.api_library.service.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * PasswordEncoder da aplicação: o encode e o matches (BCrypt) rodam no PasswordHashingExecutor, com a fila
+ * limitada dele. Todo o resto (buscar o usuário no login, gravar no cadastro, re-hash) segue na thread da
+ * requisição, então a latência do banco não ocupa as vagas do BCrypt. Com a fila cheia, lança ServerBusyException (503).
+ */
+public class HashingPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+
+    public HashingPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor passwordHashingExecutor) {
+        this.delegate = delegate;
+        this.passwordHashingExecutor = passwordHashingExecutor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return passwordHashingExecutor.call(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return passwordHashingExecutor.call(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // Só lê o custo do hash guardado: barato, não precisa do executor
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
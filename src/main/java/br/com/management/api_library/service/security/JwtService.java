@@ -1,30 +1,70 @@
 package br.com.management.api_library.service.security;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
 import br.com.management.api_library.model.User; // Sua entidade User
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class JwtService {
 
-    @Value("${api.security.token.secret}")
-    private String secret;
+    private static final String ISSUER = "api-library";
+
+    // Montados uma única vez: o Algorithm e o verifier são imutáveis e seguros para uso entre threads
+    private final Algorithm algorithm;
+    private final JWTVerifier verifier;
+
+    // Tokens já verificados (chave = SHA-256 do token, nunca o token em si) -> username e validade
+    private final ConcurrentMap<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    private final int maxCachedTokens;
+    private final Clock clock;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public record Stats(long hits, long misses, int size) {}
+
+    private record VerifiedToken(String subject, Instant expiresAt) {}
+
+    @Autowired
+    public JwtService(@Value("${api.security.token.secret}") String secret,
+                      @Value("${api.security.token.cache-size:10000}") int maxCachedTokens) {
+        this(secret, maxCachedTokens, Clock.systemUTC());
+    }
+
+    JwtService(String secret, int maxCachedTokens, Clock clock) {
+        this.algorithm = Algorithm.HMAC256(secret);
+        this.verifier = JWT.require(algorithm)
+                .withIssuer(ISSUER)
+                .build();
+        this.maxCachedTokens = maxCachedTokens;
+        this.clock = clock;
+    }
 
     // GERA o token com base no usuário
     public String generateToken(UserDetails userDetails) {
         try {
-            Algorithm algorithm = Algorithm.HMAC256(secret);
             return JWT.create()
-                    .withIssuer("api-library") // Quem emitiu o token
+                    .withIssuer(ISSUER) // Quem emitiu o token
                     .withSubject(userDetails.getUsername()) // O dono do token (username)
                     .withExpiresAt(generateExpirationDate()) // Validade
                     .sign(algorithm); // Assina
@@ -35,20 +75,58 @@ public class JwtService {
 
     // VALIDA o token e retorna o Username se for válido
     public String validateToken(String token) {
+        String digest = digest(token);
+
+        VerifiedToken cached = verifiedTokens.get(digest);
+        if (cached != null) {
+            // O cache nunca estende a validade: passou do exp, o token deixa de valer na hora
+            if (clock.instant().isBefore(cached.expiresAt())) {
+                hits.incrementAndGet();
+                return cached.subject();
+            }
+            verifiedTokens.remove(digest, cached);
+            return "";
+        }
+
+        misses.incrementAndGet();
         try {
-            Algorithm algorithm = Algorithm.HMAC256(secret);
-            return JWT.require(algorithm)
-                    .withIssuer("api-library")
-                    .build()
-                    .verify(token) // Verifica assinatura e validade
-                    .getSubject(); // Retorna o username que estava dentro
+            DecodedJWT decoded = verifier.verify(token); // Verifica assinatura e validade
+            if (decoded.getExpiresAtAsInstant() != null) {
+                remember(digest, new VerifiedToken(decoded.getSubject(), decoded.getExpiresAtAsInstant()));
+            }
+            return decoded.getSubject(); // Retorna o username que estava dentro
         } catch (JWTVerificationException exception) {
-            return ""; // Retorna vazio se o token for inválido ou expirado
+            return ""; // Retorna vazio se o token for inválido ou expirado (tokens inválidos não entram no cache)
         }
     }
 
+    public Stats stats() {
+        return new Stats(hits.get(), misses.get(), verifiedTokens.size());
+    }
+
     // Define que o token expira em 2 horas (ajuste conforme necessário)
     private Instant generateExpirationDate() {
         return LocalDateTime.now().plusHours(2).toInstant(ZoneOffset.of("-03:00"));
     }
-}
\ No newline at end of file
+
+    private void remember(String digest, VerifiedToken verifiedToken) {
+        if (verifiedTokens.size() >= maxCachedTokens) {
+            // Cheio: primeiro descarta os vencidos; se ainda assim não couber, recomeça do zero
+            Instant now = clock.instant();
+            verifiedTokens.values().removeIf(token -> !now.isBefore(token.expiresAt()));
+            if (verifiedTokens.size() >= maxCachedTokens) {
+                verifiedTokens.clear();
+            }
+        }
+        verifiedTokens.put(digest, verifiedToken);
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível na JVM", e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package br.com.management.api_library.service.security;
+
+import br.com.management.api_library.exception.ServerBusyException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Executor dedicado ao trabalho com BCrypt (login, cadastro e troca de senha).
+ * Tem uma thread por núcleo e uma fila limitada: num pico de logins, o excesso recebe 503 na hora
+ * em vez de ocupar as threads do Tomcat e a CPU que os outros endpoints precisam.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingExecutor.class);
+
+    // Itens por tarefa em mapInParallel: cada fatia segura uma thread por poucos hashes
+    static final int SLICE_SIZE = 8;
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejected = new AtomicLong();
+
+    public record Stats(int threads, int active, int queued, long completed, long rejected) {}
+
+    @Autowired
+    public PasswordHashingExecutor(@Value("${api.security.password-hashing.threads:0}") int threads,
+                                   @Value("${api.security.password-hashing.queue-capacity:64}") int queueCapacity) {
+        // 0 (padrão) = uma thread por núcleo disponível
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), namedThreads(), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Roda o trabalho no executor. Se a fila estiver cheia, lança ServerBusyException sem enfileirar nada.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            log.warn("Fila de hashing de senhas cheia; recusando a requisição.");
+            throw new ServerBusyException("Servidor ocupado processando outros logins. Tente novamente em instantes.");
+        }
+    }
+
+    /**
+     * Roda o trabalho no executor e espera o resultado; é o caminho do HashingPasswordEncoder, que entrega ao
+     * executor só o BCrypt (a consulta e a gravação no banco ficam na thread de quem chamou). Numa thread do
+     * próprio executor (ex: dentro de mapInParallel) roda direto, sem reenfileirar e sem esperar por si mesmo.
+     */
+    public <T> T call(Supplier<T> work) {
+        if (Thread.currentThread() instanceof HashingThread) {
+            return work.get();
+        }
+        try {
+            return submit(work).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Aplica o trabalho a cada item e devolve os resultados na mesma ordem. Pensado para lotes, como o cadastro
+     * em massa: os itens vão em fatias pequenas, com no máximo uma fatia a menos que o número de threads em
+     * execução ao mesmo tempo, então sempre sobra thread e vaga na fila para os logins entre uma fatia e outra.
+     * Se uma fatia for recusada (fila cheia), nenhuma outra é submetida e as já enfileiradas não processam nada.
+     */
+    public <T, R> List<R> mapInParallel(List<T> items, Function<T, R> work) {
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        int maxInFlight = Math.max(1, executor.getMaximumPoolSize() - 1);
+        AtomicBoolean abandoned = new AtomicBoolean();
+        Deque<CompletableFuture<List<R>>> inFlight = new ArrayDeque<>(maxInFlight);
+        List<R> results = new ArrayList<>(items.size());
+        try {
+            for (int from = 0; from < items.size(); from += SLICE_SIZE) {
+                if (inFlight.size() == maxInFlight) {
+                    results.addAll(inFlight.removeFirst().join());
+                }
+                List<T> slice = items.subList(from, Math.min(from + SLICE_SIZE, items.size()));
+                inFlight.addLast(submit(() -> slice.stream().takeWhile(item -> !abandoned.get()).map(work).toList()));
+            }
+            while (!inFlight.isEmpty()) {
+                results.addAll(inFlight.removeFirst().join());
+            }
+        } catch (RuntimeException e) {
+            // Recusa ou erro numa fatia: o lote falha inteiro, então as fatias restantes param no próximo item
+            abandoned.set(true);
+            throw e;
+        }
+        return results;
+    }
+
+    public Stats stats() {
+        return new Stats(executor.getPoolSize(), executor.getActiveCount(), executor.getQueue().size(),
+                executor.getCompletedTaskCount(), rejected.get());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private static ThreadFactory namedThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new HashingThread(runnable, "password-hashing-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Marca as threads do executor, para call() saber quando já está numa delas
+    private static final class HashingThread extends Thread {
+        HashingThread(Runnable runnable, String name) {
+            super(runnable, name);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package br.com.management.api_library.service.security;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Limitador de requisições em memória, por limite e sujeito (ex: "login:ip" e "10.0.0.1"), com janela deslizante aproximada:
+ * soma o contador da janela atual com a fração ainda "visível" da janela anterior.
+ * Cada chave tem o próprio lock, então chaves diferentes nunca disputam entre si.
+ * O número de chaves é limitado: quando enche, as ociosas são descartadas (no máximo uma varredura por janela,
+ * para quem troca de IP/username a cada requisição não transformar cada uma numa varredura do mapa) e, se
+ * ainda assim não couber, as chaves novas passam a dividir um contador de transbordo por limite.
+ */
+@Component
+public class RateLimiter {
+
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxKeys;
+    private final LongSupplier clock;
+
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+    // Instante (no clock) a partir do qual o mapa cheio pode ser varrido de novo
+    private final AtomicLong nextSweepAt;
+
+    private final AtomicLong allowed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    public record Decision(boolean allowed, long retryAfterSeconds) {}
+
+    public record Stats(long allowed, long rejected, int keys) {}
+
+    @Autowired
+    public RateLimiter(@Value("${api.rate-limit.enabled:true}") boolean enabled,
+                       @Value("${api.rate-limit.window:60s}") Duration window,
+                       @Value("${api.rate-limit.max-keys:100000}") int maxKeys) {
+        this(enabled, window, maxKeys, System::nanoTime);
+    }
+
+    RateLimiter(boolean enabled, Duration window, int maxKeys, LongSupplier clock) {
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+        this.nextSweepAt = new AtomicLong(clock.getAsLong());
+    }
+
+    /**
+     * Conta uma requisição do sujeito (IP, username...) no limite {@code name} e diz se ela cabe na janela.
+     * Requisições recusadas não entram na conta.
+     */
+    public Decision tryAcquire(String name, String subject, int limit) {
+        if (!enabled) {
+            return new Decision(true, 0);
+        }
+        long now = clock.getAsLong();
+        String key = name + ":" + subject;
+        Window window = windows.get(key);
+        if (window == null) {
+            window = windows.computeIfAbsent(admit(name, key, now), ignored -> new Window(now));
+        }
+
+        Decision decision = window.tryAcquire(now, limit, windowNanos);
+        (decision.allowed() ? allowed : rejected).incrementAndGet();
+        return decision;
+    }
+
+    public Stats stats() {
+        return new Stats(allowed.get(), rejected.get(), windows.size());
+    }
+
+    // Decide sob qual chave uma chave nova será contada, mantendo o mapa dentro do limite
+    private String admit(String name, String key, long now) {
+        if (windows.size() < maxKeys) {
+            return key;
+        }
+        // Uma varredura por janela, feita por uma única requisição; as demais vão direto para o transbordo
+        long sweepAt = nextSweepAt.get();
+        if (now - sweepAt >= 0 && nextSweepAt.compareAndSet(sweepAt, now + windowNanos)) {
+            // Ociosa = sem requisições há duas janelas: já não influencia nenhuma decisão
+            windows.values().removeIf(window -> window.idleSince(now, windowNanos));
+            if (windows.size() < maxKeys) {
+                return key;
+            }
+        }
+        // Um transbordo por limite: "login:ip" e "login:user" nunca dividem contador (nem o limite de cada um)
+        return name + ":overflow";
+    }
+
+    private static final class Window {
+        private long start;
+        private int current;
+        private int previous;
+
+        Window(long now) {
+            this.start = now;
+        }
+
+        synchronized Decision tryAcquire(long now, int limit, long windowNanos) {
+            roll(now, windowNanos);
+
+            long elapsed = now - start;
+            double previousWeight = (double) (windowNanos - elapsed) / windowNanos;
+            double estimate = previous * previousWeight + current;
+            if (estimate < limit) {
+                current++;
+                return new Decision(true, 0);
+            }
+
+            // Quanto falta para a janela anterior "escorregar" o bastante (ou, se a atual já estourou, para ela virar)
+            long waitNanos = windowNanos - elapsed;
+            if (current < limit && previous > 0) {
+                long neededElapsed = (long) (windowNanos * (1 - (double) (limit - current) / previous));
+                waitNanos = Math.max(0, neededElapsed - elapsed);
+            }
+            return new Decision(false, Math.max(1, Duration.ofNanos(waitNanos).toSeconds() + 1));
+        }
+
+        synchronized boolean idleSince(long now, long windowNanos) {
+            return now - start >= 2 * windowNanos;
+        }
+
+        private void roll(long now, long windowNanos) {
+            long elapsedWindows = (now - start) / windowNanos;
+            if (elapsedWindows == 0) {
+                return;
+            }
+            previous = elapsedWindows == 1 ? current : 0;
+            current = 0;
+            start += elapsedWindows * windowNanos;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+-- V2__Add_normalized_author_publisher.sql
+
+-- Colunas normalizadas (minúsculas) usadas pelas buscas por autor/editora
+ALTER TABLE books ADD COLUMN IF NOT EXISTS author_normalized VARCHAR(255);
+ALTER TABLE books ADD COLUMN IF NOT EXISTS publisher_normalized VARCHAR(255);
+
+UPDATE books SET author_normalized = lower(trim(author)), publisher_normalized = lower(trim(publisher));
+
+CREATE INDEX IF NOT EXISTS idx_books_author_normalized ON books (author_normalized);
+CREATE INDEX IF NOT EXISTS idx_books_publisher_normalized ON books (publisher_normalized);
+
+-- Autores individuais de livros com vários autores ("Autor A, Autor B")
+CREATE TABLE IF NOT EXISTS book_authors (
+        book_id BIGINT NOT NULL REFERENCES books(id) ON DELETE CASCADE,
+        author_name VARCHAR(255)
+);
+
+CREATE INDEX IF NOT EXISTS idx_book_authors_author_name ON book_authors (author_name);
+
+INSERT INTO book_authors (book_id, author_name)
+SELECT DISTINCT b.id, lower(trim(a.name))
+FROM books b, unnest(string_to_array(b.author, ',')) AS a(name)
+WHERE trim(a.name) <> '';
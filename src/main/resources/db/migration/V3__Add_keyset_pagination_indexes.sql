@@ -0,0 +1,10 @@
+-- V3__Add_keyset_pagination_indexes.sql
+
+-- Gênero normalizado para a paginação por cursor do filtro de gênero
+ALTER TABLE books ADD COLUMN IF NOT EXISTS genre_normalized VARCHAR(255);
+UPDATE books SET genre_normalized = lower(trim(genre));
+
+-- Índices compostos (chave de ordenação + id) para as consultas de seek
+CREATE INDEX IF NOT EXISTS idx_books_title_id ON books (title, id);
+CREATE INDEX IF NOT EXISTS idx_books_genre_normalized_id ON books (genre_normalized, id);
+CREATE INDEX IF NOT EXISTS idx_user_book_user_id_id ON user_book (user_id, id);
@@ -0,0 +1,14 @@
+-- V4__Add_user_full_name_trigram_index.sql
+
+-- Aplicar à mão no Postgres antes de ligar api.users.search.trigram (não há Flyway/Liquibase no projeto).
+-- O UPDATE abaixo é opcional: a aplicação preenche full_name_search dos usuários antigos na subida.
+
+-- Busca de usuários por nome: coluna sem acentos e em minúsculo (mantida pela entidade User)
+-- com índice GIN de trigramas, que atende o LIKE '%termo%' e o ranking por similarity()
+CREATE EXTENSION IF NOT EXISTS unaccent;
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE table_users ADD COLUMN IF NOT EXISTS full_name_search VARCHAR(150);
+UPDATE table_users SET full_name_search = lower(regexp_replace(trim(unaccent(full_name)), '\s+', ' ', 'g'));
+
+CREATE INDEX IF NOT EXISTS idx_users_full_name_search_trgm ON table_users USING gin (full_name_search gin_trgm_ops);
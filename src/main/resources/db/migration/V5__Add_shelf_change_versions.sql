@@ -0,0 +1,18 @@
+-- V5__Add_shelf_change_versions.sql
+
+-- Sincronização incremental da estante: versão por usuário, incrementada a cada escrita na estante,
+-- e a versão em que cada item foi escrito pela última vez (itens antigos ficam com 0)
+ALTER TABLE table_users ADD COLUMN IF NOT EXISTS shelf_version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE user_book ADD COLUMN IF NOT EXISTS change_version BIGINT NOT NULL DEFAULT 0;
+CREATE INDEX IF NOT EXISTS idx_user_book_user_id_change_version ON user_book (user_id, change_version);
+
+-- Marcas de remoção: o que saiu da estante depois de uma versão
+CREATE TABLE IF NOT EXISTS shelf_tombstones (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    user_book_id BIGINT NOT NULL,
+    book_id BIGINT NOT NULL,
+    change_version BIGINT NOT NULL,
+    removed_at TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_shelf_tombstones_user_id_change_version ON shelf_tombstones (user_id, change_version);
@@ -0,0 +1,27 @@
+-- V6__Add_reading_stats.sql
+
+-- Data de conclusão do item (mês dos livros concluídos). Itens concluídos antes desta versão ficam sem data
+ALTER TABLE user_book ADD COLUMN IF NOT EXISTS completed_at TIMESTAMP;
+
+-- Estatísticas de leitura por usuário, mantidas pelas escritas na estante. Sem linha = ainda não calculadas
+-- (a primeira consulta calcula; POST /library_api/admin/reading-stats/rebuilds faz o backfill de todos)
+CREATE TABLE IF NOT EXISTS user_reading_stats (
+    user_id BIGINT PRIMARY KEY,
+    reading_count BIGINT NOT NULL DEFAULT 0,
+    completed_count BIGINT NOT NULL DEFAULT 0,
+    want_to_read_count BIGINT NOT NULL DEFAULT 0,
+    dropped_count BIGINT NOT NULL DEFAULT 0,
+    favorites_count BIGINT NOT NULL DEFAULT 0,
+    pages_read BIGINT NOT NULL DEFAULT 0,
+    rating_sum DOUBLE PRECISION NOT NULL DEFAULT 0,
+    rating_count BIGINT NOT NULL DEFAULT 0
+);
+
+-- Livros concluídos por mês (primeiro dia do mês)
+CREATE TABLE IF NOT EXISTS user_monthly_completions (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL,
+    month_start DATE NOT NULL,
+    completed_count BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT uk_user_monthly_completions_user_month UNIQUE (user_id, month_start)
+);
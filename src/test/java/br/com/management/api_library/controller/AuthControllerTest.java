@@ -1,13 +1,18 @@
 package br.com.management.api_library.controller;
 
 import br.com.management.api_library.dto.LoginRequestDTO;
+import br.com.management.api_library.dto.UserCreateDTO;
+import br.com.management.api_library.dto.UserResponseDTO;
+import br.com.management.api_library.service.UserService;
 import br.com.management.api_library.service.security.JwtService;
+import br.com.management.api_library.service.security.RateLimiter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc; // <--- Importe
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -15,8 +20,10 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
 
 import java.util.Collections;
 
@@ -25,12 +32,15 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 // Não precisamos mais do csrf() pois desligaremos os filtros
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(AuthController.class)
 @ActiveProfiles("test")
 @AutoConfigureMockMvc(addFilters = false) // <--- O PULO DO GATO: Desliga a barreira de segurança
+@Import(RateLimiter.class)
+@TestPropertySource(properties = {"api.rate-limit.login.per-username=1", "api.rate-limit.login.per-ip=2"})
 class AuthControllerTest {
 
     @Autowired
@@ -45,11 +55,15 @@ class AuthControllerTest {
     @MockitoBean
     private JwtService jwtService;
 
+    @MockitoBean
+    private UserService userService;
+
     // Ainda precisamos mockar os componentes que o contexto pede para subir,
     // mesmo com os filtros desligados, para evitar erros de injeção.
     @MockitoBean private br.com.management.api_library.repository.UserRepository userRepository;
     @MockitoBean private br.com.management.api_library.repository.RoleRepository roleRepository;
     @MockitoBean private org.springframework.security.crypto.password.PasswordEncoder passwordEncoder;
+    @MockitoBean private br.com.management.api_library.service.cache.PrincipalCache principalCache;
 
     @Test
     @DisplayName("POST /auth/login - Deve retornar Token quando credenciais válidas")
@@ -76,4 +90,63 @@ class AuthControllerTest {
                 .andExpect(status().isOk()) // Agora esperamos 200 OK de verdade
                 .andExpect(jsonPath("$.token").value(tokenEsperado));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("POST /auth/register - Deve criar a conta (201 Created)")
+    void deveRegistrarComSucesso() throws Exception {
+        UserCreateDTO request = new UserCreateDTO("viini", "senha123", "email@teste.com", "Vinicius");
+        when(userService.createUser(any(UserCreateDTO.class)))
+                .thenReturn(new UserResponseDTO(1L, "viini", "email@teste.com", "Vinicius"));
+
+        mockMvc.perform(post("/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "http://localhost/library_api/users/1"))
+                .andExpect(jsonPath("$.username").value("viini"));
+    }
+
+    @Test
+    @DisplayName("POST /auth/login - Deve recusar (429) tentativas demais para o mesmo username")
+    void deveLimitarTentativasPorUsername() throws Exception {
+        LoginRequestDTO loginDto = new LoginRequestDTO("bloqueado", "senhaErrada");
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(mock(Authentication.class));
+
+        // A primeira tentativa consome o limite (1 por janela neste teste)
+        mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginDto)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginRequestDTO("BLOQUEADO", "outra"))))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+
+    @Test
+    @DisplayName("POST /auth/login - Tentativa recusada pelo limite do username não deve gastar a vaga do IP")
+    void naoDeveCobrarIpDeTentativaRecusadaPorUsername() throws Exception {
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenReturn(mock(Authentication.class));
+
+        // Limite de 2 por IP neste teste: "ana" gasta uma vaga e a segunda tentativa dela é recusada pelo username
+        loginFrom("10.9.9.9", "ana").andExpect(status().isOk());
+        loginFrom("10.9.9.9", "ana").andExpect(status().isTooManyRequests());
+        // A recusa acima não contou no IP: ainda há uma vaga
+        loginFrom("10.9.9.9", "bia").andExpect(status().isOk());
+        loginFrom("10.9.9.9", "caio").andExpect(status().isTooManyRequests());
+    }
+
+    private ResultActions loginFrom(String ip, String username) throws Exception {
+        return mockMvc.perform(post("/auth/login")
+                .with(request -> {
+                    request.setRemoteAddr(ip);
+                    return request;
+                })
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new LoginRequestDTO(username, "senha"))));
+    }
+}
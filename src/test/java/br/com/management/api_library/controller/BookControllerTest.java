@@ -3,6 +3,10 @@ package br.com.management.api_library.controller;
 import br.com.management.api_library.dto.BookCreateDTO;
 import br.com.management.api_library.dto.BookResponseDTO;
 import br.com.management.api_library.dto.GoogleBookVolumeInfo;
+import br.com.management.api_library.dto.IsbnBatchRequestDTO;
+import br.com.management.api_library.dto.IsbnBatchResultDTO;
+import br.com.management.api_library.exception.ExternalServiceUnavailableException;
+import br.com.management.api_library.exception.ResourceNotFoundException;
 import br.com.management.api_library.service.BookService;
 import br.com.management.api_library.service.IsbnService;
 import br.com.management.api_library.service.security.JwtService;
@@ -18,17 +22,25 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(BookController.class)
@@ -52,6 +64,8 @@ class BookControllerTest {
     private br.com.management.api_library.repository.RoleRepository roleRepository;
     @MockitoBean
     private org.springframework.security.crypto.password.PasswordEncoder passwordEncoder;
+    @MockitoBean
+    private br.com.management.api_library.service.cache.PrincipalCache principalCache;
 
     @Test
     @DisplayName("POST /library_api/books - Deve criar livro (201 Created)")
@@ -90,11 +104,16 @@ class BookControllerTest {
         GoogleBookVolumeInfo info = new GoogleBookVolumeInfo("Google Book", null, null, null, null, null, null, 0, null);
         Page<GoogleBookVolumeInfo> page = new PageImpl<>(List.of(info));
 
-        when(isbnService.searchBooksByQuery(anyString(), any(Pageable.class))).thenReturn(page);
+        when(isbnService.searchBooksByQueryAsync(anyString(), any(Pageable.class))).thenReturn(Mono.just(page));
 
-        mockMvc.perform(get("/library_api/books/search-google")
-                        .param("q", "java")
+        // Endpoint assíncrono: a primeira resposta só inicia o processamento, o resultado vem no asyncDispatch
+        MvcResult asyncResult = mockMvc.perform(get("/library_api/books/search-google")
+                        .param("Nome do Livro", "java")
                         .with(user("user")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(asyncResult))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.content[0].title").value("Google Book"));
     }
@@ -105,11 +124,96 @@ class BookControllerTest {
         String isbn = "978123";
         BookResponseDTO response = new BookResponseDTO(1L, isbn, "Found Book", "Author", "Pub", "Gen", "Desc", "PT", 200);
 
-        when(bookService.findOrCreateBookByIsbn(isbn)).thenReturn(response);
+        when(bookService.findOrCreateBookByIsbnAsync(isbn)).thenReturn(CompletableFuture.completedFuture(response));
 
-        mockMvc.perform(get("/library_api/books/isbn/" + isbn)
+        MvcResult asyncResult = mockMvc.perform(get("/library_api/books/isbn/" + isbn)
                         .with(user("user")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(asyncResult))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.title").value("Found Book"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("GET /library_api/books/isbn/{isbn} - Deve responder 404 quando o ISBN não existir em nenhuma fonte")
+    void deveRetornar404QuandoIsbnNaoExistir() throws Exception {
+        String isbn = "978000";
+        when(bookService.findOrCreateBookByIsbnAsync(isbn)).thenReturn(
+                CompletableFuture.failedFuture(new ResourceNotFoundException("Livro não encontrado com o ISBN: " + isbn)));
+
+        MvcResult asyncResult = mockMvc.perform(get("/library_api/books/isbn/" + isbn)
+                        .with(user("user")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("GET /library_api/books/isbn/{isbn} - Deve responder 503 quando o circuito do Google estiver aberto")
+    void deveRetornar503QuandoGoogleIndisponivel() throws Exception {
+        String isbn = "978111";
+        when(bookService.findOrCreateBookByIsbnAsync(isbn)).thenReturn(
+                CompletableFuture.failedFuture(new ExternalServiceUnavailableException("Serviço do Google Books temporariamente indisponível.")));
+
+        MvcResult asyncResult = mockMvc.perform(get("/library_api/books/isbn/" + isbn)
+                        .with(user("user")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    @DisplayName("POST /library_api/books/isbn/batch - Deve devolver um resultado NDJSON por ISBN")
+    void deveResolverLoteDeIsbns() throws Exception {
+        BookResponseDTO found = new BookResponseDTO(1L, "9781111111111", "No Catálogo", "Autor", "Ed", "G", "D", "PT", 100);
+        when(bookService.resolveIsbnBatch(List.of("9781111111111", "9782222222222"))).thenReturn(Flux.just(
+                IsbnBatchResultDTO.of(IsbnBatchResultDTO.Status.FOUND, found),
+                IsbnBatchResultDTO.error("9782222222222", IsbnBatchResultDTO.Status.NOT_FOUND, "Livro não encontrado")));
+
+        MvcResult asyncResult = mockMvc.perform(post("/library_api/books/isbn/batch")
+                        .with(csrf())
+                        .with(user("admin").roles("ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .content(objectMapper.writeValueAsString(new IsbnBatchRequestDTO(List.of("9781111111111", "9782222222222")))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"status\":\"FOUND\"")))
+                .andExpect(content().string(containsString("\"status\":\"NOT_FOUND\"")));
+    }
+
+    @Test
+    @DisplayName("POST /library_api/books/isbn/batch - Deve recusar lote vazio (400)")
+    void deveRecusarLoteVazio() throws Exception {
+        mockMvc.perform(post("/library_api/books/isbn/batch")
+                        .with(csrf())
+                        .with(user("admin").roles("ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new IsbnBatchRequestDTO(List.of()))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /library_api/books/search - Deve buscar no índice do catálogo")
+    void deveBuscarNoCatalogo() throws Exception {
+        Page<BookResponseDTO> page = new PageImpl<>(List.of(
+                new BookResponseDTO(1L, "123", "Memórias Póstumas", "Machado", "Ed", "G", "D", "PT", 100)
+        ));
+        when(bookService.searchBooks(anyString(), any(Pageable.class))).thenReturn(page);
+
+        mockMvc.perform(get("/library_api/books/search")
+                        .param("q", "memorias")
+                        .with(user("user")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].title").value("Memórias Póstumas"));
+    }
+}
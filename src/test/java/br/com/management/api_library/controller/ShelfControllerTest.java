@@ -1,8 +1,16 @@
 package br.com.management.api_library.controller;
 
+import br.com.management.api_library.dto.ReadingProgressRequestDTO;
+import br.com.management.api_library.dto.ReadingProgressResponseDTO;
+import br.com.management.api_library.dto.ReadingStatsDTO;
+import br.com.management.api_library.dto.ShelfBatchOperationDTO;
+import br.com.management.api_library.dto.ShelfBatchRequestDTO;
+import br.com.management.api_library.dto.ShelfBatchResultDTO;
 import br.com.management.api_library.dto.ShelfItemRequestDTO;
 import br.com.management.api_library.dto.ShelfItemResponseDTO;
 import br.com.management.api_library.model.ReadingStatus;
+import br.com.management.api_library.service.ReadingStatsService;
+import br.com.management.api_library.service.ShelfBatchService;
 import br.com.management.api_library.service.ShelfService;
 import br.com.management.api_library.service.security.JwtService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -22,10 +30,16 @@ import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.method.support.ModelAndViewContainer;
 
+import java.util.List;
+import java.util.Map;
+
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -44,10 +58,15 @@ class ShelfControllerTest {
 
     @MockitoBean
     private ShelfService shelfService;
+    @MockitoBean
+    private ShelfBatchService shelfBatchService;
+    @MockitoBean
+    private ReadingStatsService readingStatsService;
     @MockitoBean private JwtService jwtService;
     @MockitoBean private br.com.management.api_library.repository.UserRepository userRepository;
     @MockitoBean private br.com.management.api_library.repository.RoleRepository roleRepository;
     @MockitoBean private org.springframework.security.crypto.password.PasswordEncoder passwordEncoder;
+    @MockitoBean private br.com.management.api_library.service.cache.PrincipalCache principalCache;
 
     @BeforeEach
     void setUp() {
@@ -80,12 +99,97 @@ class ShelfControllerTest {
         ShelfItemRequestDTO request = new ShelfItemRequestDTO(ReadingStatus.READING, 5.0, "Bom", 10, true);
         ShelfItemResponseDTO response = new ShelfItemResponseDTO(10L, bookId, "Title", "Auth", ReadingStatus.READING, 5.0, "Bom", true, 10);
 
-        when(shelfService.addBookToShelf(eq("vinicius"), eq(bookId), any())).thenReturn(response);
+        when(shelfService.addBookToShelf(eq("vinicius"), eq(bookId), any())).thenReturn(new ShelfService.AddResult(response, true));
 
         mockMvc.perform(post("/library_api/shelf/books/" + bookId)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "http://localhost/library_api/shelf/items/10"))
                 .andExpect(jsonPath("$.userBookId").value(10L));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("POST /library_api/shelf/books/{id} - Reenvio deve devolver o item existente (200 OK)")
+    void deveDevolverItemExistenteNoReenvio() throws Exception {
+        Long bookId = 1L;
+        ShelfItemRequestDTO request = new ShelfItemRequestDTO(ReadingStatus.READING, null, null, null, null);
+        ShelfItemResponseDTO existing = new ShelfItemResponseDTO(10L, bookId, "Title", "Auth", ReadingStatus.COMPLETED, 4.0, null, false, 200);
+
+        when(shelfService.addBookToShelf(eq("vinicius"), eq(bookId), any())).thenReturn(new ShelfService.AddResult(existing, false));
+
+        mockMvc.perform(post("/library_api/shelf/books/" + bookId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Location"))
+                .andExpect(jsonPath("$.readingStatus").value("COMPLETED"));
+    }
+
+    @Test
+    @DisplayName("POST /library_api/shelf/batch - Deve devolver um resultado por operação")
+    void deveAplicarLoteDeOperacoes() throws Exception {
+        ShelfBatchRequestDTO request = new ShelfBatchRequestDTO(List.of(
+                new ShelfBatchOperationDTO(ShelfBatchOperationDTO.Type.ADD, 1L, null, null),
+                new ShelfBatchOperationDTO(ShelfBatchOperationDTO.Type.REMOVE, null, 9L, null)));
+        ShelfItemResponseDTO added = new ShelfItemResponseDTO(10L, 1L, "Title", "Auth", ReadingStatus.WANT_TO_READ, 0.0, null, false, 0);
+
+        when(shelfBatchService.applyBatch(eq("vinicius"), any())).thenReturn(List.of(
+                ShelfBatchResultDTO.success(0, ShelfBatchOperationDTO.Type.ADD, ShelfBatchResultDTO.Status.CREATED, added),
+                ShelfBatchResultDTO.error(1, ShelfBatchOperationDTO.Type.REMOVE, ShelfBatchResultDTO.Status.FORBIDDEN, "Sem permissão")));
+
+        mockMvc.perform(post("/library_api/shelf/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].item.userBookId").value(10))
+                .andExpect(jsonPath("$[1].status").value("FORBIDDEN"));
+    }
+
+    @Test
+    @DisplayName("POST /library_api/shelf/batch - Deve recusar (400) lote vazio")
+    void deveRecusarLoteVazio() throws Exception {
+        mockMvc.perform(post("/library_api/shelf/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ShelfBatchRequestDTO(List.of()))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("PUT /library_api/shelf/items/{id}/progress - Deve aceitar o progresso (202) com a página que vale")
+    void deveAceitarProgressoDeLeitura() throws Exception {
+        when(shelfService.updateReadingProgress("vinicius", 10L, 120)).thenReturn(new ReadingProgressResponseDTO(10L, 120));
+
+        mockMvc.perform(put("/library_api/shelf/items/10/progress")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ReadingProgressRequestDTO(120))))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.currentPage").value(120));
+    }
+
+    @Test
+    @DisplayName("PUT /library_api/shelf/items/{id}/progress - Deve recusar (400) página negativa")
+    void deveRecusarProgressoNegativo() throws Exception {
+        mockMvc.perform(put("/library_api/shelf/items/10/progress")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ReadingProgressRequestDTO(-1))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /library_api/shelf/stats - Deve devolver as estatísticas do usuário logado")
+    void deveRetornarEstatisticasDeLeitura() throws Exception {
+        ReadingStatsDTO stats = new ReadingStatsDTO(
+                Map.of(ReadingStatus.COMPLETED, 3L, ReadingStatus.READING, 1L), 4, 2, 940, 4.5,
+                List.of(new ReadingStatsDTO.MonthlyCompletion("2026-10", 2), new ReadingStatsDTO.MonthlyCompletion("2026-09", 1)));
+        when(readingStatsService.getStats("vinicius")).thenReturn(stats);
+
+        mockMvc.perform(get("/library_api/shelf/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.countsByStatus.COMPLETED").value(3))
+                .andExpect(jsonPath("$.totalBooks").value(4))
+                .andExpect(jsonPath("$.averageRating").value(4.5))
+                .andExpect(jsonPath("$.completedPerMonth[0].month").value("2026-10"));
+    }
+}
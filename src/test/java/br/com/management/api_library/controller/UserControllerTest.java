@@ -1,7 +1,13 @@
 package br.com.management.api_library.controller;
 
+import br.com.management.api_library.dto.UserBulkCreateRequestDTO;
+import br.com.management.api_library.dto.UserBulkCreateResultDTO;
 import br.com.management.api_library.dto.UserCreateDTO;
+import br.com.management.api_library.dto.UserDeletionJobDTO;
 import br.com.management.api_library.dto.UserResponseDTO;
+import br.com.management.api_library.model.Role;
+import br.com.management.api_library.model.User;
+import br.com.management.api_library.service.UserBulkService;
 import br.com.management.api_library.service.UserService;
 import br.com.management.api_library.service.security.JwtService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -9,21 +15,36 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(UserController.class)
@@ -40,11 +61,15 @@ class UserControllerTest {
     @MockitoBean
     private UserService userService;
 
+    @MockitoBean
+    private UserBulkService userBulkService;
+
     // --- MOCKS DE INFRA/SEGURANÇA (Necessários para subir o contexto) ---
     @MockitoBean private JwtService jwtService;
     @MockitoBean private br.com.management.api_library.repository.UserRepository userRepository;
     @MockitoBean private br.com.management.api_library.repository.RoleRepository roleRepository;
     @MockitoBean private org.springframework.security.crypto.password.PasswordEncoder passwordEncoder;
+    @MockitoBean private br.com.management.api_library.service.cache.PrincipalCache principalCache;
 
     @Test
     @DisplayName("POST /library_api/users - Deve criar usuário (201 Created)")
@@ -65,30 +90,90 @@ class UserControllerTest {
     }
 
     @Test
-    @DisplayName("GET /library_api/users - Deve listar todos os usuários")
+    @DisplayName("POST /library_api/users/bulk - Deve devolver um resultado por linha")
+    void deveCadastrarUsuariosEmLote() throws Exception {
+        UserBulkCreateRequestDTO request = new UserBulkCreateRequestDTO(List.of(
+                new UserCreateDTO("aluno1", "senha123", "aluno1@teste.com", "Aluno Um"),
+                new UserCreateDTO("aluno2", "senha123", "aluno2@teste.com", "Aluno Dois")));
+
+        when(userBulkService.createUsers(any())).thenReturn(List.of(
+                UserBulkCreateResultDTO.created(0, new UserResponseDTO(10L, "aluno1", "aluno1@teste.com", "Aluno Um")),
+                UserBulkCreateResultDTO.error(1, "aluno2", UserBulkCreateResultDTO.Status.DUPLICATE_EMAIL, "duplicado")));
+
+        mockMvc.perform(post("/library_api/users/bulk")
+                        .with(csrf())
+                        .with(user("admin").roles("ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].user.id").value(10))
+                .andExpect(jsonPath("$[1].status").value("DUPLICATE_EMAIL"));
+    }
+
+    @Test
+    @DisplayName("POST /library_api/users/bulk - Deve recusar (400) lote com linha inválida")
+    void deveRecusarLoteComLinhaInvalida() throws Exception {
+        UserBulkCreateRequestDTO request = new UserBulkCreateRequestDTO(List.of(
+                new UserCreateDTO("aluno1", "123", "nao-e-email", "Aluno Um")));
+
+        mockMvc.perform(post("/library_api/users/bulk")
+                        .with(csrf())
+                        .with(user("admin").roles("ADMIN"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /library_api/users - Deve listar os usuários de forma paginada e com filtros")
     void deveListarUsuarios() throws Exception {
         UserResponseDTO userDto = new UserResponseDTO(1L, "viini", "email@teste.com", "Vinicius");
-        when(userService.getAllUsers()).thenReturn(List.of(userDto));
+        when(userService.listUsers(eq("vi"), isNull(), eq("admin"), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(userDto)));
 
         mockMvc.perform(get("/library_api/users")
+                        .param("username", "vi")
+                        .param("role", "admin")
                         .with(user("user")))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].username").value("viini"));
+                .andExpect(jsonPath("$.content[0].username").value("viini"));
     }
 
     @Test
-    @DisplayName("GET /library_api/users/search/by-fullName - Deve buscar por nome completo")
+    @DisplayName("GET /library_api/users/export - Deve exportar os usuários em NDJSON, um por linha")
+    void deveExportarUsuariosEmNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<UserResponseDTO> consumer = invocation.getArgument(0);
+            consumer.accept(new UserResponseDTO(1L, "viini", "viini@teste.com", "Vinicius"));
+            consumer.accept(new UserResponseDTO(2L, "ana", "ana@teste.com", "Ana"));
+            return null;
+        }).when(userService).exportUsers(any());
+
+        MvcResult asyncResult = mockMvc.perform(get("/library_api/users/export")
+                        .with(user("admin").roles("ADMIN")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        asyncResult.getAsyncResult(5000); // Espera o emitter terminar
+
+        String[] lines = asyncResult.getResponse().getContentAsString().trim().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("ana", objectMapper.readValue(lines[1], UserResponseDTO.class).username());
+    }
+
+    @Test
+    @DisplayName("GET /library_api/users/search/by-fullName - Deve buscar por nome completo (paginado)")
     void deveBuscarPorNomeCompleto() throws Exception {
         String nome = "Vinicius";
         UserResponseDTO response = new UserResponseDTO(1L, "viini", "email@teste.com", "Vinicius");
 
-        when(userService.getByFullName(nome)).thenReturn(response);
+        when(userService.searchByTerm(eq(nome), any(Pageable.class))).thenReturn(new PageImpl<>(List.of(response)));
 
         mockMvc.perform(get("/library_api/users/search/by-fullName")
                         .param("fullName", nome) // Query Param
                         .with(user("user")))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.fullName").value("Vinicius"));
+                .andExpect(jsonPath("$.content[0].fullName").value("Vinicius"));
     }
 
     @Test
@@ -100,9 +185,18 @@ class UserControllerTest {
 
         when(userService.updateUser(eq(id), any(UserCreateDTO.class))).thenReturn(response);
 
+        // O controller lê o User do modelo (@AuthenticationPrincipal), não o User do Spring Security de user(...)
+        Role adminRole = new Role();
+        adminRole.setName("ROLE_ADMIN");
+        User admin = new User();
+        admin.setId(99L);
+        admin.setUsername("admin");
+        admin.setRoles(Set.of(adminRole));
+
         mockMvc.perform(put("/library_api/users/" + id)
                         .with(csrf()) // Obrigatório para PUT
-                        .with(user("admin").roles("ADMIN"))
+                        .with(authentication(new UsernamePasswordAuthenticationToken(
+                                admin, null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN")))))
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(updateRequest)))
                 .andExpect(status().isOk())
@@ -120,4 +214,30 @@ class UserControllerTest {
                         .with(user("admin").roles("ADMIN")))
                 .andExpect(status().isNoContent()); // Espera 204
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("DELETE /library_api/users/{id}?async=true - Deve agendar a exclusão (202 Accepted)")
+    void deveAgendarExclusaoEmSegundoPlano() throws Exception {
+        UserDeletionJobDTO job = new UserDeletionJobDTO("job-1", UserDeletionJobDTO.Status.PENDING, 1, 0,
+                List.of(), List.of(), LocalDateTime.now(), null);
+        when(userBulkService.startDeletion(List.of(1L))).thenReturn(job);
+
+        mockMvc.perform(delete("/library_api/users/1")
+                        .param("async", "true")
+                        .with(csrf())
+                        .with(user("admin").roles("ADMIN")))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/library_api/users/deletions/job-1"))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+    }
+
+    @Test
+    @DisplayName("GET /library_api/users/deletions/{jobId} - Deve retornar 404 para job desconhecido")
+    void deveRetornar404ParaJobDesconhecido() throws Exception {
+        when(userBulkService.getDeletionJob("x")).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/library_api/users/deletions/x")
+                        .with(user("admin").roles("ADMIN")))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,130 @@
+package br.com.management.api_library.integration;
+
+import br.com.management.api_library.dto.GoogleBookVolumeInfo;
+import br.com.management.api_library.dto.IsbnBatchResultDTO;
+import br.com.management.api_library.dto.ShelfItemRequestByIsbnDTO;
+import br.com.management.api_library.model.Book;
+import br.com.management.api_library.model.ReadingStatus;
+import br.com.management.api_library.model.User;
+import br.com.management.api_library.repository.BookRepository;
+import br.com.management.api_library.repository.UserRepository;
+import br.com.management.api_library.service.BookService;
+import br.com.management.api_library.service.IsbnService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.publisher.Mono;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.authentication;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Regressão: a chamada ao Google Books não pode acontecer com transação aberta nem conexão do pool emprestada.
+// Passa pela requisição HTTP inteira: com o Open Session in View ligado, a conexão ficaria presa até o fim dela.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class IsbnImportConnectionTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @MockitoBean
+    private IsbnService isbnService;
+
+    @Test
+    @DisplayName("Não deve segurar conexão do pool durante a busca externa do ISBN")
+    void shouldNotHoldConnectionDuringExternalFetch() throws Exception {
+        // ARRANGE
+        User user = new User();
+        user.setUsername("leitor_isbn");
+        user.setEmail("leitor_isbn@teste.com");
+        user.setPassword("senha");
+        userRepository.save(user);
+
+        HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+        AtomicBoolean transactionActiveDuringFetch = new AtomicBoolean(true);
+        AtomicInteger activeConnectionsDuringFetch = new AtomicInteger(-1);
+
+        String isbn = "9788535914849";
+        GoogleBookVolumeInfo info = new GoogleBookVolumeInfo("Livro Externo", null, null, null, null, null, "PT", 120, null);
+
+        when(isbnService.findBookInfoByIsbn(isbn)).thenAnswer(invocation -> {
+            transactionActiveDuringFetch.set(TransactionSynchronizationManager.isActualTransactionActive());
+            activeConnectionsDuringFetch.set(hikari.getHikariPoolMXBean().getActiveConnections());
+            return Optional.of(info);
+        });
+
+        // ACT & ASSERT
+        mockMvc.perform(post("/library_api/shelf/add-by-isbn")
+                        .with(authentication(new UsernamePasswordAuthenticationToken(
+                                user, null, List.of(new SimpleGrantedAuthority("ROLE_USER")))))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new ShelfItemRequestByIsbnDTO(isbn, ReadingStatus.WANT_TO_READ, null, null, null, false))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.title").value("Livro Externo"));
+
+        assertFalse(transactionActiveDuringFetch.get(), "Nenhuma transação deveria estar ativa durante a busca no Google");
+        assertEquals(0, activeConnectionsDuringFetch.get(), "Nenhuma conexão do pool deveria estar emprestada durante a busca no Google");
+    }
+
+    @Test
+    @DisplayName("Importação em lote deve gravar livros e autores pelo batch JDBC, prontos para as buscas")
+    void shouldInsertBatchImportThroughJdbc() {
+        // ARRANGE
+        when(isbnService.findBookInfoByIsbnAsync("9786500000011")).thenReturn(Mono.just(new GoogleBookVolumeInfo(
+                "Lote Um", List.of("Autora Lote", "Coautor Lote"), "Editora Lote", "Descrição", null, List.of("Ficção"), "PT", 200, null)));
+        when(isbnService.findBookInfoByIsbnAsync("9786500000022")).thenReturn(Mono.just(new GoogleBookVolumeInfo(
+                "Lote Dois", List.of("Autora Lote"), null, null, null, null, "PT", 90, null)));
+
+        // ACT
+        List<IsbnBatchResultDTO> results = bookService.resolveIsbnBatch(List.of("9786500000011", "9786500000022"))
+                .collectList().block();
+
+        // ASSERT
+        assertNotNull(results);
+        assertTrue(results.stream().allMatch(result -> result.status() == IsbnBatchResultDTO.Status.IMPORTED));
+        Book first = bookRepository.findByIsbn("9786500000011").orElseThrow();
+        assertEquals("Lote Um", first.getTitle());
+        assertEquals("editora lote", first.getPublisherNormalized());
+        assertEquals(2, bookRepository.findByAuthorName("autora lote", PageRequest.of(0, 10)).getTotalElements());
+        assertEquals(1, bookRepository.findByAuthorName("coautor lote", PageRequest.of(0, 10)).getTotalElements());
+    }
+}
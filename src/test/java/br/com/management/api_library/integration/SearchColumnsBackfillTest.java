@@ -0,0 +1,122 @@
+package br.com.management.api_library.integration;
+
+import br.com.management.api_library.dto.BookResponseDTO;
+import br.com.management.api_library.dto.UserResponseDTO;
+import br.com.management.api_library.model.Book;
+import br.com.management.api_library.model.User;
+import br.com.management.api_library.repository.BookRepository;
+import br.com.management.api_library.repository.UserRepository;
+import br.com.management.api_library.service.BookService;
+import br.com.management.api_library.service.SearchColumnsBackfill;
+import br.com.management.api_library.service.UserService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Registros gravados antes das colunas de busca (prod sobe com ddl-auto=update, sem rodar as migrações)
+@SpringBootTest
+@ActiveProfiles("test")
+class SearchColumnsBackfillTest {
+
+    @Autowired
+    private SearchColumnsBackfill searchColumnsBackfill;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Deve preencher a busca por nome dos usuários antigos, que então aparecem na busca")
+    void shouldBackfillUserFullNameSearch() {
+        // ARRANGE: usuário como o ddl-auto deixa um registro antigo, com a coluna nova vazia
+        User user = new User();
+        user.setUsername("legado_busca");
+        user.setEmail("legado_busca@teste.com");
+        user.setPassword("senha");
+        user.setFullName("Conceição  Legada");
+        userRepository.save(user);
+        jdbcTemplate.update("UPDATE table_users SET full_name_search = NULL WHERE id = ?", user.getId());
+        assertTrue(userService.searchByTerm("conceicao legada", PageRequest.of(0, 10)).isEmpty());
+
+        // ACT
+        searchColumnsBackfill.run();
+        searchColumnsBackfill.run(); // Idempotente
+
+        // ASSERT
+        List<UserResponseDTO> found = userService.searchByTerm("Conceicao Legada", PageRequest.of(0, 10)).getContent();
+        assertEquals(List.of(user.getId()), found.stream().map(UserResponseDTO::id).toList());
+    }
+
+    @Test
+    @DisplayName("Deve preencher autor, editora e gênero normalizados dos livros antigos, inclusive a lista de autores")
+    void shouldBackfillBookAuthorAndPublisher() {
+        // ARRANGE
+        Book book = new Book();
+        book.setTitle("Livro Legado");
+        book.setAuthor("Autora Legada, Coautor Legado");
+        book.setPublisher("Editora Legada");
+        book.setGenre("Gênero Legado");
+        bookRepository.save(book);
+        jdbcTemplate.update("UPDATE books SET author_normalized = NULL, publisher_normalized = NULL, genre_normalized = NULL"
+                + " WHERE id = ?", book.getId());
+        jdbcTemplate.update("DELETE FROM book_authors WHERE book_id = ?", book.getId());
+
+        // ACT
+        searchColumnsBackfill.run();
+
+        // ASSERT: todas as buscas acham o livro pelas colunas normalizadas, sem depender da coluna original
+        assertFalse(searchColumnsBackfill.isBookColumnsPending());
+        PageRequest page = PageRequest.of(0, 10);
+        assertEquals(List.of(book.getId()), ids(bookService.getByAuthor("autora legada, coautor legado", false, page).getContent()));
+        assertEquals(List.of(book.getId()), ids(bookService.getByAuthor("Coautor Legado", true, page).getContent()));
+        assertEquals(List.of(book.getId()), ids(bookService.getByPublisher("EDITORA LEGADA", page).getContent()));
+        assertEquals(List.of(book.getId()), ids(bookService.scrollBooksByGenre(" gênero legado", null, 10).content()));
+    }
+
+    @Test
+    @DisplayName("Consulta pelas colunas originais (backfill pendente) deve comparar o nome inteiro, como as indexadas")
+    void shouldMatchWholeNamesOnRawColumns() {
+        Book book = new Book();
+        book.setTitle("Livro Sem Colunas");
+        book.setAuthor(" Mariana Bruta ,Ana Bruta");
+        book.setPublisher("Editora Bruta Ltda");
+        bookRepository.save(book);
+        PageRequest page = PageRequest.of(0, 10);
+
+        assertEquals(List.of(book.getId()), bookIds(bookRepository.findByRawAuthorName("ana bruta", page).getContent()));
+        assertEquals(List.of(book.getId()), bookIds(bookRepository.findByRawAuthorName("mariana bruta", page).getContent()));
+        assertEquals(List.of(book.getId()), bookIds(bookRepository.findByRawAuthor("mariana bruta ,ana bruta", page).getContent()));
+        // Pedaço de nome não é autor: "ana" não acha "Mariana"
+        assertTrue(bookRepository.findByRawAuthorName("ana", page).isEmpty());
+        assertTrue(bookRepository.findByRawAuthor("ana bruta", page).isEmpty());
+        assertTrue(bookRepository.findByRawPublisher("editora bruta", page).isEmpty());
+        assertEquals(List.of(book.getId()), bookIds(bookRepository.findByRawPublisher("editora bruta ltda", page).getContent()));
+    }
+
+    private static List<Long> bookIds(List<Book> books) {
+        return books.stream().map(Book::getId).toList();
+    }
+
+    private static List<Long> ids(List<BookResponseDTO> books) {
+        return books.stream().map(BookResponseDTO::id).toList();
+    }
+}
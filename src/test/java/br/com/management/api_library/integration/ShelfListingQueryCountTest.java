@@ -0,0 +1,129 @@
+package br.com.management.api_library.integration;
+
+import br.com.management.api_library.dto.CursorPageDTO;
+import br.com.management.api_library.dto.ShelfItemResponseDTO;
+import br.com.management.api_library.model.Book;
+import br.com.management.api_library.model.ReadingStatus;
+import br.com.management.api_library.model.User;
+import br.com.management.api_library.model.UserBook;
+import br.com.management.api_library.repository.BookRepository;
+import br.com.management.api_library.repository.UserBookRepository;
+import br.com.management.api_library.repository.UserRepository;
+import br.com.management.api_library.service.ShelfService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Regressão: cada página da estante deve custar uma consulta de dados e um count (a por cursor, só a de dados),
+// sem N+1 nos livros
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class ShelfListingQueryCountTest {
+
+    @Autowired
+    private ShelfService shelfService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserBookRepository userBookRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("Deve montar a página da estante com uma consulta de dados e um count")
+    void shouldLoadShelfPageWithTwoStatements() {
+        // ARRANGE
+        User user = new User();
+        user.setUsername("leitor_contagem");
+        user.setEmail("leitor_contagem@teste.com");
+        user.setPassword("senha");
+        userRepository.save(user);
+
+        for (int i = 1; i <= 3; i++) {
+            Book book = new Book();
+            book.setTitle("Livro " + i);
+            book.setAuthor("Autor " + i);
+            book.setDescription("Descrição longa que a listagem não precisa carregar");
+            bookRepository.save(book);
+
+            UserBook item = new UserBook();
+            item.setUser(user);
+            item.setBook(book);
+            item.setReadingStatus(ReadingStatus.READING);
+            userBookRepository.save(item);
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // ACT: página de 2 com 3 itens, para forçar o count (numa página incompleta o Spring Data o dispensa)
+        Page<ShelfItemResponseDTO> page = shelfService.getUserShelf("leitor_contagem",
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id")));
+
+        // ASSERT
+        assertEquals(2, page.getContent().size());
+        assertEquals(3, page.getTotalElements());
+        assertEquals("Livro 3", page.getContent().getFirst().title());
+        assertEquals(2, statistics.getPrepareStatementCount(), "Esperado um SELECT de dados e um count");
+        assertEquals(0, statistics.getEntityLoadCount(), "A projeção não deve carregar entidades");
+    }
+
+    @Test
+    @DisplayName("Deve montar a estante por cursor com uma única consulta de dados, sem carregar entidades")
+    void shouldScrollShelfWithOneStatement() {
+        // ARRANGE
+        User user = new User();
+        user.setUsername("leitor_cursor");
+        user.setEmail("leitor_cursor@teste.com");
+        user.setPassword("senha");
+        userRepository.save(user);
+
+        for (int i = 1; i <= 3; i++) {
+            Book book = new Book();
+            book.setTitle("Cursor " + i);
+            book.setAuthor("Autor " + i);
+            book.setDescription("Descrição longa que a listagem não precisa carregar");
+            bookRepository.save(book);
+
+            UserBook item = new UserBook();
+            item.setUser(user);
+            item.setBook(book);
+            item.setReadingStatus(ReadingStatus.READING);
+            userBookRepository.save(item);
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // ACT
+        CursorPageDTO<ShelfItemResponseDTO> firstPage = shelfService.scrollUserShelf("leitor_cursor", null, 2);
+
+        // ASSERT
+        assertEquals(List.of("Cursor 3", "Cursor 2"), firstPage.content().stream().map(ShelfItemResponseDTO::title).toList());
+        assertTrue(firstPage.hasNext());
+        assertEquals(1, statistics.getPrepareStatementCount(), "Esperado só o SELECT de dados");
+        assertEquals(0, statistics.getEntityLoadCount(), "A projeção não deve carregar entidades");
+
+        CursorPageDTO<ShelfItemResponseDTO> secondPage = shelfService.scrollUserShelf("leitor_cursor", firstPage.nextCursor(), 2);
+        assertEquals(List.of("Cursor 1"), secondPage.content().stream().map(ShelfItemResponseDTO::title).toList());
+        assertFalse(secondPage.hasNext());
+    }
+}
@@ -0,0 +1,251 @@
+package br.com.management.api_library.integration;
+
+import br.com.management.api_library.dto.ReadingStatsDTO;
+import br.com.management.api_library.dto.ShelfBatchOperationDTO;
+import br.com.management.api_library.dto.ShelfBatchResultDTO;
+import br.com.management.api_library.dto.ShelfChangesDTO;
+import br.com.management.api_library.dto.ShelfItemRequestDTO;
+import br.com.management.api_library.dto.ShelfItemResponseDTO;
+import br.com.management.api_library.model.Book;
+import br.com.management.api_library.model.ReadingStatus;
+import br.com.management.api_library.model.User;
+import br.com.management.api_library.repository.BookRepository;
+import br.com.management.api_library.repository.UserBookRepository;
+import br.com.management.api_library.repository.UserRepository;
+import br.com.management.api_library.service.ReadingProgressBuffer;
+import br.com.management.api_library.service.ReadingStatsService;
+import br.com.management.api_library.service.ShelfBatchService;
+import br.com.management.api_library.service.ShelfService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Inclusão repetida na estante (duplo toque no app), lote, sincronização incremental, progresso em lote e
+// estatísticas de leitura, contra o SQL real do H2
+@SpringBootTest
+@ActiveProfiles("test")
+class ShelfUpsertTest {
+
+    @Autowired
+    private ShelfService shelfService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserBookRepository userBookRepository;
+
+    @Autowired
+    private ShelfBatchService shelfBatchService;
+
+    @Autowired
+    private ReadingProgressBuffer readingProgressBuffer;
+
+    @Autowired
+    private ReadingStatsService readingStatsService;
+
+    @Test
+    @DisplayName("Deve inserir uma vez e devolver o item existente no reenvio")
+    void shouldBeIdempotentWhenAddingTwice() {
+        // ARRANGE
+        User user = new User();
+        user.setUsername("leitor_upsert");
+        user.setEmail("leitor_upsert@teste.com");
+        user.setPassword("senha");
+        userRepository.save(user);
+
+        Book book = new Book();
+        book.setTitle("Livro Repetido");
+        book.setAuthor("Autor");
+        bookRepository.save(book);
+
+        // ACT
+        ShelfService.AddResult first = shelfService.addBookToShelf("leitor_upsert", book.getId(),
+                new ShelfItemRequestDTO(ReadingStatus.READING, 4.0, null, 12, true));
+        ShelfService.AddResult second = shelfService.addBookToShelf("leitor_upsert", book.getId(),
+                new ShelfItemRequestDTO(ReadingStatus.COMPLETED, null, null, null, null));
+
+        // ASSERT
+        assertTrue(first.created());
+        assertEquals("Livro Repetido", first.item().title());
+        assertFalse(second.created());
+        assertEquals(first.item().userBookId(), second.item().userBookId());
+        assertEquals(ReadingStatus.READING, second.item().readingStatus(), "O reenvio não deve alterar o item existente");
+        assertEquals(12, second.item().currentPage());
+        assertEquals(1, userBookRepository.findShelfPage("leitor_upsert", PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Deve aplicar o lote de sincronização com os batches JDBC")
+    void shouldApplyBatchWithJdbcBatches() {
+        // ARRANGE
+        User user = new User();
+        user.setUsername("leitor_lote");
+        user.setEmail("leitor_lote@teste.com");
+        user.setPassword("senha");
+        userRepository.save(user);
+
+        Book first = new Book();
+        first.setTitle("Primeiro");
+        bookRepository.save(first);
+        Book second = new Book();
+        second.setTitle("Segundo");
+        bookRepository.save(second);
+
+        Long existingItemId = shelfService.addBookToShelf("leitor_lote", first.getId(),
+                new ShelfItemRequestDTO(ReadingStatus.READING, null, null, 10, null)).item().userBookId();
+
+        // ACT
+        List<ShelfBatchResultDTO> results = shelfBatchService.applyBatch("leitor_lote", List.of(
+                new ShelfBatchOperationDTO(ShelfBatchOperationDTO.Type.ADD, second.getId(), null, null),
+                new ShelfBatchOperationDTO(ShelfBatchOperationDTO.Type.ADD, first.getId(), null, null),
+                new ShelfBatchOperationDTO(ShelfBatchOperationDTO.Type.UPDATE, null, existingItemId,
+                        new ShelfItemRequestDTO(ReadingStatus.COMPLETED, null, null, 250, null))));
+
+        // ASSERT
+        assertEquals(ShelfBatchResultDTO.Status.CREATED, results.get(0).status());
+        assertEquals("Segundo", results.get(0).item().title());
+        assertEquals(ShelfBatchResultDTO.Status.ALREADY_ON_SHELF, results.get(1).status());
+        assertEquals(ShelfBatchResultDTO.Status.UPDATED, results.get(2).status());
+        assertEquals(ReadingStatus.COMPLETED, results.get(2).item().readingStatus());
+        assertEquals(250, results.get(2).item().currentPage());
+        assertEquals(2, userBookRepository.findShelfPage("leitor_lote", PageRequest.of(0, 10)).getTotalElements());
+    }
+
+    @Test
+    @DisplayName("Deve devolver só o que mudou depois da versão informada")
+    void shouldReturnOnlyChangesSinceVersion() {
+        // ARRANGE
+        User user = new User();
+        user.setUsername("leitor_sync");
+        user.setEmail("leitor_sync@teste.com");
+        user.setPassword("senha");
+        userRepository.save(user);
+
+        Book kept = new Book();
+        kept.setTitle("Mantido");
+        bookRepository.save(kept);
+        Book updated = new Book();
+        updated.setTitle("Alterado");
+        bookRepository.save(updated);
+        Book removed = new Book();
+        removed.setTitle("Removido");
+        bookRepository.save(removed);
+
+        ShelfItemRequestDTO defaults = new ShelfItemRequestDTO(null, null, null, null, null);
+        shelfService.addBookToShelf("leitor_sync", kept.getId(), defaults);
+        Long updatedItemId = shelfService.addBookToShelf("leitor_sync", updated.getId(), defaults).item().userBookId();
+        Long removedItemId = shelfService.addBookToShelf("leitor_sync", removed.getId(), defaults).item().userBookId();
+        ShelfChangesDTO full = shelfService.getChangesSince("leitor_sync", null);
+
+        // ACT
+        shelfService.updateBookOnShelf("leitor_sync", updatedItemId, new ShelfItemRequestDTO(null, null, null, 42, null));
+        shelfService.removeBookFromShelf("leitor_sync", removedItemId);
+        ShelfChangesDTO delta = shelfService.getChangesSince("leitor_sync", full.version());
+
+        // ASSERT
+        assertEquals(3, full.changed().size());
+        assertEquals(List.of(updatedItemId), delta.changed().stream().map(ShelfItemResponseDTO::userBookId).toList());
+        assertEquals(42, delta.changed().getFirst().currentPage());
+        assertEquals(List.of(removedItemId), delta.removed());
+        assertEquals(full.version() + 2, delta.version());
+        assertTrue(shelfService.getChangesSince("leitor_sync", delta.version()).changed().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve mostrar o progresso pendente e gravá-lo no flush com a nova versão da estante")
+    void shouldFlushBufferedReadingProgress() {
+        // ARRANGE
+        User user = new User();
+        user.setUsername("leitor_progresso");
+        user.setEmail("leitor_progresso@teste.com");
+        user.setPassword("senha");
+        userRepository.save(user);
+
+        Book book = new Book();
+        book.setTitle("Longo");
+        bookRepository.save(book);
+
+        Long itemId = shelfService.addBookToShelf("leitor_progresso", book.getId(),
+                new ShelfItemRequestDTO(ReadingStatus.READING, null, null, 10, null)).item().userBookId();
+        long versionBefore = shelfService.getChangesSince("leitor_progresso", null).version();
+
+        // ACT
+        shelfService.updateReadingProgress("leitor_progresso", itemId, 30);
+        shelfService.updateReadingProgress("leitor_progresso", itemId, 45);
+        assertEquals(45, shelfService.getUserShelf("leitor_progresso", PageRequest.of(0, 10)).getContent().getFirst().currentPage(),
+                "A leitura deve ver o progresso ainda não gravado");
+        readingProgressBuffer.flush();
+
+        // ASSERT
+        assertEquals(45, userBookRepository.findItemById(itemId).orElseThrow().currentPage());
+        ShelfChangesDTO delta = shelfService.getChangesSince("leitor_progresso", versionBefore);
+        assertTrue(delta.version() > versionBefore);
+        assertEquals(List.of(itemId), delta.changed().stream().map(ShelfItemResponseDTO::userBookId).toList());
+    }
+
+    @Test
+    @DisplayName("Deve manter as estatísticas a cada escrita na estante, inclusive no lote e no flush do progresso")
+    void shouldMaintainReadingStatsIncrementally() {
+        // ARRANGE
+        User user = new User();
+        user.setUsername("leitor_stats");
+        user.setEmail("leitor_stats@teste.com");
+        user.setPassword("senha");
+        userRepository.save(user);
+
+        Book first = new Book();
+        first.setTitle("Concluído");
+        bookRepository.save(first);
+        Book second = new Book();
+        second.setTitle("Em leitura");
+        bookRepository.save(second);
+        Book third = new Book();
+        third.setTitle("Abandonado");
+        bookRepository.save(third);
+
+        // Primeira consulta: calcula a partir da estante (vazia) e cria a linha mantida daqui em diante
+        assertEquals(0, readingStatsService.getStats("leitor_stats").totalBooks());
+
+        // ACT
+        Long firstId = shelfService.addBookToShelf("leitor_stats", first.getId(),
+                new ShelfItemRequestDTO(ReadingStatus.READING, null, null, 100, true)).item().userBookId();
+        shelfService.updateBookOnShelf("leitor_stats", firstId, new ShelfItemRequestDTO(ReadingStatus.COMPLETED, 4.0, null, 250, null));
+        Long secondId = shelfService.addBookToShelf("leitor_stats", second.getId(),
+                new ShelfItemRequestDTO(ReadingStatus.READING, null, null, 10, null)).item().userBookId();
+        shelfBatchService.applyBatch("leitor_stats", List.of(
+                new ShelfBatchOperationDTO(ShelfBatchOperationDTO.Type.ADD, third.getId(), null,
+                        new ShelfItemRequestDTO(ReadingStatus.DROPPED, 2.0, null, 40, null))));
+        shelfService.updateReadingProgress("leitor_stats", secondId, 60);
+        readingProgressBuffer.flush();
+
+        // ASSERT
+        ReadingStatsDTO stats = readingStatsService.getStats("leitor_stats");
+        assertEquals(3, stats.totalBooks());
+        assertEquals(1L, stats.countsByStatus().get(ReadingStatus.COMPLETED));
+        assertEquals(1L, stats.countsByStatus().get(ReadingStatus.READING));
+        assertEquals(1L, stats.countsByStatus().get(ReadingStatus.DROPPED));
+        assertEquals(1, stats.favorites());
+        assertEquals(250 + 60 + 40, stats.pagesRead());
+        assertEquals(3.0, stats.averageRating());
+        assertEquals(List.of(new ReadingStatsDTO.MonthlyCompletion(YearMonth.now().toString(), 1)), stats.completedPerMonth());
+
+        // Remoção do concluído: sai dos totais e do mês
+        shelfService.removeBookFromShelf("leitor_stats", firstId);
+        ReadingStatsDTO afterRemoval = readingStatsService.getStats("leitor_stats");
+        assertEquals(2, afterRemoval.totalBooks());
+        assertEquals(100, afterRemoval.pagesRead());
+        assertTrue(afterRemoval.completedPerMonth().isEmpty());
+    }
+}
@@ -0,0 +1,63 @@
+package br.com.management.api_library.service;
+
+import br.com.management.api_library.exception.ServerBusyException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BackgroundJobsTest {
+
+    @Test
+    @DisplayName("Com a fila cheia, deve recusar o job e não deixá-lo consultável")
+    void shouldRejectAndForgetJobWhenQueueIsFull() throws InterruptedException {
+        BackgroundJobs<String> jobs = new BackgroundJobs<>("test-job", 1, 10, "Fila cheia.");
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            jobs.submit("a", "rodando", () -> {
+                running.countDown();
+                awaitQuietly(release);
+            });
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            jobs.submit("b", "na fila", () -> {});
+
+            ServerBusyException error = assertThrows(ServerBusyException.class, () -> jobs.submit("c", "recusado", () -> {}));
+            assertEquals("Fila cheia.", error.getMessage());
+            assertTrue(jobs.find("c").isEmpty());
+            assertEquals("na fila", jobs.find("b").orElseThrow());
+        } finally {
+            release.countDown();
+            jobs.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Deve manter consultáveis só os jobs mais recentes")
+    void shouldTrackOnlyMostRecentJobs() {
+        BackgroundJobs<String> jobs = new BackgroundJobs<>("test-job", 10, 2, "Fila cheia.");
+
+        try {
+            jobs.submit("a", "primeiro", () -> {});
+            jobs.submit("b", "segundo", () -> {});
+            jobs.submit("c", "terceiro", () -> {});
+
+            assertTrue(jobs.find("a").isEmpty());
+            assertEquals("terceiro", jobs.find("c").orElseThrow());
+        } finally {
+            jobs.shutdown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -2,23 +2,48 @@ package br.com.management.api_library.service;
 
 import br.com.management.api_library.dto.BookCreateDTO;
 import br.com.management.api_library.dto.BookResponseDTO;
+import br.com.management.api_library.dto.BookUpdateDTO;
 import br.com.management.api_library.dto.GoogleBookVolumeInfo;
+import br.com.management.api_library.dto.IsbnBatchResultDTO;
 import br.com.management.api_library.exception.BookAlreadyExistsException;
 import br.com.management.api_library.exception.ResourceNotFoundException;
 import br.com.management.api_library.model.Book;
+import br.com.management.api_library.repository.BookBulkRepository;
 import br.com.management.api_library.repository.BookRepository;
+import br.com.management.api_library.service.cache.BookCache;
+import br.com.management.api_library.service.search.BookSearchIndex;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +52,23 @@ class BookServiceTest {
     @Mock
     private BookRepository bookRepository;
 
+    @Mock
+    private BookBulkRepository bookBulkRepository;
+
+    @Mock
+    private BookSearchIndex bookSearchIndex;
+
+    // Mock: isBookColumnsPending() é falso, como depois do backfill da subida
+    @Mock
+    private SearchColumnsBackfill searchColumnsBackfill;
+
+    // Cache real (e não mock) para que as buscas continuem chegando ao repositório nos testes
+    @Spy
+    private BookCache bookCache = new BookCache(100, Duration.ofMinutes(5));
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private BookService bookService;
 
@@ -46,7 +88,7 @@ class BookServiceTest {
                 isbn,
                 100);
 
-        when(bookRepository.findByIsbn(isbn)).thenReturn(Optional.of(new Book()));
+        when(bookRepository.findByIsbn("978123")).thenReturn(Optional.of(new Book())); // Já normalizado
 
         // ACT & ASSERT
         assertThrows(BookAlreadyExistsException.class, () -> bookService.createBook(dto));
@@ -210,4 +252,321 @@ class BookServiceTest {
         // ACT & ASSERT
         assertThrows(ResourceNotFoundException.class, () -> bookService.findOrCreateBookByIsbn(isbn));
     }
-}
\ No newline at end of file
+
+    // --- TESTES DE BUSCA POR AUTOR/EDITORA (consultas indexadas) ---
+
+    @Test
+    @DisplayName("Deve buscar por autor usando a coluna normalizada")
+    void shouldFindByNormalizedAuthor() {
+        // ARRANGE
+        Pageable pageable = PageRequest.of(0, 10);
+        Book book = new Book();
+        book.setId(1L);
+        book.setTitle("Dom Casmurro");
+        book.setAuthor("Machado de Assis");
+
+        when(bookRepository.findByAuthorNormalized("machado de assis", pageable)).thenReturn(new PageImpl<>(List.of(book)));
+
+        // ACT
+        Page<BookResponseDTO> result = bookService.getByAuthor("  Machado de ASSIS ", false, pageable);
+
+        // ASSERT
+        assertEquals(1, result.getTotalElements());
+        verify(bookRepository, never()).findAll();
+        verify(bookRepository, never()).findByAuthorName(any(), any());
+    }
+
+    @Test
+    @DisplayName("Deve encontrar um autor dentro de livros com vários autores")
+    void shouldFindAuthorInsideMultiAuthorBooks() {
+        // ARRANGE
+        Pageable pageable = PageRequest.of(0, 10);
+        Book book = new Book();
+        book.setTitle("Livro Coletivo");
+        book.setAuthor("Autor A, Autor B");
+
+        when(bookRepository.findByAuthorName("autor b", pageable)).thenReturn(new PageImpl<>(List.of(book)));
+
+        // ACT
+        Page<BookResponseDTO> result = bookService.getByAuthor("Autor B", true, pageable);
+
+        // ASSERT
+        assertEquals("Livro Coletivo", result.getContent().get(0).title());
+        assertEquals(Set.of("autor a", "autor b"), book.getAuthorNames());
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro quando nenhuma obra da editora for encontrada")
+    void shouldThrowWhenPublisherHasNoBooks() {
+        Pageable pageable = PageRequest.of(0, 10);
+        when(bookRepository.findByPublisherNormalized("rocco", pageable)).thenReturn(Page.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> bookService.getByPublisher("Rocco", pageable));
+    }
+
+    @Test
+    @DisplayName("Enquanto o backfill não termina, deve procurar pela coluna original os livros antigos")
+    void shouldFallBackToRawColumnsWhileBackfillIsPending() {
+        Pageable pageable = PageRequest.of(0, 10);
+        Book legacy = new Book();
+        legacy.setTitle("Livro Antigo");
+        when(searchColumnsBackfill.isBookColumnsPending()).thenReturn(true);
+        when(bookRepository.findByAuthorNormalized("machado de assis", pageable)).thenReturn(Page.empty());
+        when(bookRepository.findByRawAuthor("machado de assis", pageable)).thenReturn(new PageImpl<>(List.of(legacy)));
+        when(bookRepository.findByPublisherNormalized("rocco", pageable)).thenReturn(Page.empty());
+        when(bookRepository.findByRawPublisher("rocco", pageable)).thenReturn(new PageImpl<>(List.of(legacy)));
+
+        assertEquals(1, bookService.getByAuthor("  Machado de ASSIS ", false, pageable).getTotalElements());
+        assertEquals(1, bookService.getByPublisher("Rocco", pageable).getTotalElements());
+    }
+
+    // --- TESTES DA BUSCA TEXTUAL (índice em memória) ---
+
+    @Test
+    @DisplayName("Deve gravar o ISBN normalizado ao criar e ao atualizar o livro")
+    void shouldNormalizeIsbnOnWrite() {
+        BookCreateDTO dto = new BookCreateDTO("Dom Casmurro", "Machado de Assis", "Rocco", "Romance", "D", "PT",
+                " 978-85-359-1484-9 ", 200);
+        when(bookRepository.findByIsbn("9788535914849")).thenReturn(Optional.empty());
+        when(bookRepository.save(any(Book.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        assertEquals("9788535914849", bookService.createBook(dto).isbn());
+
+        Book existing = new Book();
+        existing.setId(1L);
+        existing.setIsbn("9788535914849");
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(existing));
+
+        bookService.updateBook(1L, new BookUpdateDTO("Dom Casmurro", "Machado de Assis", "Rocco", "Romance", "D", "PT",
+                "85-359-1484-x", 200));
+
+        assertEquals("853591484X", existing.getIsbn());
+    }
+
+    @Test
+    @DisplayName("Deve indexar o livro recém-criado")
+    void shouldIndexBookOnCreate() {
+        BookCreateDTO dto = new BookCreateDTO("Clean Code", "Uncle Bob", "Pearson", "Tech", "Coding", "EN", "978-IDX", 300);
+        Book saved = new Book();
+        saved.setId(7L);
+        saved.setTitle("Clean Code");
+
+        when(bookRepository.findByIsbn(dto.isbn())).thenReturn(Optional.empty());
+        when(bookRepository.save(any(Book.class))).thenReturn(saved);
+
+        bookService.createBook(dto);
+
+        verify(bookSearchIndex).index(saved);
+    }
+
+    @Test
+    @DisplayName("Deve retornar a página da busca na ordem do ranking")
+    void shouldReturnSearchResultsInRankingOrder() {
+        Book first = new Book(); first.setId(2L); first.setTitle("Primeiro");
+        Book second = new Book(); second.setId(1L); second.setTitle("Segundo");
+
+        when(bookSearchIndex.search("java")).thenReturn(List.of(
+                new BookSearchIndex.SearchHit(2L, 5.0),
+                new BookSearchIndex.SearchHit(1L, 3.0),
+                new BookSearchIndex.SearchHit(3L, 1.0)));
+        // O banco devolve fora de ordem
+        when(bookRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(second, first));
+
+        Page<BookResponseDTO> result = bookService.searchBooks("java", PageRequest.of(0, 2));
+
+        assertEquals(3, result.getTotalElements());
+        assertEquals("Primeiro", result.getContent().get(0).title());
+        assertEquals("Segundo", result.getContent().get(1).title());
+    }
+
+    // --- TESTES DO CACHE DE LIVROS ---
+
+    @Test
+    @DisplayName("Deve servir a segunda busca por ID a partir do cache")
+    void shouldServeRepeatedGetByIdFromCache() {
+        Book book = new Book();
+        book.setId(1L);
+        book.setTitle("Harry Potter");
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+
+        bookService.getById(1L);
+        BookResponseDTO second = bookService.getById(1L);
+
+        assertEquals("Harry Potter", second.title());
+        verify(bookRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    @DisplayName("Deve invalidar o cache ao atualizar o livro")
+    void shouldInvalidateCacheOnUpdate() {
+        Book book = new Book();
+        book.setId(1L);
+        book.setTitle("Antigo");
+        book.setIsbn("978-1");
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(bookRepository.save(any(Book.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        bookService.getById(1L);
+        bookService.updateBook(1L, new BookUpdateDTO("Novo", "A", "P", "G", "D", "PT", "978-1", 10));
+        BookResponseDTO afterUpdate = bookService.getById(1L);
+
+        assertEquals("Novo", afterUpdate.title());
+        verify(bookCache).evictById(1L);
+    }
+
+    @Test
+    @DisplayName("Deve reaproveitar o livro gravado em paralelo quando o ISBN violar a unicidade")
+    void shouldReuseBookInsertedConcurrently() {
+        // Banco e Google recebem o ISBN normalizado
+        String isbn = "9788500000001";
+        Book concurrent = new Book();
+        concurrent.setId(9L);
+        concurrent.setIsbn(isbn);
+        concurrent.setTitle("Gravado por outra requisição");
+
+        GoogleBookVolumeInfo googleInfo = new GoogleBookVolumeInfo("Livro Google", null, null, null, null, null, "PT", 100, null);
+
+        // Vazio na consulta local e na reconferência do líder; só o insert-or-get acha o livro gravado em paralelo
+        when(bookRepository.findByIsbn(isbn)).thenReturn(Optional.empty(), Optional.empty(), Optional.of(concurrent));
+        when(isbnService.findBookInfoByIsbn(isbn)).thenReturn(Optional.of(googleInfo));
+        when(bookRepository.save(any(Book.class))).thenThrow(new DataIntegrityViolationException("uk_books_isbn"));
+
+        BookResponseDTO response = bookService.findOrCreateBookByIsbn("978-85-0000-000-1");
+
+        assertEquals(9L, response.id());
+        assertEquals("Gravado por outra requisição", response.title());
+    }
+
+    @Test
+    @DisplayName("Deve normalizar o ISBN antes de consultar o banco e a API externa")
+    void shouldNormalizeIsbnBeforeLookup() {
+        Book book = new Book();
+        book.setId(3L);
+        book.setIsbn("9788535914849");
+        book.setTitle("Livro Local");
+        when(bookRepository.findByIsbn("9788535914849")).thenReturn(Optional.of(book));
+
+        BookResponseDTO response = bookService.findOrCreateBookByIsbn(" 978-85-359-1484-9 ");
+
+        assertEquals(3L, response.id());
+        verify(bookRepository).findByIsbn("9788535914849");
+        verifyNoInteractions(isbnService);
+    }
+
+    @Test
+    @DisplayName("Deve chamar a API externa uma única vez para buscas simultâneas do mesmo ISBN")
+    void shouldCoalesceConcurrentLookupsOfSameIsbn() throws Exception {
+        String isbn = "9788535914849";
+        GoogleBookVolumeInfo googleInfo = new GoogleBookVolumeInfo("Livro Google", null, null, null, null, null, "PT", 100, null);
+        CountDownLatch followerJoined = new CountDownLatch(1);
+
+        when(bookRepository.findByIsbn(isbn)).thenReturn(Optional.empty());
+        when(isbnService.findBookInfoByIsbn(isbn)).thenAnswer(inv -> {
+            // Segura o líder até a segunda requisição entrar na fila
+            followerJoined.await(5, TimeUnit.SECONDS);
+            return Optional.of(googleInfo);
+        });
+        when(bookRepository.save(any(Book.class))).thenAnswer(inv -> {
+            Book saved = inv.getArgument(0);
+            saved.setId(7L);
+            return saved;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<BookResponseDTO> leader = executor.submit(() -> bookService.findOrCreateBookByIsbn(isbn));
+            while (bookService.getIsbnLookupStats().inFlight() == 0) {
+                Thread.sleep(5);
+            }
+            Future<BookResponseDTO> follower = executor.submit(() -> bookService.findOrCreateBookByIsbn("978-85-359-1484-9"));
+            while (bookService.getIsbnLookupStats().coalesced() == 0) {
+                Thread.sleep(5);
+            }
+            followerJoined.countDown();
+
+            assertEquals(7L, leader.get(5, TimeUnit.SECONDS).id());
+            assertEquals(7L, follower.get(5, TimeUnit.SECONDS).id());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(isbnService, times(1)).findBookInfoByIsbn(isbn);
+        verify(bookRepository, times(1)).save(any(Book.class));
+        assertEquals(1, bookService.getIsbnLookupStats().executions());
+    }
+
+    @Test
+    @DisplayName("Deve importar o livro pelo caminho assíncrono quando o ISBN não existir localmente")
+    void shouldImportBookAsynchronously() throws Exception {
+        String isbn = "9788535914849";
+        GoogleBookVolumeInfo googleInfo = new GoogleBookVolumeInfo("Livro Google", null, null, null, null, null, "PT", 100, null);
+
+        when(bookRepository.findByIsbn(isbn)).thenReturn(Optional.empty());
+        when(isbnService.findBookInfoByIsbnAsync(isbn)).thenReturn(Mono.just(googleInfo));
+        when(bookRepository.save(any(Book.class))).thenAnswer(inv -> {
+            Book saved = inv.getArgument(0);
+            saved.setId(8L);
+            return saved;
+        });
+
+        BookResponseDTO response = bookService.findOrCreateBookByIsbnAsync(isbn).get(5, TimeUnit.SECONDS);
+
+        assertEquals(8L, response.id());
+        assertEquals("Livro Google", response.title());
+        verify(bookSearchIndex).index(any(Book.class));
+        verify(isbnService, never()).findBookInfoByIsbn(anyString());
+    }
+
+    @Test
+    @DisplayName("Deve completar o future com ResourceNotFoundException quando o Google não achar o ISBN")
+    void shouldFailAsyncLookupWhenNotFoundAnywhere() {
+        String isbn = "978-NADA";
+        when(bookRepository.findByIsbn(isbn)).thenReturn(Optional.empty());
+        when(isbnService.findBookInfoByIsbnAsync(isbn)).thenReturn(Mono.empty());
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> bookService.findOrCreateBookByIsbnAsync(isbn).get(5, TimeUnit.SECONDS));
+
+        assertInstanceOf(ResourceNotFoundException.class, error.getCause());
+        verify(bookRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Deve resolver um lote deduplicando ISBNs, com um único IN para os locais e gravação em grupo dos importados")
+    void shouldResolveIsbnBatch() {
+        Book local = new Book();
+        local.setId(1L);
+        local.setIsbn("9781111111111");
+        local.setTitle("No Catálogo");
+        GoogleBookVolumeInfo googleInfo = new GoogleBookVolumeInfo("Do Google", null, null, null, null, null, "PT", 100, null);
+
+        when(bookRepository.findByIsbnIn(List.of("9781111111111", "9782222222222", "9783333333333"))).thenReturn(List.of(local));
+        when(isbnService.findBookInfoByIsbnAsync("9782222222222")).thenReturn(Mono.just(googleInfo));
+        when(isbnService.findBookInfoByIsbnAsync("9783333333333")).thenReturn(Mono.empty());
+        when(bookBulkRepository.insertAll(anyList())).thenAnswer(inv -> {
+            List<Book> books = inv.getArgument(0);
+            books.forEach(book -> book.setId(2L));
+            return books;
+        });
+
+        List<IsbnBatchResultDTO> results = bookService.resolveIsbnBatch(
+                List.of("978-1111111111", "9781111111111", "9782222222222", "9783333333333")).collectList().block();
+
+        assertNotNull(results);
+        assertEquals(3, results.size());
+        assertEquals(IsbnBatchResultDTO.Status.FOUND, statusOf(results, "9781111111111"));
+        assertEquals(IsbnBatchResultDTO.Status.IMPORTED, statusOf(results, "9782222222222"));
+        assertEquals(IsbnBatchResultDTO.Status.NOT_FOUND, statusOf(results, "9783333333333"));
+        verify(bookRepository, times(1)).findByIsbnIn(anyCollection());
+        verify(bookRepository, never()).save(any(Book.class));
+        verify(bookRepository, never()).saveAll(anyList());
+    }
+
+    private IsbnBatchResultDTO.Status statusOf(List<IsbnBatchResultDTO> results, String isbn) {
+        return results.stream()
+                .filter(result -> isbn.equals(result.isbn()))
+                .findFirst()
+                .map(IsbnBatchResultDTO::status)
+                .orElseThrow();
+    }
+}
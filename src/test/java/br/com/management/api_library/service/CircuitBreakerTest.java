@@ -0,0 +1,80 @@
+package br.com.management.api_library.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(3, Duration.ofSeconds(30), now::get);
+
+    @Test
+    @DisplayName("Deve abrir só depois de atingir o limite de falhas seguidas")
+    void shouldOpenAfterConsecutiveFailures() {
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordSuccess();
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+        assertTrue(circuitBreaker.tryAcquire());
+
+        circuitBreaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.stats().state());
+        assertFalse(circuitBreaker.tryAcquire());
+        assertEquals(1, circuitBreaker.stats().rejected());
+    }
+
+    @Test
+    @DisplayName("Depois do tempo de espera, deve liberar uma única chamada de teste e fechar se ela der certo")
+    void shouldAllowSingleTrialAfterOpenDuration() {
+        openCircuit();
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertTrue(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.stats().state());
+
+        circuitBreaker.recordSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.stats().state());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Se a chamada de teste falhar, deve abrir de novo na hora")
+    void shouldReopenWhenTrialFails() {
+        openCircuit();
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertTrue(circuitBreaker.tryAcquire());
+
+        circuitBreaker.recordFailure();
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.stats().state());
+        assertEquals(2, circuitBreaker.stats().timesOpened());
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Uma chamada de teste cancelada deve liberar a vaga para outra tentativa")
+    void shouldReleaseTrialWhenAbandoned() {
+        openCircuit();
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertTrue(circuitBreaker.tryAcquire());
+
+        circuitBreaker.recordAbandoned();
+
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    private void openCircuit() {
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.recordFailure();
+        }
+    }
+}
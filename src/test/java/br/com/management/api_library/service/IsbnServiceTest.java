@@ -1,6 +1,8 @@
 package br.com.management.api_library.service;
 
 import br.com.management.api_library.dto.GoogleBookVolumeInfo;
+import br.com.management.api_library.exception.ExternalServiceUnavailableException;
+import br.com.management.api_library.service.cache.GoogleSearchCache;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
@@ -8,11 +10,15 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -20,6 +26,7 @@ class IsbnServiceTest {
 
     private MockWebServer mockWebServer;
     private IsbnService isbnService;
+    private CircuitBreaker circuitBreaker;
     private ObjectMapper objectMapper;
 
     @BeforeEach
@@ -33,7 +40,9 @@ class IsbnServiceTest {
 
         // 3. Cria o WebClient apontando para o servidor fake em vez do Google
         WebClient webClient = WebClient.builder().baseUrl(baseUrl).build();
-        isbnService = new IsbnService(webClient, "CHAVE_FALSA_PARA_TESTE");
+        circuitBreaker = new CircuitBreaker(2, Duration.ofMinutes(1));
+        GoogleSearchCache searchCache = new GoogleSearchCache(100, Duration.ofHours(1), Duration.ofHours(1), "");
+        isbnService = new IsbnService(webClient, "CHAVE_FALSA_PARA_TESTE", Duration.ofSeconds(2), 5, circuitBreaker, searchCache);
 
         objectMapper = new ObjectMapper();
     }
@@ -101,4 +110,127 @@ class IsbnServiceTest {
         // ASSERT
         assertTrue(result.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Deve completar o Mono vazio, sem erro, quando a API do Google falhar")
+    void deveCompletarVazioQuandoApiFalharNoModoAssincrono() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503).setBody("indisponível"));
+
+        Optional<GoogleBookVolumeInfo> result = isbnService.findBookInfoByIsbnAsync("9781234567890").blockOptional();
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Deve montar a página da pesquisa no modo assíncrono, descartando volumes sem capa")
+    void deveMontarPaginaDaPesquisaNoModoAssincrono() {
+        String jsonFakeResponse = """
+            {
+              "totalItems": 42,
+              "items": [
+                { "volumeInfo": { "title": "Com Capa", "imageLinks": { "thumbnail": "http://capa" } } },
+                { "volumeInfo": { "title": "Sem Capa" } }
+              ]
+            }
+            """;
+        mockWebServer.enqueue(new MockResponse()
+                .setBody(jsonFakeResponse)
+                .addHeader("Content-Type", "application/json"));
+
+        Page<GoogleBookVolumeInfo> page = isbnService.searchBooksByQueryAsync("java", PageRequest.of(0, 10)).block();
+
+        assertNotNull(page);
+        assertEquals(42, page.getTotalElements());
+        assertEquals(1, page.getContent().size());
+        assertEquals("Com Capa", page.getContent().get(0).title());
+    }
+
+    @Test
+    @DisplayName("Deve abrir o circuito após falhas seguidas e recusar na hora, sem chamar o Google")
+    void deveAbrirCircuitoEFalharRapidoAposFalhasSeguidas() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+
+        assertTrue(isbnService.findBookInfoByIsbn("9781234567890").isEmpty());
+        assertTrue(isbnService.findBookInfoByIsbn("9781234567890").isEmpty());
+        assertEquals(CircuitBreaker.State.OPEN, isbnService.getCircuitStats().state());
+
+        assertThrows(ExternalServiceUnavailableException.class, () -> isbnService.findBookInfoByIsbn("9781234567890"));
+        assertEquals(2, mockWebServer.getRequestCount());
+        assertEquals(1, isbnService.getCircuitStats().rejected());
+    }
+
+    @Test
+    @DisplayName("Erros 400 seguidos (culpa da requisição) não devem abrir o circuito")
+    void naoDeveAbrirCircuitoPorErroDoCliente() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(400).setBody("{\"error\": \"bad request\"}"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(400).setBody("{\"error\": \"bad request\"}"));
+
+        assertTrue(isbnService.findBookInfoByIsbn("isbn-invalido").isEmpty());
+        assertTrue(isbnService.findBookInfoByIsbn("isbn-invalido").isEmpty());
+
+        assertEquals(CircuitBreaker.State.CLOSED, isbnService.getCircuitStats().state());
+        assertEquals(0, isbnService.getCircuitStats().failures());
+        assertEquals(2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    @DisplayName("Com o circuito aberto, a pesquisa deve devolver uma página vazia na hora")
+    void deveDevolverPaginaVaziaComCircuitoAberto() {
+        circuitBreaker.recordFailure();
+        circuitBreaker.recordFailure();
+
+        Page<GoogleBookVolumeInfo> page = isbnService.searchBooksByQueryAsync("java", PageRequest.of(0, 10)).block();
+
+        assertNotNull(page);
+        assertTrue(page.isEmpty());
+        assertEquals(0, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    @DisplayName("Deve desistir da chamada no timeout e contar como falha no circuito")
+    void deveContarTimeoutComoFalha() {
+        mockWebServer.enqueue(new MockResponse()
+                .setBody("{\"totalItems\": 0}")
+                .addHeader("Content-Type", "application/json")
+                .setHeadersDelay(5, TimeUnit.SECONDS));
+
+        assertTrue(isbnService.findBookInfoByIsbn("9781234567890").isEmpty());
+
+        assertEquals(1, isbnService.getCircuitStats().failures());
+        assertEquals(1, isbnService.getCircuitStats().consecutiveFailures());
+    }
+
+    @Test
+    @DisplayName("Deve servir a mesma pesquisa (mesma página) do cache, sem chamar o Google de novo")
+    void deveServirPesquisaRepetidaDoCache() {
+        mockWebServer.enqueue(new MockResponse()
+                .setBody("""
+                    { "totalItems": 1, "items": [ { "volumeInfo": { "title": "Com Capa", "imageLinks": { "thumbnail": "http://capa" } } } ] }
+                    """)
+                .addHeader("Content-Type", "application/json"));
+
+        isbnService.searchBooksByQueryAsync("Java", PageRequest.of(0, 10)).block();
+        Page<GoogleBookVolumeInfo> repeated = isbnService.searchBooksByQueryAsync("  java ", PageRequest.of(0, 10)).block();
+
+        assertNotNull(repeated);
+        assertEquals("Com Capa", repeated.getContent().get(0).title());
+        assertEquals(1, mockWebServer.getRequestCount());
+        assertEquals(1, isbnService.getSearchCacheStats().hits());
+    }
+
+    @Test
+    @DisplayName("Não deve cachear pesquisas que falharam")
+    void naoDeveCachearPesquisaComErro() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+        mockWebServer.enqueue(new MockResponse()
+                .setBody("{ \"totalItems\": 0 }")
+                .addHeader("Content-Type", "application/json"));
+
+        isbnService.searchBooksByQueryAsync("java", PageRequest.of(0, 10)).block();
+        isbnService.searchBooksByQueryAsync("java", PageRequest.of(0, 10)).block();
+
+        assertEquals(2, mockWebServer.getRequestCount());
+        assertEquals(1, isbnService.getSearchCacheStats().size());
+    }
+}
@@ -0,0 +1,42 @@
+package br.com.management.api_library.service;
+
+import br.com.management.api_library.exception.InvalidCursorException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    @Test
+    @DisplayName("Deve codificar e decodificar o cursor preservando a chave de ordenação")
+    void shouldRoundTripCursor() {
+        KeysetCursor cursor = new KeysetCursor("Memórias Póstumas\nVol. 2", 42L);
+
+        KeysetCursor decoded = KeysetCursor.decode(cursor.encode());
+
+        assertEquals(cursor, decoded);
+    }
+
+    @Test
+    @DisplayName("Deve montar a posição de keyset a partir do token 'after'")
+    void shouldBuildScrollPosition() {
+        String token = new KeysetCursor("Dom Casmurro", 7L).encode();
+
+        ScrollPosition position = KeysetCursor.positionAfter(token, "title");
+
+        KeysetScrollPosition keyset = assertInstanceOf(KeysetScrollPosition.class, position);
+        assertEquals("Dom Casmurro", keyset.getKeys().get("title"));
+        assertEquals(7L, keyset.getKeys().get("id"));
+        assertTrue(KeysetCursor.positionAfter(null, "title").isInitial());
+    }
+
+    @Test
+    @DisplayName("Deve rejeitar cursor adulterado")
+    void shouldRejectInvalidCursor() {
+        assertThrows(InvalidCursorException.class, () -> KeysetCursor.decode("nao-e-um-cursor"));
+        assertThrows(InvalidCursorException.class, () -> KeysetCursor.decode("%%%"));
+    }
+}
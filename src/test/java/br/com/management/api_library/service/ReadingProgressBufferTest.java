@@ -0,0 +1,155 @@
+package br.com.management.api_library.service;
+
+import br.com.management.api_library.exception.ServerBusyException;
+import br.com.management.api_library.repository.ReadingProgressRepository;
+import br.com.management.api_library.repository.ReadingProgressRepository.ProgressUpdate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class ReadingProgressBufferTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private final ReadingProgressRepository repository = mock(ReadingProgressRepository.class);
+    // Template real sobre um gerenciador de transações falso: executa o callback direto
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+    private final ReadingProgressBuffer buffer = new ReadingProgressBuffer(repository, transactionTemplate,
+            Duration.ofSeconds(5), 2, 3, now::get);
+
+    @Test
+    @DisplayName("Deve acumular os envios de um item num só registro, sem deixar a página voltar")
+    void shouldCoalesceWritesPerItem() {
+        buffer.record(1L, "erick", 10L, 20);
+        buffer.record(1L, "erick", 10L, 35);
+        int page = buffer.record(1L, "erick", 10L, 30); // Envio atrasado
+
+        assertEquals(35, page);
+        assertEquals(OptionalInt.of(35), buffer.pendingPage(10L));
+        assertEquals(Optional.of(1L), buffer.pendingOwner(10L, "erick"));
+        assertEquals(Optional.empty(), buffer.pendingOwner(10L, "hacker"));
+        verifyNoInteractions(repository); // Nada vai ao banco antes do flush
+
+        ReadingProgressBuffer.Stats stats = buffer.stats();
+        assertEquals(3, stats.received());
+        assertEquals(1, stats.coalesced());
+        assertEquals(1, stats.stale());
+        assertEquals(1, stats.pending());
+    }
+
+    @Test
+    @DisplayName("Deve gravar o pendente num batch e registrar tamanho e lag do flush")
+    void shouldFlushPendingInBatches() {
+        buffer.record(1L, "erick", 10L, 20);
+        buffer.record(2L, "maria", 11L, 7);
+        now.addAndGet(4_000);
+
+        buffer.flush();
+
+        verify(repository).applyAll(argThat(updates -> updates.size() == 2
+                && updates.contains(new ProgressUpdate(1L, 10L, 20))
+                && updates.contains(new ProgressUpdate(2L, 11L, 7))));
+        assertEquals(OptionalInt.empty(), buffer.pendingPage(10L));
+
+        ReadingProgressBuffer.Stats stats = buffer.stats();
+        assertEquals(0, stats.pending());
+        assertEquals(1, stats.flushes());
+        assertEquals(2, stats.lastBatchSize());
+        assertEquals(4_000, stats.lastFlushLagMillis());
+    }
+
+    @Test
+    @DisplayName("Se o flush falhar, o progresso volta para o buffer e continua visível")
+    void shouldRequeueWhenFlushFails() {
+        when(repository.applyAll(anyList()))
+                .thenThrow(new DataAccessResourceFailureException("banco fora"))
+                .thenReturn(new int[]{1});
+        buffer.record(1L, "erick", 10L, 20);
+
+        buffer.flush();
+
+        assertEquals(OptionalInt.of(20), buffer.pendingPage(10L));
+        assertEquals(1, buffer.stats().failures());
+
+        buffer.record(1L, "erick", 10L, 25);
+        buffer.flush();
+
+        verify(repository).applyAll(List.of(new ProgressUpdate(1L, 10L, 25)));
+        assertEquals(0, buffer.stats().pending());
+    }
+
+    @Test
+    @DisplayName("Deve descartar o pendente quando a página é alterada explicitamente")
+    void shouldDiscardPendingProgress() {
+        buffer.record(1L, "erick", 10L, 20);
+
+        buffer.discard(10L);
+        buffer.flush();
+
+        assertEquals(OptionalInt.empty(), buffer.pendingPage(10L));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    @DisplayName("Alteração explícita durante o flush deve desfazer a gravação da página antiga")
+    void shouldNotWriteProgressDiscardedWhileInFlight() {
+        buffer.record(1L, "erick", 10L, 300);
+        buffer.record(2L, "maria", 11L, 7);
+        when(repository.applyAll(anyList()))
+                .thenAnswer(invocation -> {
+                    // A PUT explícita (página 50) commita enquanto o flush espera a trava da linha
+                    buffer.discard(10L);
+                    assertEquals(OptionalInt.empty(), buffer.pendingPage(10L)); // A página em gravação não aparece mais
+                    return new int[]{1, 1};
+                })
+                .thenReturn(new int[]{1});
+
+        buffer.flush();
+
+        assertEquals(OptionalInt.empty(), buffer.pendingPage(10L));
+        assertEquals(OptionalInt.of(7), buffer.pendingPage(11L)); // O outro item do chunk volta para o próximo flush
+        assertEquals(0, buffer.stats().flushes());
+        assertEquals(0, buffer.stats().failures());
+
+        buffer.flush();
+
+        verify(repository).applyAll(List.of(new ProgressUpdate(2L, 11L, 7)));
+        assertEquals(1, buffer.stats().flushes());
+    }
+
+    @Test
+    @DisplayName("Deve recusar novos itens quando o buffer está cheio")
+    void shouldRejectWhenFull() {
+        buffer.record(1L, "erick", 10L, 1);
+        buffer.record(1L, "erick", 11L, 1);
+        buffer.record(1L, "erick", 12L, 1);
+
+        assertThrows(ServerBusyException.class, () -> buffer.record(1L, "erick", 13L, 1));
+        assertEquals(2, buffer.record(1L, "erick", 12L, 2)); // Item já pendente continua aceito
+    }
+
+    @Test
+    @DisplayName("Deve gravar tudo no desligamento e, depois dele, gravar cada envio na hora")
+    void shouldFlushOnShutdown() {
+        buffer.start();
+        buffer.record(1L, "erick", 10L, 20);
+
+        buffer.shutdown();
+        verify(repository).applyAll(List.of(new ProgressUpdate(1L, 10L, 20)));
+
+        buffer.record(1L, "erick", 10L, 30);
+        verify(repository).applyAll(List.of(new ProgressUpdate(1L, 10L, 30)));
+        assertEquals(0, buffer.stats().pending());
+    }
+}
@@ -0,0 +1,168 @@
+package br.com.management.api_library.service;
+
+import br.com.management.api_library.dto.ReadingStatsDTO;
+import br.com.management.api_library.dto.ShelfItemStateDTO;
+import br.com.management.api_library.exception.ResourceNotFoundException;
+import br.com.management.api_library.model.ReadingStatus;
+import br.com.management.api_library.model.UserMonthlyCompletions;
+import br.com.management.api_library.model.UserReadingStats;
+import br.com.management.api_library.repository.UserBookRepository;
+import br.com.management.api_library.repository.UserMonthlyCompletionsRepository;
+import br.com.management.api_library.repository.UserReadingStatsRepository;
+import br.com.management.api_library.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReadingStatsServiceTest {
+
+    private static final Long USER_ID = 1L;
+    private static final LocalDateTime OCTOBER = LocalDateTime.of(2026, 10, 12, 21, 30);
+
+    @Mock
+    private UserReadingStatsRepository userReadingStatsRepository;
+
+    @Mock
+    private UserMonthlyCompletionsRepository userMonthlyCompletionsRepository;
+
+    @Mock
+    private UserBookRepository userBookRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    // Template real sobre um gerenciador de transações falso: executa o callback direto
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @InjectMocks
+    private ReadingStatsService readingStatsService;
+
+    @Test
+    @DisplayName("Deve somar só a diferença entre o antes e o depois do item")
+    void shouldApplyDeltaOfChangedItem() {
+        ShelfItemStateDTO before = new ShelfItemStateDTO(10L, USER_ID, ReadingStatus.READING, 0.0, false, 120, null);
+        ShelfItemStateDTO after = new ShelfItemStateDTO(10L, USER_ID, ReadingStatus.COMPLETED, 4.0, true, 320, OCTOBER);
+        when(userReadingStatsRepository.applyDelta(USER_ID, -1, 1, 0, 0, 1, 200, 4.0, 1)).thenReturn(1);
+
+        readingStatsService.applyChange(USER_ID, List.of(before), List.of(after));
+
+        verify(userReadingStatsRepository).applyDelta(USER_ID, -1, 1, 0, 0, 1, 200, 4.0, 1);
+        // Primeiro concluído do mês: o UPDATE não acha a linha e ela é criada
+        verify(userMonthlyCompletionsRepository).applyDelta(USER_ID, LocalDate.of(2026, 10, 1), 1);
+        verify(userMonthlyCompletionsRepository).insertMonth(USER_ID, LocalDate.of(2026, 10, 1), 1);
+    }
+
+    @Test
+    @DisplayName("Usuário ainda sem estatísticas não deve ter nada mantido (a primeira consulta calcula)")
+    void shouldSkipUserWithoutStats() {
+        ShelfItemStateDTO added = new ShelfItemStateDTO(10L, USER_ID, ReadingStatus.COMPLETED, 0.0, false, 0, OCTOBER);
+        when(userReadingStatsRepository.applyDelta(USER_ID, 0, 1, 0, 0, 0, 0, 0.0, 0)).thenReturn(0);
+
+        readingStatsService.applyChange(USER_ID, List.of(), List.of(added));
+
+        verifyNoInteractions(userMonthlyCompletionsRepository);
+    }
+
+    @Test
+    @DisplayName("Alteração que não mexe em nenhum contador não deve ir ao banco")
+    void shouldIgnoreNeutralChange() {
+        ShelfItemStateDTO item = new ShelfItemStateDTO(10L, USER_ID, ReadingStatus.COMPLETED, 5.0, false, 300, OCTOBER);
+
+        readingStatsService.applyChange(USER_ID, List.of(item), List.of(item));
+
+        verifyNoInteractions(userReadingStatsRepository, userMonthlyCompletionsRepository);
+    }
+
+    @Test
+    @DisplayName("Deve calcular a data de conclusão só na passagem para COMPLETED")
+    void shouldComputeCompletedAt() {
+        LocalDateTime now = LocalDateTime.of(2026, 10, 18, 8, 0);
+        ShelfItemStateDTO reading = new ShelfItemStateDTO(10L, USER_ID, ReadingStatus.READING, 0.0, false, 10, null);
+        ShelfItemStateDTO completed = new ShelfItemStateDTO(10L, USER_ID, ReadingStatus.COMPLETED, 0.0, false, 10, OCTOBER);
+
+        assertEquals(now, ReadingStatsService.completedAt(reading, ReadingStatus.COMPLETED, now));
+        assertEquals(OCTOBER, ReadingStatsService.completedAt(completed, ReadingStatus.COMPLETED, now));
+        assertNull(ReadingStatsService.completedAt(completed, ReadingStatus.READING, now));
+        assertEquals(now, ReadingStatsService.completedAt(null, ReadingStatus.COMPLETED, now));
+    }
+
+    @Test
+    @DisplayName("Deve montar a resposta a partir da linha de estatísticas, sem varrer a estante")
+    void shouldBuildStatsFromMaintainedRow() {
+        UserReadingStats stats = new UserReadingStats();
+        stats.setUserId(USER_ID);
+        stats.setReadingCount(1);
+        stats.setCompletedCount(3);
+        stats.setFavoritesCount(2);
+        stats.setPagesRead(940);
+        stats.setRatingSum(9.0);
+        stats.setRatingCount(2);
+        UserMonthlyCompletions october = new UserMonthlyCompletions();
+        october.setMonthStart(LocalDate.of(2026, 10, 1));
+        october.setCompletedCount(2);
+
+        when(userRepository.findIdByUsername("erick")).thenReturn(Optional.of(USER_ID));
+        when(userReadingStatsRepository.findById(USER_ID)).thenReturn(Optional.of(stats));
+        when(userMonthlyCompletionsRepository.findNonEmptyByUserId(USER_ID)).thenReturn(List.of(october));
+
+        ReadingStatsDTO response = readingStatsService.getStats("erick");
+
+        assertEquals(4, response.totalBooks());
+        assertEquals(3L, response.countsByStatus().get(ReadingStatus.COMPLETED));
+        assertEquals(0L, response.countsByStatus().get(ReadingStatus.DROPPED));
+        assertEquals(4.5, response.averageRating());
+        assertEquals("2026-10", response.completedPerMonth().getFirst().month());
+        verify(userReadingStatsRepository, never()).insertComputedFromShelf(any());
+    }
+
+    @Test
+    @DisplayName("Na primeira consulta, deve calcular as estatísticas a partir da estante")
+    void shouldComputeStatsOnFirstRead() {
+        UserReadingStats computed = new UserReadingStats();
+        computed.setUserId(USER_ID);
+        computed.setWantToReadCount(2);
+
+        when(userRepository.findIdByUsername("erick")).thenReturn(Optional.of(USER_ID));
+        when(userReadingStatsRepository.findById(USER_ID)).thenReturn(Optional.empty(), Optional.of(computed));
+        when(userBookRepository.countByCompletionMonth(USER_ID, ReadingStatus.COMPLETED))
+                .thenReturn(List.<Object[]>of(new Object[]{2026, 9, 1L}));
+
+        ReadingStatsDTO response = readingStatsService.getStats("erick");
+
+        var inOrder = inOrder(userRepository, userReadingStatsRepository, userMonthlyCompletionsRepository);
+        inOrder.verify(userRepository).lockShelfById(USER_ID); // Nenhuma escrita na estante no meio do cálculo
+        inOrder.verify(userReadingStatsRepository).insertComputedFromShelf(USER_ID);
+        inOrder.verify(userMonthlyCompletionsRepository).insertMonth(USER_ID, LocalDate.of(2026, 9, 1), 1L);
+        assertEquals(2, response.totalBooks());
+        assertNull(response.averageRating());
+    }
+
+    @Test
+    @DisplayName("Deve lançar exceção se o usuário não existir")
+    void shouldThrowWhenUserNotFound() {
+        when(userRepository.findIdByUsername("fantasma")).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> readingStatsService.getStats("fantasma"));
+        verify(userReadingStatsRepository, never()).applyDelta(any(), anyLong(), anyLong(), anyLong(), anyLong(),
+                anyLong(), anyLong(), anyDouble(), anyLong());
+    }
+}
@@ -0,0 +1,65 @@
+package br.com.management.api_library.service;
+
+import br.com.management.api_library.repository.BookRepository;
+import br.com.management.api_library.repository.UserBulkRepository;
+import br.com.management.api_library.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SearchColumnsBackfillTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserBulkRepository userBulkRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SearchColumnsBackfill backfill;
+
+    @AfterEach
+    void tearDown() {
+        backfill.shutdown();
+    }
+
+    @Test
+    @DisplayName("Passo que falha deve ser tentado de novo, sem deixar as buscas no modo sem índice para sempre")
+    void shouldRetryFailedStepUntilItCompletes() throws InterruptedException {
+        backfill = new SearchColumnsBackfill(userRepository, userBulkRepository, bookRepository, transactionTemplate,
+                Duration.ofMillis(10));
+        when(userRepository.findMissingFullNameSearch(eq(0L), any())).thenReturn(List.of());
+        when(bookRepository.findIdsMissingNormalizedColumns(eq(0L), any()))
+                .thenThrow(new DataAccessResourceFailureException("banco fora do ar"))
+                .thenReturn(List.of());
+
+        backfill.run();
+
+        for (int attempt = 0; attempt < 500 && backfill.isBookColumnsPending(); attempt++) {
+            Thread.sleep(10);
+        }
+        assertFalse(backfill.isBookColumnsPending());
+        verify(bookRepository, times(2)).findIdsMissingNormalizedColumns(eq(0L), any());
+        // O passo dos usuários já tinha terminado e não roda de novo
+        verify(userRepository, times(1)).findMissingFullNameSearch(eq(0L), any());
+    }
+}
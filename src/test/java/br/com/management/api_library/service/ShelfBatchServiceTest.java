@@ -0,0 +1,197 @@
+package br.com.management.api_library.service;
+
+import br.com.management.api_library.dto.ShelfBatchOperationDTO;
+import br.com.management.api_library.dto.ShelfBatchOperationDTO.Type;
+import br.com.management.api_library.dto.ShelfBatchResultDTO;
+import br.com.management.api_library.dto.ShelfBatchResultDTO.Status;
+import br.com.management.api_library.dto.ShelfItemRequestDTO;
+import br.com.management.api_library.dto.ShelfItemResponseDTO;
+import br.com.management.api_library.dto.ShelfItemStateDTO;
+import br.com.management.api_library.exception.ResourceNotFoundException;
+import br.com.management.api_library.model.ReadingStatus;
+import br.com.management.api_library.repository.BookRepository;
+import br.com.management.api_library.repository.ShelfTombstoneRepository;
+import br.com.management.api_library.repository.UserBookRepository;
+import br.com.management.api_library.repository.UserBookUpsertRepository;
+import br.com.management.api_library.repository.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ShelfBatchServiceTest {
+
+    private static final Long USER_ID = 1L;
+    private static final long VERSION = 7L;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private BookRepository bookRepository;
+
+    @Mock
+    private UserBookRepository userBookRepository;
+
+    @Mock
+    private UserBookUpsertRepository userBookUpsertRepository;
+
+    @Mock
+    private ShelfTombstoneRepository shelfTombstoneRepository;
+
+    @Mock
+    private ReadingProgressBuffer readingProgressBuffer;
+
+    @Mock
+    private ReadingStatsService readingStatsService;
+
+    @InjectMocks
+    private ShelfBatchService shelfBatchService;
+
+    @Test
+    @DisplayName("Deve aplicar inclusões, alterações e remoções com uma escrita por tipo")
+    void shouldApplyMixedBatch() {
+        // ARRANGE
+        ShelfItemRequestDTO progress = new ShelfItemRequestDTO(ReadingStatus.READING, null, null, 120, null);
+        List<ShelfBatchOperationDTO> operations = List.of(
+                new ShelfBatchOperationDTO(Type.ADD, 5L, null, null),
+                new ShelfBatchOperationDTO(Type.UPDATE, null, 10L, progress),
+                new ShelfBatchOperationDTO(Type.REMOVE, null, 11L, null),
+                new ShelfBatchOperationDTO(Type.ADD, 6L, null, null));
+
+        when(userRepository.findIdByUsername("erick")).thenReturn(Optional.of(USER_ID));
+        when(userRepository.findShelfVersionById(USER_ID)).thenReturn(Optional.of(VERSION));
+        when(userBookRepository.findOwnedIds(Set.of(10L, 11L), USER_ID)).thenReturn(List.of(10L, 11L));
+        ShelfItemStateDTO before10 = new ShelfItemStateDTO(10L, USER_ID, ReadingStatus.WANT_TO_READ, 0.0, false, 0, null);
+        ShelfItemStateDTO before11 = new ShelfItemStateDTO(11L, USER_ID, ReadingStatus.DROPPED, 3.0, true, 50, null);
+        when(userBookRepository.findOwnedItemStates(Set.of(10L, 11L), USER_ID)).thenReturn(List.of(before10, before11));
+        when(bookRepository.findExistingIds(Set.of(5L, 6L))).thenReturn(List.of(5L, 6L));
+        when(userBookUpsertRepository.insertAllIfAbsent(eq(USER_ID), eq(VERSION), anyList())).thenReturn(new int[]{1, 0});
+        when(userBookUpsertRepository.updateAllOwned(eq(USER_ID), eq(VERSION), anyList())).thenReturn(new int[]{1});
+        when(userBookRepository.findItemsByUserAndBookIds(USER_ID, List.of(5L, 6L))).thenReturn(List.of(
+                item(20L, 5L, ReadingStatus.WANT_TO_READ, 0),
+                item(21L, 6L, ReadingStatus.COMPLETED, 300)));
+        when(userBookRepository.findItemsByIds(Set.of(10L))).thenReturn(List.of(item(10L, 7L, ReadingStatus.READING, 120)));
+
+        // ACT
+        List<ShelfBatchResultDTO> results = shelfBatchService.applyBatch("erick", operations);
+
+        // ASSERT
+        assertEquals(Status.CREATED, results.get(0).status());
+        assertEquals(20L, results.get(0).item().userBookId());
+        assertEquals(Status.UPDATED, results.get(1).status());
+        assertEquals(120, results.get(1).item().currentPage());
+        assertEquals(Status.REMOVED, results.get(2).status());
+        assertEquals(Status.ALREADY_ON_SHELF, results.get(3).status());
+        assertEquals(ReadingStatus.COMPLETED, results.get(3).item().readingStatus());
+
+        verify(userRepository, times(1)).bumpShelfVersionById(USER_ID); // Uma versão nova para o lote inteiro
+        verify(shelfTombstoneRepository).insertForOwnedItems(Set.of(11L), USER_ID, VERSION);
+        verify(userBookRepository).deleteOwnedItems(Set.of(11L), USER_ID);
+        verify(readingProgressBuffer).discard(11L);
+        verify(readingProgressBuffer).discard(10L); // Página informada explicitamente no UPDATE
+        verify(userBookUpsertRepository).insertAllIfAbsent(eq(USER_ID), eq(VERSION), argThat(items -> items.size() == 2
+                && items.getFirst().readingStatus() == ReadingStatus.WANT_TO_READ)); // Padrões da inclusão individual
+        verify(userBookRepository, never()).findExistingIds(anyCollection()); // Tudo do usuário: sem consulta de erro
+        // Uma diferença só para o lote: saem o removido e o estado anterior do alterado, entram o alterado e o incluído
+        verify(readingStatsService).applyChange(USER_ID, List.of(before11, before10), List.of(
+                new ShelfItemStateDTO(10L, USER_ID, ReadingStatus.READING, 0.0, false, 120, null),
+                new ShelfItemStateDTO(null, USER_ID, ReadingStatus.WANT_TO_READ, 0.0, false, 0, null)));
+    }
+
+    @Test
+    @DisplayName("Alterações seguidas do mesmo item devem manter a data da primeira conclusão")
+    void shouldComputeCompletedAtAcrossSequentialUpdates() {
+        List<ShelfBatchOperationDTO> operations = List.of(
+                new ShelfBatchOperationDTO(Type.UPDATE, null, 10L, new ShelfItemRequestDTO(ReadingStatus.COMPLETED, null, null, null, null)),
+                new ShelfBatchOperationDTO(Type.UPDATE, null, 10L, new ShelfItemRequestDTO(null, 4.0, null, null, null)));
+
+        when(userRepository.findIdByUsername("erick")).thenReturn(Optional.of(USER_ID));
+        when(userRepository.findShelfVersionById(USER_ID)).thenReturn(Optional.of(VERSION));
+        when(userBookRepository.findOwnedIds(Set.of(10L), USER_ID)).thenReturn(List.of(10L));
+        when(userBookRepository.findOwnedItemStates(Set.of(10L), USER_ID)).thenReturn(List.of(
+                new ShelfItemStateDTO(10L, USER_ID, ReadingStatus.READING, 0.0, false, 200, null)));
+        when(userBookRepository.findItemsByIds(Set.of(10L))).thenReturn(List.of(item(10L, 7L, ReadingStatus.COMPLETED, 200)));
+
+        shelfBatchService.applyBatch("erick", operations);
+
+        verify(userBookUpsertRepository).updateAllOwned(eq(USER_ID), eq(VERSION), argThat(updates -> updates.size() == 2
+                && updates.get(0).completedAt() != null
+                && updates.get(0).completedAt().equals(updates.get(1).completedAt())));
+        verify(readingStatsService).applyChange(eq(USER_ID), anyCollection(), argThat(after -> after.size() == 1
+                && after.iterator().next().readingStatus() == ReadingStatus.COMPLETED
+                && after.iterator().next().rating() == 4.0));
+    }
+
+    @Test
+    @DisplayName("Deve separar item de outro usuário (FORBIDDEN) de item inexistente (NOT_FOUND)")
+    void shouldReportOwnershipErrorsPerOperation() {
+        List<ShelfBatchOperationDTO> operations = List.of(
+                new ShelfBatchOperationDTO(Type.REMOVE, null, 30L, null),
+                new ShelfBatchOperationDTO(Type.UPDATE, null, 31L, new ShelfItemRequestDTO(ReadingStatus.READING, null, null, null, null)));
+
+        when(userRepository.findIdByUsername("erick")).thenReturn(Optional.of(USER_ID));
+        when(userRepository.findShelfVersionById(USER_ID)).thenReturn(Optional.of(VERSION));
+        when(userBookRepository.findOwnedIds(Set.of(30L, 31L), USER_ID)).thenReturn(List.of());
+        when(userBookRepository.findExistingIds(Set.of(30L, 31L))).thenReturn(List.of(30L));
+
+        List<ShelfBatchResultDTO> results = shelfBatchService.applyBatch("erick", operations);
+
+        assertEquals(Status.FORBIDDEN, results.get(0).status());
+        assertEquals(Status.NOT_FOUND, results.get(1).status());
+        verify(userBookRepository, never()).deleteOwnedItems(anyCollection(), any());
+        verifyNoInteractions(userBookUpsertRepository, shelfTombstoneRepository);
+    }
+
+    @Test
+    @DisplayName("Deve recusar por operação livro inexistente, operação incompleta e alteração de item removido no lote")
+    void shouldReportInvalidOperations() {
+        List<ShelfBatchOperationDTO> operations = List.of(
+                new ShelfBatchOperationDTO(Type.ADD, 99L, null, null),
+                new ShelfBatchOperationDTO(Type.UPDATE, null, 10L, null),
+                new ShelfBatchOperationDTO(Type.REMOVE, null, 12L, null),
+                new ShelfBatchOperationDTO(Type.UPDATE, null, 12L, new ShelfItemRequestDTO(ReadingStatus.COMPLETED, null, null, null, null)));
+
+        when(userRepository.findIdByUsername("erick")).thenReturn(Optional.of(USER_ID));
+        when(userRepository.findShelfVersionById(USER_ID)).thenReturn(Optional.of(VERSION));
+        when(userBookRepository.findOwnedIds(Set.of(12L), USER_ID)).thenReturn(List.of(12L));
+        when(userBookRepository.findOwnedItemStates(Set.of(12L), USER_ID)).thenReturn(List.of(
+                new ShelfItemStateDTO(12L, USER_ID, ReadingStatus.READING, 0.0, false, 10, null)));
+        when(bookRepository.findExistingIds(Set.of(99L))).thenReturn(List.of());
+
+        List<ShelfBatchResultDTO> results = shelfBatchService.applyBatch("erick", operations);
+
+        assertEquals(Status.NOT_FOUND, results.get(0).status());
+        assertEquals(Status.INVALID, results.get(1).status());
+        assertEquals(Status.REMOVED, results.get(2).status());
+        assertEquals(Status.NOT_FOUND, results.get(3).status());
+        verifyNoInteractions(userBookUpsertRepository);
+    }
+
+    @Test
+    @DisplayName("Deve lançar exceção se o usuário não existir")
+    void shouldThrowWhenUserNotFound() {
+        when(userRepository.findIdByUsername("fantasma")).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> shelfBatchService.applyBatch("fantasma",
+                List.of(new ShelfBatchOperationDTO(Type.ADD, 1L, null, null))));
+    }
+
+    private ShelfItemResponseDTO item(Long userBookId, Long bookId, ReadingStatus status, int currentPage) {
+        return new ShelfItemResponseDTO(userBookId, bookId, "Livro " + bookId, "Autor", status, 0.0, null, false, currentPage);
+    }
+}
@@ -1,35 +1,48 @@
 package br.com.management.api_library.service;
 
 import br.com.management.api_library.dto.BookResponseDTO;
+import br.com.management.api_library.dto.CursorPageDTO;
+import br.com.management.api_library.dto.ReadingProgressResponseDTO;
+import br.com.management.api_library.dto.ShelfChangesDTO;
 import br.com.management.api_library.dto.ShelfItemRequestByIsbnDTO;
 import br.com.management.api_library.dto.ShelfItemRequestDTO;
 import br.com.management.api_library.dto.ShelfItemResponseDTO;
-import br.com.management.api_library.exception.BookAlreadyExistsOnShelfException;
+import br.com.management.api_library.dto.ShelfItemStateDTO;
 import br.com.management.api_library.exception.ResourceNotFoundException;
+import br.com.management.api_library.exception.ShelfItemNotFoundException;
 import br.com.management.api_library.exception.UnauthorizedShelfAccessException;
-import br.com.management.api_library.model.Book;
 import br.com.management.api_library.model.ReadingStatus;
-import br.com.management.api_library.model.User;
-import br.com.management.api_library.model.UserBook;
-import br.com.management.api_library.repository.BookRepository;
+import br.com.management.api_library.repository.ReadingProgressRepository;
+import br.com.management.api_library.repository.ShelfTombstoneRepository;
 import br.com.management.api_library.repository.UserBookRepository;
+import br.com.management.api_library.repository.UserBookUpsertRepository;
 import br.com.management.api_library.repository.UserRepository;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,11 +55,27 @@ class ShelfServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private BookRepository bookRepository;
+    private UserBookUpsertRepository userBookUpsertRepository;
+
+    @Mock
+    private ShelfTombstoneRepository shelfTombstoneRepository;
+
+    @Mock
+    private ReadingProgressRepository readingProgressRepository;
+
+    @Mock
+    private ReadingProgressBuffer readingProgressBuffer;
+
+    @Mock
+    private ReadingStatsService readingStatsService;
 
     @Mock
     private BookService bookService;
 
+    // Template real sobre um gerenciador de transações falso: executa o callback direto
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private ShelfService shelfService;
 
@@ -60,50 +89,76 @@ class ShelfServiceTest {
         Long bookId = 1L;
         ShelfItemRequestDTO dto = new ShelfItemRequestDTO(ReadingStatus.READING, 5.0, "Ótimo", 100, true);
 
-        User user = new User(); user.setUsername(username);
-        Book book = new Book(); book.setId(bookId); book.setTitle("Livro Teste"); book.setAuthor("Autor Teste");
-
-        UserBook savedUserBook = new UserBook();
-        savedUserBook.setId(10L);
-        savedUserBook.setUser(user);
-        savedUserBook.setBook(book);
-        savedUserBook.setReadingStatus(ReadingStatus.READING);
-
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
-        when(userBookRepository.findByUserAndBook(user, book)).thenReturn(Optional.empty()); // Garante que não existe
-        when(userBookRepository.save(any(UserBook.class))).thenReturn(savedUserBook);
+        when(bookService.getById(bookId)).thenReturn(new BookResponseDTO(bookId, "978", "Livro Teste", "Autor Teste", "Pub", "Gen", "Desc", "PT", 100));
+        when(userBookUpsertRepository.insertIfAbsent(username, bookId, ReadingStatus.READING, 5.0, "Ótimo", 100, true, null))
+                .thenReturn(Optional.of(new UserBookUpsertRepository.Result(10L, 1L, ReadingStatus.READING, 5.0, "Ótimo", 100, true, null, true)));
 
         // ACT
-        ShelfItemResponseDTO response = shelfService.addBookToShelf(username, bookId, dto);
+        ShelfService.AddResult result = shelfService.addBookToShelf(username, bookId, dto);
 
         // ASSERT
-        assertNotNull(response);
-        assertEquals(savedUserBook.getId(), response.userBookId());
-        verify(userBookRepository, times(1)).save(any(UserBook.class));
+        assertTrue(result.created());
+        assertEquals(10L, result.item().userBookId());
+        assertEquals("Livro Teste", result.item().title());
+        verify(userRepository, never()).findByUsername(any()); // O dono é resolvido dentro do próprio upsert
+        verify(userBookRepository, never()).findByUserAndBook(any(), any());
+        verify(readingStatsService).applyChange(1L, List.of(), List.of(
+                new ShelfItemStateDTO(10L, 1L, ReadingStatus.READING, 5.0, true, 100, null))); // Entra nas estatísticas
+    }
+
+    @Test
+    @DisplayName("Livro incluído já concluído deve receber a data de conclusão")
+    void shouldSetCompletedAtWhenAddingCompletedBook() {
+        ShelfItemRequestDTO dto = new ShelfItemRequestDTO(ReadingStatus.COMPLETED, null, null, null, null);
+
+        when(bookService.getById(1L)).thenReturn(new BookResponseDTO(1L, "978", "T", "A", "P", "G", "D", "PT", 10));
+        when(userBookUpsertRepository.insertIfAbsent(eq("erick"), eq(1L), eq(ReadingStatus.COMPLETED), eq(0.0), isNull(),
+                eq(0), eq(false), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(new UserBookUpsertRepository.Result(12L, 1L, ReadingStatus.COMPLETED, 0.0, null, 0, false,
+                        LocalDateTime.of(2026, 10, 1, 9, 0), true)));
+
+        shelfService.addBookToShelf("erick", 1L, dto);
+
+        verify(userBookUpsertRepository).insertIfAbsent(any(), any(), any(), any(), any(), anyInt(), anyBoolean(),
+                argThat(completedAt -> completedAt != null));
     }
 
     @Test
-    @DisplayName("Deve lançar exceção ao tentar adicionar livro duplicado")
-    void shouldThrowExceptionWhenBookAlreadyOnShelf() {
+    @DisplayName("Deve aplicar os valores padrão aos campos nulos")
+    void shouldApplyDefaultsWhenAddingBook() {
+        ShelfItemRequestDTO dto = new ShelfItemRequestDTO(null, null, null, null, null);
+
+        when(bookService.getById(1L)).thenReturn(new BookResponseDTO(1L, "978", "T", "A", "P", "G", "D", "PT", 10));
+        when(userBookUpsertRepository.insertIfAbsent("erick", 1L, ReadingStatus.WANT_TO_READ, 0.0, null, 0, false, null))
+                .thenReturn(Optional.of(new UserBookUpsertRepository.Result(11L, 1L, ReadingStatus.WANT_TO_READ, 0.0, null, 0, false, null, true)));
+
+        ShelfService.AddResult result = shelfService.addBookToShelf("erick", 1L, dto);
+
+        assertEquals(ReadingStatus.WANT_TO_READ, result.item().readingStatus());
+    }
+
+    @Test
+    @DisplayName("Deve devolver o item existente quando o livro já está na estante")
+    void shouldReturnExistingItemWhenBookAlreadyOnShelf() {
         // ARRANGE
         String username = "erick";
         Long bookId = 1L;
         ShelfItemRequestDTO dto = new ShelfItemRequestDTO(ReadingStatus.WANT_TO_READ, null, null, null, false);
 
-        User user = new User();
-        Book book = new Book();
+        when(bookService.getById(bookId)).thenReturn(new BookResponseDTO(bookId, "978", "T", "A", "P", "G", "D", "PT", 10));
+        // Já existe: o upsert não altera o item e devolve o estado atual dele
+        when(userBookUpsertRepository.insertIfAbsent(username, bookId, ReadingStatus.WANT_TO_READ, 0.0, null, 0, false, null))
+                .thenReturn(Optional.of(new UserBookUpsertRepository.Result(7L, 1L, ReadingStatus.COMPLETED, 4.0, "Lido", 300, true,
+                        LocalDateTime.of(2026, 1, 5, 20, 0), false)));
 
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-        when(bookRepository.findById(bookId)).thenReturn(Optional.of(book));
-        // Simula que JÁ EXISTE
-        when(userBookRepository.findByUserAndBook(user, book)).thenReturn(Optional.of(new UserBook()));
-
-        // ACT & ASSERT
-        assertThrows(BookAlreadyExistsOnShelfException.class, () ->
-                shelfService.addBookToShelf(username, bookId, dto));
+        // ACT
+        ShelfService.AddResult result = shelfService.addBookToShelf(username, bookId, dto);
 
-        verify(userBookRepository, never()).save(any());
+        // ASSERT
+        assertFalse(result.created());
+        assertEquals(7L, result.item().userBookId());
+        assertEquals(ReadingStatus.COMPLETED, result.item().readingStatus());
+        verifyNoInteractions(readingStatsService); // Nada mudou na estante
     }
 
     @Test
@@ -113,11 +168,11 @@ class ShelfServiceTest {
         Long bookId = 99L;
         ShelfItemRequestDTO dto = new ShelfItemRequestDTO(ReadingStatus.WANT_TO_READ, null, null, null, false);
 
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(new User()));
-        when(bookRepository.findById(bookId)).thenReturn(Optional.empty());
+        when(bookService.getById(bookId)).thenThrow(new ResourceNotFoundException("Livro não encontrado com ID: " + bookId));
 
         assertThrows(ResourceNotFoundException.class, () ->
                 shelfService.addBookToShelf(username, bookId, dto));
+        verifyNoInteractions(userBookUpsertRepository);
     }
 
     // --- TESTES DE ADICIONAR POR ISBN (addBookToShelfByIsbn) ---
@@ -133,50 +188,35 @@ class ShelfServiceTest {
         // Mock do retorno do BookService
         BookResponseDTO bookResponseDTO = new BookResponseDTO(1L, isbn,"Titulo", "Autor", "Publisher", "Gen", "Desc", "Lang", 100);
 
-        User user = new User(); user.setUsername(username);
-        Book book = new Book(); book.setId(1L); book.setTitle("Titulo"); book.setAuthor("Autor"); // Mesmos dados do DTO
-
-        UserBook savedUserBook = new UserBook();
-        savedUserBook.setId(50L);
-        savedUserBook.setBook(book);
-        savedUserBook.setUser(user);
-
         // 1. Simula o BookService achando/criando o livro
         when(bookService.findOrCreateBookByIsbn(isbn)).thenReturn(bookResponseDTO);
 
         // 2. Simulações internas do metodo addBookToShelf (que é chamado dentro do ByIsbn)
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
-        when(userBookRepository.findByUserAndBook(user, book)).thenReturn(Optional.empty());
-        when(userBookRepository.save(any(UserBook.class))).thenReturn(savedUserBook);
+        when(bookService.getById(1L)).thenReturn(bookResponseDTO);
+        when(userBookUpsertRepository.insertIfAbsent(username, 1L, ReadingStatus.WANT_TO_READ, 0.0, null, 0, false, null))
+                .thenReturn(Optional.of(new UserBookUpsertRepository.Result(50L, 1L, ReadingStatus.WANT_TO_READ, 0.0, null, 0, false, null, true)));
 
         // ACT
-        ShelfItemResponseDTO response = shelfService.addBookToShelfByIsbn(username, isbnDto);
+        ShelfService.AddResult result = shelfService.addBookToShelfByIsbn(username, isbnDto);
 
         // ASSERT
-        assertNotNull(response);
-        assertEquals(50L, response.userBookId());
+        assertNotNull(result);
+        assertEquals(50L, result.item().userBookId());
         verify(bookService).findOrCreateBookByIsbn(isbn); // Garante que chamou o BookService
-        verify(userBookRepository).save(any()); // Garante que salvou na estante
+        verify(userBookUpsertRepository).insertIfAbsent(any(), any(), any(), any(), any(), anyInt(), anyBoolean(), any()); // Garante que salvou na estante
     }
 
     // --- TESTES DE LISTAGEM (getUserShelf) ---
 
     @Test
-    @DisplayName("Deve listar estante do usuário paginada")
+    @DisplayName("Deve listar estante do usuário paginada direto da projeção")
     void shouldGetUserShelfPaginated() {
         // ARRANGE
         String username = "erick";
         Pageable pageable = PageRequest.of(0, 10);
-        User user = new User();
-
-        Book book = new Book(); book.setTitle("Book"); book.setAuthor("Auth");
-        UserBook ub1 = new UserBook(); ub1.setBook(book); ub1.setUser(user);
+        ShelfItemResponseDTO item = new ShelfItemResponseDTO(1L, 2L, "Book", "Auth", ReadingStatus.READING, null, null, false, 0);
 
-        Page<UserBook> page = new PageImpl<>(List.of(ub1));
-
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-        when(userBookRepository.findByUser(user, pageable)).thenReturn(page);
+        when(userBookRepository.findShelfPage(username, pageable)).thenReturn(new PageImpl<>(List.of(item)));
 
         // ACT
         Page<ShelfItemResponseDTO> result = shelfService.getUserShelf(username, pageable);
@@ -185,30 +225,80 @@ class ShelfServiceTest {
         assertNotNull(result);
         assertEquals(1, result.getTotalElements());
         assertEquals("Book", result.getContent().getFirst().title());
+        verify(userRepository, never()).findByUsername(any());
+    }
+
+    @Test
+    @DisplayName("Deve mostrar na listagem o progresso ainda não gravado")
+    void shouldOverlayPendingProgressOnShelf() {
+        Pageable pageable = PageRequest.of(0, 10);
+        ShelfItemResponseDTO item = new ShelfItemResponseDTO(1L, 2L, "Book", "Auth", ReadingStatus.READING, null, null, false, 40);
+
+        when(userBookRepository.findShelfPage("erick", pageable)).thenReturn(new PageImpl<>(List.of(item)));
+        when(readingProgressBuffer.pendingPage(1L)).thenReturn(OptionalInt.of(75));
+
+        Page<ShelfItemResponseDTO> result = shelfService.getUserShelf("erick", pageable);
+
+        assertEquals(75, result.getContent().getFirst().currentPage());
+    }
+
+    @Test
+    @DisplayName("Deve listar estante por cursor sem contar o total")
+    void shouldScrollUserShelf() {
+        // ARRANGE
+        String username = "erick";
+        ShelfItemResponseDTO item30 = new ShelfItemResponseDTO(30L, 1L, "Book", "Auth", ReadingStatus.READING, null, null, false, null);
+        ShelfItemResponseDTO item20 = new ShelfItemResponseDTO(20L, 1L, "Book", "Auth", ReadingStatus.READING, null, null, false, null);
+        ShelfItemResponseDTO item10 = new ShelfItemResponseDTO(10L, 1L, "Book", "Auth", ReadingStatus.READING, null, null, false, null);
+
+        // Página de 2: a consulta pede 3 linhas e a terceira só indica que há próxima
+        when(userBookRepository.findShelfItemsBefore(username, Long.MAX_VALUE, Limit.of(3)))
+                .thenReturn(List.of(item30, item20, item10));
+
+        // ACT
+        CursorPageDTO<ShelfItemResponseDTO> result = shelfService.scrollUserShelf(username, null, 2);
+
+        // ASSERT
+        assertEquals(2, result.content().size());
+        assertTrue(result.hasNext());
+        assertEquals(20L, KeysetCursor.decode(result.nextCursor()).id());
+        verify(userBookRepository, never()).findShelfPage(any(), any(Pageable.class));
+        verify(userRepository, never()).findByUsername(any());
+    }
+
+    @Test
+    @DisplayName("Deve continuar a estante depois do id guardado no cursor")
+    void shouldScrollUserShelfAfterCursor() {
+        // ARRANGE
+        String username = "erick";
+        ShelfItemResponseDTO item10 = new ShelfItemResponseDTO(10L, 1L, "Book", "Auth", ReadingStatus.READING, null, null, false, null);
+        when(userBookRepository.findShelfItemsBefore(username, 20L, Limit.of(3))).thenReturn(List.of(item10));
+
+        // ACT
+        CursorPageDTO<ShelfItemResponseDTO> result = shelfService.scrollUserShelf(username, new KeysetCursor(null, 20L).encode(), 2);
+
+        // ASSERT
+        assertEquals(List.of(item10), result.content());
+        assertFalse(result.hasNext());
+        assertNull(result.nextCursor());
     }
 
     // --- TESTES DE ATUALIZAÇÃO (updateBookOnShelf) ---
 
     @Test
-    @DisplayName("Deve atualizar item da estante com sucesso")
+    @DisplayName("Deve atualizar item da estante com um UPDATE filtrado pelo dono")
     void shouldUpdateBookOnShelfSuccess() {
         // ARRANGE
         String username = "erick";
         Long userBookId = 10L;
         ShelfItemRequestDTO dto = new ShelfItemRequestDTO(ReadingStatus.COMPLETED, 5.0, "Amei", null, null);
+        ShelfItemStateDTO before = new ShelfItemStateDTO(userBookId, 1L, ReadingStatus.READING, 0.0, false, 120, null);
+        ShelfItemResponseDTO updated = new ShelfItemResponseDTO(userBookId, 1L, "T", "A", ReadingStatus.COMPLETED, 5.0, "Amei", false, 120);
 
-        User user = new User(); user.setUsername(username);
-        Book book = new Book(); book.setId(1L); book.setTitle("T"); book.setAuthor("A");
-
-        UserBook existingItem = new UserBook();
-        existingItem.setId(userBookId);
-        existingItem.setUser(user); // Dono correto
-        existingItem.setBook(book);
-        existingItem.setReadingStatus(ReadingStatus.READING);
-
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-        when(userBookRepository.findById(userBookId)).thenReturn(Optional.of(existingItem));
-        when(userBookRepository.save(any(UserBook.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(userBookRepository.findOwnedItemState(userBookId, username)).thenReturn(Optional.of(before));
+        when(userBookRepository.updateOwnedItem(eq(userBookId), eq(username), eq(ReadingStatus.COMPLETED), eq(5.0), eq("Amei"),
+                isNull(), isNull(), any(LocalDateTime.class))).thenReturn(1);
+        when(userBookRepository.findItemById(userBookId)).thenReturn(Optional.of(updated));
 
         // ACT
         ShelfItemResponseDTO response = shelfService.updateBookOnShelf(username, userBookId, dto);
@@ -216,50 +306,195 @@ class ShelfServiceTest {
         // ASSERT
         assertEquals(ReadingStatus.COMPLETED, response.readingStatus());
         assertEquals("Amei", response.review());
+        verify(userRepository).bumpShelfVersion(username); // Item marcado com a nova versão da estante
+        verify(userRepository, never()).findByUsername(any()); // Dono checado na projeção do item
+        verify(userBookRepository, never()).findById(any());
+        // Estatísticas: sai o item em leitura, entra o concluído agora, com a nota
+        verify(readingStatsService).applyChange(eq(1L), eq(List.of(before)), argThat(after -> {
+            ShelfItemStateDTO item = after.iterator().next();
+            return item.readingStatus() == ReadingStatus.COMPLETED && item.rating() == 5.0 && item.currentPage() == 120
+                    && item.completedAt() != null;
+        }));
+    }
+
+    @Test
+    @DisplayName("Item que já estava concluído deve manter a data de conclusão")
+    void shouldKeepCompletedAtWhenUpdatingCompletedItem() {
+        LocalDateTime completedAt = LocalDateTime.of(2026, 3, 14, 22, 0);
+        ShelfItemStateDTO before = new ShelfItemStateDTO(10L, 1L, ReadingStatus.COMPLETED, 0.0, false, 300, completedAt);
+        ShelfItemRequestDTO dto = new ShelfItemRequestDTO(null, 4.5, null, null, null);
+
+        when(userBookRepository.findOwnedItemState(10L, "erick")).thenReturn(Optional.of(before));
+        when(userBookRepository.findItemById(10L)).thenReturn(Optional.of(
+                new ShelfItemResponseDTO(10L, 1L, "T", "A", ReadingStatus.COMPLETED, 4.5, null, false, 300)));
+
+        shelfService.updateBookOnShelf("erick", 10L, dto);
+
+        verify(userBookRepository).updateOwnedItem(10L, "erick", null, 4.5, null, null, null, completedAt);
     }
 
     @Test
     @DisplayName("Deve lançar erro de autorização se tentar atualizar item de outro usuário")
     void shouldThrowUnauthorizedWhenUpdatingOtherUsersItem() {
         // ARRANGE
-        String username = "hacker";
         Long userBookId = 10L;
         ShelfItemRequestDTO dto = new ShelfItemRequestDTO(ReadingStatus.COMPLETED, null, null, null, null);
 
-        User hacker = new User(); hacker.setUsername("hacker"); hacker.setId(2L);
-        User owner = new User(); owner.setUsername("dono"); owner.setId(1L);
-
-        UserBook existingItem = new UserBook();
-        existingItem.setId(userBookId);
-        existingItem.setUser(owner); // O item pertence ao "dono"
-
-        when(userRepository.findByUsername("hacker")).thenReturn(Optional.of(hacker));
-        when(userBookRepository.findById(userBookId)).thenReturn(Optional.of(existingItem));
+        // Nenhum item do usuário com esse id, mas o item existe: pertence a outro usuário
+        when(userBookRepository.findOwnedItemState(userBookId, "hacker")).thenReturn(Optional.empty());
+        when(userBookRepository.existsById(userBookId)).thenReturn(true);
 
         // ACT & ASSERT
         assertThrows(UnauthorizedShelfAccessException.class, () ->
-                shelfService.updateBookOnShelf(username, userBookId, dto));
+                shelfService.updateBookOnShelf("hacker", userBookId, dto));
+        verify(userBookRepository, never()).updateOwnedItem(any(), any(), any(), any(), any(), any(), any(), any());
+        verify(userBookRepository, never()).findItemById(any());
+        verifyNoInteractions(readingStatsService);
+    }
+
+    @Test
+    @DisplayName("Deve lançar 404 ao atualizar item inexistente")
+    void shouldThrowNotFoundWhenUpdatingMissingItem() {
+        ShelfItemRequestDTO dto = new ShelfItemRequestDTO(ReadingStatus.READING, null, null, null, null);
+
+        when(userBookRepository.findOwnedItemState(99L, "erick")).thenReturn(Optional.empty());
+        when(userBookRepository.existsById(99L)).thenReturn(false);
+
+        assertThrows(ShelfItemNotFoundException.class, () ->
+                shelfService.updateBookOnShelf("erick", 99L, dto));
+    }
+
+    @Test
+    @DisplayName("Página informada no UPDATE deve descartar o progresso pendente")
+    void shouldDiscardPendingProgressWhenPageIsSetExplicitly() {
+        ShelfItemRequestDTO dto = new ShelfItemRequestDTO(ReadingStatus.READING, null, null, 5, null);
+        ShelfItemResponseDTO updated = new ShelfItemResponseDTO(10L, 1L, "T", "A", ReadingStatus.READING, null, null, false, 5);
+
+        when(userBookRepository.findOwnedItemState(10L, "erick")).thenReturn(Optional.of(
+                new ShelfItemStateDTO(10L, 1L, ReadingStatus.READING, 0.0, false, 40, null)));
+        when(userBookRepository.findItemById(10L)).thenReturn(Optional.of(updated));
+
+        shelfService.updateBookOnShelf("erick", 10L, dto);
+
+        verify(readingProgressBuffer).discard(10L);
+    }
+
+    // --- TESTES DE PROGRESSO DE LEITURA (updateReadingProgress) ---
+
+    @Test
+    @DisplayName("Deve checar o dono uma vez e acumular o progresso em memória")
+    void shouldBufferReadingProgress() {
+        when(readingProgressBuffer.pendingOwner(10L, "erick")).thenReturn(Optional.empty());
+        when(readingProgressRepository.findOwned(10L, "erick")).thenReturn(Optional.of(new ReadingProgressRepository.Target(1L, 40)));
+        when(readingProgressBuffer.record(1L, "erick", 10L, 52)).thenReturn(52);
+
+        ReadingProgressResponseDTO response = shelfService.updateReadingProgress("erick", 10L, 52);
+
+        assertEquals(52, response.currentPage());
+        verify(userBookRepository, never()).updateOwnedItem(any(), any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Com progresso pendente do mesmo usuário, não deve consultar o banco")
+    void shouldSkipOwnerLookupWhenProgressIsPending() {
+        when(readingProgressBuffer.pendingOwner(10L, "erick")).thenReturn(Optional.of(1L));
+        when(readingProgressBuffer.record(1L, "erick", 10L, 60)).thenReturn(60);
+
+        assertEquals(60, shelfService.updateReadingProgress("erick", 10L, 60).currentPage());
+        verifyNoInteractions(readingProgressRepository);
+    }
+
+    @Test
+    @DisplayName("Envio atrasado não deve fazer a página voltar")
+    void shouldIgnoreStaleReadingProgress() {
+        when(readingProgressBuffer.pendingOwner(10L, "erick")).thenReturn(Optional.empty());
+        when(readingProgressRepository.findOwned(10L, "erick")).thenReturn(Optional.of(new ReadingProgressRepository.Target(1L, 80)));
+
+        ReadingProgressResponseDTO response = shelfService.updateReadingProgress("erick", 10L, 70);
+
+        assertEquals(80, response.currentPage());
+        verify(readingProgressBuffer, never()).record(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Deve recusar progresso em item de outro usuário")
+    void shouldRejectReadingProgressOnOtherUsersItem() {
+        when(readingProgressBuffer.pendingOwner(10L, "hacker")).thenReturn(Optional.empty());
+        when(readingProgressRepository.findOwned(10L, "hacker")).thenReturn(Optional.empty());
+        when(userBookRepository.existsById(10L)).thenReturn(true);
+
+        assertThrows(UnauthorizedShelfAccessException.class, () -> shelfService.updateReadingProgress("hacker", 10L, 10));
+        verify(readingProgressBuffer, never()).record(any(), any(), any(), anyInt());
     }
 
     // --- TESTES DE REMOÇÃO (removeBookFromShelf) ---
 
     @Test
-    @DisplayName("Deve remover item da estante com sucesso")
+    @DisplayName("Deve remover item da estante deixando a marca de remoção, tudo filtrado pelo dono")
     void shouldRemoveBookFromShelfSuccess() {
         // ARRANGE
         String username = "erick";
         Long userBookId = 10L;
 
-        User user = new User(); user.setUsername(username);
-        UserBook item = new UserBook(); item.setId(userBookId); item.setUser(user);
+        ShelfItemStateDTO before = new ShelfItemStateDTO(userBookId, 1L, ReadingStatus.DROPPED, 2.0, false, 35, null);
 
-        when(userRepository.findByUsername(username)).thenReturn(Optional.of(user));
-        when(userBookRepository.findById(userBookId)).thenReturn(Optional.of(item));
+        when(userBookRepository.findOwnedItemState(userBookId, username)).thenReturn(Optional.of(before));
 
         // ACT
         shelfService.removeBookFromShelf(username, userBookId);
 
         // ASSERT
-        verify(userBookRepository, times(1)).delete(item);
+        var inOrder = inOrder(userRepository, userBookRepository, shelfTombstoneRepository);
+        inOrder.verify(userRepository).bumpShelfVersion(username);
+        inOrder.verify(userBookRepository).findOwnedItemState(userBookId, username);
+        inOrder.verify(shelfTombstoneRepository).insertForOwnedItem(userBookId, username);
+        inOrder.verify(userBookRepository).deleteOwnedItem(userBookId, username);
+        verify(readingStatsService).applyChange(1L, List.of(before), List.of()); // Sai das estatísticas
+        verify(readingProgressBuffer).discard(userBookId);
+        verify(userBookRepository, never()).existsById(any());
+        verify(userRepository, never()).findByUsername(any());
+    }
+
+    @Test
+    @DisplayName("Deve lançar erro de autorização ao remover item de outro usuário")
+    void shouldThrowUnauthorizedWhenRemovingOtherUsersItem() {
+        when(userBookRepository.findOwnedItemState(10L, "hacker")).thenReturn(Optional.empty());
+        when(userBookRepository.existsById(10L)).thenReturn(true);
+
+        assertThrows(UnauthorizedShelfAccessException.class, () ->
+                shelfService.removeBookFromShelf("hacker", 10L));
+        verify(userBookRepository, never()).deleteOwnedItem(any(), any());
+        verifyNoInteractions(shelfTombstoneRepository, readingStatsService);
+    }
+
+    // --- TESTES DA SINCRONIZAÇÃO INCREMENTAL (getChangesSince) ---
+
+    @Test
+    @DisplayName("Deve devolver só as mudanças depois da versão informada")
+    void shouldReturnChangesSinceVersion() {
+        ShelfItemResponseDTO changed = new ShelfItemResponseDTO(10L, 1L, "T", "A", ReadingStatus.READING, null, null, false, 50);
+
+        when(userRepository.findShelfVersionByUsername("erick")).thenReturn(Optional.of(42L));
+        when(userBookRepository.findChangedSince("erick", 40L)).thenReturn(List.of(changed));
+        when(shelfTombstoneRepository.findRemovedSince("erick", 40L)).thenReturn(List.of(7L));
+
+        ShelfChangesDTO changes = shelfService.getChangesSince("erick", 40L);
+
+        assertEquals(42L, changes.version());
+        assertEquals(List.of(changed), changes.changed());
+        assertEquals(List.of(7L), changes.removed());
+    }
+
+    @Test
+    @DisplayName("Sem versão, deve devolver a estante inteira e nenhuma remoção")
+    void shouldReturnFullShelfWithoutSince() {
+        when(userRepository.findShelfVersionByUsername("erick")).thenReturn(Optional.of(3L));
+        when(userBookRepository.findChangedSince("erick", -1)).thenReturn(List.of());
+
+        ShelfChangesDTO changes = shelfService.getChangesSince("erick", null);
+
+        assertEquals(3L, changes.version());
+        assertTrue(changes.removed().isEmpty());
+        verifyNoInteractions(shelfTombstoneRepository);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,149 @@
+package br.com.management.api_library.service;
+
+import br.com.management.api_library.exception.ResourceNotFoundException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    @DisplayName("Chamadas concorrentes com a mesma chave devem compartilhar uma única execução")
+    void shouldShareOneExecutionBetweenConcurrentCallers() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("978", () -> {
+                calls.incrementAndGet();
+                await(release);
+                return "livro";
+            }));
+            waitUntil(() -> singleFlight.stats().inFlight() == 1);
+
+            Future<String> follower1 = executor.submit(() -> singleFlight.execute("978", () -> "outro"));
+            Future<String> follower2 = executor.submit(() -> singleFlight.execute("978", () -> "outro"));
+            waitUntil(() -> singleFlight.stats().coalesced() == 2);
+            release.countDown();
+
+            assertEquals("livro", leader.get(5, TimeUnit.SECONDS));
+            assertEquals("livro", follower1.get(5, TimeUnit.SECONDS));
+            assertEquals("livro", follower2.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        SingleFlight.Stats stats = singleFlight.stats();
+        assertEquals(1, calls.get());
+        assertEquals(1, stats.executions());
+        assertEquals(2, stats.coalesced());
+        assertEquals(0, stats.inFlight());
+        assertEquals(2.0 / 3, stats.coalescingRatio(), 0.0001);
+    }
+
+    @Test
+    @DisplayName("A exceção do líder deve chegar a quem estava esperando")
+    void shouldPropagateLeaderExceptionToFollowers() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("978", () -> {
+                await(release);
+                throw new ResourceNotFoundException("Livro não encontrado");
+            }));
+            waitUntil(() -> singleFlight.stats().inFlight() == 1);
+
+            Future<String> follower = executor.submit(() -> singleFlight.execute("978", () -> "outro"));
+            waitUntil(() -> singleFlight.stats().coalesced() == 1);
+            release.countDown();
+
+            Exception leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            Exception followerError = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(ResourceNotFoundException.class, leaderError.getCause());
+            assertInstanceOf(ResourceNotFoundException.class, followerError.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Depois que a execução termina, a próxima chamada deve executar de novo")
+    void shouldNotKeepResultsAfterCompletion() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        singleFlight.execute("978", calls::incrementAndGet);
+        singleFlight.execute("978", calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+        assertEquals(0, singleFlight.stats().coalesced());
+    }
+
+    @Test
+    @DisplayName("No modo assíncrono, quem chega durante a execução deve receber o mesmo resultado")
+    void shouldShareAsyncExecution() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> leader = singleFlight.executeAsync("978", () -> {
+            calls.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<String> follower = singleFlight.executeAsync("978", () -> {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("outro");
+        });
+
+        assertFalse(leader.isDone());
+        pending.complete("livro");
+
+        assertEquals("livro", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("livro", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.stats().inFlight());
+    }
+
+    @Test
+    @DisplayName("No modo assíncrono, a falha deve chegar sem o embrulho de CompletionException")
+    void shouldUnwrapAsyncFailure() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+        CompletableFuture<String> result = singleFlight.executeAsync("978",
+                () -> CompletableFuture.supplyAsync(() -> { throw new ResourceNotFoundException("Livro não encontrado"); }));
+
+        Exception error = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ResourceNotFoundException.class, error.getCause());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condição não atingida a tempo");
+            }
+            Thread.sleep(5);
+        }
+    }
+}
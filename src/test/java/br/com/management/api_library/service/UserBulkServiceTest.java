@@ -0,0 +1,176 @@
+package br.com.management.api_library.service;
+
+import br.com.management.api_library.dto.UserBulkCreateResultDTO;
+import br.com.management.api_library.dto.UserCreateDTO;
+import br.com.management.api_library.dto.UserDeletionJobDTO;
+import br.com.management.api_library.exception.UserNotFoundException;
+import br.com.management.api_library.model.Role;
+import br.com.management.api_library.model.User;
+import br.com.management.api_library.repository.RoleRepository;
+import br.com.management.api_library.repository.UserBulkRepository;
+import br.com.management.api_library.repository.UserRepository;
+import br.com.management.api_library.service.security.PasswordHashingExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserBulkServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private RoleRepository roleRepository;
+    @Mock
+    private UserBulkRepository userBulkRepository;
+    @Mock
+    private PasswordEncoder passwordEncoder;
+    @Mock
+    private UserService userService;
+
+    private final PasswordHashingExecutor passwordHashingExecutor = new PasswordHashingExecutor(4, 16);
+    private final AtomicLong nextId = new AtomicLong(100);
+
+    private UserBulkService userBulkService;
+
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        userBulkService = new UserBulkService(userRepository, roleRepository, userBulkRepository, passwordEncoder,
+                passwordHashingExecutor, transactionTemplate, userService);
+
+        Role roleUser = new Role();
+        roleUser.setId(1L);
+        roleUser.setName("ROLE_USER");
+        lenient().when(roleRepository.findByName("ROLE_USER")).thenReturn(Optional.of(roleUser));
+        lenient().when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> "hash:" + invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashingExecutor.shutdown();
+        userBulkService.shutdown();
+    }
+
+    @Test
+    void deveChecarUnicidadeDoLoteInteiroEmDuasConsultas() {
+        when(userRepository.findExistingUsernamesIgnoreCase(anyCollection())).thenReturn(List.of("existente"));
+        when(userRepository.findExistingEmailsIgnoreCase(anyCollection())).thenReturn(List.of());
+        when(userBulkRepository.insertAll(anyList(), eq(1L))).thenAnswer(invocation -> ids(invocation.getArgument(0)));
+
+        List<UserBulkCreateResultDTO> results = userBulkService.createUsers(List.of(
+                new UserCreateDTO("novo", "senha123", "novo@email.com", "Novo"),
+                new UserCreateDTO("EXISTENTE", "senha123", "outro@email.com", "Existente"),
+                new UserCreateDTO("Novo", "senha123", "novo2@email.com", "Repetido no lote"),
+                new UserCreateDTO("terceiro", "senha123", "NOVO@email.com", "E-mail repetido no lote")));
+
+        assertEquals(UserBulkCreateResultDTO.Status.CREATED, results.get(0).status());
+        assertEquals(UserBulkCreateResultDTO.Status.DUPLICATE_USERNAME, results.get(1).status());
+        assertEquals(UserBulkCreateResultDTO.Status.DUPLICATE_USERNAME, results.get(2).status());
+        assertEquals(UserBulkCreateResultDTO.Status.DUPLICATE_EMAIL, results.get(3).status());
+        assertEquals(100L, results.get(0).user().id());
+
+        verify(userRepository, times(1)).findExistingUsernamesIgnoreCase(anyCollection());
+        verify(userRepository, times(1)).findExistingEmailsIgnoreCase(anyCollection());
+        verify(userBulkRepository).insertAll(argThat(users ->
+                users.size() == 1 && users.get(0).getPassword().equals("hash:senha123")), eq(1L));
+    }
+
+    @Test
+    void deveHashearTodasAsSenhasNaOrdemCertaEGravarEmGrupos() {
+        when(userRepository.findExistingUsernamesIgnoreCase(anyCollection())).thenReturn(List.of());
+        when(userRepository.findExistingEmailsIgnoreCase(anyCollection())).thenReturn(List.of());
+        when(userBulkRepository.insertAll(anyList(), eq(1L))).thenAnswer(invocation -> ids(invocation.getArgument(0)));
+
+        List<UserCreateDTO> requests = java.util.stream.IntStream.range(0, 1200)
+                .mapToObj(i -> new UserCreateDTO("user" + i, "senha" + i, "user" + i + "@email.com", "User " + i))
+                .toList();
+
+        List<UserBulkCreateResultDTO> results = userBulkService.createUsers(requests);
+
+        assertEquals(1200, results.size());
+        assertTrue(results.stream().allMatch(result -> result.status() == UserBulkCreateResultDTO.Status.CREATED));
+        assertEquals("user1199", results.get(1199).user().username());
+        // 1200 usuários em grupos de 500: 3 batches
+        verify(userBulkRepository, times(3)).insertAll(anyList(), eq(1L));
+        verify(userBulkRepository).insertAll(argThat(users ->
+                users.size() == 200 && users.get(199).getPassword().equals("hash:senha1199")), eq(1L));
+    }
+
+    @Test
+    void deveGravarLinhaALinhaQuandoOGrupoConflitar() {
+        when(userRepository.findExistingUsernamesIgnoreCase(anyCollection())).thenReturn(List.of());
+        when(userRepository.findExistingEmailsIgnoreCase(anyCollection())).thenReturn(List.of());
+        when(userBulkRepository.insertAll(anyList(), eq(1L))).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            if (users.size() > 1 || users.get(0).getUsername().equals("concorrente")) {
+                throw new DataIntegrityViolationException("duplicate key");
+            }
+            return ids(users);
+        });
+
+        List<UserBulkCreateResultDTO> results = userBulkService.createUsers(List.of(
+                new UserCreateDTO("ok", "senha123", "ok@email.com", "Ok"),
+                new UserCreateDTO("concorrente", "senha123", "c@email.com", "Criado em paralelo")));
+
+        assertEquals(UserBulkCreateResultDTO.Status.CREATED, results.get(0).status());
+        assertEquals(UserBulkCreateResultDTO.Status.FAILED, results.get(1).status());
+    }
+
+    @Test
+    void deveExcluirEmSegundoPlanoERegistrarOResultadoDeCadaId() throws Exception {
+        // Sem este stub o Mockito estrito recusa o deleteUser(1L) (argumento diferente dos outros stubs)
+        doNothing().when(userService).deleteUser(1L);
+        doThrow(new UserNotFoundException("não existe")).when(userService).deleteUser(2L);
+        doThrow(new IllegalStateException("falha no banco")).when(userService).deleteUser(3L);
+
+        UserDeletionJobDTO started = userBulkService.startDeletion(List.of(1L, 2L, 3L, 1L));
+        assertEquals(3, started.total()); // Ids repetidos contam uma vez
+
+        UserDeletionJobDTO job = awaitCompletion(started.id());
+        assertEquals(1, job.deleted());
+        assertEquals(List.of(2L), job.notFound());
+        assertEquals(List.of(3L), job.failed());
+        assertNotNull(job.finishedAt());
+        verify(userService, times(1)).deleteUser(1L);
+    }
+
+    @Test
+    void deveRetornarVazioParaJobDesconhecido() {
+        assertTrue(userBulkService.getDeletionJob("nao-existe").isEmpty());
+    }
+
+    private UserDeletionJobDTO awaitCompletion(String jobId) throws InterruptedException {
+        for (int attempt = 0; attempt < 500; attempt++) {
+            UserDeletionJobDTO job = userBulkService.getDeletionJob(jobId).orElseThrow();
+            if (job.status() == UserDeletionJobDTO.Status.COMPLETED) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        fail("A exclusão não terminou a tempo");
+        return null;
+    }
+
+    private List<Long> ids(List<User> users) {
+        return users.stream().map(user -> nextId.getAndIncrement()).toList();
+    }
+}
@@ -6,16 +6,29 @@ import br.com.management.api_library.exception.UsernameAlreadyExistsException;
 import br.com.management.api_library.model.Role;
 import br.com.management.api_library.model.User;
 import br.com.management.api_library.repository.RoleRepository;
+import br.com.management.api_library.repository.ShelfTombstoneRepository;
+import br.com.management.api_library.repository.UserBookRepository;
 import br.com.management.api_library.repository.UserRepository;
+import br.com.management.api_library.service.cache.PrincipalCache;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,13 +42,26 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
     @Mock
+    private UserBookRepository userBookRepository;
+    @Mock
+    private ShelfTombstoneRepository shelfTombstoneRepository;
+    @Mock
+    private ReadingStatsService readingStatsService;
+    @Mock
     private RoleRepository roleRepository;
     @Mock
     private PasswordEncoder passwordEncoder;
+    @Spy
+    private PrincipalCache principalCache = new PrincipalCache(100, Duration.ofMinutes(1));
 
-    @InjectMocks
     private UserService userService;
 
+    @BeforeEach
+    void setUp() {
+        // Construído à mão porque o construtor também recebe a flag da busca por trigramas (H2 = false)
+        userService = new UserService(userRepository, userBookRepository, shelfTombstoneRepository, readingStatsService, roleRepository, passwordEncoder, principalCache, false);
+    }
+
     @Test
     void deveLancarErroQuandoUsernameJaExiste() {
         // Arrange
@@ -112,4 +138,144 @@ class UserServiceTest {
         assertThrows(UsernameNotFoundException.class,
                 () -> userService.loadUserByUsername("inexistente"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void deveInvalidarUsuarioAutenticadoEmCacheAoAtualizar() {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("antigo");
+        user.setRoles(new java.util.HashSet<>());
+        principalCache.get("antigo", () -> Optional.of(user));
+
+        UserCreateDTO dto = new UserCreateDTO("novo", null, "novo@email.com", "Novo Nome");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(userRepository.save(any(User.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        userService.updateUser(1L, dto);
+
+        verify(principalCache).evict("antigo");
+        verify(principalCache).evict("novo");
+        assertEquals(0, principalCache.stats().size());
+    }
+
+    @Test
+    void deveInvalidarUsuarioAutenticadoEmCacheAoDeletar() {
+        when(userRepository.findUsernameById(2L)).thenReturn(Optional.of("removido"));
+
+        // Dentro de uma transação, a remoção do cache espera o commit
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userService.deleteUser(2L);
+            verify(principalCache, never()).evict(any());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(principalCache).evict("removido");
+    }
+
+    @Test
+    void deveExcluirEstanteRolesEUsuarioComUmDeleteCadaSemCarregarEntidades() {
+        when(userRepository.findUsernameById(2L)).thenReturn(Optional.of("leitor"));
+        when(userBookRepository.deleteAllByUserId(2L)).thenReturn(3000);
+
+        userService.deleteUser(2L);
+
+        var inOrder = inOrder(userBookRepository, userRepository);
+        inOrder.verify(userBookRepository).deleteAllByUserId(2L);
+        verify(shelfTombstoneRepository).deleteAllByUserId(2L);
+        verify(readingStatsService).deleteForUser(2L);
+        inOrder.verify(userRepository).deleteRolesByUserId(2L);
+        inOrder.verify(userRepository).deleteUserRowById(2L);
+        verify(userRepository, never()).findById(any());
+        verify(userBookRepository, never()).deleteAll(any());
+    }
+
+    @Test
+    void deveSalvarNovoHashQuandoSenhaForRehasheadaNoLogin() {
+        User user = new User();
+        user.setId(3L);
+        user.setUsername("antigo");
+        user.setPassword("$2a$04$hashComCustoBaixo");
+        when(userRepository.findByUsername("antigo")).thenReturn(Optional.of(user));
+
+        UserDetails details = org.springframework.security.core.userdetails.User
+                .withUsername("antigo").password(user.getPassword()).authorities("ROLE_USER").build();
+
+        UserDetails updated = userService.updatePassword(details, "$2a$12$hashComCustoNovo");
+
+        assertEquals("$2a$12$hashComCustoNovo", updated.getPassword());
+        assertEquals("$2a$12$hashComCustoNovo", user.getPassword());
+        verify(userRepository).save(user);
+    }
+
+    @Test
+    void deveBuscarPorNomeSemAcentoEIgnorandoOSortPedido() {
+        UserResponseDTO jose = new UserResponseDTO(1L, "ze", "ze@email.com", "José da Conceição");
+        when(userRepository.searchByFullNameRanked(eq("jose da"), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(jose)));
+
+        Page<UserResponseDTO> page = userService.searchByTerm("  JOSÉ   da ", PageRequest.of(0, 10, Sort.by("username")));
+
+        assertEquals(1, page.getTotalElements());
+        verify(userRepository).searchByFullNameRanked(eq("jose da"), eq(PageRequest.of(0, 10)));
+        verify(userRepository, never()).searchByFullNameTrigram(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    void deveEscaparCuringasDoLikeNaBusca() {
+        when(userRepository.searchByFullNameRanked(anyString(), any(Pageable.class))).thenReturn(Page.empty());
+
+        userService.searchByTerm("100%_real", PageRequest.of(0, 10));
+
+        verify(userRepository).searchByFullNameRanked(eq("100\\%\\_real"), any(Pageable.class));
+    }
+
+    @Test
+    void deveUsarBuscaPorTrigramasQuandoHabilitada() {
+        UserService postgresService = new UserService(userRepository, userBookRepository, shelfTombstoneRepository, readingStatsService, roleRepository, passwordEncoder, principalCache, true);
+        when(userRepository.searchByFullNameTrigram(anyString(), any(Pageable.class))).thenReturn(Page.empty());
+
+        postgresService.searchByTerm("vini", PageRequest.of(0, 10));
+
+        verify(userRepository).searchByFullNameTrigram(eq("vini"), any(Pageable.class));
+    }
+
+    @Test
+    void deveVoltarParaBuscaSemTrigramasQuandoPgTrgmNaoExiste() {
+        // V4 não aplicada: sem a extensão, o similarity() quebraria toda busca
+        UserService postgresService = new UserService(userRepository, userBookRepository, shelfTombstoneRepository, readingStatsService, roleRepository, passwordEncoder, principalCache, true);
+        when(userRepository.countInstalledExtensions("pg_trgm")).thenReturn(0L);
+        when(userRepository.searchByFullNameRanked(anyString(), any(Pageable.class))).thenReturn(Page.empty());
+
+        postgresService.checkTrigramSupport();
+        postgresService.searchByTerm("vini", PageRequest.of(0, 10));
+
+        verify(userRepository).searchByFullNameRanked(eq("vini"), any(Pageable.class));
+        verify(userRepository, never()).searchByFullNameTrigram(anyString(), any(Pageable.class));
+    }
+
+    @Test
+    void naoDeveConsultarExtensoesComTrigramasDesligado() {
+        userService.checkTrigramSupport();
+
+        verify(userRepository, never()).countInstalledExtensions(anyString());
+    }
+
+    @Test
+    void deveRetornarPaginaVaziaParaTermoEmBranco() {
+        assertTrue(userService.searchByTerm("   ", PageRequest.of(0, 10)).isEmpty());
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void deveListarComFiltrosNormalizadosEOrdenacaoSomentePorColunasPermitidas() {
+        when(userRepository.findSummaries(anyString(), anyString(), any(), any(Pageable.class))).thenReturn(Page.empty());
+
+        userService.listUsers(" Vi ", null, "admin", PageRequest.of(1, 5, Sort.by("password").and(Sort.by("username"))));
+
+        verify(userRepository).findSummaries("%vi%", "%", "ROLE_ADMIN", PageRequest.of(1, 5, Sort.by("username")));
+    }
+}
@@ -0,0 +1,89 @@
+package br.com.management.api_library.service.cache;
+
+import br.com.management.api_library.dto.BookResponseDTO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    @DisplayName("Deve encontrar pelo ISBN um livro carregado pelo ID")
+    void shouldShareEntriesBetweenIdAndIsbn() {
+        BookCache cache = new BookCache(10, Duration.ofMinutes(1), now::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getById(1L, () -> { loads.incrementAndGet(); return Optional.of(book(1L, "978-1")); });
+        Optional<BookResponseDTO> byIsbn = cache.getByIsbn("978-1", () -> { loads.incrementAndGet(); return Optional.empty(); });
+
+        assertTrue(byIsbn.isPresent());
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    @DisplayName("Deve expirar entradas após o TTL")
+    void shouldExpireAfterTtl() {
+        BookCache cache = new BookCache(10, Duration.ofSeconds(30), now::get);
+        cache.put(book(1L, "978-1"));
+
+        now.addAndGet(Duration.ofSeconds(31).toNanos());
+        Optional<BookResponseDTO> result = cache.getById(1L, Optional::empty);
+
+        assertTrue(result.isEmpty());
+        assertEquals(1, cache.stats().evictions());
+        assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    @DisplayName("Deve remover o menos usado recentemente ao atingir o limite")
+    void shouldEvictLeastRecentlyUsed() {
+        BookCache cache = new BookCache(2, Duration.ofMinutes(1), now::get);
+        cache.put(book(1L, "978-1"));
+        cache.put(book(2L, "978-2"));
+        cache.getById(1L, Optional::empty); // 1 passa a ser o mais recente
+        cache.put(book(3L, "978-3"));
+
+        assertTrue(cache.getById(2L, Optional::empty).isEmpty());
+        assertTrue(cache.getByIsbn("978-1", Optional::empty).isPresent());
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    @DisplayName("Não deve repopular o cache com um carregamento concorrente a uma invalidação")
+    void shouldNotCacheLoadRacingWithInvalidation() {
+        BookCache cache = new BookCache(10, Duration.ofMinutes(1), now::get);
+
+        cache.getById(1L, () -> {
+            cache.evictById(1L); // escrita acontece enquanto o carregamento está em andamento
+            return Optional.of(book(1L, "978-1"));
+        });
+
+        assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    @DisplayName("Ao regravar o livro com outro ISBN, o ISBN antigo não deve mais achá-lo")
+    void shouldDropOldIsbnWhenBookIsReplaced() {
+        BookCache cache = new BookCache(10, Duration.ofMinutes(1), now::get);
+        cache.put(book(1L, "978-1"));
+        cache.put(book(1L, "978-9"));
+
+        assertTrue(cache.getByIsbn("978-1", Optional::empty).isEmpty());
+        assertTrue(cache.getByIsbn("978-9", Optional::empty).isPresent());
+        assertEquals(1, cache.stats().size());
+    }
+
+    private BookResponseDTO book(Long id, String isbn) {
+        return new BookResponseDTO(id, isbn, "Titulo " + id, "Autor", "Editora", "Genero", null, "PT", 100);
+    }
+}
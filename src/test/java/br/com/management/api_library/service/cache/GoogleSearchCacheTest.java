@@ -0,0 +1,111 @@
+package br.com.management.api_library.service.cache;
+
+import br.com.management.api_library.dto.GoogleBookVolumeInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GoogleSearchCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    @DisplayName("Deve usar a mesma chave para consultas que só diferem em espaços e maiúsculas")
+    void shouldNormalizeQueryInKey() {
+        assertEquals(GoogleSearchCache.keyOf("  Senhor   dos ANÉIS ", 0, 10), GoogleSearchCache.keyOf("senhor dos anéis", 0, 10));
+        assertNotEquals(GoogleSearchCache.keyOf("java", 0, 10), GoogleSearchCache.keyOf("java", 10, 10));
+    }
+
+    @Test
+    @DisplayName("Depois do TTL, deve servir o valor antigo na hora e atualizar em segundo plano")
+    void shouldServeStaleWhileRevalidating() {
+        GoogleSearchCache cache = new GoogleSearchCache(10, Duration.ofMinutes(1), Duration.ofMinutes(10), null, now::get);
+        GoogleSearchCache.Key key = GoogleSearchCache.keyOf("java", 0, 10);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(key, () -> { loads.incrementAndGet(); return Mono.just(result("Antigo")); }).block();
+        now.addAndGet(Duration.ofMinutes(2).toMillis());
+
+        GoogleSearchCache.Result stale = cache.get(key, () -> { loads.incrementAndGet(); return Mono.just(result("Novo")); }).block();
+        GoogleSearchCache.Result refreshed = cache.get(key, () -> { loads.incrementAndGet(); return Mono.just(result("Outro")); }).block();
+
+        assertEquals("Antigo", stale.content().get(0).title());
+        assertEquals("Novo", refreshed.content().get(0).title());
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.stats().staleHits());
+        assertEquals(1, cache.stats().hits());
+    }
+
+    @Test
+    @DisplayName("Depois da janela stale, deve buscar de novo esperando a resposta")
+    void shouldReloadAfterStaleWindow() {
+        GoogleSearchCache cache = new GoogleSearchCache(10, Duration.ofMinutes(1), Duration.ofMinutes(1), null, now::get);
+        GoogleSearchCache.Key key = GoogleSearchCache.keyOf("java", 0, 10);
+        cache.put(key, result("Antigo"));
+
+        now.addAndGet(Duration.ofMinutes(3).toMillis());
+        GoogleSearchCache.Result reloaded = cache.get(key, () -> Mono.just(result("Novo"))).block();
+
+        assertEquals("Novo", reloaded.content().get(0).title());
+        assertEquals(1, cache.stats().misses());
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    @DisplayName("Deve remover a pesquisa menos usada recentemente ao atingir o limite")
+    void shouldEvictLeastRecentlyUsed() {
+        GoogleSearchCache cache = new GoogleSearchCache(2, Duration.ofMinutes(1), Duration.ZERO, null, now::get);
+        GoogleSearchCache.Key java = GoogleSearchCache.keyOf("java", 0, 10);
+        GoogleSearchCache.Key spring = GoogleSearchCache.keyOf("spring", 0, 10);
+        GoogleSearchCache.Key kotlin = GoogleSearchCache.keyOf("kotlin", 0, 10);
+
+        cache.put(java, result("Java"));
+        cache.put(spring, result("Spring"));
+        cache.get(java, Mono::empty).block();
+        cache.put(kotlin, result("Kotlin"));
+
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(spring, () -> { loads.incrementAndGet(); return Mono.empty(); }).block();
+        cache.get(java, () -> { loads.incrementAndGet(); return Mono.empty(); }).block();
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    @DisplayName("Deve gravar em disco e recarregar ao subir, descartando o que já venceu")
+    void shouldPersistAndReloadFromDisk(@TempDir Path directory) {
+        Path file = directory.resolve("google-search-cache.json");
+        GoogleSearchCache.Key key = GoogleSearchCache.keyOf("java", 0, 10);
+
+        GoogleSearchCache before = new GoogleSearchCache(10, Duration.ofMinutes(1), Duration.ofMinutes(1), file, now::get);
+        before.put(key, result("Persistido"));
+        before.saveToDisk();
+
+        GoogleSearchCache after = new GoogleSearchCache(10, Duration.ofMinutes(1), Duration.ofMinutes(1), file, now::get);
+        after.loadFromDisk();
+        GoogleSearchCache.Result loaded = after.get(key, Mono::empty).block();
+
+        assertNotNull(loaded);
+        assertEquals("Persistido", loaded.content().get(0).title());
+
+        now.addAndGet(Duration.ofMinutes(5).toMillis());
+        GoogleSearchCache expired = new GoogleSearchCache(10, Duration.ofMinutes(1), Duration.ofMinutes(1), file, now::get);
+        expired.loadFromDisk();
+        assertEquals(0, expired.stats().size());
+    }
+
+    private GoogleSearchCache.Result result(String title) {
+        GoogleBookVolumeInfo info = new GoogleBookVolumeInfo(title, List.of("Autor"), null, null, null, null, "pt", 100, null);
+        return new GoogleSearchCache.Result(List.of(info), 1);
+    }
+}
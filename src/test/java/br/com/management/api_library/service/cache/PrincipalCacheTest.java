@@ -0,0 +1,127 @@
+package br.com.management.api_library.service.cache;
+
+import br.com.management.api_library.model.Role;
+import br.com.management.api_library.model.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrincipalCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    @DisplayName("Deve consultar o banco só uma vez por usuário dentro do TTL")
+    void shouldLoadOncePerTtl() {
+        PrincipalCache cache = new PrincipalCache(10, Duration.ofSeconds(60), now::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("viini", () -> { loads.incrementAndGet(); return Optional.of(user("viini", "ROLE_USER")); });
+        Optional<PrincipalCache.Principal> cached = cache.get("viini", () -> { loads.incrementAndGet(); return Optional.empty(); });
+
+        assertTrue(cached.isPresent());
+        assertEquals("ROLE_USER", cached.get().authorities().get(0).getAuthority());
+        assertEquals(1, loads.get());
+
+        now.addAndGet(Duration.ofSeconds(61).toNanos());
+        cache.get("viini", () -> { loads.incrementAndGet(); return Optional.of(user("viini", "ROLE_USER")); });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Deve guardar uma cópia sem a senha")
+    void shouldCacheSnapshotWithoutPassword() {
+        PrincipalCache cache = new PrincipalCache(10, Duration.ofSeconds(60), now::get);
+        User original = user("viini", "ROLE_ADMIN");
+
+        User cached = cache.get("viini", () -> Optional.of(original)).orElseThrow().user();
+
+        assertNotSame(original, cached);
+        assertNull(cached.getPassword());
+        assertEquals(original.getId(), cached.getId());
+        assertEquals(1, cached.getRoles().size());
+    }
+
+    @Test
+    @DisplayName("Um carregamento que começou antes da invalidação não deve repopular o cache")
+    void shouldNotRepopulateWithLoadStartedBeforeEviction() {
+        PrincipalCache cache = new PrincipalCache(10, Duration.ofSeconds(60), now::get);
+
+        cache.get("viini", () -> {
+            cache.evict("viini"); // Alteração concorrente enquanto o banco respondia
+            return Optional.of(user("viini", "ROLE_USER"));
+        });
+
+        assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    @DisplayName("Não deve cachear usuário inexistente")
+    void shouldNotCacheMissingUser() {
+        PrincipalCache cache = new PrincipalCache(10, Duration.ofSeconds(60), now::get);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("fantasma", () -> { loads.incrementAndGet(); return Optional.empty(); });
+        cache.get("fantasma", () -> { loads.incrementAndGet(); return Optional.empty(); });
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("Dividido em segmentos, deve respeitar o limite total e contar acertos de várias threads")
+    void shouldStayBoundedAndCountHitsAcrossSegments() throws Exception {
+        PrincipalCache cache = new PrincipalCache(1024, Duration.ofSeconds(60), now::get);
+        for (int i = 0; i < 5000; i++) {
+            String username = "leitor" + i;
+            cache.get(username, () -> Optional.of(user(username, "ROLE_USER")));
+        }
+        PrincipalCache.Stats filled = cache.stats();
+        assertTrue(filled.size() <= 1024);
+        assertEquals(5000 - filled.size(), filled.evictions());
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                readers.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        cache.get("leitor4999", () -> Optional.of(user("leitor4999", "ROLE_USER")));
+                    }
+                }));
+            }
+            for (Future<?> reader : readers) {
+                reader.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // O último carregado continua em cache: as 8000 leituras são acertos
+        assertEquals(8000, cache.stats().hits());
+    }
+
+    private User user(String username, String roleName) {
+        Role role = new Role();
+        role.setName(roleName);
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername(username);
+        user.setPassword("hash");
+        user.setRoles(Set.of(role));
+        return user;
+    }
+}
@@ -0,0 +1,63 @@
+package br.com.management.api_library.service.search;
+
+import br.com.management.api_library.model.Book;
+import br.com.management.api_library.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class BookSearchIndexTest {
+
+    private BookSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BookSearchIndex(mock(BookRepository.class));
+    }
+
+    @Test
+    @DisplayName("Deve ignorar acentos e maiúsculas na tokenização")
+    void shouldFoldAccents() {
+        assertEquals(List.of("coracao", "acao", "poesia"), BookSearchIndex.tokenize("Coração de Ação: POESIA"));
+    }
+
+    @Test
+    @DisplayName("Deve ranquear acerto no título acima de acerto na descrição")
+    void shouldRankTitleMatchesFirst() {
+        index.index(book(1L, "Receitas da vovó", "Um livro sobre memórias e história"));
+        index.index(book(2L, "História do Brasil", "Panorama geral"));
+
+        List<BookSearchIndex.SearchHit> hits = index.search("historia");
+
+        assertEquals(2, hits.size());
+        assertEquals(2L, hits.get(0).bookId());
+    }
+
+    @Test
+    @DisplayName("Deve refletir atualização e remoção sem reconstruir o índice")
+    void shouldUpdateAndRemoveIncrementally() {
+        index.index(book(1L, "Dom Casmurro", null));
+        assertEquals(1, index.search("casmurro").size());
+
+        index.index(book(1L, "Memórias Póstumas", null));
+        assertTrue(index.search("casmurro").isEmpty());
+        assertEquals(1, index.search("memorias").size());
+
+        index.remove(1L);
+        assertTrue(index.search("memorias").isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    private Book book(Long id, String title, String description) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setDescription(description);
+        return book;
+    }
+}
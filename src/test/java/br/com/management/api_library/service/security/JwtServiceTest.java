@@ -4,10 +4,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
@@ -16,14 +19,15 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class JwtServiceTest {
 
-    @InjectMocks
+    private static final String SECRET = "minhaChaveSecretaSuperSegura123456789";
+
     private JwtService jwtService;
 
     @BeforeEach
     void setUp() {
-        // Como não subimos o Spring, o @Value é null. Injetamos manualmente via Reflection.
+        // Como não subimos o Spring, passamos o segredo direto no construtor.
         // O segredo precisa ser forte para o algoritmo HMAC256
-        ReflectionTestUtils.setField(jwtService, "secret", "minhaChaveSecretaSuperSegura123456789");
+        jwtService = new JwtService(SECRET, 100);
     }
 
     @Test
@@ -71,4 +75,72 @@ class JwtServiceTest {
         // Assert
         assertEquals("", resultado);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Deve servir do cache a segunda validação do mesmo token")
+    void deveUsarCacheNaSegundaValidacao() {
+        UserDetails userMock = mock(UserDetails.class);
+        when(userMock.getUsername()).thenReturn("vinicius");
+        String token = jwtService.generateToken(userMock);
+
+        assertEquals("vinicius", jwtService.validateToken(token));
+        assertEquals("vinicius", jwtService.validateToken(token));
+
+        assertEquals(1, jwtService.stats().misses());
+        assertEquals(1, jwtService.stats().hits());
+    }
+
+    @Test
+    @DisplayName("Não deve aceitar do cache um token que já passou da validade")
+    void naoDeveAceitarTokenVencidoDoCache() {
+        MutableClock clock = new MutableClock(Instant.now());
+        JwtService service = new JwtService(SECRET, 100, clock);
+        UserDetails userMock = mock(UserDetails.class);
+        when(userMock.getUsername()).thenReturn("vinicius");
+        String token = service.generateToken(userMock);
+
+        assertEquals("vinicius", service.validateToken(token));
+        clock.advance(Duration.ofDays(1));
+
+        assertEquals("", service.validateToken(token));
+        assertEquals(0, service.stats().size());
+    }
+
+    @Test
+    @DisplayName("Não deve cachear tokens inválidos")
+    void naoDeveCachearTokenInvalido() {
+        jwtService.validateToken("token.invalido.123");
+        jwtService.validateToken("token.invalido.123");
+
+        assertEquals(0, jwtService.stats().size());
+        assertEquals(2, jwtService.stats().misses());
+    }
+
+    // Relógio que o teste pode adiantar, para simular a passagem do tempo
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package br.com.management.api_library.service.security;
+
+import br.com.management.api_library.exception.ServerBusyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingExecutorTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Deve executar o trabalho fora da thread chamadora")
+    void shouldRunOnDedicatedThread() throws Exception {
+        release.countDown();
+
+        String thread = executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+
+        assertTrue(thread.startsWith("password-hashing-"));
+    }
+
+    @Test
+    @DisplayName("call deve esperar o resultado do executor e, dentro dele, rodar direto sem reenfileirar")
+    void shouldCallOnExecutorAndRunInlineWhenAlreadyOnIt() throws Exception {
+        release.countDown();
+
+        // Com uma única thread, reenfileirar o trabalho aninhado esperaria por si mesmo para sempre
+        String nested = executor.submit(() -> executor.call(() -> Thread.currentThread().getName()))
+                .get(5, TimeUnit.SECONDS);
+
+        assertTrue(executor.call(() -> Thread.currentThread().getName()).startsWith("password-hashing-"));
+        assertTrue(nested.startsWith("password-hashing-"));
+        assertThrows(IllegalStateException.class, () -> executor.call(() -> {
+            throw new IllegalStateException("falha no hash");
+        }));
+    }
+
+    @Test
+    @DisplayName("Deve recusar na hora quando a thread e a fila estão ocupadas")
+    void shouldRejectWhenSaturated() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = executor.submit(() -> {
+            started.countDown();
+            return await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = executor.submit(() -> await(release));
+
+        assertThrows(ServerBusyException.class, () -> executor.submit(() -> true));
+        assertEquals(1, executor.stats().rejected());
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Lote deve ir em fatias pequenas, deixando sempre uma thread livre, e manter a ordem")
+    void shouldMapInSmallSlicesBelowPoolSize() {
+        PasswordHashingExecutor pool = new PasswordHashingExecutor(3, 64);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Integer> items = IntStream.range(0, 100).boxed().toList();
+
+        try {
+            List<Integer> results = pool.mapInParallel(items, item -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleepBriefly();
+                running.decrementAndGet();
+                return item * 2;
+            });
+
+            assertEquals(items.stream().map(item -> item * 2).toList(), results);
+            assertTrue(maxRunning.get() <= 2, "no máximo pool - 1 fatias ao mesmo tempo");
+            assertTrue(pool.stats().completed() >= items.size() / PasswordHashingExecutor.SLICE_SIZE);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Lote recusado não deve continuar submetendo as fatias restantes")
+    void shouldStopSubmittingSlicesAfterRejection() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        executor.submit(() -> {
+            started.countDown();
+            return await(release);
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        executor.submit(() -> await(release));
+        AtomicInteger processed = new AtomicInteger();
+
+        assertThrows(ServerBusyException.class,
+                () -> executor.mapInParallel(IntStream.range(0, 50).boxed().toList(), item -> processed.incrementAndGet()));
+
+        assertEquals(1, executor.stats().rejected());
+        assertEquals(0, processed.get());
+    }
+
+    private static void sleepBriefly() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package br.com.management.api_library.service.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    @DisplayName("Deve recusar acima do limite e informar quando tentar de novo")
+    void shouldRejectOverLimit() {
+        RateLimiter limiter = new RateLimiter(true, Duration.ofSeconds(60), 100, now::get);
+
+        assertTrue(limiter.tryAcquire("login:ip", "1.1.1.1", 2).allowed());
+        assertTrue(limiter.tryAcquire("login:ip", "1.1.1.1", 2).allowed());
+        RateLimiter.Decision decision = limiter.tryAcquire("login:ip", "1.1.1.1", 2);
+
+        assertFalse(decision.allowed());
+        assertTrue(decision.retryAfterSeconds() >= 1 && decision.retryAfterSeconds() <= 61);
+        // Outra chave tem o próprio contador
+        assertTrue(limiter.tryAcquire("login:ip", "2.2.2.2", 2).allowed());
+        assertEquals(1, limiter.stats().rejected());
+    }
+
+    @Test
+    @DisplayName("A janela anterior deve pesar proporcionalmente ao tempo que ainda resta dela")
+    void shouldSlideOverPreviousWindow() {
+        RateLimiter limiter = new RateLimiter(true, Duration.ofSeconds(60), 100, now::get);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire("teste", "k", 10).allowed());
+        }
+
+        // Início da janela seguinte: as 10 anteriores ainda contam quase inteiras
+        now.addAndGet(Duration.ofSeconds(60).toNanos());
+        assertFalse(limiter.tryAcquire("teste", "k", 10).allowed());
+
+        // Na metade da janela, só metade das anteriores ainda pesa
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("teste", "k", 10).allowed());
+        }
+        assertFalse(limiter.tryAcquire("teste", "k", 10).allowed());
+    }
+
+    @Test
+    @DisplayName("Deve manter o número de chaves limitado quando elas mudam o tempo todo")
+    void shouldKeepKeysBounded() {
+        RateLimiter limiter = new RateLimiter(true, Duration.ofSeconds(60), 3, now::get);
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire("login:ip", "10.0.0." + i, 100);
+        }
+        // 3 chaves reais + o contador de transbordo da rota
+        assertTrue(limiter.stats().keys() <= 4);
+
+        // Depois de duas janelas sem uso, as chaves antigas dão lugar às novas
+        now.addAndGet(Duration.ofMinutes(3).toNanos());
+        limiter.tryAcquire("login:ip", "10.0.1.1", 100);
+        assertTrue(limiter.stats().keys() <= 2);
+    }
+
+    @Test
+    @DisplayName("Com o mapa cheio, deve varrer as chaves ociosas no máximo uma vez por janela")
+    void shouldSweepAtMostOncePerWindow() {
+        RateLimiter limiter = new RateLimiter(true, Duration.ofSeconds(60), 1, now::get);
+        limiter.tryAcquire("login:ip", "10.0.0.1", 100);
+
+        // Duas janelas depois, a primeira chave nova varre o mapa e ocupa a vaga da ociosa
+        now.addAndGet(Duration.ofMinutes(2).toNanos());
+        limiter.tryAcquire("login:ip", "10.0.0.2", 100);
+        assertEquals(1, limiter.stats().keys());
+
+        // Mapa cheio na mesma janela: a chave nova vai para o transbordo, sem outra varredura
+        limiter.tryAcquire("login:ip", "10.0.0.3", 100);
+        limiter.tryAcquire("login:ip", "10.0.0.4", 100);
+        assertEquals(2, limiter.stats().keys()); // 10.0.0.2 + transbordo
+
+        // Passada a janela, pode varrer de novo
+        now.addAndGet(Duration.ofMinutes(2).toNanos());
+        limiter.tryAcquire("login:ip", "10.0.0.5", 100);
+        assertEquals(1, limiter.stats().keys());
+    }
+
+    @Test
+    @DisplayName("Com o mapa cheio, cada limite deve ter o próprio contador de transbordo")
+    void shouldKeepOverflowPerLimitName() {
+        RateLimiter limiter = new RateLimiter(true, Duration.ofSeconds(60), 2, now::get);
+        limiter.tryAcquire("login:ip", "10.0.0.1", 100);
+        limiter.tryAcquire("login:ip", "10.0.0.2", 100);
+
+        assertTrue(limiter.tryAcquire("login:ip", "10.0.0.3", 1).allowed());
+        assertFalse(limiter.tryAcquire("login:ip", "10.0.0.4", 1).allowed()); // Divide o transbordo de "login:ip"
+        // "login:user" não herda o transbordo (nem o limite) dos IPs
+        assertTrue(limiter.tryAcquire("login:user", "erick", 1).allowed());
+    }
+
+    @Test
+    @DisplayName("Desligado, deve deixar tudo passar")
+    void shouldAllowEverythingWhenDisabled() {
+        RateLimiter limiter = new RateLimiter(false, Duration.ofSeconds(60), 100, now::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("teste", "k", 1).allowed());
+        }
+    }
+}